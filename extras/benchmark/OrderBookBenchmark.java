@@ -0,0 +1,105 @@
+import java.util.Random;
+
+import com.inghubs.brokerageapi.book.OrderBook;
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.OrderStatus;
+
+/**
+ * Microbenchmark of the resident order book: lookup, cancel, re-entry and amendments by order ID in a book holding
+ * ORDERS resting orders over LEVELS price levels per side. Every operation runs BATCH times per iteration on random
+ * orders; WARM_UP iterations are discarded and the average time per operation of the ITERATIONS measured ones is
+ * reported with its standard deviation, in the style of a JMH average-time run. Started by order-book-benchmark.sh.
+ */
+public class OrderBookBenchmark {
+    private static final int ORDERS = Integer.getInteger("orders", 1_000_000);
+    private static final int LEVELS = Integer.getInteger("levels", 500);
+    private static final int BATCH = Integer.getInteger("batch", 100_000);
+    private static final int WARM_UP = Integer.getInteger("warmUp", 5);
+    private static final int ITERATIONS = Integer.getInteger("iterations", 10);
+
+    private static final long[] PRICES = new long[2 * LEVELS];
+    private static final long[] SIZES = new long[100];
+    private static long blackhole;
+
+    public static void main(String[] args) {
+        for (int i = 0; i < PRICES.length; i++) {
+            PRICES[i] = 1000 + i; // Prices in units of 0.01; buys on the lower half, sells on the upper half
+        }
+        for (int i = 0; i < SIZES.length; i++) {
+            SIZES[i] = (i + 1) * 100L;
+        }
+        OrderBook book = new OrderBook(AssetCodes.GARAN, ORDERS);
+        Random random = new Random(42);
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < ORDERS; i++) {
+            add(book, i + 1, random);
+        }
+        System.out.printf("Loaded %,d orders over %d buy and %d sell levels in %d ms%n", book.size(),
+                          book.levelCount(OrderSide.BUY), book.levelCount(OrderSide.SELL), (System.nanoTime() - startNanos) / 1_000_000);
+        System.gc(); // Promote the book now, so no measured iteration pays for copying it
+        System.out.printf("%-28s %12s %10s%n", "Benchmark", "ns/op", "error");
+
+        long[] ids = new long[BATCH];
+        run("lookup", random, ids, () -> {
+            for (long id : ids) {
+                blackhole += book.customerId(id);
+            }
+        });
+        run("cancel + re-enter", random, ids, () -> {
+            for (long id : ids) {
+                long customerId = book.customerId(id);
+                OrderSide side = book.side(id);
+                long price = book.price(id);
+                long size = book.remainingSize(id);
+                book.remove(id);
+                book.add(id, customerId, side, price, size, OrderStatus.PENDING);
+            }
+        });
+        run("amend size (keep priority)", random, ids, () -> {
+            for (int i = 0; i < ids.length; i++) {
+                book.resize(ids[i], SIZES[i % SIZES.length], OrderStatus.PENDING);
+            }
+        });
+        run("amend price (requeue)", random, ids, () -> {
+            for (int i = 0; i < ids.length; i++) {
+                int offset = book.side(ids[i]) == OrderSide.BUY ? 0 : LEVELS;
+                book.requeue(ids[i], PRICES[offset + i % LEVELS], book.remainingSize(ids[i]));
+            }
+        });
+        System.out.printf("Book still holds %,d orders (%d)%n", book.size(), blackhole & 1);
+    }
+
+    private static void add(OrderBook book, long id, Random random) {
+        OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+        int level = random.nextInt(LEVELS) + (side == OrderSide.BUY ? 0 : LEVELS);
+        book.add(id, 1 + random.nextInt(10_000), side, PRICES[level], SIZES[random.nextInt(SIZES.length)], OrderStatus.PENDING);
+    }
+
+    /**
+     * Runs an operation over a fresh batch of random order IDs per iteration and prints the time per operation.
+     */
+    private static void run(String name, Random random, long[] ids, Runnable batch) {
+        double[] nanosPerOp = new double[ITERATIONS];
+        for (int iteration = -WARM_UP; iteration < ITERATIONS; iteration++) {
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = 1 + random.nextInt(ORDERS);
+            }
+            long startNanos = System.nanoTime();
+            batch.run();
+            long elapsedNanos = System.nanoTime() - startNanos;
+            if (iteration >= 0) {
+                nanosPerOp[iteration] = (double) elapsedNanos / ids.length;
+            }
+        }
+        double mean = 0;
+        for (double value : nanosPerOp) {
+            mean += value / ITERATIONS;
+        }
+        double variance = 0;
+        for (double value : nanosPerOp) {
+            variance += (value - mean) * (value - mean) / Math.max(1, ITERATIONS - 1);
+        }
+        System.out.printf("%-28s %12.1f %10.1f%n", name, mean, Math.sqrt(variance));
+    }
+}
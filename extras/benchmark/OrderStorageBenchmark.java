@@ -0,0 +1,229 @@
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.NotificationEmitter;
+
+import com.inghubs.brokerageapi.book.LongObjectMap;
+import com.inghubs.brokerageapi.book.OrderBook;
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.OrderStatus;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Compares the memory and garbage collection cost of holding ORDERS resting orders on the heap, one object per order
+ * with its own BigDecimal price and size as the book held them before, with the off-heap slab of {@link OrderBook}.
+ * MODE is heap or slab. After the load the benchmark reports the heap still in use and the direct memory after a
+ * full collection, and how long that collection paused; it then cancels and re-enters CHURN random orders and
+ * reports the collections that happened meanwhile. Started by order-storage-benchmark.sh.
+ */
+public class OrderStorageBenchmark {
+    private static final String MODE = System.getProperty("mode", "slab");
+    private static final int ORDERS = Integer.getInteger("orders", 1_000_000);
+    private static final int LEVELS = Integer.getInteger("levels", 500);
+    private static final int CHURN = Integer.getInteger("churn", 5_000_000);
+
+    private static final AtomicLong youngCount = new AtomicLong();
+    private static final AtomicLong youngMaxMillis = new AtomicLong();
+    private static final AtomicLong youngTotalMillis = new AtomicLong();
+    private static final AtomicLong fullCount = new AtomicLong();
+    private static final AtomicLong fullTotalMillis = new AtomicLong();
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        Storage storage = MODE.equals("heap") ? new HeapStorage() : new SlabStorage();
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < ORDERS; i++) {
+            storage.enter(i + 1, random);
+        }
+        long loadMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        System.gc(); // Promote the orders, so the full collection below traces the live set as it stays
+        startNanos = System.nanoTime();
+        System.gc();
+        long fullGcMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        long heapBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        System.out.printf("%s storage, %,d orders loaded in %,d ms%n", MODE, storage.size(), loadMillis);
+        System.out.printf("  heap used after full GC   %,10d MB%n", heapBytes >> 20);
+        System.out.printf("  direct memory             %,10d MB%n", directBytes() >> 20);
+        System.out.printf("  full GC pause             %,10d ms%n", fullGcMillis);
+
+        listenToCollections();
+        startNanos = System.nanoTime();
+        for (int i = 0; i < CHURN; i++) {
+            long id = 1 + random.nextInt(ORDERS);
+            storage.cancel(id);
+            storage.enter(id, random);
+        }
+        long churnNanos = System.nanoTime() - startNanos;
+        System.out.printf("  cancel + re-enter         %,10.0f ns/op over %,d ops%n", (double) churnNanos / CHURN, CHURN);
+        System.out.printf("  young GCs during churn    %,10d (max %d ms, total %d ms)%n", youngCount.get(),
+                          youngMaxMillis.get(), youngTotalMillis.get());
+        System.out.printf("  full GCs during churn     %,10d (total %d ms)%n", fullCount.get(), fullTotalMillis.get());
+    }
+
+    private static long directBytes() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Records the pause of every collection, as reported by the collector.
+     */
+    private static void listenToCollections() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                        (javax.management.openmbean.CompositeData) notification.getUserData());
+                long millis = info.getGcInfo().getDuration();
+                if (info.getGcAction().contains("minor")) {
+                    youngCount.incrementAndGet();
+                    youngTotalMillis.addAndGet(millis);
+                    youngMaxMillis.accumulateAndGet(millis, Math::max);
+                } else {
+                    fullCount.incrementAndGet();
+                    fullTotalMillis.addAndGet(millis);
+                }
+            }, null, null);
+        }
+    }
+
+    private static OrderSide side(Random random) {
+        return random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+    }
+
+    private static long price(OrderSide side, Random random) {
+        return 1000 + random.nextInt(LEVELS) + (side == OrderSide.BUY ? 0 : LEVELS);
+    }
+
+    private interface Storage {
+        void enter(long id, Random random);
+
+        void cancel(long id);
+
+        int size();
+    }
+
+    /**
+     * One object per order, linked into its level, with the price and size as BigDecimals read from the database.
+     */
+    private static class HeapStorage implements Storage {
+        private final LongObjectMap<HeapOrder> orders = new LongObjectMap<>(ORDERS);
+        private final HeapLevel[] levels = new HeapLevel[2 * LEVELS];
+
+        HeapStorage() {
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = new HeapLevel();
+            }
+        }
+
+        @Override
+        public void enter(long id, Random random) {
+            OrderSide side = side(random);
+            long price = price(side, random);
+            HeapOrder order = new HeapOrder(id, 1 + random.nextInt(10_000), side, BigDecimal.valueOf(price, 2),
+                                            BigDecimal.valueOf((1 + random.nextInt(100)) * 100L, 2), OrderStatus.PENDING);
+            orders.put(id, order);
+            levels[(int) price - 1000].append(order);
+        }
+
+        @Override
+        public void cancel(long id) {
+            HeapOrder order = orders.remove(id);
+            order.level.unlink(order);
+        }
+
+        @Override
+        public int size() {
+            return orders.size();
+        }
+    }
+
+    private static class HeapOrder {
+        final long id;
+        final long customerId;
+        final OrderSide side;
+        final BigDecimal price;
+        final BigDecimal size;
+        final OrderStatus status;
+        HeapLevel level;
+        HeapOrder previous;
+        HeapOrder next;
+
+        HeapOrder(long id, long customerId, OrderSide side, BigDecimal price, BigDecimal size, OrderStatus status) {
+            this.id = id;
+            this.customerId = customerId;
+            this.side = side;
+            this.price = price;
+            this.size = size;
+            this.status = status;
+        }
+    }
+
+    private static class HeapLevel {
+        HeapOrder head;
+        HeapOrder tail;
+        BigDecimal totalSize = BigDecimal.ZERO;
+
+        void append(HeapOrder order) {
+            order.level = this;
+            order.previous = tail;
+            if (tail == null) {
+                head = order;
+            } else {
+                tail.next = order;
+            }
+            tail = order;
+            totalSize = totalSize.add(order.size);
+        }
+
+        void unlink(HeapOrder order) {
+            if (order.previous == null) {
+                head = order.next;
+            } else {
+                order.previous.next = order.next;
+            }
+            if (order.next == null) {
+                tail = order.previous;
+            } else {
+                order.next.previous = order.previous;
+            }
+            order.previous = null;
+            order.next = null;
+            totalSize = totalSize.subtract(order.size);
+        }
+    }
+
+    /**
+     * The resident order book: records in direct buffers, a primitive index on the heap.
+     */
+    private static class SlabStorage implements Storage {
+        private final OrderBook book = new OrderBook(AssetCodes.GARAN, ORDERS);
+
+        @Override
+        public void enter(long id, Random random) {
+            OrderSide side = side(random);
+            book.add(id, 1 + random.nextInt(10_000), side, price(side, random), (1 + random.nextInt(100)) * 100L,
+                     OrderStatus.PENDING);
+        }
+
+        @Override
+        public void cancel(long id) {
+            book.remove(id);
+        }
+
+        @Override
+        public int size() {
+            return book.size();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.inghubs.brokerageapi.book.BookSnapshot;
+import com.inghubs.brokerageapi.book.FillBuffer;
+import com.inghubs.brokerageapi.book.LevelSnapshot;
+import com.inghubs.brokerageapi.book.OrderBook;
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.OrderStatus;
+
+/**
+ * Matching throughput of one book while concurrent readers query it, for 0, 8 and 64 readers.
+ * A matching thread runs rounds of one crossing buy order, one new sell order and a match, under the lock of the
+ * book, as ResidentOrderBooks applies changes. Every reader repeatedly reads the 10 best levels of both sides and
+ * estimates a fill, then pauses READER_PAUSE_MICROS. Readers get their consistent view in one of three ways:
+ * <ul>
+ *     <li>interval: from the snapshot a publisher thread publishes every INTERVAL_MILLIS, without a lock;</li>
+ *     <li>on-change: from the snapshot the matching thread publishes after every round, without a lock;</li>
+ *     <li>locked: by holding the book lock for the whole query, as a consistent read of the live book would.</li>
+ * </ul>
+ * Each configuration runs WARM_UP_SECONDS, then DURATION_SECONDS measured. Started by snapshot-reader-benchmark.sh.
+ */
+public class SnapshotReaderBenchmark {
+    private static final int ORDERS = Integer.getInteger("orders", 100_000);
+    private static final int LEVELS = Integer.getInteger("levels", 500);
+    private static final int INTERVAL_MILLIS = Integer.getInteger("intervalMillis", 100);
+    private static final int READER_PAUSE_MICROS = Integer.getInteger("readerPauseMicros", 1000);
+    private static final int WARM_UP_SECONDS = Integer.getInteger("warmUpSeconds", 2);
+    private static final int DURATION_SECONDS = Integer.getInteger("durationSeconds", 5);
+    private static final int[] READERS = {0, 8, 64};
+    private static final String[] MODES = {"interval", "on-change", "locked"};
+
+    private static volatile long blackhole;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%,d resting orders over %d levels per side, readers pause %d us between queries%n",
+                          ORDERS, LEVELS, READER_PAUSE_MICROS);
+        System.out.printf("%-10s %8s %14s %14s %14s%n", "Mode", "Readers", "fills/s", "reads/s", "publishes/s");
+        for (String mode : MODES) {
+            for (int readers : READERS) {
+                run(mode, readers);
+            }
+        }
+    }
+
+    private static void run(String mode, int readerCount) throws InterruptedException {
+        OrderBook book = new OrderBook(AssetCodes.GARAN, 2 * ORDERS);
+        Random random = new Random(42);
+        long[] nextOrderId = {1};
+        for (int i = 0; i < ORDERS; i++) {
+            boolean buy = random.nextBoolean();
+            book.add(nextOrderId[0]++, 1 + random.nextInt(10_000), buy ? OrderSide.BUY : OrderSide.SELL,
+                     (buy ? 1000 : 1000 + LEVELS) + random.nextInt(LEVELS), size(random), OrderStatus.PENDING);
+        }
+        AtomicReference<BookSnapshot> published = new AtomicReference<>(book.snapshot(Instant.now()));
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        LongAdder fills = new LongAdder();
+        LongAdder reads = new LongAdder();
+        LongAdder publishes = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+
+        threads.add(new Thread(() -> {
+            FillBuffer buffer = new FillBuffer(64);
+            while (running.get()) {
+                int matched;
+                synchronized (book) {
+                    long size = size(random);
+                    book.add(nextOrderId[0]++, 0, OrderSide.BUY, 1000 + 2 * LEVELS, size, OrderStatus.PENDING);
+                    book.add(nextOrderId[0]++, 1 + random.nextInt(10_000), OrderSide.SELL,
+                             1000 + LEVELS + random.nextInt(LEVELS), size, OrderStatus.PENDING);
+                    buffer.clear();
+                    matched = book.match(buffer);
+                    if (mode.equals("on-change")) {
+                        published.set(book.snapshot(Instant.now()));
+                        count(measuring, publishes, 1);
+                    }
+                }
+                count(measuring, fills, matched);
+            }
+        }, "matching"));
+        if (mode.equals("interval")) {
+            threads.add(new Thread(() -> {
+                while (running.get()) {
+                    synchronized (book) {
+                        published.set(book.snapshot(Instant.now()));
+                    }
+                    count(measuring, publishes, 1);
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(INTERVAL_MILLIS));
+                }
+            }, "publisher"));
+        }
+        for (int i = 0; i < readerCount; i++) {
+            threads.add(new Thread(() -> {
+                while (running.get()) {
+                    if (mode.equals("locked")) {
+                        synchronized (book) {
+                            blackhole += query(book.snapshot(Instant.now()));
+                        }
+                    } else {
+                        blackhole += query(published.get());
+                    }
+                    count(measuring, reads, 1);
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(READER_PAUSE_MICROS));
+                }
+            }, "reader-" + i));
+        }
+
+        threads.forEach(Thread::start);
+        TimeUnit.SECONDS.sleep(WARM_UP_SECONDS);
+        measuring.set(true);
+        TimeUnit.SECONDS.sleep(DURATION_SECONDS);
+        measuring.set(false);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.printf("%-10s %8d %,14d %,14d %,14d%n", mode, readerCount, fills.sum() / DURATION_SECONDS,
+                          reads.sum() / DURATION_SECONDS, publishes.sum() / DURATION_SECONDS);
+    }
+
+    /**
+     * Reads the 10 best levels of both sides and estimates a buy order, as the depth and estimate endpoints do.
+     */
+    private static long query(BookSnapshot snapshot) {
+        long total = 0;
+        for (OrderSide side : OrderSide.values()) {
+            for (LevelSnapshot level : snapshot.levels(side, 10)) {
+                total += level.getTotalSize();
+            }
+        }
+        return total + snapshot.estimateFill(1, OrderSide.BUY, OrderBook.MISSING, 100_000).getFilledSize();
+    }
+
+    private static void count(AtomicBoolean measuring, LongAdder counter, long amount) {
+        if (measuring.get()) {
+            counter.add(amount);
+        }
+    }
+
+    private static long size(Random random) {
+        return (1 + random.nextInt(100)) * 100L;
+    }
+}
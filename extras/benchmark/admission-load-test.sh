@@ -0,0 +1,116 @@
+#!/usr/bin/env bash
+# Load test of admission control: cancel latency while reads saturate the service.
+# The application is started twice, with admission control on and off (rate limiting off both times). One customer
+# gets ORDERS trade orders so that listing them is expensive, READERS clients list them in a loop for DURATION
+# seconds, and one client places and cancels orders one at a time. Cancel latency, read throughput and the number
+# of shed reads (503) are reported for both runs. Requires curl and python3; run from the repository root.
+#
+#   extras/benchmark/admission-load-test.sh [ORDERS] [READERS] [DURATION]
+set -euo pipefail
+
+ORDERS=${1:-2000}
+READERS=${2:-32}
+DURATION=${3:-30}
+PORT=${PORT:-8089}
+BASE="http://localhost:${PORT}"
+JAR=$(ls target/brokerageapi-*.jar 2>/dev/null | grep -v original | head -1 || true)
+
+if [ -z "$JAR" ]; then
+    ./mvnw -q -B package -DskipTests
+    JAR=$(ls target/brokerageapi-*.jar | grep -v original | head -1)
+fi
+
+json() { python3 -c "import sys,json;print(json.load(sys.stdin)$1)"; }
+
+run() {
+    java -jar "$JAR" --server.port="$PORT" --logging.level.com.inghubs=WARN --application.rate-limit.enabled=false \
+        --application.admission.enabled="$1" > target/admission-load-test.log 2>&1 &
+    PID=$!
+    trap "kill $PID 2>/dev/null || true" EXIT
+    until curl -sf "$BASE/actuator/health" > /dev/null; do sleep 0.5; done
+
+    CUSTOMER=$(curl -s -XPOST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+        -d '{"username":"load-customer","password":"password1","roles":["CUSTOMER"]}')
+    CUSTOMER_ID=$(echo "$CUSTOMER" | json '["customerId"]')
+    CUSTOMER=$(echo "$CUSTOMER" | json '["token"]')
+
+    echo "admission control enabled=$1"
+    BASE="$BASE" CUSTOMER="$CUSTOMER" CUSTOMER_ID="$CUSTOMER_ID" ORDERS="$ORDERS" READERS="$READERS" DURATION="$DURATION" \
+    python3 - <<'PY'
+import json, os, threading, time, urllib.error, urllib.request
+
+base, customer = os.environ["BASE"], os.environ["CUSTOMER"]
+customer_id, orders = int(os.environ["CUSTOMER_ID"]), int(os.environ["ORDERS"])
+readers, duration = int(os.environ["READERS"]), float(os.environ["DURATION"])
+
+def call(method, path, body=None):
+    data = json.dumps(body).encode() if body is not None else None
+    request = urllib.request.Request(base + path, data=data, method=method,
+                                     headers={"Authorization": "Bearer " + customer, "Content-Type": "application/json"})
+    try:
+        with urllib.request.urlopen(request) as response:
+            return response.status, response.read()
+    except urllib.error.HTTPError as e:
+        return e.code, e.read()
+
+call("POST", "/api/transactions", {"customer": {"id": customer_id}, "type": "DEPOSIT", "amount": orders * 2})
+remaining = orders
+while remaining > 0:
+    chunk = min(remaining, 1000)
+    call("POST", "/api/tradeOrders/bulk",
+         {"customerId": customer_id, "orders": [{"assetCode": "GARAN", "side": "BUY", "size": 1, "price": 1}] * chunk})
+    remaining -= chunk
+
+listing = "/api/tradeOrders?customerId=%d&startDate=2000-01-01T00:00:00&endDate=2100-01-01T00:00:00&size=%d" % (customer_id, orders)
+deadline = 0
+reads = {"ok": 0, "shed": 0}
+lock = threading.Lock()
+
+def read():
+    while time.monotonic() < deadline:
+        status, _ = call("GET", listing)
+        with lock:
+            reads["ok" if status == 200 else "shed"] += 1
+        if status == 503:
+            time.sleep(0.05)
+
+def percentile(values, p):
+    return values[min(len(values) - 1, int(len(values) * p / 100))] if values else float("nan")
+
+def cancel_latencies(seconds):
+    cancels, failed = [], 0
+    until = time.monotonic() + seconds
+    while time.monotonic() < until:
+        status, body = call("POST", "/api/tradeOrders", {"customerId": customer_id, "assetCode": "GARAN", "side": "BUY", "size": 1, "price": 1})
+        if status != 201:
+            failed += 1
+            continue
+        start = time.perf_counter()
+        status, _ = call("DELETE", "/api/tradeOrders/%d" % json.loads(body)["id"])
+        if status == 200:
+            cancels.append((time.perf_counter() - start) * 1000)
+        else:
+            failed += 1
+    cancels.sort()
+    print("  %d cancels, p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms, %d failed"
+          % (len(cancels), percentile(cancels, 50), percentile(cancels, 90), percentile(cancels, 99),
+             cancels[-1] if cancels else float("nan"), failed))
+
+print("  idle:", end="")
+cancel_latencies(5)
+deadline = time.monotonic() + duration
+threads = [threading.Thread(target=read) for _ in range(readers)]
+for thread in threads:
+    thread.start()
+time.sleep(2)  # Let the reads saturate the service
+print("  reads saturating:", end="")
+cancel_latencies(deadline - time.monotonic())
+for thread in threads:
+    thread.join()
+print("  reads: %.1f req/s, %d shed" % (reads["ok"] / duration, reads["shed"]))
+PY
+    kill $PID; wait $PID 2>/dev/null || true
+}
+
+run false
+run true
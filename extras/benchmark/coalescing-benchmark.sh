@@ -0,0 +1,90 @@
+#!/usr/bin/env bash
+# Thundering-herd test of read coalescing: database query rate with coalescing off and on.
+# The application is started twice, with rate limiting and admission control off. CUSTOMERS customers get a few
+# deposits, then CLIENTS clients per customer call the asset and transaction listings of their customer at the same
+# moment, ROUNDS times. The listing queries (coalescing.requests with result=load), all SQL statements
+# (jdbc.statements, which include the user lookup of every request) and the request rate are reported.
+# Requires curl and python3; run from the repository root.
+#
+#   extras/benchmark/coalescing-benchmark.sh [CUSTOMERS] [CLIENTS] [ROUNDS]
+set -euo pipefail
+
+CUSTOMERS=${1:-5}
+CLIENTS=${2:-20}
+ROUNDS=${3:-50}
+PORT=${PORT:-8089}
+BASE="http://localhost:${PORT}"
+JAR=$(ls target/brokerageapi-*.jar 2>/dev/null | grep -v original | head -1 || true)
+
+if [ -z "$JAR" ]; then
+    ./mvnw -q -B package -DskipTests
+    JAR=$(ls target/brokerageapi-*.jar | grep -v original | head -1)
+fi
+
+json() { python3 -c "import sys,json;print(json.load(sys.stdin)$1)"; }
+
+run() {
+    java -jar "$JAR" --server.port="$PORT" --logging.level.com.inghubs=WARN --application.rate-limit.enabled=false \
+        --application.admission.enabled=false --application.coalescing.enabled="$1" > target/coalescing-benchmark.log 2>&1 &
+    PID=$!
+    trap "kill $PID 2>/dev/null || true" EXIT
+    until curl -sf "$BASE/actuator/health" > /dev/null; do sleep 0.5; done
+
+    ADMIN=$(curl -s -XPOST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+        -d '{"username":"herd-admin","password":"password1","roles":["ADMIN"]}' | json '["token"]')
+
+    echo "coalescing enabled=$1"
+    BASE="$BASE" ADMIN="$ADMIN" CUSTOMERS="$CUSTOMERS" CLIENTS="$CLIENTS" ROUNDS="$ROUNDS" python3 - <<'PY'
+import json, os, threading, time, urllib.request
+
+base, admin = os.environ["BASE"], os.environ["ADMIN"]
+customers, clients, rounds = int(os.environ["CUSTOMERS"]), int(os.environ["CLIENTS"]), int(os.environ["ROUNDS"])
+
+def call(method, path, token, body=None):
+    data = json.dumps(body).encode() if body is not None else None
+    request = urllib.request.Request(base + path, data=data, method=method,
+                                     headers={"Authorization": "Bearer " + token, "Content-Type": "application/json",
+                                              "X-Server-Timing": "false"})
+    with urllib.request.urlopen(request) as response:
+        return response.read()
+
+def counter(name, tag=None):
+    body = json.loads(call("GET", "/actuator/metrics/" + name + ("?tag=" + tag if tag else ""), admin))
+    return body["measurements"][0]["value"]
+
+def listing_loads():
+    return counter("coalescing.requests", "result:load")
+
+accounts = []
+for i in range(customers):
+    registered = json.loads(call("POST", "/api/auth/register", "", {"username": "herd-%d" % i, "password": "password1", "roles": ["CUSTOMER"]}))
+    for _ in range(20):
+        call("POST", "/api/transactions", registered["token"], {"customer": {"id": registered["customerId"]}, "type": "DEPOSIT", "amount": 10})
+    accounts.append((registered["token"], registered["customerId"]))
+
+barrier = threading.Barrier(customers * clients)
+
+def herd(token, customer_id):
+    for _ in range(rounds):
+        barrier.wait()  # Every client fires at the same moment
+        call("GET", "/api/assets?customerId=%d" % customer_id, token)
+        call("GET", "/api/transactions?customerId=%d" % customer_id, token)
+
+threads = [threading.Thread(target=herd, args=account) for account in accounts for _ in range(clients)]
+loads, statements, start = listing_loads(), counter("jdbc.statements"), time.perf_counter()
+for thread in threads:
+    thread.start()
+for thread in threads:
+    thread.join()
+seconds = time.perf_counter() - start
+loads, statements = listing_loads() - loads, counter("jdbc.statements") - statements
+requests = customers * clients * rounds * 2
+print("  %d requests in %.1f s: %.1f req/s" % (requests, seconds, requests / seconds))
+print("  listing queries: %d (%.1f/s, %.3f per request)" % (loads, loads / seconds, loads / requests))
+print("  all SQL statements: %d (%.1f/s, %.2f per request)" % (statements, statements / seconds, statements / requests))
+PY
+    kill $PID; wait $PID 2>/dev/null || true
+}
+
+run false
+run true
@@ -0,0 +1,83 @@
+#!/usr/bin/env bash
+# Measures throughput and allocation per request of the listing endpoints on large result sets.
+# The application is started, one customer gets ORDERS trade orders and TRANSACTIONS deposits, and every listing
+# endpoint is called REQUESTS times from CONCURRENCY clients. Allocation is read from the jvm.threads.allocated
+# counter before and after each endpoint. Requires curl and python3; run from the repository root.
+#
+#   extras/benchmark/listing-benchmark.sh [ORDERS] [TRANSACTIONS] [REQUESTS] [CONCURRENCY]
+set -euo pipefail
+
+ORDERS=${1:-5000}
+TRANSACTIONS=${2:-2000}
+REQUESTS=${3:-200}
+CONCURRENCY=${4:-4}
+PORT=${PORT:-8089}
+BASE="http://localhost:${PORT}"
+JAR=$(ls target/brokerageapi-*.jar 2>/dev/null | grep -v original | head -1 || true)
+
+if [ -z "$JAR" ]; then
+    ./mvnw -q -B package -DskipTests
+    JAR=$(ls target/brokerageapi-*.jar | grep -v original | head -1)
+fi
+
+json() { python3 -c "import sys,json;print(json.load(sys.stdin)$1)"; }
+
+java -jar "$JAR" --server.port="$PORT" --logging.level.com.inghubs=WARN > target/listing-benchmark.log 2>&1 &
+PID=$!
+trap "kill $PID 2>/dev/null || true" EXIT
+until curl -sf "$BASE/actuator/health" > /dev/null; do sleep 0.5; done
+
+ADMIN=$(curl -s -XPOST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+    -d '{"username":"bench-admin","password":"password1","roles":["ADMIN"]}' | json '["token"]')
+CUSTOMER=$(curl -s -XPOST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+    -d '{"username":"bench-customer","password":"password1","roles":["CUSTOMER"]}')
+CUSTOMER_ID=$(echo "$CUSTOMER" | json '["customerId"]')
+CUSTOMER=$(echo "$CUSTOMER" | json '["token"]')
+
+BASE="$BASE" ADMIN="$ADMIN" CUSTOMER="$CUSTOMER" CUSTOMER_ID="$CUSTOMER_ID" ORDERS="$ORDERS" TRANSACTIONS="$TRANSACTIONS" \
+REQUESTS="$REQUESTS" CONCURRENCY="$CONCURRENCY" python3 - <<'PY'
+import json, os, time, urllib.request
+from concurrent.futures import ThreadPoolExecutor
+
+base, admin, customer = os.environ["BASE"], os.environ["ADMIN"], os.environ["CUSTOMER"]
+customer_id = int(os.environ["CUSTOMER_ID"])
+orders, transactions = int(os.environ["ORDERS"]), int(os.environ["TRANSACTIONS"])
+requests, concurrency = int(os.environ["REQUESTS"]), int(os.environ["CONCURRENCY"])
+
+def call(method, path, token, body=None):
+    data = json.dumps(body).encode() if body is not None else None
+    request = urllib.request.Request(base + path, data=data, method=method,
+                                     headers={"Authorization": "Bearer " + token, "Content-Type": "application/json",
+                                              "X-Server-Timing": "false"})
+    with urllib.request.urlopen(request) as response:
+        return response.read()
+
+def allocated():
+    body = json.loads(call("GET", "/actuator/metrics/jvm.threads.allocated", admin))
+    return body["measurements"][0]["value"]
+
+for _ in range(transactions):
+    call("POST", "/api/transactions", customer, {"customer": {"id": customer_id}, "type": "DEPOSIT", "amount": orders})
+remaining = orders
+while remaining > 0:
+    chunk = min(remaining, 1000)
+    call("POST", "/api/tradeOrders/bulk", customer,
+         {"customerId": customer_id, "orders": [{"assetCode": "GARAN", "side": "BUY", "size": 1, "price": 1}] * chunk})
+    remaining -= chunk
+
+endpoints = [
+    ("assets", "/api/assets?customerId=%d" % customer_id),
+    ("transactions", "/api/transactions?customerId=%d" % customer_id),
+    ("tradeOrders", "/api/tradeOrders?customerId=%d&startDate=2000-01-01T00:00:00&endDate=2100-01-01T00:00:00&size=%d"
+     % (customer_id, orders)),
+]
+print("%-13s %7s %9s %12s" % ("endpoint", "rows", "req/s", "KB/request"))
+with ThreadPoolExecutor(concurrency) as pool:
+    for name, path in endpoints:
+        rows = len(json.loads(call("GET", path, customer)))
+        list(pool.map(lambda _: call("GET", path, customer), range(min(requests, 20))))  # Warm-up
+        before, start = allocated(), time.perf_counter()
+        list(pool.map(lambda _: call("GET", path, customer), range(requests)))
+        seconds, after = time.perf_counter() - start, allocated()
+        print("%-13s %7d %9.1f %12.1f" % (name, rows, requests / seconds, (after - before) / requests / 1024))
+PY
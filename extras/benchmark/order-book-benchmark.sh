@@ -0,0 +1,17 @@
+#!/usr/bin/env bash
+# Microbenchmark of cancel and amend by order ID in the resident order book, at ORDERS resting orders.
+# OrderBookBenchmark.java is run as a single-file program against the compiled classes, with a fixed heap so the
+# run is not dominated by heap resizing. Prints the average time per operation and its standard deviation.
+# Requires a JDK 17; run from the repository root.
+#
+#   extras/benchmark/order-book-benchmark.sh [ORDERS] [LEVELS]
+set -euo pipefail
+
+ORDERS=${1:-1000000}
+LEVELS=${2:-500}
+
+if [ ! -d target/classes/com/inghubs/brokerageapi/book ]; then
+    ./mvnw -q -B compile
+fi
+java -Xms1g -Xmx1g -XX:+UseParallelGC -Dorders="$ORDERS" -Dlevels="$LEVELS" -cp target/classes \
+    extras/benchmark/OrderBookBenchmark.java
@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+# Heap and garbage collection cost of the resident orders, held as heap objects or in the off-heap slab of the
+# order book. OrderStorageBenchmark.java is run as a single-file program against the compiled classes, once per mode
+# and order count. Prints the heap and direct memory in use after a full collection, its pause, and the young
+# collections while orders are canceled and re-entered.
+# Requires a JDK 17; run from the repository root. The heap mode runs with a HEAP_MODE_HEAP heap and fails with an
+# OutOfMemoryError at counts that do not fit; the slab mode needs a heap only for its index.
+#
+#   extras/benchmark/order-storage-benchmark.sh [ORDER_COUNTS...]
+set -uo pipefail
+
+COUNTS=${*:-1000000 10000000 50000000}
+HEAP_MODE_HEAP=${HEAP_MODE_HEAP:-3g}
+SLAB_MODE_HEAP=${SLAB_MODE_HEAP:-1536m}
+DIRECT=${DIRECT:-3g}
+
+if [ ! -d target/classes/com/inghubs/brokerageapi/book ]; then
+    ./mvnw -q -B compile
+fi
+for orders in $COUNTS; do
+    for mode in heap slab; do
+        heap=$HEAP_MODE_HEAP
+        if [ "$mode" = slab ]; then
+            heap=$SLAB_MODE_HEAP
+        fi
+        java -Xms"$heap" -Xmx"$heap" -XX:MaxDirectMemorySize="$DIRECT" -XX:+UseParallelGC \
+            -Dmode="$mode" -Dorders="$orders" -cp target/classes extras/benchmark/OrderStorageBenchmark.java 2>&1 \
+            | grep -v '^\s*at ' || true
+        echo
+    done
+done
@@ -0,0 +1,111 @@
+#!/usr/bin/env bash
+# Records an order flow in the command journal and replays it deterministically, reporting replay throughput.
+# The application is started with the journal enabled. CUSTOMERS customers deposit TRY and buy shares from the
+# seeded sell orders. A single client then sends ORDERS random orders, cancels every tenth one, matches every
+# MATCH_EVERY orders and finally mass cancels the open orders of some customers. The journal is then replayed twice
+# with the replay profile; both replays must report no mismatches and the same digest.
+# Requires curl and python3; run from the repository root.
+#
+#   extras/benchmark/replay-benchmark.sh [CUSTOMERS] [ORDERS] [MATCH_EVERY]
+set -euo pipefail
+
+CUSTOMERS=${1:-20}
+ORDERS=${2:-2000}
+MATCH_EVERY=${3:-50}
+PORT=${PORT:-8089}
+BASE="http://localhost:${PORT}"
+JOURNAL=target/replay-journal.jsonl
+JAR=$(ls target/brokerageapi-*.jar 2>/dev/null | grep -v original | head -1 || true)
+
+if [ -z "$JAR" ]; then
+    ./mvnw -q -B package -DskipTests
+    JAR=$(ls target/brokerageapi-*.jar | grep -v original | head -1)
+fi
+
+json() { python3 -c "import sys,json;print(json.load(sys.stdin)$1)"; }
+
+rm -f "$JOURNAL"
+java -jar "$JAR" --server.port="$PORT" --logging.level.com.inghubs=WARN --application.warm-up.enabled=false \
+    --application.replay.journal.enabled=true --application.replay.journal.file="$JOURNAL" \
+    --application.rate-limit.enabled=false > target/replay-benchmark.log 2>&1 &
+PID=$!
+trap "kill $PID 2>/dev/null || true" EXIT
+until curl -sf "$BASE/actuator/health" > /dev/null; do sleep 0.5; done
+
+ADMIN=$(curl -s -XPOST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+    -d '{"username":"bench-admin","password":"password1","roles":["ADMIN"]}' | json '["token"]')
+
+BASE="$BASE" ADMIN="$ADMIN" CUSTOMERS="$CUSTOMERS" ORDERS="$ORDERS" MATCH_EVERY="$MATCH_EVERY" python3 -u - <<'PY'
+import json, os, random, time, urllib.error, urllib.request
+
+base, admin = os.environ["BASE"], os.environ["ADMIN"]
+customers, orders, match_every = int(os.environ["CUSTOMERS"]), int(os.environ["ORDERS"]), int(os.environ["MATCH_EVERY"])
+random.seed(7)
+
+def call(method, path, token, body=None):
+    data = json.dumps(body).encode() if body is not None else None
+    request = urllib.request.Request(base + path, data=data, method=method,
+                                     headers={"Authorization": "Bearer " + token, "Content-Type": "application/json"})
+    try:
+        with urllib.request.urlopen(request) as response:
+            content = response.read()
+            return response.status, json.loads(content) if content else None
+    except urllib.error.HTTPError as e:
+        return e.code, None
+
+def match():
+    call("POST", "/api/tradeMatcher/match", admin)
+
+accounts = []
+for i in range(customers):
+    request = urllib.request.Request(base + "/api/auth/register", method="POST",
+                                     data=json.dumps({"username": "replay-%d" % i, "password": "password1",
+                                                      "roles": ["CUSTOMER"]}).encode(),
+                                     headers={"Content-Type": "application/json"})
+    with urllib.request.urlopen(request) as response:
+        body = json.loads(response.read())
+    accounts.append((body["customerId"], body["token"]))
+    call("POST", "/api/transactions", body["token"], {"customer": {"id": body["customerId"]}, "type": "DEPOSIT", "amount": 1000000})
+time.sleep(1)  # Deposits may be applied asynchronously
+for customer_id, token in accounts:
+    for asset in ("GARAN", "ING", "SASA"):
+        call("POST", "/api/tradeOrders", token,
+             {"customerId": customer_id, "assetCode": asset, "side": "BUY", "size": 100, "price": 20})
+match()
+
+accepted = rejected = 0
+start = time.perf_counter()
+for i in range(orders):
+    customer_id, token = random.choice(accounts)
+    side = random.choice(["BUY", "SELL"])
+    status, body = call("POST", "/api/tradeOrders", token,
+                        {"customerId": customer_id, "assetCode": random.choice(["GARAN", "ING", "SASA"]), "side": side,
+                         "size": random.randint(1, 20), "price": random.randint(1800, 2200) / 100})
+    if status == 201:
+        accepted += 1
+        if i % 10 == 0:
+            call("DELETE", "/api/tradeOrders/%d" % body["id"], token)
+    else:
+        rejected += 1
+    if (i + 1) % match_every == 0:
+        match()
+for customer_id, token in accounts[:customers // 4]:
+    call("DELETE", "/api/tradeOrders?customerId=%d&side=BUY" % customer_id, token)
+match()
+print("Recorded %d accepted and %d rejected orders in %.1f s" % (accepted, rejected, time.perf_counter() - start))
+PY
+
+kill $PID; wait $PID 2>/dev/null || true
+echo "Journal: $(wc -l < "$JOURNAL") commands"
+
+DIGESTS=()
+for run in 1 2; do
+    set +e
+    java -jar "$JAR" --spring.profiles.active=replay --application.replay.file="$JOURNAL" > target/replay-benchmark-$run.log 2>&1
+    CODE=$?
+    set -e
+    REPORT=$(grep -o 'Replay report: .*' target/replay-benchmark-$run.log | cut -d' ' -f3-)
+    echo "Replay $run (exit code $CODE): $REPORT"
+    DIGESTS+=("$(echo "$REPORT" | json '["digest"]')")
+done
+[ "${DIGESTS[0]}" = "${DIGESTS[1]}" ] && echo "Digests match" || echo "Digests differ"
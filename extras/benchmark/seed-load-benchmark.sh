@@ -0,0 +1,100 @@
+#!/usr/bin/env bash
+# Measures how fast the bulk seed loader ingests a large dataset.
+# A consistent dataset of CUSTOMERS customers (user, TRY and share balances, one deposit each) and ORDERS trade orders
+# is generated under target/seed, together with a small dataset in target/seed/broken whose locked balance does not
+# match its open orders. The application is started with target/seed as seed directory, the dataset is loaded
+# through /api/admin/seed and a seeded customer logs in and lists its assets; loading the broken dataset must be
+# rejected. Requires curl and python3; run from the repository root. Set JAVA_OPTS to give a large load more heap.
+#
+#   extras/benchmark/seed-load-benchmark.sh [CUSTOMERS] [ORDERS]
+set -euo pipefail
+
+CUSTOMERS=${1:-100000}
+ORDERS=${2:-1000000}
+PORT=${PORT:-8089}
+BASE="http://localhost:${PORT}"
+SEED_DIR=target/seed
+JAR=$(ls target/brokerageapi-*.jar 2>/dev/null | grep -v original | head -1 || true)
+
+if [ -z "$JAR" ]; then
+    ./mvnw -q -B package -DskipTests
+    JAR=$(ls target/brokerageapi-*.jar | grep -v original | head -1)
+fi
+
+json() { python3 -c "import sys,json;print(json.load(sys.stdin)$1)"; }
+
+rm -rf "$SEED_DIR"
+SEED_DIR="$SEED_DIR" CUSTOMERS="$CUSTOMERS" ORDERS="$ORDERS" python3 - <<'PY'
+import os, random, time
+
+# BCrypt hash of "password1"
+PASSWORD = "$2a$10$.W440Qof7Kpc2vRoQlqb8OhgXilzGffvnIH7rnJwhqnIMSFKgQSa."
+SHARES = ["GARAN", "ING", "SASA"]
+FREE_CASH, FREE_SHARES = 1000000, 1000  # Usable balances on top of what the open orders lock
+
+def generate(directory, prefix, customers, orders, corrupt=False):
+    os.makedirs(directory, exist_ok=True)
+    random.seed(42)
+    locked_cents = [0] * (customers + 1)  # TRY locked by open BUY orders, in cents
+    locked_shares = [{share: 0 for share in SHARES} for _ in range(customers + 1)]
+    with open(os.path.join(directory, "orders.csv"), "w") as out:
+        out.write("customer_id,asset_code,side,size,price,status,create_date\n")
+        for i in range(orders):
+            customer = i % customers + 1
+            share, size, price_cents = SHARES[i % 3], random.randint(1, 100), random.randint(1000, 3000)
+            side = "BUY" if i % 2 == 0 else "SELL"
+            status = "FILLED" if i % 10 == 9 else "PENDING"
+            if status == "PENDING" and side == "BUY":
+                locked_cents[customer] += size * price_cents
+            elif status == "PENDING":
+                locked_shares[customer][share] += size
+            out.write("%d,%s,%s,%d,%d.%02d,%s,2024-10-23 17:%02d:%02d\n"
+                      % (customer, share, side, size, price_cents // 100, price_cents % 100, status, i // 60 % 60, i % 60))
+    with open(os.path.join(directory, "customers.csv"), "w") as out:
+        out.write("id,enabled\n")
+        out.writelines("%d,true\n" % c for c in range(1, customers + 1))
+    with open(os.path.join(directory, "users.csv"), "w") as out:
+        out.write("id,username,password,customer_id,role\n")
+        out.writelines("%d,%s%d,%s,%d,CUSTOMER\n" % (c, prefix, c, PASSWORD, c) for c in range(1, customers + 1))
+    with open(os.path.join(directory, "assets.csv"), "w") as out, \
+         open(os.path.join(directory, "transactions.csv"), "w") as deposits:
+        out.write("customer_id,asset_code,size,usable_size\n")
+        deposits.write("customer_id,type,amount,iban,timestamp,status\n")
+        for c in range(1, customers + 1):
+            cents = FREE_CASH * 100 + locked_cents[c]
+            usable = FREE_CASH + (1 if corrupt and c == 1 else 0)
+            out.write("%d,TRY,%d.%02d,%d.00\n" % (c, cents // 100, cents % 100, usable))
+            for share in SHARES:
+                out.write("%d,%s,%d.00,%d.00\n" % (c, share, FREE_SHARES + locked_shares[c][share], FREE_SHARES))
+            deposits.write("%d,DEPOSIT,%d.%02d,,2024-10-23 17:00:00,PROCESSED\n" % (c, cents // 100, cents % 100))
+
+start = time.perf_counter()
+seed_dir, customers, orders = os.environ["SEED_DIR"], int(os.environ["CUSTOMERS"]), int(os.environ["ORDERS"])
+generate(seed_dir, "seed-", customers, orders)
+generate(os.path.join(seed_dir, "broken"), "broken-", 10, 100, corrupt=True)
+size = sum(os.path.getsize(os.path.join(seed_dir, f)) for f in os.listdir(seed_dir) if f.endswith(".csv"))
+print("Generated %d customers and %d orders (%.0f MB of CSV) in %.1f s"
+      % (customers, orders, size / 1e6, time.perf_counter() - start))
+PY
+
+java ${JAVA_OPTS:-} -jar "$JAR" --server.port="$PORT" --logging.level.com.inghubs=WARN --application.warm-up.enabled=false \
+    --application.seed.directory="$SEED_DIR" > target/seed-load-benchmark.log 2>&1 &
+PID=$!
+trap "kill $PID 2>/dev/null || true" EXIT
+until curl -sf "$BASE/actuator/health" > /dev/null; do sleep 0.5; done
+
+ADMIN=$(curl -s -XPOST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+    -d '{"username":"bench-admin","password":"password1","roles":["ADMIN"]}' | json '["token"]')
+
+START=$(date +%s.%N)
+REPORT=$(curl -s -XPOST "$BASE/api/admin/seed" -H "Authorization: Bearer $ADMIN")
+END=$(date +%s.%N)
+echo "$REPORT"
+REPORT="$REPORT" python3 -c "import json,os;r=json.loads(os.environ['REPORT']);s=$END-$START;print('Loaded %d orders in %.1f s: %.0f orders/s, %.0f rows/s' % (r['orders'], s, r['orders']/s, sum(r[k] for k in ('customers','users','assets','orders','transactions'))/s))"
+
+CUSTOMER=$(curl -s -XPOST "$BASE/api/auth/authenticate" -H 'Content-Type: application/json' \
+    -d '{"username":"seed-1","password":"password1"}')
+CUSTOMER_ID=$(echo "$CUSTOMER" | json '["customerId"]')
+echo "Assets of seeded customer $CUSTOMER_ID: $(curl -s "$BASE/api/assets?customerId=$CUSTOMER_ID" \
+    -H "Authorization: Bearer $(echo "$CUSTOMER" | json '["token"]')")"
+echo "Broken dataset: $(curl -s -XPOST "$BASE/api/admin/seed?directory=broken" -H "Authorization: Bearer $ADMIN")"
@@ -0,0 +1,18 @@
+#!/usr/bin/env bash
+# Matching throughput of a resident order book with 0, 8 and 64 concurrent readers, for snapshots published at an
+# interval, snapshots published on every change, and readers that lock the book instead.
+# SnapshotReaderBenchmark.java is run as a single-file program against the compiled classes. Prints fills, reader
+# queries and snapshot publications per second.
+# Requires a JDK 17; run from the repository root.
+#
+#   extras/benchmark/snapshot-reader-benchmark.sh [ORDERS] [READER_PAUSE_MICROS]
+set -euo pipefail
+
+ORDERS=${1:-100000}
+READER_PAUSE_MICROS=${2:-1000}
+
+if [ ! -d target/classes/com/inghubs/brokerageapi/book ]; then
+    ./mvnw -q -B compile
+fi
+java -Xms1g -Xmx1g -XX:+UseParallelGC -Dorders="$ORDERS" -DreaderPauseMicros="$READER_PAUSE_MICROS" -cp target/classes \
+    extras/benchmark/SnapshotReaderBenchmark.java
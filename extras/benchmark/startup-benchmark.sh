@@ -0,0 +1,66 @@
+#!/usr/bin/env bash
+# Measures time to first request and resident memory at startup.
+# Compares the plain jar, started the way the Dockerfile does, with the output of the fast-start Maven profile:
+# AOT-processed bean definitions with lazy API documentation beans, without and with the class data sharing
+# archive. Each variant is started RUNS times; time to first request is measured from process launch to the first
+# successful GET /actuator/health, and RSS is read from /proc at that moment. Requires python3 and Linux; run
+# from the repository root.
+#
+#   extras/benchmark/startup-benchmark.sh [RUNS]
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-8089}
+MVN=${MVN:-./mvnw}
+
+$MVN -q -B package -DskipTests > target/startup-benchmark-build.log 2>&1
+cp "$(ls target/brokerageapi-*.jar | grep -v original | head -1)" target/startup-baseline.jar
+$MVN -q -B package -DskipTests -Pfast-start >> target/startup-benchmark-build.log 2>&1
+FAST_START_JAR=$(ls target/fast-start/brokerageapi-*.jar | head -1)
+
+PORT="$PORT" RUNS="$RUNS" FAST_START_JAR="$FAST_START_JAR" python3 - <<'PY'
+import os, statistics, subprocess, time, urllib.request
+
+port, runs, fast_start_jar = os.environ["PORT"], int(os.environ["RUNS"]), os.environ["FAST_START_JAR"]
+fast_start = ["-Dspring.aot.enabled=true", "-Dspring.profiles.active=fast-start"]
+variants = [
+    ("jar (Dockerfile)", ["-jar", "target/startup-baseline.jar"]),
+    ("AOT + lazy docs", fast_start + ["-jar", fast_start_jar]),
+    ("AOT + lazy docs + CDS", ["-XX:SharedArchiveFile=target/fast-start/application.jsa"] + fast_start + ["-jar", fast_start_jar]),
+]
+
+def rss_mb(pid):
+    with open("/proc/%d/status" % pid) as status:
+        for line in status:
+            if line.startswith("VmRSS:"):
+                return int(line.split()[1]) / 1024
+
+def start(args):
+    launched = time.perf_counter()
+    process = subprocess.Popen(["java"] + args + ["--server.port=" + port, "--logging.level.root=WARN"],
+                               stdout=subprocess.DEVNULL, stderr=subprocess.DEVNULL)
+    try:
+        while True:
+            try:
+                with urllib.request.urlopen("http://localhost:%s/actuator/health" % port, timeout=1) as response:
+                    if response.status == 200:
+                        return time.perf_counter() - launched, rss_mb(process.pid)
+            except OSError:
+                if process.poll() is not None:
+                    raise RuntimeError("application exited with %d" % process.returncode)
+                time.sleep(0.01)
+    finally:
+        process.terminate()
+        process.wait()
+
+results = {name: [] for name, _ in variants}
+for _ in range(runs):
+    for name, args in variants:  # Interleaved, so drift affects every variant alike
+        results[name].append(start(args))
+
+print("%-22s %22s %14s" % ("variant", "first request (s)", "RSS (MB)"))
+for name, _ in variants:
+    seconds = [r[0] for r in results[name]]
+    rss = [r[1] for r in results[name]]
+    print("%-22s %10.2f (min %5.2f) %14.0f" % (name, statistics.median(seconds), min(seconds), statistics.median(rss)))
+PY
@@ -0,0 +1,79 @@
+#!/usr/bin/env bash
+# Latency of the first orders after a restart, without and with the startup warm-up.
+# The application is started twice, with application.warm-up.enabled off and on (rate limiting off), and used as
+# soon as /actuator/health/readiness reports UP. One customer then places ORDERS buy orders one at a time against
+# the seeded sell orders, and the book is matched after every MATCH_EVERY orders. Order entry latency and matching
+# time per fill are reported for every 1000 orders. Requires curl and python3; run from the repository root.
+#
+#   extras/benchmark/warm-up-benchmark.sh [ORDERS] [MATCH_EVERY]
+set -euo pipefail
+
+ORDERS=${1:-10000}
+MATCH_EVERY=${2:-100}
+PORT=${PORT:-8089}
+BASE="http://localhost:${PORT}"
+JAR=$(ls target/brokerageapi-*.jar 2>/dev/null | grep -v original | head -1 || true)
+
+if [ -z "$JAR" ]; then
+    ./mvnw -q -B package -DskipTests
+    JAR=$(ls target/brokerageapi-*.jar | grep -v original | head -1)
+fi
+
+json() { python3 -c "import sys,json;print(json.load(sys.stdin)$1)"; }
+
+run() {
+    LAUNCHED=$(date +%s.%N)
+    java -jar "$JAR" --server.port="$PORT" --logging.level.com.inghubs=WARN --application.rate-limit.enabled=false \
+        --application.warm-up.enabled="$1" > target/warm-up-benchmark.log 2>&1 &
+    PID=$!
+    trap "kill $PID 2>/dev/null || true" EXIT
+    until curl -s "$BASE/actuator/health/readiness" | grep -q UP; do sleep 0.2; done
+    READY=$(python3 -c "print('%.1f' % ($(date +%s.%N) - $LAUNCHED))")
+
+    ADMIN=$(curl -s -XPOST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+        -d '{"username":"warm-admin","password":"password1","roles":["ADMIN"]}' | json '["token"]')
+    CUSTOMER=$(curl -s -XPOST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+        -d '{"username":"warm-customer","password":"password1","roles":["CUSTOMER"]}')
+    CUSTOMER_ID=$(echo "$CUSTOMER" | json '["customerId"]')
+    CUSTOMER=$(echo "$CUSTOMER" | json '["token"]')
+
+    echo "warm-up enabled=$1, ready after ${READY} s"
+    BASE="$BASE" ADMIN="$ADMIN" CUSTOMER="$CUSTOMER" CUSTOMER_ID="$CUSTOMER_ID" ORDERS="$ORDERS" MATCH_EVERY="$MATCH_EVERY" \
+    python3 -u - <<'PY'
+import json, os, time, urllib.request
+
+base, admin, customer = os.environ["BASE"], os.environ["ADMIN"], os.environ["CUSTOMER"]
+customer_id, orders, match_every = int(os.environ["CUSTOMER_ID"]), int(os.environ["ORDERS"]), int(os.environ["MATCH_EVERY"])
+assets = ["GARAN", "ING", "SASA"]
+
+def call(method, path, token, body=None):
+    data = json.dumps(body).encode() if body is not None else None
+    request = urllib.request.Request(base + path, data=data, method=method,
+                                     headers={"Authorization": "Bearer " + token, "Content-Type": "application/json",
+                                              "X-Server-Timing": "false"})
+    start = time.perf_counter()
+    with urllib.request.urlopen(request) as response:
+        response.read()
+    return (time.perf_counter() - start) * 1000
+
+def percentile(values, p):
+    values = sorted(values)
+    return values[min(len(values) - 1, int(len(values) * p / 100))]
+
+call("POST", "/api/transactions", customer, {"customer": {"id": customer_id}, "type": "DEPOSIT", "amount": orders * 20})
+print("%-12s %13s %13s %18s" % ("orders", "entry p50 ms", "entry p99 ms", "match ms per fill"))
+entries, match_ms = [], 0.0
+for i in range(1, orders + 1):
+    entries.append(call("POST", "/api/tradeOrders", customer,
+                        {"customerId": customer_id, "assetCode": assets[i % 3], "side": "BUY", "size": 1, "price": 20}))
+    if i % match_every == 0:
+        match_ms += call("POST", "/api/tradeMatcher/match", admin)
+    if i % 1000 == 0:
+        print("%5d-%-6d %13.2f %13.2f %18.3f" % (i - 999, i, percentile(entries, 50), percentile(entries, 99), match_ms / 1000))
+        entries, match_ms = [], 0.0
+PY
+    kill $PID; wait $PID 2>/dev/null || true
+}
+
+run false
+run true
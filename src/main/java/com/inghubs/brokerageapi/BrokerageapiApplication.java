@@ -4,11 +4,13 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
 @EnableJpaRepositories(basePackages = "com.inghubs.brokerageapi.repository")
 @EntityScan("com.inghubs.brokerageapi.entity")
+@EnableScheduling
 public class BrokerageapiApplication {
     public static void main(String[] args) {
         SpringApplication.run(BrokerageapiApplication.class, args);
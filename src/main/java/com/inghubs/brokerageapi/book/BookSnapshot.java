@@ -0,0 +1,108 @@
+package com.inghubs.brokerageapi.book;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import lombok.Getter;
+
+/**
+ * An immutable, consistent view of one {@link OrderBook}, published for readers that must not lock the book.
+ * The levels of each side are a persistent {@link LevelTree}: a snapshot shares every level, and every tree node off
+ * the paths to the changed levels, with the previous snapshot, so publishing costs a copy of the changed levels and
+ * O(log n) nodes each. Prices and sizes are in units of 0.01.
+ */
+@Getter
+public class BookSnapshot {
+    private final AssetCodes assetCode;     // The instrument of the book
+    private final long version;             // The number of changes the book had made when the snapshot was taken
+    private final Instant publishedAt;      // When the snapshot was taken
+    @Getter(lombok.AccessLevel.NONE)
+    private final LevelTree bids;           // The buy levels, iterated from the highest price
+    @Getter(lombok.AccessLevel.NONE)
+    private final LevelTree asks;           // The sell levels, iterated from the lowest price
+
+    BookSnapshot(AssetCodes assetCode, long version, Instant publishedAt, LevelTree bids, LevelTree asks) {
+        this.assetCode = assetCode;
+        this.version = version;
+        this.publishedAt = publishedAt;
+        this.bids = bids;
+        this.asks = asks;
+    }
+
+    /**
+     * Returns the best levels of a side.
+     *
+     * @param side      the side
+     * @param maxLevels the maximum number of levels
+     * @return the levels, best first
+     */
+    public List<LevelSnapshot> levels(OrderSide side, int maxLevels) {
+        List<LevelSnapshot> levels = new ArrayList<>(Math.min(maxLevels, levelCount(side)));
+        LevelTree.Cursor cursor = cursor(side);
+        for (LevelSnapshot level = cursor.next(); level != null && levels.size() < maxLevels; level = cursor.next()) {
+            levels.add(level);
+        }
+        return levels;
+    }
+
+    /**
+     * Returns the number of price levels of a side.
+     *
+     * @param side the side
+     * @return the number of distinct prices with resting orders
+     */
+    public int levelCount(OrderSide side) {
+        return LevelTree.levelCount(side == OrderSide.BUY ? bids : asks);
+    }
+
+    /**
+     * Returns the number of resting orders.
+     *
+     * @return the number of orders on both sides
+     */
+    public int orderCount() {
+        return LevelTree.orderCount(bids) + LevelTree.orderCount(asks);
+    }
+
+    /**
+     * Estimates the fills of an order entered now, the way the matching would fill it: against the opposite side in
+     * price and time priority, at the price of the sell order, skipping the customer's own orders. A sell order
+     * without a limit price is estimated at the prices of the buy orders.
+     *
+     * @param customerId the ID of the customer entering the order
+     * @param side       the side of the order
+     * @param price      the limit price, or {@link OrderBook#MISSING} to fill at any price
+     * @param size       the size of the order
+     * @return the size and amount that would fill
+     */
+    public FillEstimate estimateFill(long customerId, OrderSide side, long price, long size) {
+        long remaining = size;
+        long totalAmount = 0;
+        int fills = 0;
+        LevelTree.Cursor cursor = cursor(side == OrderSide.BUY ? OrderSide.SELL : OrderSide.BUY);
+        for (LevelSnapshot level = cursor.next(); level != null; level = cursor.next()) {
+            boolean crosses = price == OrderBook.MISSING
+                    || (side == OrderSide.BUY ? level.getPrice() <= price : level.getPrice() >= price);
+            if (!crosses || remaining == 0) {
+                break;
+            }
+            long executionPrice = side == OrderSide.SELL && price != OrderBook.MISSING ? price : level.getPrice();
+            for (int i = 0; i < level.getOrderCount() && remaining > 0; i++) {
+                if (level.customerId(i) != customerId) {
+                    long filled = Math.min(remaining, level.size(i));
+                    remaining -= filled;
+                    totalAmount += filled * executionPrice;
+                    fills++;
+                }
+            }
+        }
+        return new FillEstimate(size - remaining, totalAmount, fills);
+    }
+
+    private LevelTree.Cursor cursor(OrderSide side) {
+        return side == OrderSide.BUY ? new LevelTree.Cursor(bids, true) : new LevelTree.Cursor(asks, false);
+    }
+}
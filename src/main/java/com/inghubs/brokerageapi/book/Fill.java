@@ -0,0 +1,34 @@
+package com.inghubs.brokerageapi.book;
+
+import lombok.Getter;
+
+/**
+ * A fill between a buy and a sell order, as produced by {@link OrderBook#match}.
+ * Fills are mutable and pooled by a {@link FillBuffer}, so matching does not allocate; a fill is only valid until
+ * its buffer is cleared. Prices and sizes are in units of 0.01.
+ */
+@Getter
+public class Fill {
+    private long buyOrderId;    // The ID of the buy order
+    private long sellOrderId;   // The ID of the sell order
+    private long buyerId;       // The ID of the buying customer
+    private long sellerId;      // The ID of the selling customer
+    private long price;         // The executed price, the price of the sell order
+    private long size;          // The executed size
+    private boolean buyFilled;  // Whether the buy order was filled completely and left the book
+    private boolean sellFilled; // Whether the sell order was filled completely and left the book
+
+    void set(long buyOrderId, long sellOrderId, long buyerId, long sellerId, long price, long size) {
+        this.buyOrderId = buyOrderId;
+        this.sellOrderId = sellOrderId;
+        this.buyerId = buyerId;
+        this.sellerId = sellerId;
+        this.price = price;
+        this.size = size;
+    }
+
+    void setFilled(boolean buyFilled, boolean sellFilled) {
+        this.buyFilled = buyFilled;
+        this.sellFilled = sellFilled;
+    }
+}
@@ -0,0 +1,59 @@
+package com.inghubs.brokerageapi.book;
+
+import java.util.Arrays;
+
+/**
+ * A reusable list of {@link Fill}s. The fills are created once and handed out again after every {@link #clear}, so
+ * a matching loop that reuses one buffer allocates only when a run produces more fills than any run before.
+ * Not thread-safe.
+ */
+public class FillBuffer {
+    private Fill[] fills;
+    private int size;
+
+    public FillBuffer(int capacity) {
+        fills = new Fill[Math.max(1, capacity)];
+        for (int i = 0; i < fills.length; i++) {
+            fills[i] = new Fill();
+        }
+    }
+
+    /**
+     * Returns the next free fill, growing the buffer if every fill is in use.
+     *
+     * @return a fill to overwrite
+     */
+    Fill next() {
+        if (size == fills.length) {
+            fills = Arrays.copyOf(fills, size * 2);
+            for (int i = size; i < fills.length; i++) {
+                fills[i] = new Fill();
+            }
+        }
+        return fills[size++];
+    }
+
+    /**
+     * Returns a fill of the current run.
+     *
+     * @param index the index of the fill, in execution order
+     * @return the fill
+     */
+    public Fill get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return fills[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Hands every fill out again. Fills read before are overwritten by the next run.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
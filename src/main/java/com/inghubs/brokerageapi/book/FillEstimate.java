@@ -0,0 +1,15 @@
+package com.inghubs.brokerageapi.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * What an order would fill against a {@link BookSnapshot} if it were matched now.
+ */
+@Getter
+@AllArgsConstructor
+public class FillEstimate {
+    private final long filledSize;   // The size that would fill, in units of 0.01
+    private final long totalAmount;  // The sum of price times size of the fills, in units of 0.0001
+    private final int fills;         // The number of resting orders the order would fill against
+}
@@ -0,0 +1,44 @@
+package com.inghubs.brokerageapi.book;
+
+import lombok.Getter;
+
+/**
+ * An immutable copy of one price level: its totals and its orders in time priority.
+ * A level snapshot is built again only after its level changed; unchanged levels are shared by every later
+ * {@link BookSnapshot}. Prices and sizes are in units of 0.01.
+ */
+@Getter
+public class LevelSnapshot {
+    private final long price;               // The price of every order in the level
+    private final long totalSize;           // The remaining size of all orders in the level
+    @Getter(lombok.AccessLevel.NONE)
+    private final long[] orderIds;          // The IDs of the orders, oldest first
+    @Getter(lombok.AccessLevel.NONE)
+    private final long[] customerIds;       // The customers of the orders
+    @Getter(lombok.AccessLevel.NONE)
+    private final long[] sizes;             // The remaining sizes of the orders
+
+    LevelSnapshot(long price, long totalSize, long[] orderIds, long[] customerIds, long[] sizes) {
+        this.price = price;
+        this.totalSize = totalSize;
+        this.orderIds = orderIds;
+        this.customerIds = customerIds;
+        this.sizes = sizes;
+    }
+
+    public int getOrderCount() {
+        return orderIds.length;
+    }
+
+    public long orderId(int index) {
+        return orderIds[index];
+    }
+
+    public long customerId(int index) {
+        return customerIds[index];
+    }
+
+    public long size(int index) {
+        return sizes[index];
+    }
+}
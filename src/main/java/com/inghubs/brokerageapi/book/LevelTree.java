@@ -0,0 +1,145 @@
+package com.inghubs.brokerageapi.book;
+
+/**
+ * An immutable, persistent AVL tree of {@link LevelSnapshot}s by price, ascending.
+ * Putting or removing a level copies only the nodes on the path to it, O(log n), and shares every other node with the
+ * tree it was derived from, so each published {@link BookSnapshot} costs the changed levels only. An empty tree is
+ * null. Every node also holds the number of levels and orders below it.
+ */
+final class LevelTree {
+    private static final int MAX_HEIGHT = 64;
+
+    final long price;
+    final LevelSnapshot level;
+    final LevelTree left;
+    final LevelTree right;
+    final int height;
+    final int levelCount;   // The number of levels in this subtree
+    final int orderCount;   // The number of orders in this subtree
+
+    private LevelTree(long price, LevelSnapshot level, LevelTree left, LevelTree right) {
+        this.price = price;
+        this.level = level;
+        this.left = left;
+        this.right = right;
+        this.height = Math.max(height(left), height(right)) + 1;
+        this.levelCount = levelCount(left) + levelCount(right) + 1;
+        this.orderCount = orderCount(left) + orderCount(right) + level.getOrderCount();
+    }
+
+    /**
+     * Returns a tree with the level at its price added or replaced.
+     */
+    static LevelTree put(LevelTree node, LevelSnapshot level) {
+        if (node == null) {
+            return new LevelTree(level.getPrice(), level, null, null);
+        }
+        if (level.getPrice() < node.price) {
+            return balance(node.price, node.level, put(node.left, level), node.right);
+        }
+        if (level.getPrice() > node.price) {
+            return balance(node.price, node.level, node.left, put(node.right, level));
+        }
+        return new LevelTree(node.price, level, node.left, node.right);
+    }
+
+    /**
+     * Returns a tree without the level at a price.
+     */
+    static LevelTree remove(LevelTree node, long price) {
+        if (node == null) {
+            return null;
+        }
+        if (price < node.price) {
+            return balance(node.price, node.level, remove(node.left, price), node.right);
+        }
+        if (price > node.price) {
+            return balance(node.price, node.level, node.left, remove(node.right, price));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        LevelTree successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.price, successor.level, node.left, removeFirst(node.right));
+    }
+
+    static int height(LevelTree node) {
+        return node == null ? 0 : node.height;
+    }
+
+    static int levelCount(LevelTree node) {
+        return node == null ? 0 : node.levelCount;
+    }
+
+    static int orderCount(LevelTree node) {
+        return node == null ? 0 : node.orderCount;
+    }
+
+    private static LevelTree removeFirst(LevelTree node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.price, node.level, removeFirst(node.left), node.right);
+    }
+
+    /**
+     * Builds a node from subtrees whose heights differ by at most two, rotating it back into balance.
+     */
+    private static LevelTree balance(long price, LevelSnapshot level, LevelTree left, LevelTree right) {
+        if (height(left) > height(right) + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new LevelTree(left.price, left.level, left.left, new LevelTree(price, level, left.right, right));
+            }
+            LevelTree pivot = left.right;
+            return new LevelTree(pivot.price, pivot.level, new LevelTree(left.price, left.level, left.left, pivot.left),
+                                 new LevelTree(price, level, pivot.right, right));
+        }
+        if (height(right) > height(left) + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new LevelTree(right.price, right.level, new LevelTree(price, level, left, right.left), right.right);
+            }
+            LevelTree pivot = right.left;
+            return new LevelTree(pivot.price, pivot.level, new LevelTree(price, level, left, pivot.left),
+                                 new LevelTree(right.price, right.level, pivot.right, right.right));
+        }
+        return new LevelTree(price, level, left, right);
+    }
+
+    /**
+     * Walks the levels of a tree in price order, ascending or descending, without recursion.
+     */
+    static final class Cursor {
+        private final LevelTree[] stack = new LevelTree[MAX_HEIGHT];
+        private final boolean descending;
+        private int depth;
+
+        Cursor(LevelTree root, boolean descending) {
+            this.descending = descending;
+            pushEdge(root);
+        }
+
+        /**
+         * Returns the next level, or null after the last one.
+         */
+        LevelSnapshot next() {
+            if (depth == 0) {
+                return null;
+            }
+            LevelTree node = stack[--depth];
+            pushEdge(descending ? node.left : node.right);
+            return node.level;
+        }
+
+        private void pushEdge(LevelTree node) {
+            for (; node != null; node = descending ? node.right : node.left) {
+                stack[depth++] = node;
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.inghubs.brokerageapi.book;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from primitive long keys to int values, such as order IDs to slab slots, without boxing either.
+ * Open addressing with linear probing, like {@link LongObjectMap}, but filled up to three quarters, since an index of
+ * tens of millions of orders is the largest table of a book. A removal shifts the following entries of its probe run
+ * back, so there are no tombstones. Values cannot be negative: a negative value marks an empty slot and is what
+ * {@link #get} returns for a missing key. Not thread-safe.
+ */
+public class LongIntMap {
+    public static final int MISSING = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public LongIntMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3L < expectedSize * 4L) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = newValues(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key
+     * @return the value, or {@link #MISSING} if the key is not in the map
+     */
+    public int get(long key) {
+        for (int slot = slot(key); values[slot] != MISSING; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return MISSING;
+    }
+
+    /**
+     * Associates a value with a key.
+     *
+     * @param key   the key
+     * @param value the value, not negative
+     * @return the previous value of the key, or {@link #MISSING}
+     */
+    public int put(long key, int value) {
+        int slot = slot(key);
+        for (; values[slot] != MISSING; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 4L > keys.length * 3L) {
+            grow();
+        }
+        return MISSING;
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key the key
+     * @return the value the key had, or {@link #MISSING} if the key was not in the map
+     */
+    public int remove(long key) {
+        for (int slot = slot(key); values[slot] != MISSING; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+        }
+        return MISSING;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, MISSING);
+        size = 0;
+    }
+
+    /**
+     * Returns the heap taken by the table.
+     *
+     * @return the size of the key and value arrays in bytes
+     */
+    public long tableBytes() {
+        return (long) keys.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Closes the gap at a removed slot by moving back every following entry of the probe run that may live there.
+     */
+    private void shiftBack(int gap) {
+        for (int slot = (gap + 1) & mask; values[slot] != MISSING; slot = (slot + 1) & mask) {
+            int home = slot(keys[slot]);
+            // An entry stays if its home slot lies cyclically after the gap, up to its own slot
+            boolean stays = slot > gap ? home > gap && home <= slot : home > gap || home <= slot;
+            if (!stays) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        values[gap] = MISSING;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = newValues(oldValues.length * 2);
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != MISSING) {
+                int slot = slot(oldKeys[i]);
+                while (values[slot] != MISSING) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int[] newValues(int capacity) {
+        int[] values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        return values;
+    }
+
+    /**
+     * Spreads sequential IDs over the table with a multiplicative hash.
+     */
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
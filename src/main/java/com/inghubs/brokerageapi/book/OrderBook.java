@@ -0,0 +1,516 @@
+package com.inghubs.brokerageapi.book;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.OrderStatus;
+
+/**
+ * The open orders of one instrument in price and time priority: buy levels from the highest price, sell levels from
+ * the lowest, and each level oldest first.
+ * The orders live off-heap in an {@link OrderSlab} and are indexed by ID in a primitive map from order ID to slot, so
+ * an order is found, canceled or amended without scanning a level, and a book of millions of orders leaves only its
+ * index arrays and a few objects per price level on the heap. Prices and sizes are fixed-point longs in units of
+ * 0.01, the scale of the order columns; see {@link #toUnits} and {@link #toDecimal}. Only adding the first order of a
+ * new price or removing the last order of a price touches the sorted level maps. Not thread-safe; readers that
+ * must not lock the book read a {@link BookSnapshot} instead.
+ */
+public class OrderBook {
+    public static final long MISSING = -1;
+    public static final int SCALE = 2;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final AssetCodes assetCode;
+    private final OrderSlab slab = new OrderSlab();
+    private final LongIntMap orders;
+    private final NavigableMap<Long, PriceLevel> bids = new TreeMap<>(Comparator.reverseOrder());
+    private final NavigableMap<Long, PriceLevel> asks = new TreeMap<>();
+    private final LongObjectMap<PriceLevel> bidsByPrice = new LongObjectMap<>(64);
+    private final LongObjectMap<PriceLevel> asksByPrice = new LongObjectMap<>(64);
+    private PriceLevel[] levels = new PriceLevel[64]; // By level ID, as stored in the order records
+    private int levelsUsed;
+    private int[] freeLevels = new int[64];
+    private int freeLevelCount;
+    private int bidCount;
+    private int askCount;
+    private long nextSequence;
+    private long version;     // Counts the changes, so an unchanged book is not copied again
+    private PriceLevel[] dirtyLevels = new PriceLevel[64]; // The levels changed since the last snapshot
+    private int dirtyCount;
+    private LevelTree publishedBids;
+    private LevelTree publishedAsks;
+    private BookSnapshot lastSnapshot;
+
+    public OrderBook(AssetCodes assetCode, int expectedOrders) {
+        this.assetCode = assetCode;
+        this.orders = new LongIntMap(expectedOrders);
+    }
+
+    public AssetCodes getAssetCode() {
+        return assetCode;
+    }
+
+    /**
+     * Converts a price or size to the fixed-point units of the book, rounding half up to the scale of the columns.
+     *
+     * @param value the price or size
+     * @return the value in units of 0.01
+     */
+    public static long toUnits(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts fixed-point units of the book back to a price or size.
+     *
+     * @param units the value in units of 0.01
+     * @return the price or size
+     */
+    public static BigDecimal toDecimal(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    /**
+     * Adds an order behind the orders already resting at its price. An order that is already in the book is replaced.
+     *
+     * @param orderId    the ID of the order
+     * @param customerId the ID of the customer
+     * @param side       the side
+     * @param price      the price in units of 0.01
+     * @param size       the remaining size in units of 0.01
+     * @param status     the status
+     */
+    public void add(long orderId, long customerId, OrderSide side, long price, long size, OrderStatus status) {
+        int slot = orders.get(orderId);
+        if (slot != LongIntMap.MISSING) {
+            unlink(slot);
+        } else {
+            slot = slab.allocate();
+            orders.put(orderId, slot);
+        }
+        slab.set(slot, orderId, customerId, price, size, nextSequence++, side.ordinal(), status.ordinal());
+        append(level(side, price), slot);
+        version++;
+    }
+
+    /**
+     * Tells whether an order rests in the book.
+     *
+     * @param orderId the ID of the order
+     * @return true if the order is in the book
+     */
+    public boolean contains(long orderId) {
+        return orders.get(orderId) != LongIntMap.MISSING;
+    }
+
+    /**
+     * Returns the customer of a resting order.
+     *
+     * @param orderId the ID of the order
+     * @return the ID of the customer, or {@link #MISSING} if the order is not in the book
+     */
+    public long customerId(long orderId) {
+        int slot = orders.get(orderId);
+        return slot == LongIntMap.MISSING ? MISSING : slab.customerId(slot);
+    }
+
+    /**
+     * Returns the side of a resting order.
+     *
+     * @param orderId the ID of the order
+     * @return the side, or null if the order is not in the book
+     */
+    public OrderSide side(long orderId) {
+        int slot = orders.get(orderId);
+        return slot == LongIntMap.MISSING ? null : levels[slab.level(slot)].side;
+    }
+
+    /**
+     * Returns the price of a resting order.
+     *
+     * @param orderId the ID of the order
+     * @return the price in units of 0.01, or {@link #MISSING} if the order is not in the book
+     */
+    public long price(long orderId) {
+        int slot = orders.get(orderId);
+        return slot == LongIntMap.MISSING ? MISSING : slab.price(slot);
+    }
+
+    /**
+     * Returns the remaining size of a resting order.
+     *
+     * @param orderId the ID of the order
+     * @return the size in units of 0.01, or {@link #MISSING} if the order is not in the book
+     */
+    public long remainingSize(long orderId) {
+        int slot = orders.get(orderId);
+        return slot == LongIntMap.MISSING ? MISSING : slab.size(slot);
+    }
+
+    /**
+     * Returns the status of a resting order.
+     *
+     * @param orderId the ID of the order
+     * @return the status, or null if the order is not in the book
+     */
+    public OrderStatus status(long orderId) {
+        int slot = orders.get(orderId);
+        return slot == LongIntMap.MISSING ? null : STATUSES[slab.status(slot)];
+    }
+
+    /**
+     * Removes an order, after a cancel or its last fill.
+     *
+     * @param orderId the ID of the order
+     * @return false if the order is not in the book
+     */
+    public boolean remove(long orderId) {
+        int slot = orders.remove(orderId);
+        if (slot == LongIntMap.MISSING) {
+            return false;
+        }
+        unlink(slot);
+        slab.free(slot);
+        version++;
+        return true;
+    }
+
+    /**
+     * Changes the remaining size of an order in place, after a fill or a size reduction. The order keeps its time
+     * priority.
+     *
+     * @param orderId the ID of the order
+     * @param size    the new remaining size in units of 0.01
+     * @param status  the new status
+     * @return false if the order is not in the book
+     */
+    public boolean resize(long orderId, long size, OrderStatus status) {
+        int slot = orders.get(orderId);
+        if (slot == LongIntMap.MISSING) {
+            return false;
+        }
+        PriceLevel level = levels[slab.level(slot)];
+        level.totalSize += size - slab.size(slot);
+        touch(level);
+        slab.setSize(slot, size);
+        slab.setStatus(slot, status.ordinal());
+        version++;
+        return true;
+    }
+
+    /**
+     * Moves an order behind the orders resting at its new price, after a price change or a size increase.
+     *
+     * @param orderId the ID of the order
+     * @param price   the new price in units of 0.01
+     * @param size    the new remaining size in units of 0.01
+     * @return false if the order is not in the book
+     */
+    public boolean requeue(long orderId, long price, long size) {
+        int slot = orders.get(orderId);
+        if (slot == LongIntMap.MISSING) {
+            return false;
+        }
+        OrderSide side = levels[slab.level(slot)].side;
+        unlink(slot);
+        slab.setPrice(slot, price);
+        slab.setSize(slot, size);
+        slab.setSequence(slot, nextSequence++);
+        append(level(side, price), slot);
+        version++;
+        return true;
+    }
+
+    /**
+     * Matches the crossing orders of the book and takes the filled sizes out of it.
+     * Buy orders are taken in price and time priority. Each buy order is filled against the sell orders in price and
+     * time priority, at the price of the sell order, until it is filled or no sell order crosses its price. Orders
+     * of the same customer are never matched. Orders that are filled completely leave the book; partially filled ones
+     * keep their place. The fills are taken out of the book at once; TradeMatchingService settles them against the
+     * database afterwards.
+     * The loop allocates nothing once the buffer has enough fills: it walks the sorted levels by their existing keys
+     * and the orders by slot.
+     *
+     * @param fills collects the fills, after the fills already in it
+     * @return the number of fills added
+     */
+    public int match(FillBuffer fills) {
+        int matched = 0;
+        for (Long bidPrice = bids.isEmpty() ? null : bids.firstKey(); bidPrice != null; bidPrice = bids.higherKey(bidPrice)) {
+            if (asks.isEmpty() || bidPrice < asks.firstKey()) {
+                break;
+            }
+            PriceLevel level = bidsByPrice.get(bidPrice);
+            for (int buy = level.head; buy != OrderSlab.NONE; ) {
+                int nextBuy = slab.next(buy);
+                matched += matchBuy(buy, bidPrice, fills);
+                buy = nextBuy;
+            }
+        }
+        version += matched;
+        return matched;
+    }
+
+    /**
+     * Fills one buy order against the sell orders that cross its price.
+     */
+    private int matchBuy(int buy, long bidPrice, FillBuffer fills) {
+        int matched = 0;
+        long buyerId = slab.customerId(buy);
+        for (Long askPrice = asks.isEmpty() ? null : asks.firstKey(); askPrice != null && askPrice <= bidPrice;
+             askPrice = asks.higherKey(askPrice)) {
+            PriceLevel level = asksByPrice.get(askPrice);
+            for (int sell = level.head; sell != OrderSlab.NONE; ) {
+                int nextSell = slab.next(sell);
+                if (slab.customerId(sell) != buyerId) {
+                    matched++;
+                    if (fill(buy, sell, fills.next())) {
+                        return matched;
+                    }
+                }
+                sell = nextSell;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Executes the smaller remaining size of two orders and records the fill.
+     *
+     * @return true if the buy order was filled completely
+     */
+    private boolean fill(int buy, int sell, Fill fill) {
+        long size = Math.min(slab.size(buy), slab.size(sell));
+        fill.set(slab.id(buy), slab.id(sell), slab.customerId(buy), slab.customerId(sell), slab.price(sell), size);
+        boolean buyFilled = reduce(buy, size);
+        boolean sellFilled = reduce(sell, size);
+        fill.setFilled(buyFilled, sellFilled);
+        return buyFilled;
+    }
+
+    /**
+     * Takes an executed size out of an order, removing the order once nothing is left.
+     *
+     * @return true if the order was filled completely
+     */
+    private boolean reduce(int slot, long executedSize) {
+        long remaining = slab.size(slot) - executedSize;
+        if (remaining == 0) {
+            orders.remove(slab.id(slot));
+            unlink(slot);
+            slab.free(slot);
+            return true;
+        }
+        PriceLevel level = levels[slab.level(slot)];
+        level.totalSize -= executedSize;
+        touch(level);
+        slab.setSize(slot, remaining);
+        slab.setStatus(slot, OrderStatus.PARTIALLY_FILLED.ordinal());
+        return false;
+    }
+
+    /**
+     * Returns the number of resting orders.
+     *
+     * @return the number of orders on both sides
+     */
+    public int size() {
+        return orders.size();
+    }
+
+    /**
+     * Returns the number of resting orders of a side.
+     *
+     * @param side the side
+     * @return the number of orders
+     */
+    public int size(OrderSide side) {
+        return side == OrderSide.BUY ? bidCount : askCount;
+    }
+
+    /**
+     * Returns the number of price levels of a side.
+     *
+     * @param side the side
+     * @return the number of distinct prices with resting orders
+     */
+    public int levelCount(OrderSide side) {
+        return sorted(side).size();
+    }
+
+    /**
+     * Returns the off-heap memory reserved for the order records. It grows with the largest size the book had.
+     *
+     * @return the reserved bytes
+     */
+    public long offHeapBytes() {
+        return slab.reservedBytes();
+    }
+
+    /**
+     * Returns the heap taken by the order ID index, the largest heap structure of a book.
+     *
+     * @return the size of the index arrays in bytes
+     */
+    public long indexBytes() {
+        return orders.tableBytes();
+    }
+
+    /**
+     * Removes every order. The off-heap records are kept for reuse.
+     */
+    public void clear() {
+        bids.clear();
+        asks.clear();
+        bidsByPrice.clear();
+        asksByPrice.clear();
+        orders.clear();
+        slab.clear();
+        freeLevelCount = 0;
+        bidCount = 0;
+        askCount = 0;
+        for (int id = 0; id < levelsUsed; id++) {
+            freeLevels[freeLevelCount++] = id;
+            levels[id].live = false;
+            levels[id].dirty = false;
+            levels[id].published = false;
+        }
+        dirtyCount = 0;
+        publishedBids = null;
+        publishedAsks = null;
+        version++;
+    }
+
+    /**
+     * Returns a consistent, immutable view of the book. Only the levels changed since the last snapshot are copied
+     * and put into, or removed from, the persistent level trees of the last snapshot; everything else is shared.
+     *
+     * @param publishedAt the time to stamp a new snapshot with
+     * @return the snapshot, the last one again if the book did not change since
+     */
+    public BookSnapshot snapshot(Instant publishedAt) {
+        if (lastSnapshot != null && lastSnapshot.getVersion() == version) {
+            return lastSnapshot;
+        }
+        // Removals first: a level freed since may have handed its price to another level
+        for (int i = 0; i < dirtyCount; i++) {
+            PriceLevel level = dirtyLevels[i];
+            if (level.published && (!level.live || level.side != level.publishedSide || level.price != level.publishedPrice)) {
+                if (level.publishedSide == OrderSide.BUY) {
+                    publishedBids = LevelTree.remove(publishedBids, level.publishedPrice);
+                } else {
+                    publishedAsks = LevelTree.remove(publishedAsks, level.publishedPrice);
+                }
+                level.published = false;
+            }
+        }
+        for (int i = 0; i < dirtyCount; i++) {
+            PriceLevel level = dirtyLevels[i];
+            if (level.live) {
+                if (level.side == OrderSide.BUY) {
+                    publishedBids = LevelTree.put(publishedBids, copy(level));
+                } else {
+                    publishedAsks = LevelTree.put(publishedAsks, copy(level));
+                }
+                level.published = true;
+                level.publishedSide = level.side;
+                level.publishedPrice = level.price;
+            }
+            level.dirty = false;
+            dirtyLevels[i] = null;
+        }
+        dirtyCount = 0;
+        lastSnapshot = new BookSnapshot(assetCode, version, publishedAt, publishedBids, publishedAsks);
+        return lastSnapshot;
+    }
+
+    private LevelSnapshot copy(PriceLevel level) {
+        long[] orderIds = new long[level.orderCount];
+        long[] customerIds = new long[level.orderCount];
+        long[] sizes = new long[level.orderCount];
+        int index = 0;
+        for (int slot = level.head; slot != OrderSlab.NONE; slot = slab.next(slot), index++) {
+            orderIds[index] = slab.id(slot);
+            customerIds[index] = slab.customerId(slot);
+            sizes[index] = slab.size(slot);
+        }
+        return new LevelSnapshot(level.price, level.totalSize, orderIds, customerIds, sizes);
+    }
+
+    /**
+     * Marks a level as changed since the last snapshot.
+     */
+    private void touch(PriceLevel level) {
+        if (!level.dirty) {
+            level.dirty = true;
+            dirtyLevels[dirtyCount++] = level;
+        }
+    }
+
+    /**
+     * Returns the level of a price, opening it if the price has no orders yet.
+     */
+    private PriceLevel level(OrderSide side, long price) {
+        LongObjectMap<PriceLevel> byPrice = side == OrderSide.BUY ? bidsByPrice : asksByPrice;
+        PriceLevel level = byPrice.get(price);
+        if (level == null) {
+            level = newLevel();
+            level.reset(side, price);
+            byPrice.put(price, level);
+            sorted(side).put(level.key, level);
+        }
+        return level;
+    }
+
+    private void append(PriceLevel level, int slot) {
+        level.append(slab, slot);
+        touch(level);
+        if (level.side == OrderSide.BUY) {
+            bidCount++;
+        } else {
+            askCount++;
+        }
+    }
+
+    private void unlink(int slot) {
+        PriceLevel level = levels[slab.level(slot)];
+        level.unlink(slab, slot);
+        touch(level);
+        if (level.side == OrderSide.BUY) {
+            bidCount--;
+        } else {
+            askCount--;
+        }
+        if (level.isEmpty()) {
+            level.live = false;
+            (level.side == OrderSide.BUY ? bidsByPrice : asksByPrice).remove(level.price);
+            sorted(level.side).remove(level.key);
+            freeLevels[freeLevelCount++] = level.id;
+        }
+    }
+
+    private PriceLevel newLevel() {
+        if (freeLevelCount > 0) {
+            return levels[freeLevels[--freeLevelCount]];
+        }
+        if (levelsUsed == levels.length) {
+            levels = Arrays.copyOf(levels, levelsUsed * 2);
+            freeLevels = Arrays.copyOf(freeLevels, levelsUsed * 2);
+            dirtyLevels = Arrays.copyOf(dirtyLevels, levelsUsed * 2);
+        }
+        PriceLevel level = new PriceLevel(levelsUsed);
+        levels[levelsUsed++] = level;
+        return level;
+    }
+
+    private NavigableMap<Long, PriceLevel> sorted(OrderSide side) {
+        return side == OrderSide.BUY ? bids : asks;
+    }
+}
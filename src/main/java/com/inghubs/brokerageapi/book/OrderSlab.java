@@ -0,0 +1,199 @@
+package com.inghubs.brokerageapi.book;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Off-heap storage for the resting orders of one {@link OrderBook}, so millions of orders add almost nothing to the
+ * heap the garbage collector has to trace.
+ * Every order is a fixed-size record in a direct byte buffer, addressed by an int slot. Buffers are allocated in
+ * chunks of 65,536 records as the book grows and are kept when it shrinks. A removed record's slot is put on a free
+ * list, linked through the record's next field, and reused by the next order. Prices and sizes are fixed-point
+ * longs, see {@link OrderBook#toUnits}. Not thread-safe.
+ * <pre>
+ * offset  0  long  order ID
+ *         8  long  customer ID
+ *        16  long  price, in units of 0.01
+ *        24  long  remaining size, in units of 0.01
+ *        32  long  sequence number, the time priority within the book
+ *        40  int   previous slot in the price level, or NONE
+ *        44  int   next slot in the price level (or in the free list), or NONE
+ *        48  int   ID of the price level
+ *        52  byte  side ordinal
+ *        53  byte  status ordinal
+ * </pre>
+ */
+class OrderSlab {
+    static final int NONE = -1;
+    static final int RECORD_SIZE = 56;
+    private static final int ID = 0;
+    private static final int CUSTOMER_ID = 8;
+    private static final int PRICE = 16;
+    private static final int SIZE = 24;
+    private static final int SEQUENCE = 32;
+    private static final int PREVIOUS = 40;
+    private static final int NEXT = 44;
+    private static final int LEVEL = 48;
+    private static final int SIDE = 52;
+    private static final int STATUS = 53;
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+
+    private ByteBuffer[] chunks = new ByteBuffer[8];
+    private int chunkCount;
+    private int highWater;   // Slots below this were handed out at least once
+    private int freeHead = NONE;
+    private int used;
+
+    /**
+     * Returns a slot for a new record, reusing a freed one if there is one.
+     *
+     * @return the slot
+     */
+    int allocate() {
+        int slot = freeHead;
+        if (slot != NONE) {
+            freeHead = next(slot);
+        } else {
+            if (highWater == chunkCount << CHUNK_BITS) {
+                addChunk();
+            }
+            slot = highWater++;
+        }
+        used++;
+        return slot;
+    }
+
+    /**
+     * Puts a slot on the free list. The record must no longer be linked into a price level.
+     *
+     * @param slot the slot
+     */
+    void free(int slot) {
+        setNext(slot, freeHead);
+        freeHead = slot;
+        used--;
+    }
+
+    /**
+     * Frees every slot at once, keeping the allocated chunks.
+     */
+    void clear() {
+        highWater = 0;
+        freeHead = NONE;
+        used = 0;
+    }
+
+    int used() {
+        return used;
+    }
+
+    /**
+     * Returns the off-heap memory reserved for records.
+     *
+     * @return the capacity of all chunks in bytes
+     */
+    long reservedBytes() {
+        return (long) chunkCount * CHUNK_RECORDS * RECORD_SIZE;
+    }
+
+    long id(int slot) {
+        return chunk(slot).getLong(offset(slot) + ID);
+    }
+
+    long customerId(int slot) {
+        return chunk(slot).getLong(offset(slot) + CUSTOMER_ID);
+    }
+
+    long price(int slot) {
+        return chunk(slot).getLong(offset(slot) + PRICE);
+    }
+
+    long size(int slot) {
+        return chunk(slot).getLong(offset(slot) + SIZE);
+    }
+
+    long sequence(int slot) {
+        return chunk(slot).getLong(offset(slot) + SEQUENCE);
+    }
+
+    int previous(int slot) {
+        return chunk(slot).getInt(offset(slot) + PREVIOUS);
+    }
+
+    int next(int slot) {
+        return chunk(slot).getInt(offset(slot) + NEXT);
+    }
+
+    int level(int slot) {
+        return chunk(slot).getInt(offset(slot) + LEVEL);
+    }
+
+    int side(int slot) {
+        return chunk(slot).get(offset(slot) + SIDE);
+    }
+
+    int status(int slot) {
+        return chunk(slot).get(offset(slot) + STATUS);
+    }
+
+    /**
+     * Writes the fields of a new order; the links and the level are set when it joins a level.
+     */
+    void set(int slot, long id, long customerId, long price, long size, long sequence, int side, int status) {
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        chunk.putLong(offset + ID, id);
+        chunk.putLong(offset + CUSTOMER_ID, customerId);
+        chunk.putLong(offset + PRICE, price);
+        chunk.putLong(offset + SIZE, size);
+        chunk.putLong(offset + SEQUENCE, sequence);
+        chunk.put(offset + SIDE, (byte) side);
+        chunk.put(offset + STATUS, (byte) status);
+    }
+
+    void setPrice(int slot, long price) {
+        chunk(slot).putLong(offset(slot) + PRICE, price);
+    }
+
+    void setSize(int slot, long size) {
+        chunk(slot).putLong(offset(slot) + SIZE, size);
+    }
+
+    void setSequence(int slot, long sequence) {
+        chunk(slot).putLong(offset(slot) + SEQUENCE, sequence);
+    }
+
+    void setPrevious(int slot, int previous) {
+        chunk(slot).putInt(offset(slot) + PREVIOUS, previous);
+    }
+
+    void setNext(int slot, int next) {
+        chunk(slot).putInt(offset(slot) + NEXT, next);
+    }
+
+    void setLevel(int slot, int level) {
+        chunk(slot).putInt(offset(slot) + LEVEL, level);
+    }
+
+    void setStatus(int slot, int status) {
+        chunk(slot).put(offset(slot) + STATUS, (byte) status);
+    }
+
+    private ByteBuffer chunk(int slot) {
+        return chunks[slot >>> CHUNK_BITS];
+    }
+
+    private static int offset(int slot) {
+        return (slot & CHUNK_MASK) * RECORD_SIZE;
+    }
+
+    private void addChunk() {
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+        chunks[chunkCount++] = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,83 @@
+package com.inghubs.brokerageapi.book;
+
+import com.inghubs.brokerageapi.constant.OrderSide;
+
+/**
+ * The orders resting at one price on one side of an {@link OrderBook}, oldest first.
+ * The orders themselves are records in the book's {@link OrderSlab}, linked by slot; a level is reused for another
+ * price once it is empty.
+ */
+class PriceLevel {
+    final int id;                   // The index in the book's level table, stored in the records of the level
+    OrderSide side;                 // The side of every order in the level
+    long price;                     // The price of every order in the level, in units of 0.01
+    Long key;                       // The price as boxed once for the sorted level map, so removal does not box it
+    int head = OrderSlab.NONE;      // The slot of the oldest order, matched first
+    int tail = OrderSlab.NONE;      // The slot of the newest order
+    int orderCount;                 // The number of orders in the level
+    long totalSize;                 // The remaining size of all orders in the level, in units of 0.01
+    boolean live;                   // Whether the level is in the book, rather than free for reuse
+    boolean dirty;                  // Whether the level changed since the last snapshot of the book
+    boolean published;              // Whether the last snapshot of the book holds this level
+    OrderSide publishedSide;        // The side the level had in the last snapshot
+    long publishedPrice;            // The price the level had in the last snapshot
+
+    PriceLevel(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Prepares an empty level for a price.
+     */
+    void reset(OrderSide side, long price) {
+        this.side = side;
+        this.price = price;
+        this.key = price;
+        head = OrderSlab.NONE;
+        tail = OrderSlab.NONE;
+        orderCount = 0;
+        totalSize = 0;
+        live = true;
+    }
+
+    /**
+     * Adds an order behind the newest order of the level.
+     */
+    void append(OrderSlab slab, int slot) {
+        slab.setLevel(slot, id);
+        slab.setPrevious(slot, tail);
+        slab.setNext(slot, OrderSlab.NONE);
+        if (tail == OrderSlab.NONE) {
+            head = slot;
+        } else {
+            slab.setNext(tail, slot);
+        }
+        tail = slot;
+        orderCount++;
+        totalSize += slab.size(slot);
+    }
+
+    /**
+     * Takes an order out of the level, keeping the others in time priority.
+     */
+    void unlink(OrderSlab slab, int slot) {
+        int previous = slab.previous(slot);
+        int next = slab.next(slot);
+        if (previous == OrderSlab.NONE) {
+            head = next;
+        } else {
+            slab.setNext(previous, next);
+        }
+        if (next == OrderSlab.NONE) {
+            tail = previous;
+        } else {
+            slab.setPrevious(next, previous);
+        }
+        orderCount--;
+        totalSize -= slab.size(slot);
+    }
+
+    boolean isEmpty() {
+        return head == OrderSlab.NONE;
+    }
+}
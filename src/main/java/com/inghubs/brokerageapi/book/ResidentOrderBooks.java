@@ -0,0 +1,413 @@
+package com.inghubs.brokerageapi.book;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.OrderStatus;
+import com.inghubs.brokerageapi.entity.TradeOrder;
+import com.inghubs.brokerageapi.repository.TradeOrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps the open orders of every traded instrument in memory, indexed by order ID.
+ * The books are loaded from the database at startup, after the seed load, and then follow the committed changes of
+ * this instance: changes are applied once their transaction commits, so a rolled back order never shows up. The
+ * database stays the source of truth. Orders entered, filled or canceled by other instances sharing the database
+ * reach these books only when they are reconciled, which reloads every book from the database at the reconcile
+ * interval; until then a lookup that misses falls back to the database, and the snapshots may show orders that are
+ * gone. With matching leases enabled every matching run reloads its book first, so matching never uses a stale book.
+ * A reload may read a committed change before it is applied, so applying a change twice leaves the book as applying it
+ * once: an order that already rests is not added again, and an order already at its amended price and size is not
+ * requeued again, which would cost it its place behind the orders that came after it.
+ * Matching runs on these books: {@link #match} takes the fills of a run out of a book at once, and the matching
+ * service settles them against the locked orders in the database and hands the settled orders back through
+ * {@link #orderSettled}. A book whose settlement did not go as proposed, e.g. because an order was canceled in the
+ * meantime, is marked stale and reloaded from the database before its next run.
+ * Readers that must neither lock a book nor see it half-changed read its {@link BookSnapshot}, which is published at
+ * the snapshot interval, and also after every committed change if {@code application.book.snapshot-on-change} is
+ * set. Reading a snapshot takes no lock, so any number of readers leave the writers of the book alone.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ResidentOrderBooks implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(ResidentOrderBooks.class);
+    private static final AssetCodes[] TRADED_ASSETS = {AssetCodes.GARAN, AssetCodes.ING, AssetCodes.SASA};
+    private static final List<OrderStatus> OPEN_STATUSES = List.of(OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED);
+    private static final int INITIAL_CAPACITY = 1024;
+    // Prices and sizes are read as units of 0.01 and the status as a flag, so a row creates no object
+    private static final String BOOK_ORDERS =
+            "SELECT id, customer_id, CAST(price * 100 AS BIGINT), CAST(size * 100 AS BIGINT), status = ? FROM trade_order " +
+            "WHERE asset_code = ? AND order_side = ? AND status IN (?, ?) ORDER BY price %s, COALESCE(queued_at, create_date), id";
+    private static final String BUY_ORDERS = String.format(BOOK_ORDERS, "DESC");
+    private static final String SELL_ORDERS = String.format(BOOK_ORDERS, "ASC");
+
+    private final TradeOrderRepository tradeOrderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final boolean snapshotOnChange;
+    private final Map<AssetCodes, OrderBook> books = new EnumMap<>(AssetCodes.class);
+    private final Map<AssetCodes, AtomicReference<BookSnapshot>> snapshots = new EnumMap<>(AssetCodes.class);
+    private final Set<AssetCodes> staleBooks = ConcurrentHashMap.newKeySet();
+
+    public ResidentOrderBooks(TradeOrderRepository tradeOrderRepository, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              Clock clock, @Value("${application.book.snapshot-on-change}") boolean snapshotOnChange) {
+        this.tradeOrderRepository = tradeOrderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        this.snapshotOnChange = snapshotOnChange;
+        for (AssetCodes assetCode : TRADED_ASSETS) {
+            OrderBook book = new OrderBook(assetCode, INITIAL_CAPACITY);
+            books.put(assetCode, book);
+            snapshots.put(assetCode, new AtomicReference<>(book.snapshot(clock.instant())));
+        }
+    }
+
+    /**
+     * Loads the books at startup.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        load();
+    }
+
+    /**
+     * Replaces the books with the open orders in the database, e.g. after a seed load.
+     */
+    public void load() {
+        long startNanos = System.nanoTime();
+        for (AssetCodes assetCode : TRADED_ASSETS) {
+            reload(assetCode);
+        }
+        log.info("Loaded {} open orders into the resident books in {} ms", orderCount(), (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Replaces the book of an instrument with its open orders in the database.
+     * The book stays locked while the orders are read, so a change that commits meanwhile is either read or applied
+     * after the reload; the read takes no row locks, so it does not wait for the transactions whose changes wait.
+     *
+     * @param assetCode the instrument
+     */
+    public void reload(AssetCodes assetCode) {
+        OrderBook book = books.get(assetCode);
+        if (book == null) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            synchronized (book) {
+                staleBooks.remove(assetCode);
+                book.clear();
+                read(book);
+                publish(book);
+            }
+            status.setRollbackOnly(); // Nothing to commit
+        });
+    }
+
+    /**
+     * Matches the crossing orders of an instrument and takes the fills out of its book, so a concurrent run proposes
+     * other fills. A stale book is reloaded first. Inside a running transaction the book is read from the database
+     * into a throwaway book instead, since the orders that transaction entered reach the resident book only once it
+     * commits.
+     *
+     * @param assetCode the instrument
+     * @param fills     collects the proposed fills
+     * @return the number of fills added, 0 if the instrument is not traded
+     */
+    public int match(AssetCodes assetCode, FillBuffer fills) {
+        OrderBook book = books.get(assetCode);
+        if (book == null) {
+            return 0;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            tradeOrderRepository.flush(); // The orders are read with plain JDBC
+            OrderBook transientBook = new OrderBook(assetCode, INITIAL_CAPACITY);
+            read(transientBook);
+            return transientBook.match(fills);
+        }
+        if (staleBooks.contains(assetCode)) {
+            log.info("Reloading the stale book of {}", assetCode);
+            reload(assetCode);
+        }
+        synchronized (book) {
+            return book.match(fills);
+        }
+    }
+
+    /**
+     * Reloads every book from the database, so changes committed by other instances sharing the database stop
+     * being missed after at most the reconcile interval.
+     */
+    @Scheduled(fixedDelayString = "${application.book.reconcile-interval}")
+    public void reconcile() {
+        for (AssetCodes assetCode : TRADED_ASSETS) {
+            reload(assetCode);
+        }
+    }
+
+    /**
+     * Marks the book of an instrument for a reload before its next matching run, e.g. after a settlement failed.
+     *
+     * @param assetCode the instrument
+     */
+    public void markStale(AssetCodes assetCode) {
+        if (books.containsKey(assetCode)) {
+            staleBooks.add(assetCode);
+        }
+    }
+
+    /**
+     * Returns the last published snapshot of a book, without locking the book.
+     *
+     * @param assetCode the instrument
+     * @return the snapshot, or null if the instrument is not traded
+     */
+    public BookSnapshot getSnapshot(AssetCodes assetCode) {
+        AtomicReference<BookSnapshot> snapshot = snapshots.get(assetCode);
+        return snapshot == null ? null : snapshot.get();
+    }
+
+    /**
+     * Publishes a new snapshot of every book that changed since its last snapshot.
+     */
+    @Scheduled(fixedDelayString = "${application.book.snapshot-interval}")
+    public void publishSnapshots() {
+        for (OrderBook book : books.values()) {
+            synchronized (book) {
+                publish(book);
+            }
+        }
+    }
+
+    /**
+     * Returns the customer of a resting order.
+     *
+     * @param orderId the ID of the order
+     * @return the ID of the customer, or null if the order is not in the books
+     */
+    public Long findCustomerId(long orderId) {
+        for (OrderBook book : books.values()) {
+            synchronized (book) {
+                long customerId = book.customerId(orderId);
+                if (customerId != OrderBook.MISSING) {
+                    return customerId;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of resting orders of one side of a book.
+     *
+     * @param assetCode the instrument
+     * @param side      the side
+     * @return the number of orders, 0 if the instrument is not traded
+     */
+    public int orderCount(AssetCodes assetCode, OrderSide side) {
+        OrderBook book = books.get(assetCode);
+        if (book == null) {
+            return 0;
+        }
+        synchronized (book) {
+            return book.size(side);
+        }
+    }
+
+    /**
+     * Returns the number of resting orders over all books.
+     *
+     * @return the number of orders
+     */
+    public int orderCount() {
+        int count = 0;
+        for (OrderBook book : books.values()) {
+            synchronized (book) {
+                count += book.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds a new order once its transaction commits, unless a reload has read it already.
+     *
+     * @param order the saved order
+     */
+    public void orderOpened(TradeOrder order) {
+        OrderBook book = books.get(order.getAssetCode());
+        long orderId = order.getId();
+        long customerId = order.getCustomer().getId();
+        OrderSide side = order.getOrderSide();
+        long price = OrderBook.toUnits(order.getPrice());
+        long size = OrderBook.toUnits(order.getSize());
+        OrderStatus status = order.getStatus();
+        afterCommit(() -> {
+            if (!book.contains(orderId)) {
+                book.add(orderId, customerId, side, price, size, status);
+            }
+        }, book);
+    }
+
+    /**
+     * Takes over the size and status of an order once its transaction commits, after a fill or a size reduction.
+     * The order keeps its place; an order that is no longer open leaves the book.
+     *
+     * @param order the updated order
+     */
+    public void orderUpdated(TradeOrder order) {
+        OrderBook book = books.get(order.getAssetCode());
+        long orderId = order.getId();
+        long size = OrderBook.toUnits(order.getSize());
+        OrderStatus status = order.getStatus();
+        if (OPEN_STATUSES.contains(status)) {
+            afterCommit(() -> book.resize(orderId, size, status), book);
+        } else {
+            afterCommit(() -> book.remove(orderId), book);
+        }
+    }
+
+    /**
+     * Takes over the size and status of an order once the transaction that settled its fills commits. Matching took
+     * the proposed fills out of the book already, so this only corrects the book where the settlement differed. An
+     * open order that is no longer in the book was proposed for more than it settled, so its book is marked stale.
+     *
+     * @param order the locked order after its fills
+     */
+    public void orderSettled(TradeOrder order) {
+        OrderBook book = books.get(order.getAssetCode());
+        AssetCodes assetCode = order.getAssetCode();
+        long orderId = order.getId();
+        long size = OrderBook.toUnits(order.getSize());
+        OrderStatus status = order.getStatus();
+        if (OPEN_STATUSES.contains(status)) {
+            afterCommit(() -> {
+                if (!book.resize(orderId, size, status)) {
+                    staleBooks.add(assetCode);
+                }
+            }, book);
+        } else {
+            afterCommit(() -> book.remove(orderId), book);
+        }
+    }
+
+    /**
+     * Moves an order behind the orders at its price once its transaction commits, after a price change or a size
+     * increase. An order that already rests at its new price and size was read by a reload after the commit, in
+     * the place its requeue time gives it, and stays there.
+     *
+     * @param order the amended order
+     */
+    public void orderRequeued(TradeOrder order) {
+        OrderBook book = books.get(order.getAssetCode());
+        long orderId = order.getId();
+        long price = OrderBook.toUnits(order.getPrice());
+        long size = OrderBook.toUnits(order.getSize());
+        afterCommit(() -> {
+            if (book.price(orderId) != price || book.remainingSize(orderId) != size) {
+                book.requeue(orderId, price, size);
+            }
+        }, book);
+    }
+
+    /**
+     * Removes a canceled order once its transaction commits.
+     *
+     * @param assetCode the instrument of the order
+     * @param orderId   the ID of the order
+     */
+    public void orderClosed(AssetCodes assetCode, long orderId) {
+        OrderBook book = books.get(assetCode);
+        afterCommit(() -> book.remove(orderId), book);
+    }
+
+    /**
+     * Replaces the snapshot of a book; the caller holds the lock of the book.
+     */
+    private void publish(OrderBook book) {
+        snapshots.get(book.getAssetCode()).set(book.snapshot(clock.instant()));
+    }
+
+    /**
+     * Adds the open orders in the database to a book, in price and time priority. The rows are streamed straight
+     * into the slab of the book, without an entity, a read model or a BigDecimal per order.
+     */
+    private void read(OrderBook book) {
+        read(book, OrderSide.BUY, BUY_ORDERS);
+        read(book, OrderSide.SELL, SELL_ORDERS);
+    }
+
+    private void read(OrderBook book, OrderSide side, String sql) {
+        jdbcTemplate.query(sql, rs -> {
+            book.add(rs.getLong(1), rs.getLong(2), side, rs.getLong(3), rs.getLong(4),
+                     rs.getBoolean(5) ? OrderStatus.PARTIALLY_FILLED : OrderStatus.PENDING);
+        }, OrderStatus.PARTIALLY_FILLED.name(), book.getAssetCode().name(), side.name(), OrderStatus.PENDING.name(),
+                OrderStatus.PARTIALLY_FILLED.name());
+    }
+
+    /**
+     * Applies a change to a book after the current transaction commits, or at once outside a transaction.
+     * The changes of one transaction are applied in the order they were made. Orders of instruments that are not
+     * traded have no book and are ignored.
+     */
+    @SuppressWarnings("unchecked")
+    private void afterCommit(Runnable change, OrderBook book) {
+        if (book == null) {
+            return;
+        }
+        Runnable locked = () -> {
+            synchronized (book) {
+                change.run();
+                if (snapshotOnChange) {
+                    publish(book);
+                }
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            locked.run();
+            return;
+        }
+        List<Runnable> changes = (List<Runnable>) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            List<Runnable> pending = new ArrayList<>();
+            changes = pending;
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.forEach(Runnable::run);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ResidentOrderBooks.this);
+                }
+            });
+        }
+        changes.add(locked);
+    }
+}
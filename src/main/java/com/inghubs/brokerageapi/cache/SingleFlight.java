@@ -0,0 +1,183 @@
+package com.inghubs.brokerageapi.cache;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Coalesces concurrent loads of the same key into one.
+ * The first caller for a key runs the load on its own thread; callers arriving while it runs wait for and share
+ * its result, and callers arriving within the freshness window after it completed get the result without loading.
+ * A failed load is not kept, so every waiter gets the failure and the next caller loads again.
+ * {@link #invalidateAfterCompletion} drops the result of a key once the current transaction ends. A load that is
+ * still running when its key is invalidated is detached: its waiters get its result, but later callers load again,
+ * so no caller arriving after a committed write sees data read before it.
+ *
+ * @param <K> the key type
+ * @param <V> the value type; values are shared between callers and must not be modified
+ */
+public class SingleFlight<K, V> {
+    private final String name;
+    private final boolean enabled;
+    private final long freshnessNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final Counter loads;
+    private final Counter shared;
+    private final Counter fresh;
+
+    public SingleFlight(String name, boolean enabled, Duration freshness, int maxEntries, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.enabled = enabled;
+        this.freshnessNanos = freshness.toNanos();
+        this.maxEntries = maxEntries;
+        this.loads = counter(meterRegistry, name, "load");
+        this.shared = counter(meterRegistry, name, "shared");
+        this.fresh = counter(meterRegistry, name, "fresh");
+    }
+
+    /**
+     * Returns the value of a key, joining a running load or reusing a fresh result when there is one.
+     *
+     * @param key    the key
+     * @param loader loads the value when no running or fresh load can be used
+     * @return the value
+     */
+    public V get(K key, Supplier<V> loader) {
+        if (!enabled) {
+            loads.increment();
+            return loader.get();
+        }
+
+        long now = System.nanoTime();
+        Flight<V> flight = flights.get(key);
+        if (flight == null || !flight.isUsable(now, freshnessNanos)) {
+            Flight<V> own = new Flight<>();
+            flight = flights.compute(key, (k, existing) -> existing != null && existing.isUsable(now, freshnessNanos) ? existing : own);
+            if (flight == own) {
+                if (flights.size() > maxEntries) {
+                    evictStale(now);
+                }
+                return load(key, own, loader);
+            }
+        }
+        (flight.future.isDone() ? fresh : shared).increment();
+        return flight.join();
+    }
+
+    /**
+     * Drops the result of a key when the current transaction completes, or right away outside a transaction.
+     * Keys invalidated several times in one transaction are dropped once.
+     *
+     * @param key the key whose data is being written
+     */
+    @SuppressWarnings("unchecked")
+    public void invalidateAfterCompletion(K key) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            flights.remove(key);
+            return;
+        }
+        Set<K> keys = (Set<K>) TransactionSynchronizationManager.getResource(this);
+        if (keys == null) {
+            Set<K> pending = new HashSet<>();
+            keys = pending;
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SingleFlight.this);
+                    for (K pendingKey : pending) {
+                        flights.remove(pendingKey);
+                    }
+                }
+            });
+        }
+        keys.add(key);
+    }
+
+    /**
+     * Runs a load and publishes its result to the callers waiting for it.
+     */
+    private V load(K key, Flight<V> flight, Supplier<V> loader) {
+        loads.increment();
+        try {
+            V value = loader.get();
+            flight.completedNanos = System.nanoTime();
+            flight.future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flights.remove(key, flight);
+            flight.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Removes completed results that are no longer fresh.
+     */
+    private void evictStale(long now) {
+        flights.values().removeIf(flight -> flight.future.isDone() && !flight.isUsable(now, freshnessNanos));
+    }
+
+    /**
+     * Registers the counter of one outcome.
+     */
+    private static Counter counter(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder("coalescing.requests")
+                .description("Number of coalesced reads by outcome: loaded, shared with a running load or served fresh")
+                .tags("cache", name, "result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String toString() {
+        return "SingleFlight[" + name + "]";
+    }
+
+    /**
+     * One load of a key and its result.
+     */
+    private static final class Flight<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private volatile long completedNanos;
+
+        /**
+         * A flight can be joined while it runs and for the freshness window after it completed successfully.
+         */
+        private boolean isUsable(long now, long freshnessNanos) {
+            if (!future.isDone()) {
+                return true;
+            }
+            return !future.isCompletedExceptionally() && now - completedNanos < freshnessNanos;
+        }
+
+        /**
+         * Waits for the result, rethrowing the failure of the load as it was thrown.
+         */
+        private V join() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+        }
+    }
+}
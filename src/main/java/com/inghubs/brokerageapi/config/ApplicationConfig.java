@@ -1,9 +1,12 @@
 package com.inghubs.brokerageapi.config;
 
+import java.time.Clock;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -61,4 +64,16 @@ public class ApplicationConfig {
         logger.debug("Retrieving AuthenticationManager from AuthenticationConfiguration.");
         return config.getAuthenticationManager();
     }
+
+    /**
+     * Bean definition for the Clock that order entry and matching take their timestamps from.
+     * The replay profile replaces it with a clock that follows the replayed commands.
+     *
+     * @return the system clock in the default time zone.
+     */
+    @Bean
+    @Profile("!replay")
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
 }
@@ -0,0 +1,62 @@
+package com.inghubs.brokerageapi.config;
+
+import io.swagger.v3.oas.models.OpenAPI;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+
+/**
+ * Configuration of the {@code fast-start} profile, which turns on lazy initialization for the beans that are not
+ * needed to serve the API: springdoc and the Swagger UI are created on their first request, and the H2 console
+ * servlet is loaded on its first request instead of at startup. All other beans stay eager, so configuration
+ * errors still fail the startup.
+ */
+@Configuration
+@Profile("fast-start")
+public class FastStartConfig {
+    private static final String H2_CONSOLE_BEAN = "h2Console";
+
+    /**
+     * Keeps every bean eager except the API documentation beans.
+     *
+     * @return the filter excluding the essential beans from lazy initialization
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter essentialBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> !isDocumentationBean(beanType);
+    }
+
+    /**
+     * Defers loading the H2 console servlet until it is first requested.
+     *
+     * @return the post processor changing the load-on-startup of the H2 console registration
+     */
+    @Bean
+    public static BeanPostProcessor h2ConsoleLoadOnRequest() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (H2_CONSOLE_BEAN.equals(beanName) && bean instanceof ServletRegistrationBean<?> registration) {
+                    registration.setLoadOnStartup(-1);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Checks whether a bean belongs to springdoc or to the OpenAPI definition.
+     */
+    private static boolean isDocumentationBean(Class<?> beanType) {
+        if (beanType == null) {
+            return false;
+        }
+        String packageName = beanType.getPackageName();
+        return packageName.startsWith("org.springdoc") || OpenAPI.class.isAssignableFrom(beanType)
+                || SwaggerDocumentationConfig.class.isAssignableFrom(beanType);
+    }
+}
@@ -1,8 +1,10 @@
 package com.inghubs.brokerageapi.config;
 
 import com.inghubs.brokerageapi.constant.Roles;
+import com.inghubs.brokerageapi.interceptor.IdempotencyFilter;
 import com.inghubs.brokerageapi.security.CustomAuthenticationEntryPoint;
 import com.inghubs.brokerageapi.security.JwtAuthenticationFilter;
+import com.inghubs.brokerageapi.security.RateLimitFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -31,16 +33,23 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
     private final CustomAuthenticationEntryPoint authenticationEntryPoint;
+    private final IdempotencyFilter idempotencyFilter;
+    private final RateLimitFilter rateLimitFilter;
 
     /**
      * Constructor for SecurityConfig that initializes JwtAuthenticationFilter and CustomAuthenticationEntryPoint.
      *
      * @param jwtAuthFilter          the filter responsible for JWT authentication.
      * @param authenticationEntryPoint the entry point for handling authentication errors.
+     * @param idempotencyFilter      the filter deduplicating retried requests with an Idempotency-Key.
+     * @param rateLimitFilter        the filter rate limiting requests per customer.
      */
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, CustomAuthenticationEntryPoint authenticationEntryPoint) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, CustomAuthenticationEntryPoint authenticationEntryPoint, IdempotencyFilter idempotencyFilter,
+                          RateLimitFilter rateLimitFilter) {
         this.jwtAuthFilter = jwtAuthFilter;
         this.authenticationEntryPoint = authenticationEntryPoint;
+        this.idempotencyFilter = idempotencyFilter;
+        this.rateLimitFilter = rateLimitFilter;
         logger.info("SecurityConfig initialized with JwtAuthenticationFilter and CustomAuthenticationEntryPoint.");
     }
 
@@ -61,11 +70,15 @@ public class SecurityConfig {
                 .requestMatchers("/h2-console/**").permitAll() // Permit access to H2 console
                 .requestMatchers("/api/auth/**").permitAll() // Permit all auth-related endpoints
                 .requestMatchers("/v3/api-docs/**", "/v3/api-docs.yaml", "/swagger-ui/**", "/swagger-ui.html").permitAll() // Permit Swagger documentation access
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll() // Permit health checks and probes
+                .requestMatchers("/actuator/**").hasRole(String.valueOf(Roles.ADMIN)) // Admin role required for metrics
                 .requestMatchers("/api/admin/**").hasRole(String.valueOf(Roles.ADMIN)) // Admin role required for admin endpoints
                 .requestMatchers("/api/customer/**").hasAnyRole(String.valueOf(Roles.ADMIN), String.valueOf(Roles.CUSTOMER)) // Customer or Admin role required for customer endpoints
                 .anyRequest().authenticated() // All other requests require authentication
                 .and()
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class); // Add JWT filter before username/password authentication
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class) // Add JWT filter before username/password authentication
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class) // Rate limit per customer once the user is known
+                .addFilterAfter(idempotencyFilter, RateLimitFilter.class); // Deduplicate retries of admitted requests
 
         http.headers().frameOptions().disable(); // Disable frame options for H2 console access
         logger.debug("Security filter chain configured successfully.");
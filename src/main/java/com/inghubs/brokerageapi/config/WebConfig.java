@@ -1,6 +1,7 @@
 package com.inghubs.brokerageapi.config;
 
 import com.inghubs.brokerageapi.interceptor.LoggingInterceptor;
+import com.inghubs.brokerageapi.interceptor.SqlBudgetInterceptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,16 +18,19 @@ public class WebConfig implements WebMvcConfigurer {
     private static final Logger logger = LoggerFactory.getLogger(WebConfig.class);
 
     private final LoggingInterceptor loggingInterceptor;
+    private final SqlBudgetInterceptor sqlBudgetInterceptor;
 
     /**
-     * Constructor for WebConfig that initializes the LoggingInterceptor.
+     * Constructor for WebConfig that initializes the LoggingInterceptor and SqlBudgetInterceptor.
      *
-     * @param loggingInterceptor the interceptor used for logging requests.
+     * @param loggingInterceptor   the interceptor used for logging requests.
+     * @param sqlBudgetInterceptor the interceptor enforcing SQL statement budgets.
      */
     @Autowired
-    public WebConfig(LoggingInterceptor loggingInterceptor) {
+    public WebConfig(LoggingInterceptor loggingInterceptor, SqlBudgetInterceptor sqlBudgetInterceptor) {
         this.loggingInterceptor = loggingInterceptor;
-        logger.info("WebConfig initialized with LoggingInterceptor.");
+        this.sqlBudgetInterceptor = sqlBudgetInterceptor;
+        logger.info("WebConfig initialized with LoggingInterceptor and SqlBudgetInterceptor.");
     }
 
     /**
@@ -38,6 +42,8 @@ public class WebConfig implements WebMvcConfigurer {
     public void addInterceptors(InterceptorRegistry registry) {
         // Add LoggingInterceptor for all API paths
         registry.addInterceptor(loggingInterceptor).addPathPatterns("/api/**");
-        logger.debug("LoggingInterceptor added for path patterns: /api/**");
+        // Add SqlBudgetInterceptor for all API paths
+        registry.addInterceptor(sqlBudgetInterceptor).addPathPatterns("/api/**");
+        logger.debug("LoggingInterceptor and SqlBudgetInterceptor added for path patterns: /api/**");
     }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.inghubs.brokerageapi.constant;
+
+/**
+ * Enumeration representing the outcome of an order inside a bulk submission.
+ */
+public enum BulkOrderStatus {
+    ACCEPTED, // The order passed validation and was created
+    REJECTED; // The order was rejected and nothing was reserved for it
+}
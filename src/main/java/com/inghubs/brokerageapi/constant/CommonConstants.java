@@ -13,6 +13,7 @@ public class CommonConstants {
     public static final String ROLE = "role"; // Key for role
     public static final String INSUFFICIENT_BALANCE = "Insufficient Balance"; // General balance error
     public static final String ORDER_NOT_FOUND = "Order Not Found"; // Error for order not found
+    public static final String BOOK_NOT_FOUND = "Book Not Found"; // Error for an instrument without an order book
     public static final String USERNAME_ALREADY_EXISTS = "Username already exists"; // Error for duplicate username
     public static final String PASSWORD_MUST_BE_AT_LEAST_8_CHARACTERS_LONG = "Password must be at least 8 characters long"; // Password validation message
     public static final String INVALID_ROLE_PROVIDED = "Invalid role provided"; // Error for invalid role
@@ -21,8 +22,29 @@ public class CommonConstants {
     public static final String USER_NOT_FOUND_WITH_USERNAME = "User not found with username: "; // Message for user lookup failure
     public static final String ORDER_NOT_FOUND_OR_NOT_IN_PENDING_STATUS = "Order not found or not in PENDING status"; // Order status error
     public static final String CUSTOMER_NOT_FOUND_OR_NOT_ENABLED = "Customer not found or not ENABLED"; // Customer status error
+    public static final String ID = "id"; // Key for ID
     public static final String PRICE = "price"; // Key for price
     public static final String CREATE_DATE = "createDate"; // Key for creation date
     public static final String INTERNAL_SERVER_ERROR = "Internal Server Error";
     public static final String UNAUTHORIZED_ACCESS = "Unauthorized access";
+    public static final String INVALID_ORDER_ITEM = "Asset code, side, size and price are required"; // Bulk order item validation message
+    public static final String INVALID_ORDER_AMOUNT = "Size and price must be greater than zero"; // Bulk order amount validation message
+    public static final String INVALID_REQUEST_PARAMETER = "Invalid request parameter"; // Error for a request parameter failing its constraints
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key"; // Header carrying the client supplied idempotency key
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed"; // Header set on responses served from the idempotency store
+    public static final String IDEMPOTENCY_KEY_TOO_LONG = "Idempotency-Key must be at most 128 characters"; // Idempotency key validation message
+    public static final String IDEMPOTENCY_KEY_USED = "A request with the same Idempotency-Key was already processed, its response is not available"; // Key used before the response was stored
+    public static final String IDEMPOTENCY_KEY_REUSED = "The Idempotency-Key was already used for a different request"; // Key reused with a different body
+    public static final String IDEMPOTENT_REQUEST_IN_PROGRESS = "A request with the same Idempotency-Key is still in progress"; // Concurrent retry error
+    public static final String TRANSACTION_NOT_FOUND = "Transaction Not Found"; // Error for transaction not found
+    public static final String RATE_LIMIT_EXCEEDED = "Too many requests, retry later"; // Error for requests over the customer's rate limit
+    public static final String SERVICE_OVERLOADED = "The service is overloaded, retry later"; // Error for requests shed by admission control
+    public static final String FLIGHT_RECORDING_NOT_AVAILABLE = "No flight recording has been started"; // Error for dumping without a recording
+    public static final String SEED_DATA_REJECTED = "Seed data rejected"; // Error for seed files that cannot be loaded
+    public static final String SEED_DIRECTORY_NOT_FOUND = "Seed directory not found: "; // Error for a missing or disallowed seed directory
+    public static final String SEED_DUPLICATE_ASSETS = "Seed assets duplicate a balance: "; // Error for an asset balance that already exists or is listed twice
+    public static final String SEED_DATA_INCONSISTENT = "Seed data failed the integrity checks: "; // Error for balances that do not match the open orders
+    public static final String MATCHING_LEASE_LOST = "Matching lease lost to another instance"; // Error for a fill attempted without the instrument's lease
+    public static final String TRADE_ORDER_SEQUENCE = "trade_order_seq"; // Sequence used for trade order IDs
+    public static final String OUTBOX_EVENT_SEQUENCE = "outbox_event_seq"; // Sequence used for outbox event IDs
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.inghubs.brokerageapi.constant;
+
+/**
+ * Enumeration representing the stages of a trade order's life, in the order they are reached.
+ */
+public enum OrderLifecycleStage {
+    RECEIVED,     // The order request reached the order service
+    VALIDATED,    // The customer was verified
+    FUNDS_LOCKED, // The funds for the order were checked and locked
+    PERSISTED,    // The order was saved
+    MATCHED,      // The first fill of the order was matched
+    SETTLED,      // The order was completely filled and balances were moved
+    PUBLISHED;    // The FILLED event of the order was published by the outbox relay
+}
@@ -0,0 +1,9 @@
+package com.inghubs.brokerageapi.constant;
+
+/**
+ * Enumeration representing the kinds of events written to the outbox.
+ */
+public enum OutboxEventType {
+    TRADE_EXECUTED,       // A buy and a sell order were matched and a trade was created
+    ORDER_STATUS_CHANGED; // A trade order was created, filled, partially filled or canceled
+}
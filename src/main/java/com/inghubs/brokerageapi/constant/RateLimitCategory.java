@@ -0,0 +1,10 @@
+package com.inghubs.brokerageapi.constant;
+
+/**
+ * Enumeration representing the request categories that are rate limited separately per customer.
+ */
+public enum RateLimitCategory {
+    ORDER_ENTRY, // Creating trade orders, one token per order also in bulk
+    CANCEL,      // Canceling trade orders
+    READ;        // Reading resources
+}
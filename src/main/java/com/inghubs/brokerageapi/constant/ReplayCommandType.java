@@ -0,0 +1,15 @@
+package com.inghubs.brokerageapi.constant;
+
+/**
+ * Enumeration representing the kinds of commands recorded in the command journal and replayed from it.
+ */
+public enum ReplayCommandType {
+    ORDER,       // A trade order was created
+    CANCEL,      // A single trade order was canceled
+    AMEND,       // The size and/or the price of a trade order was changed
+    MASS_CANCEL, // The open orders of a customer were canceled, optionally narrowed to an asset and a side
+    DEPOSIT,     // TRY was deposited to a customer's account
+    WITHDRAWAL,  // TRY was withdrawn from a customer's account
+    MATCH,       // The orders of an asset were matched
+    BALANCE;     // The balances of a customer when the recording ended, compared by the replay
+}
@@ -0,0 +1,32 @@
+package com.inghubs.brokerageapi.constant;
+
+/**
+ * Enumeration representing the phases of an API request reported in the Server-Timing header.
+ * Every phase is measured exclusive of the phases nested inside it, so the phases add up to the total.
+ */
+public enum ServerTimingPhase {
+    QUEUE("queue", "Admission queue wait"),       // Waiting for admission under load
+    AUTH("auth", "Token verification"),           // Parsing and verifying the JWT
+    USER("user", "User and customer lookup"),     // Loading the authenticated user and the customer
+    DB("db", "Repository statements"),            // Executing JDBC statements and batches
+    MATCH("match", "Order matching"),             // Matching logic outside the database
+    APP("app", "Controller and service logic"),   // Handler time not covered by a nested phase
+    OTHER("other", "Filters and serialization"),  // Request time not covered by any phase
+    TOTAL("total", "Total");                      // Time from entering the API until the response
+
+    private final String metricName;
+    private final String description;
+
+    ServerTimingPhase(String metricName, String description) {
+        this.metricName = metricName;
+        this.description = description;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
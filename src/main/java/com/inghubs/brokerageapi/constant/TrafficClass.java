@@ -0,0 +1,11 @@
+package com.inghubs.brokerageapi.constant;
+
+/**
+ * Enumeration representing the traffic classes of admission control, from the highest to the lowest priority.
+ */
+public enum TrafficClass {
+    CANCEL,      // Canceling or amending trade orders
+    ORDER_ENTRY, // Creating trade orders, one or in bulk
+    READ,        // Reads and all other API requests
+    ADMIN;       // Matching and admin endpoints
+}
@@ -0,0 +1,10 @@
+package com.inghubs.brokerageapi.constant;
+
+/**
+ * Enumeration representing the processing status of a deposit or withdrawal.
+ */
+public enum TransactionStatus {
+    PENDING,   // Transaction has been recorded but its balance change is not applied yet
+    PROCESSED, // Balance change has been applied
+    FAILED;    // Balance change could not be applied, e.g. insufficient balance for a withdrawal
+}
@@ -2,7 +2,8 @@ package com.inghubs.brokerageapi.controller;
 
 import java.util.List;
 
-import com.inghubs.brokerageapi.entity.Asset;
+import com.inghubs.brokerageapi.dto.AssetSummary;
+import com.inghubs.brokerageapi.interceptor.SqlBudget;
 import com.inghubs.brokerageapi.service.AssetService;
 import com.inghubs.brokerageapi.service.AuthenticationService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -55,11 +56,12 @@ public class AssetController {
     @Operation(summary = "Listing Assets endpoint")
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')") // Only allow ADMIN and CUSTOMER roles to access this endpoint
-    public ResponseEntity<List<Asset>> listAssets(@AuthenticationPrincipal UserDetails userDetails, @RequestParam Long customerId) {
+    @SqlBudget(3) // Maximum number of SQL statements per request
+    public ResponseEntity<List<AssetSummary>> listAssets(@AuthenticationPrincipal UserDetails userDetails, @RequestParam Long customerId) {
         // Check if the authenticated user has access to the specified customer
         authenticationService.checkCustomerAccess(userDetails, customerId);
         logger.debug("Listing assets for customer ID: {}", customerId);
-        List<Asset> assets = assetService.listAssets(customerId);
+        List<AssetSummary> assets = assetService.listAssets(customerId);
         logger.info("Assets listed successfully for customer ID: {}", customerId);
         return ResponseEntity.ok(assets);
     }
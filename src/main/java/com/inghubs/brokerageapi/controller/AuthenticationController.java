@@ -3,6 +3,7 @@ package com.inghubs.brokerageapi.controller;
 import com.inghubs.brokerageapi.dto.AuthenticationRequest;
 import com.inghubs.brokerageapi.dto.AuthenticationResponse;
 import com.inghubs.brokerageapi.dto.RegisterRequest;
+import com.inghubs.brokerageapi.interceptor.SqlBudget;
 import com.inghubs.brokerageapi.service.AuthenticationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -44,6 +45,7 @@ public class AuthenticationController {
      */
     @Operation(summary = "Register New User endpoint")
     @PostMapping("/register")
+    @SqlBudget(5) // Maximum number of SQL statements per request
     public ResponseEntity<AuthenticationResponse> register(@RequestBody RegisterRequest request) {
         logger.debug("Registering new user with request: {}", request);
         AuthenticationResponse response = authenticationService.register(request);
@@ -59,6 +61,7 @@ public class AuthenticationController {
      */
     @Operation(summary = "Authenticate User endpoint")
     @PostMapping("/authenticate")
+    @SqlBudget(3) // Maximum number of SQL statements per request
     public ResponseEntity<AuthenticationResponse> authenticate(@RequestBody AuthenticationRequest request) {
         logger.debug("Authenticating user with request: {}", request);
         AuthenticationResponse response = authenticationService.authenticate(request);
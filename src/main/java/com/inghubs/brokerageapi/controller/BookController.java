@@ -0,0 +1,97 @@
+package com.inghubs.brokerageapi.controller;
+
+import java.math.BigDecimal;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.dto.BookDepthResponse;
+import com.inghubs.brokerageapi.dto.FillEstimateResponse;
+import com.inghubs.brokerageapi.interceptor.SqlBudget;
+import com.inghubs.brokerageapi.service.AuthenticationService;
+import com.inghubs.brokerageapi.service.BookQueryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+
+/**
+ * Controller for read-only queries against the order books, answered from their published snapshots.
+ */
+@RestController
+@RequestMapping("/api/books")
+@Validated
+@Tag(name = "Order Books API", description = "Order book depth and fill estimate endpoints")
+public class BookController {
+    private static final Logger log = LoggerFactory.getLogger(BookController.class);
+
+    private final BookQueryService bookQueryService;
+    private final AuthenticationService authenticationService;
+
+    /**
+     * Constructor for BookController that initializes BookQueryService and AuthenticationService.
+     *
+     * @param bookQueryService      the service answering book queries.
+     * @param authenticationService the service handling authentication.
+     */
+    public BookController(BookQueryService bookQueryService, AuthenticationService authenticationService) {
+        this.bookQueryService = bookQueryService;
+        this.authenticationService = authenticationService;
+        log.info("BookController initialized with BookQueryService and AuthenticationService.");
+    }
+
+    /**
+     * Endpoint for the best price levels of an order book.
+     *
+     * @param assetCode the instrument of the book.
+     * @param levels    the maximum number of levels per side.
+     * @return a ResponseEntity containing the depth of the book.
+     */
+    @Operation(summary = "Get Order Book Depth endpoint")
+    @GetMapping("/{assetCode}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')") // Only allow ADMIN and CUSTOMER roles to access this endpoint
+    @SqlBudget(0) // Answered from the book snapshot
+    public ResponseEntity<BookDepthResponse> getDepth(@PathVariable AssetCodes assetCode,
+                                                      @RequestParam(defaultValue = "10") @Min(1) @Max(1000) int levels) {
+        return ResponseEntity.ok(bookQueryService.getDepth(assetCode, levels)); // Respond with HTTP 200 OK
+    }
+
+    /**
+     * Endpoint for estimating what an order would fill if it were entered now, without entering it.
+     *
+     * @param userDetails the authenticated user's details.
+     * @param assetCode   the instrument of the order.
+     * @param customerId  the ID of the customer entering the order.
+     * @param side        the side of the order.
+     * @param size        the size of the order.
+     * @param price       the limit price of the order, left out to fill at any price.
+     * @return a ResponseEntity containing the estimated fills.
+     */
+    @Operation(summary = "Estimate Order Fill endpoint")
+    @GetMapping("/{assetCode}/estimate")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')") // Only allow ADMIN and CUSTOMER roles to access this endpoint
+    @SqlBudget(1) // The customer access check; the estimate is answered from the book snapshot
+    public ResponseEntity<FillEstimateResponse> estimateFill(@AuthenticationPrincipal UserDetails userDetails,
+                                                             @PathVariable AssetCodes assetCode,
+                                                             @RequestParam Long customerId,
+                                                             @RequestParam OrderSide side,
+                                                             @RequestParam @DecimalMin("0.01") BigDecimal size,
+                                                             @RequestParam(required = false) @DecimalMin("0.01") BigDecimal price) {
+        // Check if the authenticated user has access to the specified customer
+        authenticationService.checkCustomerAccess(userDetails, customerId);
+        return ResponseEntity.ok(bookQueryService.estimateFill(customerId, assetCode, side, size, price)); // Respond with HTTP 200 OK
+    }
+}
@@ -0,0 +1,114 @@
+package com.inghubs.brokerageapi.controller;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import com.inghubs.brokerageapi.dto.FlightRecordingStatus;
+import com.inghubs.brokerageapi.service.FlightRecordingService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+
+/**
+ * Controller for starting, stopping and dumping the Java Flight Recorder recording.
+ */
+@RestController
+@RequestMapping("/api/admin/jfr")
+@Tag(name = "Flight Recording API", description = "Java Flight Recorder endpoints")
+public class FlightRecordingController {
+    private static final Logger log = LoggerFactory.getLogger(FlightRecordingController.class);
+
+    private final FlightRecordingService flightRecordingService;
+
+    /**
+     * Constructor for FlightRecordingController that initializes FlightRecordingService.
+     *
+     * @param flightRecordingService the service controlling the recording.
+     */
+    public FlightRecordingController(FlightRecordingService flightRecordingService) {
+        this.flightRecordingService = flightRecordingService;
+        log.info("FlightRecordingController initialized with FlightRecordingService.");
+    }
+
+    /**
+     * Endpoint for the status of the recording.
+     * This endpoint is restricted to users with the ADMIN role.
+     *
+     * @return a ResponseEntity containing the recording status.
+     */
+    @Operation(summary = "Get Flight Recording Status endpoint")
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')") // Only allow ADMIN role to access this endpoint
+    public ResponseEntity<FlightRecordingStatus> getStatus() {
+        return ResponseEntity.ok(flightRecordingService.status()); // Respond with HTTP 200 OK
+    }
+
+    /**
+     * Endpoint for starting a continuous recording with the application events enabled.
+     * This endpoint is restricted to users with the ADMIN role.
+     *
+     * @param maxAge  how long recorded data is kept, as an ISO-8601 duration (optional).
+     * @param maxSize the maximum size of the recorded data in bytes (optional).
+     * @return a ResponseEntity containing the recording status.
+     */
+    @Operation(summary = "Start Flight Recording endpoint")
+    @PostMapping("/start")
+    @PreAuthorize("hasRole('ADMIN')") // Only allow ADMIN role to access this endpoint
+    public ResponseEntity<FlightRecordingStatus> start(@RequestParam(required = false) Duration maxAge,
+                                                       @RequestParam(required = false) Long maxSize) {
+        return ResponseEntity.ok(flightRecordingService.start(maxAge, maxSize)); // Respond with HTTP 200 OK
+    }
+
+    /**
+     * Endpoint for stopping the recording.
+     * This endpoint is restricted to users with the ADMIN role.
+     *
+     * @return a ResponseEntity containing the recording status.
+     */
+    @Operation(summary = "Stop Flight Recording endpoint")
+    @PostMapping("/stop")
+    @PreAuthorize("hasRole('ADMIN')") // Only allow ADMIN role to access this endpoint
+    public ResponseEntity<FlightRecordingStatus> stop() {
+        return ResponseEntity.ok(flightRecordingService.stop()); // Respond with HTTP 200 OK
+    }
+
+    /**
+     * Endpoint for downloading the recorded data as a .jfr file.
+     * This endpoint is restricted to users with the ADMIN role.
+     *
+     * @return a ResponseEntity streaming the recording.
+     * @throws IOException if the recording cannot be written.
+     */
+    @Operation(summary = "Dump Flight Recording endpoint")
+    @GetMapping("/dump")
+    @PreAuthorize("hasRole('ADMIN')") // Only allow ADMIN role to access this endpoint
+    public ResponseEntity<StreamingResponseBody> dump() throws IOException {
+        Path file = flightRecordingService.dump();
+        StreamingResponseBody body = outputStream -> {
+            try {
+                Files.copy(file, outputStream);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(file))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"brokerageapi.jfr\"")
+                .body(body); // Respond with HTTP 200 OK
+    }
+}
@@ -0,0 +1,65 @@
+package com.inghubs.brokerageapi.controller;
+
+import com.inghubs.brokerageapi.dto.OrderLatencyReport;
+import com.inghubs.brokerageapi.metrics.OrderLatencyTracker;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+
+/**
+ * Controller for reading the order lifecycle latencies.
+ */
+@RestController
+@RequestMapping("/api/admin/latency")
+@Tag(name = "Order Latency API", description = "Order lifecycle latency endpoints")
+public class OrderLatencyController {
+    private static final Logger log = LoggerFactory.getLogger(OrderLatencyController.class);
+
+    private final OrderLatencyTracker orderLatencyTracker;
+
+    /**
+     * Constructor for OrderLatencyController that initializes OrderLatencyTracker.
+     *
+     * @param orderLatencyTracker the tracker recording order lifecycle latencies.
+     */
+    public OrderLatencyController(OrderLatencyTracker orderLatencyTracker) {
+        this.orderLatencyTracker = orderLatencyTracker;
+        log.info("OrderLatencyController initialized with OrderLatencyTracker.");
+    }
+
+    /**
+     * Endpoint for the latency from order receipt to every lifecycle stage, per instrument, in microseconds.
+     * This endpoint is restricted to users with the ADMIN role.
+     *
+     * @return a ResponseEntity containing the latency report.
+     */
+    @Operation(summary = "Get Order Lifecycle Latencies endpoint")
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')") // Only allow ADMIN role to access this endpoint
+    public ResponseEntity<OrderLatencyReport> getLatencies() {
+        return ResponseEntity.ok(orderLatencyTracker.report()); // Respond with HTTP 200 OK
+    }
+
+    /**
+     * Endpoint for clearing the recorded latencies and samples.
+     * This endpoint is restricted to users with the ADMIN role.
+     *
+     * @return a ResponseEntity indicating the completion of the operation.
+     */
+    @Operation(summary = "Reset Order Lifecycle Latencies endpoint")
+    @DeleteMapping
+    @PreAuthorize("hasRole('ADMIN')") // Only allow ADMIN role to access this endpoint
+    public ResponseEntity<Void> resetLatencies() {
+        orderLatencyTracker.reset();
+        log.info("Order lifecycle latencies reset.");
+        return ResponseEntity.noContent().build(); // Respond with HTTP 204 No Content
+    }
+}
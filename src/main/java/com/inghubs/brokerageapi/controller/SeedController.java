@@ -0,0 +1,51 @@
+package com.inghubs.brokerageapi.controller;
+
+import com.inghubs.brokerageapi.dto.SeedLoadReport;
+import com.inghubs.brokerageapi.service.SeedLoaderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+
+/**
+ * Controller for bulk loading seed data.
+ */
+@RestController
+@RequestMapping("/api/admin/seed")
+@Tag(name = "Seed Data API", description = "Bulk seed data loading endpoints")
+public class SeedController {
+    private static final Logger log = LoggerFactory.getLogger(SeedController.class);
+
+    private final SeedLoaderService seedLoaderService;
+
+    /**
+     * Constructor for SeedController that initializes SeedLoaderService.
+     *
+     * @param seedLoaderService the service loading the seed files.
+     */
+    public SeedController(SeedLoaderService seedLoaderService) {
+        this.seedLoaderService = seedLoaderService;
+        log.info("SeedController initialized with SeedLoaderService.");
+    }
+
+    /**
+     * Endpoint for loading the CSV files of the seed directory, or of one of its subdirectories.
+     * This endpoint is restricted to users with the ADMIN role.
+     *
+     * @param directory the subdirectory of the seed directory to load (optional).
+     * @return a ResponseEntity containing the number of rows loaded per table.
+     */
+    @Operation(summary = "Load Seed Data endpoint")
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')") // Only allow ADMIN role to access this endpoint
+    public ResponseEntity<SeedLoadReport> load(@RequestParam(required = false) String directory) {
+        return ResponseEntity.ok(seedLoaderService.load(directory)); // Respond with HTTP 200 OK
+    }
+}
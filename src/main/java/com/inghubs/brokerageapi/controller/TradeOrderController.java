@@ -3,9 +3,20 @@ package com.inghubs.brokerageapi.controller;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.RateLimitCategory;
+import com.inghubs.brokerageapi.dto.AmendOrderRequest;
+import com.inghubs.brokerageapi.dto.BulkCreateOrderRequest;
+import com.inghubs.brokerageapi.dto.BulkCreateOrderResponse;
 import com.inghubs.brokerageapi.dto.CreateOrderRequest;
+import com.inghubs.brokerageapi.dto.MassCancelResponse;
+import com.inghubs.brokerageapi.dto.TradeOrderSummary;
 import com.inghubs.brokerageapi.entity.TradeOrder;
+import com.inghubs.brokerageapi.interceptor.SqlBudget;
+import com.inghubs.brokerageapi.security.RateLimiter;
 import com.inghubs.brokerageapi.service.AuthenticationService;
+import com.inghubs.brokerageapi.service.IdempotencyService;
 import com.inghubs.brokerageapi.service.TradeOrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -20,8 +31,10 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -39,16 +52,23 @@ public class TradeOrderController {
 
     private final TradeOrderService tradeOrderService;
     private final AuthenticationService authenticationService;
+    private final RateLimiter rateLimiter;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Constructor for TradeOrderController that initializes TradeOrderService and AuthenticationService.
      *
      * @param tradeOrderService       the service responsible for trade order management.
      * @param authenticationService    the service for handling authentication-related logic.
+     * @param rateLimiter             the per-customer rate limiter, charged per order of a bulk request.
+     * @param idempotencyService      the service claiming the Idempotency-Key of a request with its change.
      */
-    public TradeOrderController(TradeOrderService tradeOrderService, AuthenticationService authenticationService) {
+    public TradeOrderController(TradeOrderService tradeOrderService, AuthenticationService authenticationService,
+                                RateLimiter rateLimiter, IdempotencyService idempotencyService) {
         this.tradeOrderService = tradeOrderService;
         this.authenticationService = authenticationService;
+        this.rateLimiter = rateLimiter;
+        this.idempotencyService = idempotencyService;
         log.info("TradeOrderController initialized with TradeOrderService and AuthenticationService.");
     }
 
@@ -57,20 +77,51 @@ public class TradeOrderController {
      *
      * @param userDetails the authenticated user's details.
      * @param request     the request containing trade order details.
+     * @param idempotentRequest the Idempotency-Key of the request, if it carries one.
      * @return a ResponseEntity containing the created trade order.
      */
     @Operation(summary = "Create new Trade Order endpoint")
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')") // Only allow ADMIN and CUSTOMER roles to access this endpoint
-    public ResponseEntity<TradeOrder> createTradeOrder(@AuthenticationPrincipal UserDetails userDetails, @Valid @RequestBody CreateOrderRequest request) {
+    @SqlBudget(8) // Maximum number of SQL statements per request
+    public ResponseEntity<TradeOrder> createTradeOrder(@AuthenticationPrincipal UserDetails userDetails, @Valid @RequestBody CreateOrderRequest request,
+                                                       @RequestAttribute(name = IdempotencyService.Request.ATTRIBUTE, required = false) IdempotencyService.Request idempotentRequest) {
         // Check if the authenticated user has access to the specified customer
         authenticationService.checkCustomerAccess(userDetails, request.getCustomerId());
-        TradeOrder order = tradeOrderService.createTradeOrder(request.getCustomerId(), request.getAssetCode(), request.getSide(), request.getSize(), request.getPrice());
+        TradeOrder order = idempotencyService.execute(idempotentRequest, () -> tradeOrderService.createTradeOrder(
+                request.getCustomerId(), request.getAssetCode(), request.getSide(), request.getSize(), request.getPrice()));
 
-        log.info("Trade order created successfully: {}", order);
+        log.info("Trade order created successfully: ID = {}", order.getId());
         return ResponseEntity.status(HttpStatus.CREATED).body(order); // Respond with HTTP 201 Created
     }
 
+    /**
+     * Endpoint for creating many trade orders for one customer in a single call.
+     * Each order is accepted or rejected on its own; the response lists the outcome of every order.
+     *
+     * @param userDetails the authenticated user's details.
+     * @param request     the request containing the customer and the orders to create.
+     * @param idempotentRequest the Idempotency-Key of the request, if it carries one.
+     * @return a ResponseEntity containing the per-order results.
+     */
+    @Operation(summary = "Create Trade Orders in Bulk endpoint")
+    @PostMapping("/bulk")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')") // Only allow ADMIN and CUSTOMER roles to access this endpoint
+    @SqlBudget(50) // Maximum number of SQL statements per request, for 1000 orders inserted in JDBC batches
+    public ResponseEntity<BulkCreateOrderResponse> createTradeOrders(@AuthenticationPrincipal UserDetails userDetails, @Valid @RequestBody BulkCreateOrderRequest request,
+                                                                     @RequestAttribute(name = IdempotencyService.Request.ATTRIBUTE, required = false) IdempotencyService.Request idempotentRequest) {
+        // Check if the authenticated user has access to the specified customer
+        authenticationService.checkCustomerAccess(userDetails, request.getCustomerId());
+        // Every order takes an order entry token, as if it had been entered on its own
+        rateLimiter.acquire(userDetails, RateLimitCategory.ORDER_ENTRY, request.getOrders().size());
+        BulkCreateOrderResponse response = idempotencyService.execute(idempotentRequest,
+                () -> tradeOrderService.createTradeOrders(request.getCustomerId(), request.getOrders()));
+
+        log.info("Bulk trade orders processed for customer ID {}: {} accepted, {} rejected",
+                 request.getCustomerId(), response.getAccepted(), response.getRejected());
+        return ResponseEntity.ok(response); // Respond with HTTP 200 OK, partial failures are reported per order
+    }
+
     /**
      * Endpoint for listing trade orders for a specific customer.
      *
@@ -85,7 +136,8 @@ public class TradeOrderController {
     @Operation(summary = "Listing Trade Orders endpoint")
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')") // Only allow ADMIN and CUSTOMER roles to access this endpoint
-    public ResponseEntity<List<TradeOrder>> listTradeOrders(
+    @SqlBudget(3) // Maximum number of SQL statements per request
+    public ResponseEntity<List<TradeOrderSummary>> listTradeOrders(
             @AuthenticationPrincipal UserDetails userDetails,
             @RequestParam Long customerId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
@@ -95,7 +147,7 @@ public class TradeOrderController {
 
         // Check if the authenticated user has access to the specified customer
         authenticationService.checkCustomerAccess(userDetails, customerId);
-        List<TradeOrder> tradeOrders = tradeOrderService.listTradeOrders(customerId, startDate, endDate, page, size);
+        List<TradeOrderSummary> tradeOrders = tradeOrderService.listTradeOrders(customerId, startDate, endDate, page, size);
         log.info("Listed {} trade orders for customer ID: {}", tradeOrders.size(), customerId);
         return ResponseEntity.ok(tradeOrders); // Respond with HTTP 200 OK
     }
@@ -110,6 +162,7 @@ public class TradeOrderController {
     @Operation(summary = "Delete Trade Order endpoint")
     @DeleteMapping("/{tradeOrderId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')") // Only allow ADMIN and CUSTOMER roles to access this endpoint
+    @SqlBudget(8) // Maximum number of SQL statements per request
     public ResponseEntity<Void> cancelOrder(@AuthenticationPrincipal UserDetails userDetails, @PathVariable Long tradeOrderId) {
         // Check if the authenticated user has access to the customer of the specified trade order
         authenticationService.checkCustomerAccess(userDetails, tradeOrderService.getCustomerId(tradeOrderId));
@@ -118,4 +171,54 @@ public class TradeOrderController {
         log.info("Trade order with ID: {} cancelled successfully.", tradeOrderId);
         return ResponseEntity.ok().build(); // Respond with HTTP 200 OK
     }
+
+    /**
+     * Endpoint for amending the size and/or the price of a pending trade order in place.
+     * A size reduction keeps the order's time priority; a price change or a size increase moves it behind the orders
+     * resting at its new price.
+     *
+     * @param userDetails    the authenticated user's details.
+     * @param tradeOrderId   the ID of the trade order to amend.
+     * @param request        the request containing the new size and/or price.
+     * @return a ResponseEntity containing the amended trade order.
+     */
+    @Operation(summary = "Amend Trade Order endpoint")
+    @PatchMapping("/{tradeOrderId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')") // Only allow ADMIN and CUSTOMER roles to access this endpoint
+    @SqlBudget(8) // Maximum number of SQL statements per request
+    public ResponseEntity<TradeOrder> amendOrder(@AuthenticationPrincipal UserDetails userDetails, @PathVariable Long tradeOrderId,
+                                                 @Valid @RequestBody AmendOrderRequest request) {
+        // Check if the authenticated user has access to the customer of the specified trade order
+        authenticationService.checkCustomerAccess(userDetails, tradeOrderService.getCustomerId(tradeOrderId));
+        TradeOrder order = tradeOrderService.amendTradeOrder(tradeOrderId, request.getSize(), request.getPrice());
+
+        log.info("Trade order with ID: {} amended successfully.", tradeOrderId);
+        return ResponseEntity.ok(order); // Respond with HTTP 200 OK
+    }
+
+    /**
+     * Endpoint for cancelling all open trade orders of a customer, optionally narrowed to an asset and a side.
+     *
+     * @param userDetails the authenticated user's details.
+     * @param customerId  the ID of the customer whose orders are to be cancelled.
+     * @param assetCode   the asset code to cancel orders for; all assets when omitted.
+     * @param side        the order side to cancel; both sides when omitted.
+     * @return a ResponseEntity containing the cancelled order IDs.
+     */
+    @Operation(summary = "Mass Cancel Trade Orders endpoint")
+    @DeleteMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')") // Only allow ADMIN and CUSTOMER roles to access this endpoint
+    public ResponseEntity<MassCancelResponse> cancelOrders(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam Long customerId,
+            @RequestParam(required = false) AssetCodes assetCode,
+            @RequestParam(required = false) OrderSide side) {
+
+        // Check if the authenticated user has access to the specified customer
+        authenticationService.checkCustomerAccess(userDetails, customerId);
+        MassCancelResponse response = tradeOrderService.cancelTradeOrders(customerId, assetCode, side);
+
+        log.info("Mass cancel completed for customer ID {}: {} orders cancelled.", customerId, response.getCanceled());
+        return ResponseEntity.ok(response); // Respond with HTTP 200 OK
+    }
 }
@@ -2,8 +2,11 @@ package com.inghubs.brokerageapi.controller;
 
 import java.util.List;
 
+import com.inghubs.brokerageapi.dto.TransactionSummary;
 import com.inghubs.brokerageapi.entity.Transaction;
+import com.inghubs.brokerageapi.interceptor.SqlBudget;
 import com.inghubs.brokerageapi.service.AuthenticationService;
+import com.inghubs.brokerageapi.service.IdempotencyService;
 import com.inghubs.brokerageapi.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -16,7 +19,9 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -34,16 +39,20 @@ public class TransactionController {
 
     private final TransactionService transactionService;
     private final AuthenticationService authenticationService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Constructor for TransactionController that initializes TransactionService and AuthenticationService.
      *
      * @param transactionService       the service responsible for transaction management.
      * @param authenticationService     the service for handling authentication-related logic.
+     * @param idempotencyService        the service claiming the Idempotency-Key of a request with its change.
      */
-    public TransactionController(TransactionService transactionService, AuthenticationService authenticationService) {
+    public TransactionController(TransactionService transactionService, AuthenticationService authenticationService,
+                                 IdempotencyService idempotencyService) {
         this.transactionService = transactionService;
         this.authenticationService = authenticationService;
+        this.idempotencyService = idempotencyService;
         log.info("TransactionController initialized with TransactionService and AuthenticationService.");
     }
 
@@ -57,30 +66,62 @@ public class TransactionController {
     @Operation(summary = "Listing Transactions endpoint")
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')") // Only allow ADMIN and CUSTOMER roles to access this endpoint
-    public ResponseEntity<List<Transaction>> listTransactions(@AuthenticationPrincipal UserDetails userDetails, @RequestParam Long customerId) {
+    @SqlBudget(3) // Maximum number of SQL statements per request
+    public ResponseEntity<List<TransactionSummary>> listTransactions(@AuthenticationPrincipal UserDetails userDetails, @RequestParam Long customerId) {
         // Check if the authenticated user has access to the specified customer
         authenticationService.checkCustomerAccess(userDetails, customerId);
-        List<Transaction> transactions = transactionService.listTransactions(customerId);
+        List<TransactionSummary> transactions = transactionService.listTransactions(customerId);
 
         log.info("Listed {} transactions for customer ID: {}", transactions.size(), customerId);
         return ResponseEntity.ok(transactions); // Respond with HTTP 200 OK
     }
 
+    /**
+     * Endpoint for retrieving a single transaction, e.g. to follow the status of an asynchronous deposit.
+     *
+     * @param userDetails   the authenticated user's details.
+     * @param transactionId the ID of the transaction.
+     * @return a ResponseEntity containing the transaction.
+     */
+    @Operation(summary = "Get Transaction endpoint")
+    @GetMapping("/{transactionId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')") // Only allow ADMIN and CUSTOMER roles to access this endpoint
+    @SqlBudget(3) // Maximum number of SQL statements per request
+    public ResponseEntity<Transaction> getTransaction(@AuthenticationPrincipal UserDetails userDetails, @PathVariable Long transactionId) {
+        Transaction transaction = transactionService.getTransaction(transactionId);
+        // Check if the authenticated user has access to the customer associated with the transaction
+        authenticationService.checkCustomerAccess(userDetails, transaction.getCustomer().getId());
+        return ResponseEntity.ok(transaction); // Respond with HTTP 200 OK
+    }
+
     /**
      * Endpoint for depositing or withdrawing money.
+     * In asynchronous mode the transaction is only recorded and returned as pending; it is applied shortly after
+     * by the background processor.
      *
      * @param userDetails    the authenticated user's details.
      * @param transaction    the transaction details including amount and type.
+     * @param async          whether to record the transaction and apply it in the background.
+     * @param idempotentRequest the Idempotency-Key of the request, if it carries one.
      * @return a ResponseEntity containing the saved transaction.
      */
     @Operation(summary = "Deposit or Withdraw Money endpoint")
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')") // Only allow ADMIN and CUSTOMER roles to access this endpoint
-    public ResponseEntity<Transaction> depositMoney(@AuthenticationPrincipal UserDetails userDetails, @Valid @RequestBody Transaction transaction) {
+    @SqlBudget(8) // Maximum number of SQL statements per request
+    public ResponseEntity<Transaction> depositMoney(@AuthenticationPrincipal UserDetails userDetails, @Valid @RequestBody Transaction transaction,
+                                                    @RequestParam(defaultValue = "false") boolean async,
+                                                    @RequestAttribute(name = IdempotencyService.Request.ATTRIBUTE, required = false) IdempotencyService.Request idempotentRequest) {
         // Check if the authenticated user has access to the customer associated with the transaction
         authenticationService.checkCustomerAccess(userDetails, transaction.getCustomer().getId());
 
-        Transaction savedTransaction = transactionService.checkAndSaveTransaction(transaction);
+        if (async) {
+            Transaction acceptedTransaction = idempotencyService.execute(idempotentRequest, () -> transactionService.acceptTransaction(transaction));
+            log.info("Transaction accepted for asynchronous processing: {}", acceptedTransaction);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(acceptedTransaction); // Respond with HTTP 202 Accepted
+        }
+
+        Transaction savedTransaction = idempotencyService.execute(idempotentRequest, () -> transactionService.checkAndSaveTransaction(transaction));
         log.info("Transaction processed successfully: {}", savedTransaction);
 
         return ResponseEntity.status(HttpStatus.CREATED).body(savedTransaction); // Respond with HTTP 201 Created
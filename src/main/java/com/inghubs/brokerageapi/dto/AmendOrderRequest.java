@@ -0,0 +1,22 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+
+import jakarta.validation.constraints.DecimalMin;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents a request to change the size and/or the price of a pending trade order. A field left out keeps its value.
+ */
+@Getter
+@Setter
+public class AmendOrderRequest {
+
+    @DecimalMin(value = "0.01", message = "Size must be greater than zero") // Validation constraint for size
+    private BigDecimal size; // The new remaining size of the order
+
+    @DecimalMin(value = "0.01", message = "Price must be greater than zero") // Validation constraint for price
+    private BigDecimal price; // The new price of the order
+}
@@ -0,0 +1,21 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+
+/**
+ * Read model of an asset for listings, built by a constructor expression without loading the customer.
+ */
+@Getter
+@AllArgsConstructor
+public class AssetSummary {
+    private Long id;               // The ID of the asset
+    private Long customerId;       // The ID of the customer that owns the asset
+    private AssetCodes assetCode;  // The code of the asset
+    private BigDecimal size;       // Total size of the asset
+    private BigDecimal usableSize; // Usable size of the asset
+}
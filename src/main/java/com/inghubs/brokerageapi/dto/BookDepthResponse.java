@@ -0,0 +1,24 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents the best price levels of an order book, as of its last published snapshot.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class BookDepthResponse {
+    private AssetCodes assetCode;   // The instrument of the book
+    private long version;           // The version of the snapshot; a higher version includes more changes
+    private Instant publishedAt;    // When the snapshot was taken
+    private List<DepthLevel> bids;  // The buy levels, highest price first
+    private List<DepthLevel> asks;  // The sell levels, lowest price first
+}
@@ -0,0 +1,17 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+
+
+/**
+ * Projection of the open orders on one side of an asset's book.
+ */
+public interface BookDepthSummary {
+    AssetCodes getAssetCode(); // The instrument
+    OrderSide getOrderSide();  // The side of the book
+    long getOrders();          // Number of open orders
+    BigDecimal getSize();      // Total remaining size of the open orders
+}
@@ -0,0 +1,21 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+
+import com.inghubs.brokerageapi.constant.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+
+/**
+ * An open order as the resident order books load it, built by a constructor expression without loading the entity.
+ */
+@Getter
+@AllArgsConstructor
+public class BookOrder {
+    private Long id;              // The ID of the trade order
+    private Long customerId;      // The ID of the customer that placed the order
+    private BigDecimal price;     // The price of the order
+    private BigDecimal size;      // The remaining size of the order
+    private OrderStatus status;   // The current status of the order
+}
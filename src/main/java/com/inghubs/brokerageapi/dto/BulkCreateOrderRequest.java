@@ -0,0 +1,25 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents a request to create many trade orders for a single customer in one call.
+ */
+@Getter
+@Setter
+public class BulkCreateOrderRequest {
+
+    @NotNull(message = "Customer ID cannot be null") // Validation constraint to ensure customerId is provided
+    private Long customerId; // The ID of the customer placing the orders
+
+    @NotEmpty(message = "Orders cannot be empty") // Validation constraint to ensure at least one order is provided
+    @Size(max = 1000, message = "At most 1000 orders can be submitted at once") // Upper bound for a single batch
+    private List<BulkOrderItem> orders; // The orders to be created, processed in the given sequence
+}
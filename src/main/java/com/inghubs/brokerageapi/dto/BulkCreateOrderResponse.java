@@ -0,0 +1,20 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents the response of a bulk order submission with a result for every submitted order.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class BulkCreateOrderResponse {
+    private int accepted;                // Number of orders that were created
+    private int rejected;                // Number of orders that were rejected
+    private List<BulkOrderResult> results; // Per-order results in submission order
+}
@@ -0,0 +1,22 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents a single order inside a bulk order submission.
+ * Items are validated one by one by the service so that an invalid item only rejects itself.
+ */
+@Getter
+@Setter
+public class BulkOrderItem {
+    private AssetCodes assetCode; // The code of the asset for the order
+    private OrderSide side;       // Indicates whether the order is a buy or sell
+    private BigDecimal size;      // The size (quantity) of the asset being ordered
+    private BigDecimal price;     // The price at which the asset is to be ordered
+}
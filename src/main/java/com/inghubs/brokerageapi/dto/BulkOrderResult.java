@@ -0,0 +1,28 @@
+package com.inghubs.brokerageapi.dto;
+
+import com.inghubs.brokerageapi.constant.BulkOrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents the outcome of a single order within a bulk order submission.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class BulkOrderResult {
+    private int index;              // Position of the order in the submitted list
+    private Long orderId;           // The ID of the created order, null when rejected
+    private BulkOrderStatus status; // Whether the order was accepted or rejected
+    private String message;         // Rejection reason, null when accepted
+
+    public static BulkOrderResult accepted(int index, Long orderId) {
+        return new BulkOrderResult(index, orderId, BulkOrderStatus.ACCEPTED, null);
+    }
+
+    public static BulkOrderResult rejected(int index, String message) {
+        return new BulkOrderResult(index, null, BulkOrderStatus.REJECTED, message);
+    }
+}
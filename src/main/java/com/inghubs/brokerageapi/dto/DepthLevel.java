@@ -0,0 +1,20 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents one price level of an order book.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class DepthLevel {
+    private BigDecimal price;   // The price of the level
+    private BigDecimal size;    // The remaining size of all orders at the price
+    private int orderCount;     // The number of orders at the price
+}
@@ -0,0 +1,27 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents what an order would fill if it were matched against the last published snapshot of its book.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class FillEstimateResponse {
+    private AssetCodes assetCode;       // The instrument of the order
+    private OrderSide side;             // The side of the order
+    private BigDecimal size;            // The size of the order
+    private BigDecimal filledSize;      // The size that would fill now
+    private BigDecimal averagePrice;    // The average price of the fills, null if nothing would fill
+    private BigDecimal totalAmount;     // The total price of the fills
+    private int fills;                  // The number of resting orders it would fill against
+    private long version;               // The version of the snapshot the estimate is based on
+}
@@ -0,0 +1,23 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents the state of the application's flight recording.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class FlightRecordingStatus {
+    private String state;      // NEW, RUNNING, STOPPED or CLOSED; null if no recording was started
+    private Instant startTime; // When the recording was started
+    private Duration maxAge;   // How long recorded data is kept
+    private long maxSize;      // Maximum size of the recorded data in bytes
+    private long size;         // Current size of the recorded data in bytes
+}
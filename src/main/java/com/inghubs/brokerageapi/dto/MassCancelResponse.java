@@ -0,0 +1,19 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents the response of a mass cancel, listing the orders that were canceled.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class MassCancelResponse {
+    private int canceled;         // Number of orders that were canceled
+    private List<Long> orderIds;  // IDs of the canceled orders
+}
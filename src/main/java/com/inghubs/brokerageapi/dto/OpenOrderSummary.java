@@ -0,0 +1,18 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+
+
+/**
+ * Projection of the columns of an open trade order needed to release its locked funds.
+ */
+public interface OpenOrderSummary {
+    Long getId();               // The ID of the trade order
+    AssetCodes getAssetCode();  // The asset code of the trade order
+    OrderSide getOrderSide();   // The side of the trade order
+    BigDecimal getSize();       // The remaining size of the trade order
+    BigDecimal getPrice();      // The price of the trade order
+}
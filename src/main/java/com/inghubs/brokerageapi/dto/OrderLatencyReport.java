@@ -0,0 +1,24 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents the order lifecycle latencies per instrument together with sampled per-order timelines.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class OrderLatencyReport {
+    private Map<AssetCodes, List<StageLatency>> instruments; // Latency distribution per stage for each instrument
+    private int trackedOrders;                               // Orders whose lifecycle is currently being followed
+    private long untrackedOrders;                            // Orders not followed because the tracker was full
+    private long expiredOrders;                              // Orders no longer followed because they outlived the maximum age
+    private List<OrderLatencySample> samples;                // Recently sampled per-order timelines, oldest first
+}
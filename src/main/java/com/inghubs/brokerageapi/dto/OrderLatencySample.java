@@ -0,0 +1,23 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.util.Map;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderLifecycleStage;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents the stage by stage timeline of a single sampled order, in microseconds since receipt.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class OrderLatencySample {
+    private Long orderId;                                // The ID of the trade order
+    private AssetCodes assetCode;                        // The instrument of the order
+    private boolean outlier;                             // True if the order was kept for exceeding the outlier threshold
+    private Map<OrderLifecycleStage, Long> stageMicros;  // Time from receipt to each stage the order reached
+}
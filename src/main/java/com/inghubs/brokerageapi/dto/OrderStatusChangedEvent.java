@@ -0,0 +1,27 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents the payload of an outbox event published when a trade order changes status.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+    private Long orderId;         // The ID of the trade order
+    private Long customerId;      // The customer who placed the order
+    private AssetCodes assetCode; // The instrument of the order
+    private OrderSide orderSide;  // The side of the order (BUY or SELL)
+    private OrderStatus status;   // The new status of the order
+    private BigDecimal size;      // The remaining size of the order
+    private BigDecimal price;     // The limit price of the order
+}
@@ -0,0 +1,33 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+
+/**
+ * Represents the balance of one asset of a customer, as recorded or as replayed.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplayBalance {
+    private AssetCodes assetCode;  // The asset
+    private BigDecimal size;       // The total size
+    private BigDecimal usableSize; // The size not locked by open orders
+
+    /**
+     * Compares two balances, ignoring the scale of the amounts.
+     *
+     * @param other the balance to compare with
+     * @return true if both balances are of the same asset with the same total and usable size
+     */
+    public boolean sameAs(ReplayBalance other) {
+        return assetCode == other.assetCode && size.compareTo(other.size) == 0 && usableSize.compareTo(other.usableSize) == 0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.ReplayCommandType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+
+/**
+ * Represents one committed command of the command journal. Only the fields of the command's type are set.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReplayCommand {
+    private ReplayCommandType type;   // The kind of command
+    private LocalDateTime timestamp;  // When the command was executed, taken from the application clock
+    private Long customerId;          // The customer of an order, mass cancel, deposit, withdrawal or balance
+    private Long orderId;             // The ID of a created, canceled or amended order
+    private AssetCodes assetCode;     // The instrument of an order, mass cancel or match
+    private OrderSide side;           // The side of an order or mass cancel
+    private BigDecimal size;          // The size of a created or amended order
+    private BigDecimal price;         // The limit price of a created or amended order
+    private BigDecimal amount;        // The amount of a deposit or withdrawal
+    private List<ReplayTrade> trades; // The trades produced by a match
+    private List<ReplayBalance> balances; // The balances of a customer, by asset code
+
+    public static ReplayCommand order(LocalDateTime timestamp, Long customerId, Long orderId, AssetCodes assetCode,
+                                      OrderSide side, BigDecimal size, BigDecimal price) {
+        return new ReplayCommand(ReplayCommandType.ORDER, timestamp, customerId, orderId, assetCode, side, size, price, null, null, null);
+    }
+
+    public static ReplayCommand cancel(LocalDateTime timestamp, Long orderId) {
+        return new ReplayCommand(ReplayCommandType.CANCEL, timestamp, null, orderId, null, null, null, null, null, null, null);
+    }
+
+    public static ReplayCommand amend(LocalDateTime timestamp, Long orderId, BigDecimal size, BigDecimal price) {
+        return new ReplayCommand(ReplayCommandType.AMEND, timestamp, null, orderId, null, null, size, price, null, null, null);
+    }
+
+    public static ReplayCommand massCancel(LocalDateTime timestamp, Long customerId, AssetCodes assetCode, OrderSide side) {
+        return new ReplayCommand(ReplayCommandType.MASS_CANCEL, timestamp, customerId, null, assetCode, side, null, null, null, null, null);
+    }
+
+    public static ReplayCommand transaction(ReplayCommandType type, LocalDateTime timestamp, Long customerId, BigDecimal amount) {
+        return new ReplayCommand(type, timestamp, customerId, null, null, null, null, null, amount, null, null);
+    }
+
+    public static ReplayCommand match(LocalDateTime timestamp, AssetCodes assetCode, List<ReplayTrade> trades) {
+        return new ReplayCommand(ReplayCommandType.MATCH, timestamp, null, null, assetCode, null, null, null, null, trades, null);
+    }
+
+    public static ReplayCommand balance(LocalDateTime timestamp, Long customerId, List<ReplayBalance> balances) {
+        return new ReplayCommand(ReplayCommandType.BALANCE, timestamp, customerId, null, null, null, null, null, null, null, balances);
+    }
+}
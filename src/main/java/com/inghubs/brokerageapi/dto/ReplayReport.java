@@ -0,0 +1,27 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.util.Map;
+
+import com.inghubs.brokerageapi.constant.ReplayCommandType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents the outcome of replaying a command journal.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class ReplayReport {
+    private long commands;                          // Number of commands replayed
+    private Map<ReplayCommandType, Long> perType;   // Number of commands replayed per type
+    private long trades;                            // Number of trades produced by the replayed matches
+    private long mismatches;                        // Matches whose trades differ from the recorded ones
+    private long balanceMismatches;                 // Customers whose balances differ from the recorded ones
+    private long failures;                          // Commands that failed when replayed
+    private long elapsedMillis;                     // Time taken by the replay
+    private double commandsPerSecond;               // Replay throughput
+    private String digest;                          // SHA-256 of the replayed trades and the compared balances
+}
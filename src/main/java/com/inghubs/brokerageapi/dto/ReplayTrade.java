@@ -0,0 +1,40 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+
+import com.inghubs.brokerageapi.entity.Trade;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+
+/**
+ * Represents a trade produced by a recorded or replayed match.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplayTrade {
+    private Long buyOrderId;  // The ID of the buy order
+    private Long sellOrderId; // The ID of the sell order
+    private BigDecimal price; // The execution price
+    private BigDecimal size;  // The executed size
+
+    public static ReplayTrade of(Trade trade) {
+        return new ReplayTrade(trade.getBuyOrder().getId(), trade.getSellerOrder().getId(),
+                               trade.getExecutedPrice(), trade.getExecutedSize());
+    }
+
+    /**
+     * Compares two trades, ignoring the scale of the amounts.
+     *
+     * @param other the trade to compare with
+     * @return true if both trades are between the same orders at the same price and size
+     */
+    public boolean sameAs(ReplayTrade other) {
+        return buyOrderId.equals(other.buyOrderId) && sellOrderId.equals(other.sellOrderId)
+                && price.compareTo(other.price) == 0 && size.compareTo(other.size) == 0;
+    }
+}
@@ -0,0 +1,22 @@
+package com.inghubs.brokerageapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents the outcome of a bulk seed load.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class SeedLoadReport {
+    private String directory;   // Directory the seed files were read from
+    private long customers;     // Number of customers loaded
+    private long users;         // Number of users loaded
+    private long assets;        // Number of asset balances loaded
+    private long orders;        // Number of trade orders loaded
+    private long transactions;  // Number of deposits and withdrawals loaded
+    private long elapsedMillis; // Time taken by the load, including the integrity checks
+}
@@ -0,0 +1,24 @@
+package com.inghubs.brokerageapi.dto;
+
+import com.inghubs.brokerageapi.constant.OrderLifecycleStage;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents the latency distribution from order receipt to one lifecycle stage, in microseconds.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class StageLatency {
+    private OrderLifecycleStage stage; // The lifecycle stage
+    private long count;                // Number of orders that reached the stage
+    private long min;                  // Fastest time to reach the stage
+    private long p50;                  // Median time to reach the stage
+    private long p90;                  // 90th percentile
+    private long p99;                  // 99th percentile
+    private long p999;                 // 99.9th percentile
+    private long max;                  // Slowest time to reach the stage
+}
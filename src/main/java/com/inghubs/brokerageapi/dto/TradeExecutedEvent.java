@@ -0,0 +1,26 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * Represents the payload of an outbox event published when a trade is executed.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class TradeExecutedEvent {
+    private Long tradeId;                // The ID of the trade
+    private Long buyOrderId;             // The ID of the buy order
+    private Long sellOrderId;            // The ID of the sell order
+    private AssetCodes assetCode;        // The traded instrument
+    private BigDecimal executedPrice;    // The price at which the trade was executed
+    private BigDecimal executedSize;     // The size that was traded
+    private LocalDateTime executionDate; // The date and time when the trade was executed
+}
@@ -0,0 +1,27 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+
+/**
+ * Read model of a trade order for listings, built by a constructor expression without loading the customer.
+ */
+@Getter
+@AllArgsConstructor
+public class TradeOrderSummary {
+    private Long id;                  // The ID of the trade order
+    private Long customerId;          // The ID of the customer that placed the order
+    private AssetCodes assetCode;     // The asset code of the order
+    private OrderSide orderSide;      // BUY or SELL
+    private BigDecimal size;          // The remaining size of the order
+    private BigDecimal price;         // The price of the order
+    private OrderStatus status;       // The current status of the order
+    private LocalDateTime createDate; // When the order was created
+}
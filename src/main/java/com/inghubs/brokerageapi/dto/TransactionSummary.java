@@ -0,0 +1,26 @@
+package com.inghubs.brokerageapi.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.inghubs.brokerageapi.constant.TransactionStatus;
+import com.inghubs.brokerageapi.constant.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+
+/**
+ * Read model of a transaction for listings, built by a constructor expression without loading the customer.
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionSummary {
+    private Long id;                  // The ID of the transaction
+    private Long customerId;          // The ID of the customer of the transaction
+    private TransactionType type;     // DEPOSIT or WITHDRAWAL
+    private BigDecimal amount;        // The amount of money
+    private String iban;              // The IBAN of a withdrawal
+    private LocalDateTime timestamp;  // When the transaction was created
+    private boolean processed;        // Whether the transaction was applied
+    private TransactionStatus status; // Processing status of the transaction
+}
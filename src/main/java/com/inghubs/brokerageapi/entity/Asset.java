@@ -14,18 +14,21 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 
 /**
- * Represents an asset owned by a customer in the brokerage system.
+ * Represents an asset owned by a customer in the brokerage system. A customer has at most one balance per asset code.
  */
 @Data
 @AllArgsConstructor // Generates a constructor with all fields
 @NoArgsConstructor  // Generates a no-arguments constructor
 @Entity // Indicates that this class is a JPA entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {CommonConstants.CUSTOMER_ID, "asset_code"})) // One balance per customer and asset
 public class Asset {
 
     @Id // Marks this field as the primary key
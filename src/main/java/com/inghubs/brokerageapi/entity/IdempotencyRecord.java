@@ -0,0 +1,44 @@
+package com.inghubs.brokerageapi.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+
+/**
+ * Represents the stored response of a request that carried an Idempotency-Key header.
+ * Retries with the same key are answered from this record instead of being executed again. The record is inserted
+ * by the transaction that makes the change and completed with the response afterwards.
+ */
+@Getter // Generates getters for all fields
+@Setter // Generates setters for all fields
+@AllArgsConstructor // Generates a constructor with all fields
+@NoArgsConstructor  // Generates a no-arguments constructor
+@Entity // Indicates that this class is a JPA entity
+public class IdempotencyRecord {
+
+    @Id // Marks this field as the primary key
+    @Column(length = 512) // Scoped key: username, request path and the client supplied key
+    private String idempotencyKey; // Unique key of the original request
+
+    @Column(nullable = false, length = 64) // Hex encoded SHA-256 hash
+    private String requestHash; // Fingerprint of the query string and body of the original request
+
+    @Column(nullable = false) // Indicates that this field cannot be null
+    private int responseStatus; // HTTP status of the original response, 0 until it is stored
+
+    private String contentType; // Content type of the original response
+
+    @Lob // Stored as a large object since responses can be big
+    private byte[] responseBody; // Body of the original response
+
+    @Column(nullable = false) // Indicates that this field cannot be null
+    private LocalDateTime createdAt; // The date and time when the response was stored
+}
@@ -0,0 +1,82 @@
+package com.inghubs.brokerageapi.entity;
+
+import java.time.LocalDateTime;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.CommonConstants;
+import com.inghubs.brokerageapi.constant.OutboxEventType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+
+/**
+ * Represents an event about trades and trade orders, written in the same transaction as the change it describes
+ * and published to external consumers by the outbox relay.
+ */
+@Getter // Generates getters for all fields
+@Setter // Generates setters for all fields
+@NoArgsConstructor  // Generates a no-arguments constructor
+@Entity // Indicates that this class is a JPA entity
+@Table(indexes = @Index(columnList = "publishedAt, assetCode, createdAt, id")) // Lets the relay find unpublished events in order
+public class OutboxEvent {
+
+    @Id // Marks this field as the primary key
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = CommonConstants.OUTBOX_EVENT_SEQUENCE) // Sequence IDs allow JDBC batch inserts
+    @SequenceGenerator(name = CommonConstants.OUTBOX_EVENT_SEQUENCE, sequenceName = CommonConstants.OUTBOX_EVENT_SEQUENCE, allocationSize = 50) // Reserves IDs in blocks of 50
+    private Long id; // Unique identifier for the event, orders events recorded at the same time
+
+    @Enumerated(EnumType.STRING) // Specifies that this field should be stored as a string in the database
+    @Column(nullable = false) // Indicates that this field cannot be null
+    private OutboxEventType eventType; // The kind of event
+
+    @Column(nullable = false) // Indicates that this field cannot be null
+    private Long aggregateId; // The ID of the trade or trade order the event is about
+
+    @Enumerated(EnumType.STRING) // Specifies that this field should be stored as a string in the database
+    @Column(nullable = false) // Indicates that this field cannot be null
+    private AssetCodes assetCode; // The instrument; events of one instrument are published in order
+
+    @Column(nullable = false, length = 4000) // Indicates that this field cannot be null
+    private String payload; // The event body as JSON
+
+    @Column(nullable = false) // Indicates that this field cannot be null
+    private LocalDateTime createdAt; // The date and time when the event was recorded, its publishing order
+
+    private LocalDateTime publishedAt; // The date and time when the event was published, null while pending
+
+    public OutboxEvent(OutboxEventType eventType, Long aggregateId, AssetCodes assetCode, String payload) {
+        this.eventType = eventType;
+        this.aggregateId = aggregateId;
+        this.assetCode = assetCode;
+        this.payload = payload;
+    }
+
+    @PrePersist // Indicates that this method should be called before the entity is persisted
+    private void prePersist() {
+        createdAt = LocalDateTime.now(); // Sets the creation date to the current date and time
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEvent{" +
+                "id=" + id +
+                ", eventType=" + eventType +
+                ", aggregateId=" + aggregateId +
+                ", assetCode=" + assetCode +
+                ", createdAt=" + createdAt +
+                ", publishedAt=" + publishedAt +
+                '}';
+    }
+}
@@ -0,0 +1,35 @@
+package com.inghubs.brokerageapi.entity;
+
+import java.time.LocalDateTime;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+
+/**
+ * Represents the right of one application instance to publish the outbox events of an instrument.
+ * The relay of an instance claims the lease before publishing and releases it afterwards, so the events of an
+ * instrument are published by one instance at a time and in order; a lease that expired is free again.
+ */
+@Getter // Generates getters for all fields
+@Setter // Generates setters for all fields
+@AllArgsConstructor // Generates a constructor with all fields
+@NoArgsConstructor  // Generates a no-arguments constructor
+@Entity // Indicates that this class is a JPA entity
+public class OutboxLease {
+
+    @Id // Marks this field as the primary key
+    @Enumerated(EnumType.STRING) // Specifies that the enum should be stored as a string in the database
+    private AssetCodes assetCode; // The instrument the lease is for
+
+    private String owner; // The instance holding the lease, or null if the lease is free
+
+    private LocalDateTime expiresAt; // When the lease expires unless it is claimed again
+}
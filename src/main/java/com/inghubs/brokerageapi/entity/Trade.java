@@ -48,7 +48,9 @@ public class Trade {
 
     @PrePersist // Indicates that this method should be called before the entity is persisted
     private void prePersist() {
-        executionDate = LocalDateTime.now(); // Sets the execution date to the current date and time
+        if (executionDate == null) {
+            executionDate = LocalDateTime.now(); // Sets the execution date to the current date unless the service set it from its clock
+        }
     }
 
     @Override
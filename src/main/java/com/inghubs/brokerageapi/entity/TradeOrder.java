@@ -18,6 +18,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -33,7 +34,8 @@ import lombok.NoArgsConstructor;
 public class TradeOrder {
 
     @Id // Marks this field as the primary key
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Indicates that the ID should be generated automatically
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = CommonConstants.TRADE_ORDER_SEQUENCE) // Sequence IDs allow JDBC batch inserts
+    @SequenceGenerator(name = CommonConstants.TRADE_ORDER_SEQUENCE, sequenceName = CommonConstants.TRADE_ORDER_SEQUENCE, allocationSize = 50) // Reserves IDs in blocks of 50
     private Long id; // Unique identifier for the trade order
 
     @ManyToOne // Defines a many-to-one relationship with the Customer entity
@@ -62,9 +64,13 @@ public class TradeOrder {
     @Column(nullable = false) // Indicates that this field cannot be null
     private LocalDateTime createDate; // The date and time when the order was created
 
+    private LocalDateTime queuedAt; // Time priority at its price if an amendment requeued the order, else the create date applies
+
     @PrePersist // Indicates that this method should be called before the entity is persisted
     private void prePersist() {
-        createDate = LocalDateTime.now(); // Sets the creation date to the current date and time
+        if (createDate == null) {
+            createDate = LocalDateTime.now(); // Sets the creation date to the current date unless the service set it from its clock
+        }
     }
 
     @Override
@@ -77,6 +83,7 @@ public class TradeOrder {
                 ", price=" + price +
                 ", status=" + status +
                 ", createDate=" + createDate +
+                ", queuedAt=" + queuedAt +
                 '}';
     }
 }
\ No newline at end of file
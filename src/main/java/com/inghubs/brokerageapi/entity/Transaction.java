@@ -3,7 +3,9 @@ package com.inghubs.brokerageapi.entity;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.inghubs.brokerageapi.constant.CommonConstants;
+import com.inghubs.brokerageapi.constant.TransactionStatus;
 import com.inghubs.brokerageapi.constant.TransactionType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -35,6 +37,7 @@ public class Transaction {
 
     @ManyToOne // Defines a many-to-one relationship with the Customer entity
     @JoinColumn(name = CommonConstants.CUSTOMER_ID) // Specifies the foreign key column name for the customer
+    @JsonIgnoreProperties({"user", "assets", "tradeOrders"}) // Serializes only the customer ID and state, without lazy collections
     private Customer customer; // The customer associated with this transaction
 
     @Enumerated(EnumType.STRING) // Specifies that this field should be stored as a string in the database
@@ -57,6 +60,10 @@ public class Transaction {
     @Column(nullable = false) // Indicates that this field cannot be null
     private boolean processed = false; // Flag indicating whether the transaction has been processed
 
+    @Enumerated(EnumType.STRING) // Specifies that this field should be stored as a string in the database
+    @Column(nullable = false) // Indicates that this field cannot be null
+    private TransactionStatus status = TransactionStatus.PENDING; // Processing status of the transaction
+
     @Override
     public String toString() {
         return "Transaction{" +
@@ -67,6 +74,7 @@ public class Transaction {
                 ", iban='" + iban + '\'' +
                 ", timestamp=" + timestamp +
                 ", processed=" + processed +
+                ", status=" + status +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.inghubs.brokerageapi.exception;
+
+import com.inghubs.brokerageapi.constant.CommonConstants;
+
+
+public class BookNotFoundException extends RuntimeException {
+
+    // Constructor with a message
+    public BookNotFoundException(String message) {
+        super(message);
+    }
+
+    // Default constructor
+    public BookNotFoundException() {
+        super(CommonConstants.BOOK_NOT_FOUND);
+    }
+
+    // Constructor with a message and cause
+    public BookNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.inghubs.brokerageapi.exception;
+
+import com.inghubs.brokerageapi.constant.CommonConstants;
+
+
+public class FlightRecordingNotAvailableException extends RuntimeException {
+
+    // Constructor with a message
+    public FlightRecordingNotAvailableException(String message) {
+        super(message);
+    }
+
+    // Default constructor
+    public FlightRecordingNotAvailableException() {
+        super(CommonConstants.FLIGHT_RECORDING_NOT_AVAILABLE);
+    }
+}
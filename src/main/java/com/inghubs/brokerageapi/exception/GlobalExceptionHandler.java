@@ -1,8 +1,10 @@
 package com.inghubs.brokerageapi.exception;
 
 import com.inghubs.brokerageapi.constant.CommonConstants;
+import jakarta.validation.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -29,6 +31,19 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handles ConstraintViolationException, thrown for request parameters of validated controllers.
+     *
+     * @param ex the exception instance
+     * @return ResponseEntity containing the error response
+     */
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<ApiErrorResponse> handleConstraintViolation(ConstraintViolationException ex) {
+        ApiErrorResponse error = new ApiErrorResponse(HttpStatus.BAD_REQUEST.value(),
+                                                      CommonConstants.INVALID_REQUEST_PARAMETER, ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
     /**
      * Handles OrderNotFoundException.
      *
@@ -42,6 +57,19 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handles BookNotFoundException.
+     *
+     * @param ex the exception instance
+     * @return ResponseEntity containing the error response
+     */
+    @ExceptionHandler(BookNotFoundException.class)
+    public ResponseEntity<ApiErrorResponse> handleBookNotFound(BookNotFoundException ex) {
+        ApiErrorResponse error = new ApiErrorResponse(HttpStatus.NOT_FOUND.value(),
+                                                      CommonConstants.BOOK_NOT_FOUND, ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+    }
+
     /**
      * Handles CustomerNotFoundException.
      *
@@ -55,6 +83,89 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handles TransactionNotFoundException.
+     *
+     * @param ex the exception instance
+     * @return ResponseEntity containing the error response
+     */
+    @ExceptionHandler(TransactionNotFoundException.class)
+    public ResponseEntity<ApiErrorResponse> handleTransactionNotFound(TransactionNotFoundException ex) {
+        ApiErrorResponse error = new ApiErrorResponse(HttpStatus.NOT_FOUND.value(),
+                                                      CommonConstants.TRANSACTION_NOT_FOUND, ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handles FlightRecordingNotAvailableException.
+     *
+     * @param ex the exception instance
+     * @return ResponseEntity containing the error response
+     */
+    @ExceptionHandler(FlightRecordingNotAvailableException.class)
+    public ResponseEntity<ApiErrorResponse> handleFlightRecordingNotAvailable(FlightRecordingNotAvailableException ex) {
+        ApiErrorResponse error = new ApiErrorResponse(HttpStatus.CONFLICT.value(),
+                                                      HttpStatus.CONFLICT.getReasonPhrase(), ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Handles IdempotencyKeyReusedException, thrown when a key of the database belongs to a request with a different
+     * body.
+     *
+     * @param ex the exception instance
+     * @return ResponseEntity containing the error response
+     */
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<ApiErrorResponse> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+        ApiErrorResponse error = new ApiErrorResponse(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                                                      HttpStatus.UNPROCESSABLE_ENTITY.getReasonPhrase(), ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    /**
+     * Handles SeedDataException.
+     *
+     * @param ex the exception instance
+     * @return ResponseEntity containing the error response
+     */
+    @ExceptionHandler(SeedDataException.class)
+    public ResponseEntity<ApiErrorResponse> handleSeedData(SeedDataException ex) {
+        log.error(ex.getMessage());
+        ApiErrorResponse error = new ApiErrorResponse(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                                                      CommonConstants.SEED_DATA_REJECTED, ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    /**
+     * Handles IdempotencyKeyUsedException. The idempotency filter replaces this response with the stored one, if
+     * the original request stored its response.
+     *
+     * @param ex the exception instance
+     * @return ResponseEntity containing the error response
+     */
+    @ExceptionHandler(IdempotencyKeyUsedException.class)
+    public ResponseEntity<ApiErrorResponse> handleIdempotencyKeyUsed(IdempotencyKeyUsedException ex) {
+        ApiErrorResponse error = new ApiErrorResponse(HttpStatus.CONFLICT.value(),
+                                                      HttpStatus.CONFLICT.getReasonPhrase(), ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Handles RateLimitExceededException, thrown for requests charged by their size once their body is read.
+     *
+     * @param ex the exception instance
+     * @return ResponseEntity containing the error response and the Retry-After header
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ApiErrorResponse> handleRateLimitExceeded(RateLimitExceededException ex) {
+        ApiErrorResponse error = new ApiErrorResponse(HttpStatus.TOO_MANY_REQUESTS.value(),
+                                                      HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
     /**
      * Generic exception handler for any other exceptions.
      *
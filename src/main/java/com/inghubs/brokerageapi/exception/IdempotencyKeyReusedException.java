@@ -0,0 +1,17 @@
+package com.inghubs.brokerageapi.exception;
+
+import com.inghubs.brokerageapi.constant.CommonConstants;
+
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    // Constructor with a message
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+
+    // Default constructor
+    public IdempotencyKeyReusedException() {
+        super(CommonConstants.IDEMPOTENCY_KEY_REUSED);
+    }
+}
@@ -0,0 +1,17 @@
+package com.inghubs.brokerageapi.exception;
+
+import com.inghubs.brokerageapi.constant.CommonConstants;
+
+
+public class IdempotencyKeyUsedException extends RuntimeException {
+
+    // Constructor with a message
+    public IdempotencyKeyUsedException(String message) {
+        super(message);
+    }
+
+    // Default constructor
+    public IdempotencyKeyUsedException() {
+        super(CommonConstants.IDEMPOTENCY_KEY_USED);
+    }
+}
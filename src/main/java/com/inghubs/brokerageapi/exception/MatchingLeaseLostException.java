@@ -0,0 +1,17 @@
+package com.inghubs.brokerageapi.exception;
+
+import com.inghubs.brokerageapi.constant.CommonConstants;
+
+
+public class MatchingLeaseLostException extends RuntimeException {
+
+    // Constructor with a message
+    public MatchingLeaseLostException(String message) {
+        super(message);
+    }
+
+    // Default constructor
+    public MatchingLeaseLostException() {
+        super(CommonConstants.MATCHING_LEASE_LOST);
+    }
+}
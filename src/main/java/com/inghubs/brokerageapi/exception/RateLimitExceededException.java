@@ -0,0 +1,18 @@
+package com.inghubs.brokerageapi.exception;
+
+import com.inghubs.brokerageapi.constant.CommonConstants;
+
+
+public class RateLimitExceededException extends RuntimeException {
+    private final long retryAfterSeconds; // Seconds until the customer's bucket can cover the request
+
+    // Constructor with the time until the request would be admitted
+    public RateLimitExceededException(long retryAfterSeconds) {
+        super(CommonConstants.RATE_LIMIT_EXCEEDED);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
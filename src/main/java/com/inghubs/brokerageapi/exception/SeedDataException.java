@@ -0,0 +1,22 @@
+package com.inghubs.brokerageapi.exception;
+
+import com.inghubs.brokerageapi.constant.CommonConstants;
+
+
+public class SeedDataException extends RuntimeException {
+
+    // Constructor with a message
+    public SeedDataException(String message) {
+        super(message);
+    }
+
+    // Constructor with a message and the cause of the failed load
+    public SeedDataException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    // Default constructor
+    public SeedDataException() {
+        super(CommonConstants.SEED_DATA_REJECTED);
+    }
+}
@@ -0,0 +1,10 @@
+package com.inghubs.brokerageapi.exception;
+
+
+public class SqlBudgetExceededException extends RuntimeException {
+
+    // Constructor with a message
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
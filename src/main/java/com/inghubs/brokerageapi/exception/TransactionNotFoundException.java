@@ -0,0 +1,17 @@
+package com.inghubs.brokerageapi.exception;
+
+import com.inghubs.brokerageapi.constant.CommonConstants;
+
+
+public class TransactionNotFoundException extends RuntimeException {
+
+    // Constructor with a message
+    public TransactionNotFoundException(String message) {
+        super(message);
+    }
+
+    // Default constructor
+    public TransactionNotFoundException() {
+        super(CommonConstants.TRANSACTION_NOT_FOUND);
+    }
+}
@@ -0,0 +1,121 @@
+package com.inghubs.brokerageapi.interceptor;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inghubs.brokerageapi.constant.CommonConstants;
+import com.inghubs.brokerageapi.constant.ServerTimingPhase;
+import com.inghubs.brokerageapi.constant.TrafficClass;
+import com.inghubs.brokerageapi.exception.ApiErrorResponse;
+import com.inghubs.brokerageapi.metrics.RequestTiming;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Filter that admits API requests through the {@link AdmissionQueue} by traffic class.
+ * It runs ahead of the security filter chain, right after {@link ServerTimingFilter}, so a shed request costs
+ * neither a token check nor a database lookup, and time spent queueing shows up as the {@code queue} phase.
+ * Shed requests get 503 Service Unavailable with a precomputed body and a Retry-After header.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class AdmissionFilter extends OncePerRequestFilter {
+    private static final String TRADE_ORDERS_PATH = "/api/tradeOrders";
+    private static final String TRADE_MATCHER_PATH = "/api/tradeMatcher";
+    private static final String ADMIN_PATH = "/api/admin/";
+    private static final String API_PATH = "/api/";
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final AdmissionQueue admissionQueue;
+    private final boolean enabled;
+    private final byte[] rejectionBody;
+
+    public AdmissionFilter(AdmissionQueue admissionQueue, ObjectMapper objectMapper,
+                           @Value("${application.admission.enabled}") boolean enabled) throws IOException {
+        this.admissionQueue = admissionQueue;
+        this.enabled = enabled;
+        this.rejectionBody = objectMapper.writeValueAsBytes(new ApiErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(), CommonConstants.SERVICE_OVERLOADED));
+    }
+
+    /**
+     * Only API requests go through admission control.
+     *
+     * @param request the current request
+     * @return true if the request is admitted without control
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getServletPath().startsWith(API_PATH);
+    }
+
+    /**
+     * Waits for admission and releases the slot when the request completes, or sheds the request.
+     *
+     * @param request       the HttpServletRequest object containing the request details
+     * @param response      the HttpServletResponse object to send the response
+     * @param filterChain   the filter chain for further processing
+     * @throws ServletException if an error occurs during the filtering process
+     * @throws IOException      if an input or output error occurs
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        TrafficClass trafficClass = trafficClass(request);
+        boolean admitted;
+        RequestTiming.start(ServerTimingPhase.QUEUE);
+        try {
+            admitted = admissionQueue.acquire(trafficClass);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        } finally {
+            RequestTiming.stop(ServerTimingPhase.QUEUE);
+        }
+
+        if (!admitted) {
+            long retryAfterNanos = admissionQueue.getMaxQueueWaitNanos(trafficClass);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (retryAfterNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND)));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(rejectionBody.length);
+            response.getOutputStream().write(rejectionBody);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            admissionQueue.release(trafficClass);
+        }
+    }
+
+    /**
+     * Determines the traffic class of an API request.
+     */
+    private static TrafficClass trafficClass(HttpServletRequest request) {
+        String path = request.getServletPath();
+        String method = request.getMethod();
+        if (path.startsWith(TRADE_ORDERS_PATH)) {
+            if (HttpMethod.DELETE.matches(method) || HttpMethod.PATCH.matches(method)) {
+                return TrafficClass.CANCEL;
+            }
+            if (HttpMethod.POST.matches(method)) {
+                return TrafficClass.ORDER_ENTRY;
+            }
+        }
+        if (path.startsWith(ADMIN_PATH) || path.startsWith(TRADE_MATCHER_PATH)) {
+            return TrafficClass.ADMIN;
+        }
+        return TrafficClass.READ;
+    }
+}
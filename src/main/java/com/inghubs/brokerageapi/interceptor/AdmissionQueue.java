@@ -0,0 +1,211 @@
+package com.inghubs.brokerageapi.interceptor;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.inghubs.brokerageapi.constant.TrafficClass;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Priority admission control for API requests.
+ * At most {@code max-concurrency} requests run at once, and at most {@code concurrency} of each traffic class.
+ * Requests that cannot run wait in a bounded FIFO queue per class. Whenever a request completes, the freed slot
+ * goes to the waiting request of the highest priority class that may run, so cancels overtake new orders, which
+ * overtake reads and admin requests.
+ * Shedding is driven by queueing delay rather than queue length: a request is rejected as soon as it has waited
+ * longer than its class's {@code max-queue-wait}, and new requests are rejected without queueing while the oldest
+ * request of their class has already waited that long. Low priority classes have short waits, so they are shed first
+ * and early.
+ */
+@Component
+public class AdmissionQueue {
+    private static final TrafficClass[] CLASSES = TrafficClass.values();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int maxConcurrency;
+    private final int[] concurrency = new int[CLASSES.length];
+    private final int[] queueCapacity = new int[CLASSES.length];
+    private final long[] maxQueueWaitNanos = new long[CLASSES.length];
+    private final int[] running = new int[CLASSES.length];
+    private final ArrayDeque<Waiter>[] queues;
+    private final Counter[] shed = new Counter[CLASSES.length];
+    private final Timer[] queueWait = new Timer[CLASSES.length];
+    private int runningTotal;
+
+    @SuppressWarnings("unchecked")
+    public AdmissionQueue(MeterRegistry meterRegistry,
+                          @Value("${application.admission.max-concurrency}") int maxConcurrency,
+                          @Value("${application.admission.cancel.concurrency}") int cancelConcurrency,
+                          @Value("${application.admission.cancel.queue-capacity}") int cancelQueueCapacity,
+                          @Value("${application.admission.cancel.max-queue-wait}") Duration cancelMaxQueueWait,
+                          @Value("${application.admission.order-entry.concurrency}") int orderEntryConcurrency,
+                          @Value("${application.admission.order-entry.queue-capacity}") int orderEntryQueueCapacity,
+                          @Value("${application.admission.order-entry.max-queue-wait}") Duration orderEntryMaxQueueWait,
+                          @Value("${application.admission.read.concurrency}") int readConcurrency,
+                          @Value("${application.admission.read.queue-capacity}") int readQueueCapacity,
+                          @Value("${application.admission.read.max-queue-wait}") Duration readMaxQueueWait,
+                          @Value("${application.admission.admin.concurrency}") int adminConcurrency,
+                          @Value("${application.admission.admin.queue-capacity}") int adminQueueCapacity,
+                          @Value("${application.admission.admin.max-queue-wait}") Duration adminMaxQueueWait) {
+        this.maxConcurrency = maxConcurrency;
+        configure(TrafficClass.CANCEL, cancelConcurrency, cancelQueueCapacity, cancelMaxQueueWait);
+        configure(TrafficClass.ORDER_ENTRY, orderEntryConcurrency, orderEntryQueueCapacity, orderEntryMaxQueueWait);
+        configure(TrafficClass.READ, readConcurrency, readQueueCapacity, readMaxQueueWait);
+        configure(TrafficClass.ADMIN, adminConcurrency, adminQueueCapacity, adminMaxQueueWait);
+
+        queues = new ArrayDeque[CLASSES.length];
+        for (TrafficClass trafficClass : CLASSES) {
+            int i = trafficClass.ordinal();
+            queues[i] = new ArrayDeque<>();
+            shed[i] = Counter.builder("admission.shed")
+                    .description("Number of requests rejected by admission control")
+                    .tag("class", trafficClass.name())
+                    .register(meterRegistry);
+            queueWait[i] = Timer.builder("admission.queue.wait")
+                    .description("Time admitted requests waited in the admission queue")
+                    .tag("class", trafficClass.name())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            Gauge.builder("admission.queue.length", queues[i], ArrayDeque::size)
+                    .description("Number of requests waiting for admission")
+                    .tag("class", trafficClass.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Admits a request, waiting in its class's queue if needed.
+     *
+     * @param trafficClass the traffic class of the request
+     * @return true if the request may run and must call {@link #release}, false if it was shed
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public boolean acquire(TrafficClass trafficClass) throws InterruptedException {
+        int i = trafficClass.ordinal();
+        long enqueuedNanos = System.nanoTime();
+        lock.lock();
+        try {
+            ArrayDeque<Waiter> queue = queues[i];
+            if (queue.isEmpty() && canRun(i)) {
+                start(i);
+                return true;
+            }
+            if (queue.size() >= queueCapacity[i] || (!queue.isEmpty() && enqueuedNanos - queue.peekFirst().enqueuedNanos > maxQueueWaitNanos[i])) {
+                shed[i].increment(); // Standing queue, do not make it longer
+                return false;
+            }
+
+            Waiter waiter = new Waiter(lock.newCondition(), enqueuedNanos);
+            queue.addLast(waiter);
+            long remainingNanos = maxQueueWaitNanos[i];
+            try {
+                while (!waiter.admitted && remainingNanos > 0) {
+                    remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.admitted) {
+                    finish(i);
+                } else {
+                    queue.remove(waiter);
+                }
+                throw e;
+            }
+            if (!waiter.admitted) {
+                queue.remove(waiter);
+                shed[i].increment();
+                return false;
+            }
+            queueWait[i].record(System.nanoTime() - enqueuedNanos, TimeUnit.NANOSECONDS);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the slot of a completed request and hands it to the highest priority waiting request.
+     *
+     * @param trafficClass the traffic class of the completed request
+     */
+    public void release(TrafficClass trafficClass) {
+        lock.lock();
+        try {
+            finish(trafficClass.ordinal());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the configured maximum queue wait of a class, used as the retry hint of shed requests.
+     *
+     * @param trafficClass the traffic class
+     * @return the maximum queue wait in nanoseconds
+     */
+    public long getMaxQueueWaitNanos(TrafficClass trafficClass) {
+        return maxQueueWaitNanos[trafficClass.ordinal()];
+    }
+
+    /**
+     * Ends a running request and admits waiting requests in priority order. Must hold the lock.
+     */
+    private void finish(int i) {
+        running[i]--;
+        runningTotal--;
+        for (int c = 0; c < CLASSES.length && runningTotal < maxConcurrency; c++) {
+            ArrayDeque<Waiter> queue = queues[c];
+            while (!queue.isEmpty() && canRun(c)) {
+                Waiter waiter = queue.pollFirst();
+                waiter.admitted = true;
+                start(c);
+                waiter.condition.signal();
+            }
+        }
+    }
+
+    /**
+     * Checks whether a request of a class may start now. Must hold the lock.
+     */
+    private boolean canRun(int i) {
+        return runningTotal < maxConcurrency && running[i] < concurrency[i];
+    }
+
+    /**
+     * Counts a started request. Must hold the lock.
+     */
+    private void start(int i) {
+        running[i]++;
+        runningTotal++;
+    }
+
+    /**
+     * Sets the limits of a class.
+     */
+    private void configure(TrafficClass trafficClass, int classConcurrency, int capacity, Duration maxQueueWait) {
+        concurrency[trafficClass.ordinal()] = classConcurrency;
+        queueCapacity[trafficClass.ordinal()] = capacity;
+        maxQueueWaitNanos[trafficClass.ordinal()] = maxQueueWait.toNanos();
+    }
+
+    /**
+     * A request waiting for admission.
+     */
+    private static final class Waiter {
+        private final Condition condition;
+        private final long enqueuedNanos;
+        private boolean admitted;
+
+        private Waiter(Condition condition, long enqueuedNanos) {
+            this.condition = condition;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
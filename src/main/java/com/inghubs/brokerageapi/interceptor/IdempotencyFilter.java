@@ -0,0 +1,278 @@
+package com.inghubs.brokerageapi.interceptor;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inghubs.brokerageapi.constant.CommonConstants;
+import com.inghubs.brokerageapi.exception.ApiErrorResponse;
+import com.inghubs.brokerageapi.service.IdempotencyService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Filter that makes POST requests carrying an Idempotency-Key header safe to retry.
+ * The first response for a key is stored and returned for every retry; a retry that arrives while the
+ * original request is still running waits for its result instead of executing again.
+ * Keys are scoped to the authenticated user and the request path, and a key reused for a request with a different
+ * query string or body is rejected with 422 Unprocessable Entity. A key is claimed in memory first; the controller
+ * claims it durably through {@link IdempotencyService#execute}, with the {@link IdempotencyService.Request} this
+ * filter leaves in a request attribute, and if the key turns out to be used already, e.g. before a restart, the
+ * stored response replaces whatever the rejected request produced.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyFilter.class);
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final List<String> paths;
+    private final long waitTimeoutMillis;
+    private final Timer claimTimer;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                             @Value("${application.idempotency.paths}") List<String> paths,
+                             @Value("${application.idempotency.wait-timeout}") Duration waitTimeout) {
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+        this.paths = paths;
+        this.waitTimeoutMillis = waitTimeout.toMillis();
+        this.claimTimer = Timer.builder("idempotency.claim")
+                .description("Time taken to claim an idempotency key before executing or replaying a request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Only POST requests to the configured paths that carry the header are handled.
+     *
+     * @param request the current request
+     * @return true if the request is not subject to idempotency handling
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || request.getHeader(CommonConstants.IDEMPOTENCY_KEY_HEADER) == null
+                || !paths.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            // Unauthenticated requests are rejected further down the chain, nothing to deduplicate
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String clientKey = request.getHeader(CommonConstants.IDEMPOTENCY_KEY_HEADER);
+        if (clientKey.isBlank() || clientKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, CommonConstants.IDEMPOTENCY_KEY_TOO_LONG);
+            return;
+        }
+        String key = authentication.getName() + '|' + request.getServletPath() + '|' + clientKey;
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        IdempotencyService.Request idempotentRequest = new IdempotencyService.Request(key, fingerprint(cachedRequest));
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long startNanos = System.nanoTime();
+            IdempotencyService.Claim claim = idempotencyService.claim(key, idempotentRequest.getFingerprint());
+            claimTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+            if (claim.isReused()) {
+                writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, CommonConstants.IDEMPOTENCY_KEY_REUSED);
+                return;
+            }
+            if (claim.isOwner()) {
+                execute(idempotentRequest, cachedRequest, response, filterChain);
+                return;
+            }
+            if (claim.getResponse() != null) {
+                replay(response, claim.getResponse());
+                return;
+            }
+            try {
+                // Another request with the same key is in flight, wait for its result
+                replay(response, claim.getFuture().get(waitTimeoutMillis, TimeUnit.MILLISECONDS));
+                return;
+            } catch (TimeoutException e) {
+                writeError(response, HttpStatus.CONFLICT, CommonConstants.IDEMPOTENT_REQUEST_IN_PROGRESS);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException(e);
+            } catch (ExecutionException e) {
+                // The original request failed without a stored response, try to run it ourselves
+                log.info("Original request for idempotency key {} failed, retrying", key);
+            }
+        }
+        writeError(response, HttpStatus.CONFLICT, CommonConstants.IDEMPOTENT_REQUEST_IN_PROGRESS);
+    }
+
+    /**
+     * Executes the request and stores its response. Server errors and rate limit rejections, which a bulk order
+     * entry gets only after this filter, are not stored so they can be retried. A request whose key was already
+     * used in the database is answered with the stored response instead, if there is one for the same request.
+     */
+    private void execute(IdempotencyService.Request idempotentRequest, HttpServletRequest request, HttpServletResponse response,
+                         FilterChain filterChain) throws ServletException, IOException {
+        String key = idempotentRequest.getKey();
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        request.setAttribute(IdempotencyService.Request.ATTRIBUTE, idempotentRequest);
+        try {
+            filterChain.doFilter(request, responseWrapper);
+        } finally {
+            if (idempotentRequest.isUsed()) {
+                idempotencyService.abandon(key);
+            }
+        }
+        if (idempotentRequest.isUsed()) {
+            IdempotencyService.StoredResponse storedResponse = idempotencyService.findStored(idempotentRequest);
+            if (storedResponse != null) {
+                responseWrapper.resetBuffer();
+                replay(response, storedResponse);
+                return;
+            }
+            // Still running elsewhere, stopped before storing its response, or a different request
+            responseWrapper.copyBodyToResponse();
+            return;
+        }
+        try {
+            if (isStored(responseWrapper.getStatus())) {
+                idempotencyService.complete(idempotentRequest, new IdempotencyService.StoredResponse(
+                        responseWrapper.getStatus(), responseWrapper.getContentType(), responseWrapper.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyService.abandon(key);
+            }
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    private static boolean isStored(int status) {
+        return status < HttpStatus.INTERNAL_SERVER_ERROR.value() && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    /**
+     * Hashes the query string and body of a request, so that a key reused for a different request is recognized.
+     */
+    private static String fingerprint(CachedBodyRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (request.getQueryString() != null) {
+                digest.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) '\n');
+            digest.update(request.body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Writes a stored response back to the client.
+     */
+    private void replay(HttpServletResponse response, IdempotencyService.StoredResponse storedResponse) throws IOException {
+        response.setStatus(storedResponse.getStatus());
+        if (storedResponse.getContentType() != null) {
+            response.setContentType(storedResponse.getContentType());
+        }
+        response.setHeader(CommonConstants.IDEMPOTENT_REPLAYED_HEADER, Boolean.TRUE.toString());
+        response.setContentLength(storedResponse.getBody().length);
+        response.getOutputStream().write(storedResponse.getBody());
+    }
+
+    /**
+     * Writes an error response in the same format as the global exception handler.
+     */
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiErrorResponse(status.value(), status.getReasonPhrase(), message));
+    }
+
+    /**
+     * Request whose body is read up front to fingerprint it, and then served again to the rest of the chain.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding()) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.inghubs.brokerageapi.interceptor;
 
 import java.io.IOException;
 
+import com.inghubs.brokerageapi.constant.ServerTimingPhase;
+import com.inghubs.brokerageapi.metrics.RequestTiming;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -26,6 +28,7 @@ public class LoggingInterceptor implements HandlerInterceptor {
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
         // Log the incoming request method and URI
         logger.info("Incoming request: {} {}", request.getMethod(), request.getRequestURI());
+        RequestTiming.start(ServerTimingPhase.APP); // Handler time for the Server-Timing header
         return true; // Continue with the next interceptor or the controller
     }
 
@@ -40,6 +43,7 @@ public class LoggingInterceptor implements HandlerInterceptor {
      */
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
+        RequestTiming.stop(ServerTimingPhase.APP);
         // Log the outgoing response status
         logger.info("Outgoing response: status {}", response.getStatus());
         if (ex != null) {
@@ -0,0 +1,144 @@
+package com.inghubs.brokerageapi.interceptor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import com.inghubs.brokerageapi.metrics.EndpointTimingMetrics;
+import com.inghubs.brokerageapi.metrics.RequestTiming;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Filter that times API requests and reports the breakdown in a Server-Timing response header.
+ * It runs ahead of the security filter chain so token verification is included. The header is added just before
+ * the response body is written, since headers cannot be changed once the response is committed; the per-endpoint
+ * histograms are recorded when the request completes and include writing the body.
+ * Timing is switched on or off by {@code application.server-timing.enabled} and can be overridden per request
+ * with the {@code X-Server-Timing: true|false} request header.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 2)
+public class ServerTimingFilter extends OncePerRequestFilter {
+    private static final String SERVER_TIMING = "Server-Timing";
+    private static final String SWITCH_HEADER = "X-Server-Timing";
+    private static final String API_PATH = "/api/";
+
+    private final EndpointTimingMetrics endpointTimingMetrics;
+    private final boolean enabledByDefault;
+
+    public ServerTimingFilter(EndpointTimingMetrics endpointTimingMetrics,
+                              @Value("${application.server-timing.enabled}") boolean enabledByDefault) {
+        this.endpointTimingMetrics = endpointTimingMetrics;
+        this.enabledByDefault = enabledByDefault;
+    }
+
+    /**
+     * Only API requests with timing switched on are timed.
+     *
+     * @param request the current request
+     * @return true if the request is not timed
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!request.getRequestURI().startsWith(API_PATH)) {
+            return true;
+        }
+        String requested = request.getHeader(SWITCH_HEADER);
+        return requested == null ? !enabledByDefault : !Boolean.parseBoolean(requested);
+    }
+
+    /**
+     * Times the request and records the per-endpoint histograms when it completes.
+     *
+     * @param request     the HttpServletRequest object containing the request details
+     * @param response    the HttpServletResponse object to send the response
+     * @param filterChain the filter chain for further processing
+     * @throws ServletException if an error occurs during the filtering process
+     * @throws IOException      if an input or output error occurs
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.begin();
+        ServerTimingResponse timedResponse = new ServerTimingResponse(response, timing);
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            timedResponse.addServerTiming(); // Responses without a body
+            timing.finish();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null) {
+                endpointTimingMetrics.record(request.getMethod(), pattern.toString(), timing);
+            }
+            RequestTiming.end();
+        }
+    }
+
+    /**
+     * Response wrapper that adds the Server-Timing header as soon as the response is about to be committed.
+     */
+    private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+        private final RequestTiming timing;
+        private boolean headerAdded;
+
+        private ServerTimingResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addServerTiming();
+            super.sendRedirect(location);
+        }
+
+        /**
+         * Adds the header once, unless the response was already committed.
+         */
+        private void addServerTiming() {
+            if (!headerAdded && !isCommitted()) {
+                headerAdded = true;
+                setHeader(SERVER_TIMING, timing.toHeaderValue());
+            }
+        }
+    }
+}
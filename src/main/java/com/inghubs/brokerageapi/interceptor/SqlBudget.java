@@ -0,0 +1,23 @@
+package com.inghubs.brokerageapi.interceptor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how many SQL statements a controller method may issue per request, including statements run while
+ * the response is written. Statements of the authentication filter are not counted.
+ * Enforced by {@link SqlBudgetInterceptor}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    /**
+     * The maximum number of statements.
+     */
+    int value();
+}
@@ -0,0 +1,78 @@
+package com.inghubs.brokerageapi.interceptor;
+
+import java.util.Map;
+
+import com.inghubs.brokerageapi.metrics.SqlStatementCounter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Interceptor that enforces the {@link SqlBudget} of controller methods.
+ * A request that issues more statements than its budget is logged as a warning. With
+ * {@code application.sql-budget.fail-on-exceed} switched on, as in tests, the statement that exceeds the budget
+ * fails instead, so the request ends with an error. Statements repeated at least
+ * {@code application.sql-budget.repeated-statement-threshold} times are logged as a likely N+1 query pattern.
+ */
+@Component
+public class SqlBudgetInterceptor implements HandlerInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(SqlBudgetInterceptor.class);
+
+    private final boolean failOnExceed;
+    private final int repeatedStatementThreshold;
+
+    public SqlBudgetInterceptor(@Value("${application.sql-budget.fail-on-exceed}") boolean failOnExceed,
+                                @Value("${application.sql-budget.repeated-statement-threshold}") int repeatedStatementThreshold) {
+        this.failOnExceed = failOnExceed;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+    }
+
+    /**
+     * Starts counting statements if the handler declares a budget.
+     *
+     * @param request  the HttpServletRequest object
+     * @param response the HttpServletResponse object
+     * @param handler  the handler for the request
+     * @return true to continue the request handling
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            SqlBudget budget = handlerMethod.getMethodAnnotation(SqlBudget.class);
+            if (budget != null) {
+                String endpoint = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+                SqlStatementCounter.begin(endpoint, budget.value(), failOnExceed);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops counting and reports exceeded budgets and repeated statements.
+     *
+     * @param request  the HttpServletRequest object
+     * @param response the HttpServletResponse object
+     * @param handler  the handler for the request
+     * @param ex       any exception thrown during request processing
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        SqlStatementCounter counter = SqlStatementCounter.end();
+        if (counter == null) {
+            return;
+        }
+        if (counter.isExceeded()) {
+            logger.warn("{} issued {} SQL statements, over its budget of {}", counter.getEndpoint(), counter.getCount(), counter.getBudget());
+        } else {
+            logger.debug("{} issued {} of {} budgeted SQL statements", counter.getEndpoint(), counter.getCount(), counter.getBudget());
+        }
+        for (Map.Entry<String, Integer> repeated : counter.getRepeatedStatements(repeatedStatementThreshold).entrySet()) {
+            logger.warn("Possible N+1 query in {}: statement issued {} times: {}", counter.getEndpoint(), repeated.getValue(), repeated.getKey());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.inghubs.brokerageapi.jfr;
+
+import java.math.BigDecimal;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a change to a customer's asset balance.
+ */
+@Name("com.inghubs.brokerageapi.BalanceMutation")
+@Label("Balance Mutation")
+@Category({"Brokerage", "Persistence"})
+@Description("Assignment, withdrawal, lock or release of an asset balance")
+public class BalanceMutationEvent extends Event {
+    public static final String ASSIGN = "ASSIGN";
+    public static final String WITHDRAW = "WITHDRAW";
+    public static final String LOCK = "LOCK";
+    public static final String RELEASE = "RELEASE";
+    public static final String NET_CHANGE = "NET_CHANGE";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Customer ID")
+    public long customerId;
+
+    @Label("Asset Code")
+    public String assetCode;
+
+    @Label("Amount")
+    public double amount;
+
+    /**
+     * Ends the event and commits it if it is recorded. The fields are only filled in when the event is committed.
+     *
+     * @param operation  the kind of mutation
+     * @param customerId the ID of the customer
+     * @param assetCode  the asset that changed
+     * @param amount     the amount of the change
+     */
+    public void commit(String operation, Long customerId, AssetCodes assetCode, BigDecimal amount) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.customerId = customerId;
+            this.assetCode = assetCode.name();
+            this.amount = amount.doubleValue();
+            commit();
+        }
+    }
+}
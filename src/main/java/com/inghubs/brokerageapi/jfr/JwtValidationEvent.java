@@ -0,0 +1,23 @@
+package com.inghubs.brokerageapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for the validation of a JWT and the lookup of its user.
+ */
+@Name("com.inghubs.brokerageapi.JwtValidation")
+@Label("JWT Validation")
+@Category({"Brokerage", "Security"})
+@Description("Parsing and validation of the bearer token of a request")
+public class JwtValidationEvent extends Event {
+
+    @Label("Username")
+    public String username;
+
+    @Label("Valid")
+    public boolean valid;
+}
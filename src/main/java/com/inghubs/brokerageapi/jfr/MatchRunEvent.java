@@ -0,0 +1,29 @@
+package com.inghubs.brokerageapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for one matching run of an asset.
+ */
+@Name("com.inghubs.brokerageapi.MatchRun")
+@Label("Match Run")
+@Category({"Brokerage", "Matching"})
+@Description("Matching of the open buy and sell orders of one asset")
+public class MatchRunEvent extends Event {
+
+    @Label("Asset Code")
+    public String assetCode;
+
+    @Label("Buy Orders")
+    public int buyOrders;
+
+    @Label("Sell Orders")
+    public int sellOrders;
+
+    @Label("Fills")
+    public int fills;
+}
@@ -0,0 +1,20 @@
+package com.inghubs.brokerageapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for acquiring the row lock of a trade order.
+ */
+@Name("com.inghubs.brokerageapi.OrderLock")
+@Label("Order Lock")
+@Category({"Brokerage", "Persistence"})
+@Description("Time spent waiting for and acquiring the pessimistic lock of a trade order")
+public class OrderLockEvent extends Event {
+
+    @Label("Order ID")
+    public long orderId;
+}
@@ -0,0 +1,32 @@
+package com.inghubs.brokerageapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for the execution of a single trade between a buy and a sell order.
+ */
+@Name("com.inghubs.brokerageapi.TradeExecution")
+@Label("Trade Execution")
+@Category({"Brokerage", "Matching"})
+@Description("Locking, trade insert and settlement of one fill")
+public class TradeExecutionEvent extends Event {
+
+    @Label("Buy Order ID")
+    public long buyOrderId;
+
+    @Label("Sell Order ID")
+    public long sellOrderId;
+
+    @Label("Asset Code")
+    public String assetCode;
+
+    @Label("Executed Size")
+    public double executedSize;
+
+    @Label("Executed Price")
+    public double executedPrice;
+}
@@ -0,0 +1,119 @@
+package com.inghubs.brokerageapi.logging;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * Asynchronous appender that hands log events to a bounded ring buffer drained by a single background thread.
+ * <p>
+ * When the buffer fills up, the overflow policy decides what happens:
+ * <ul>
+ *     <li>DROP: INFO and lower events are discarded once the buffer is nearly full, and any event is discarded when it is full.</li>
+ *     <li>BLOCK: the calling thread waits for free space, nothing is lost.</li>
+ *     <li>SAMPLE: like DROP, but every n-th INFO and lower event is still kept while the buffer is nearly full.</li>
+ * </ul>
+ * The calling thread only captures its thread name and MDC. Message formatting is left to the background thread
+ * when every argument is an immutable value, such as an ID, an amount or an enum. Events with other arguments,
+ * e.g. entities whose state may change after the call, are formatted on the calling thread as usual.
+ */
+public class RingBufferAsyncAppender extends AsyncAppender {
+
+    /**
+     * What to do with new events when the buffer is full.
+     */
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK,
+        SAMPLE
+    }
+
+    private final AtomicLong discardCandidates = new AtomicLong();
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+    private int sampleRate = 10;
+    private boolean deferFormatting = true;
+
+    @Override
+    public void start() {
+        setNeverBlock(overflowPolicy != OverflowPolicy.BLOCK);
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            setDiscardingThreshold(0);
+        }
+        super.start();
+    }
+
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        if (!super.isDiscardable(event)) {
+            return false;
+        }
+        if (overflowPolicy == OverflowPolicy.SAMPLE) {
+            return discardCandidates.incrementAndGet() % sampleRate != 0;
+        }
+        return true;
+    }
+
+    @Override
+    protected void preprocess(ILoggingEvent event) {
+        if (!deferFormatting || !hasOnlyImmutableArguments(event.getArgumentArray())) {
+            super.preprocess(event);
+            return;
+        }
+        // Capture what is bound to the calling thread, the message is formatted by the worker
+        event.getThreadName();
+        event.getMDCPropertyMap();
+        if (isIncludeCallerData()) {
+            event.getCallerData();
+        }
+    }
+
+    /**
+     * Checks whether the arguments can be formatted later without seeing a different state.
+     */
+    private static boolean hasOnlyImmutableArguments(Object[] arguments) {
+        if (arguments == null) {
+            return true;
+        }
+        for (Object argument : arguments) {
+            if (!(argument == null || argument instanceof String || argument instanceof Long || argument instanceof Integer
+                    || argument instanceof BigDecimal || argument instanceof Enum<?> || argument instanceof Boolean
+                    || argument instanceof Double || argument instanceof BigInteger || argument instanceof Short
+                    || argument instanceof Character || argument instanceof TemporalAccessor || argument instanceof Duration
+                    || argument instanceof UUID)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getOverflowPolicy() {
+        return overflowPolicy.name();
+    }
+
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    public boolean isDeferFormatting() {
+        return deferFormatting;
+    }
+
+    public void setDeferFormatting(boolean deferFormatting) {
+        this.deferFormatting = deferFormatting;
+    }
+}
@@ -0,0 +1,45 @@
+package com.inghubs.brokerageapi.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the bytes allocated by all live threads as the {@code jvm.threads.allocated} counter.
+ * Unlike {@code jvm.gc.memory.allocated}, which only advances when a collection runs, this counter is exact when
+ * read, so the allocation of a batch of requests is the difference of two samples.
+ */
+@Component
+public class AllocationMetrics {
+    private static final Logger log = LoggerFactory.getLogger(AllocationMetrics.class);
+
+    public AllocationMetrics(MeterRegistry meterRegistry) {
+        if (ManagementFactory.getThreadMXBean() instanceof ThreadMXBean threadMXBean && threadMXBean.isThreadAllocatedMemorySupported()) {
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+            FunctionCounter.builder("jvm.threads.allocated", threadMXBean, AllocationMetrics::allocatedBytes)
+                    .description("Bytes allocated by all live threads")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        } else {
+            log.warn("Thread allocation accounting is not supported by this JVM");
+        }
+    }
+
+    /**
+     * Sums the bytes allocated by all live threads.
+     */
+    private static double allocatedBytes(ThreadMXBean threadMXBean) {
+        long total = 0;
+        for (long allocated : threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated; // -1 for threads that ended in between
+            }
+        }
+        return total;
+    }
+}
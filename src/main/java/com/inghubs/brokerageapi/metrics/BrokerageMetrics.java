@@ -0,0 +1,191 @@
+package com.inghubs.brokerageapi.metrics;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.CommonConstants;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.OrderStatus;
+import com.inghubs.brokerageapi.dto.BookDepthSummary;
+import com.inghubs.brokerageapi.repository.TradeOrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics for order entry, matching and settlement.
+ * All meters are registered up front and kept in fields or enum maps, so recording on the hot path is a plain
+ * lookup and an update of the meter without any registry access or tag allocation.
+ */
+@Component
+public class BrokerageMetrics {
+    private static final Logger log = LoggerFactory.getLogger(BrokerageMetrics.class);
+    private static final List<OrderStatus> OPEN_STATUSES = List.of(OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED);
+    private static final String OTHER_REASON = "other";
+
+    private final TradeOrderRepository tradeOrderRepository;
+
+    private final Map<AssetCodes, Timer> matchTimers = new EnumMap<>(AssetCodes.class);
+    private final Map<AssetCodes, DistributionSummary> fillsPerRun = new EnumMap<>(AssetCodes.class);
+    private final Timer fillLockTimer;
+    private final Timer fillTradeInsertTimer;
+    private final Timer fillSettlementTimer;
+    private final Timer orderCustomerLookupTimer;
+    private final Timer orderAssetLockTimer;
+    private final Timer orderInsertTimer;
+    private final Map<String, Counter> rejectedOrders = new HashMap<>();
+    private final Map<AssetCodes, Map<OrderSide, AtomicLong>> bookOrders = new EnumMap<>(AssetCodes.class);
+    private final Map<AssetCodes, Map<OrderSide, AtomicReference<Double>>> bookSizes = new EnumMap<>(AssetCodes.class);
+
+    public BrokerageMetrics(MeterRegistry meterRegistry, TradeOrderRepository tradeOrderRepository) {
+        this.tradeOrderRepository = tradeOrderRepository;
+
+        for (AssetCodes assetCode : AssetCodes.values()) {
+            matchTimers.put(assetCode, Timer.builder("matching.run")
+                    .description("Duration of one matching run for an asset")
+                    .tag("asset", assetCode.name())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            fillsPerRun.put(assetCode, DistributionSummary.builder("matching.fills")
+                    .description("Number of fills produced by one matching run")
+                    .tag("asset", assetCode.name())
+                    .register(meterRegistry));
+            if (assetCode == AssetCodes.TRY) {
+                continue; // Cash is never traded on a book
+            }
+
+            Map<OrderSide, AtomicLong> orders = new EnumMap<>(OrderSide.class);
+            Map<OrderSide, AtomicReference<Double>> sizes = new EnumMap<>(OrderSide.class);
+            for (OrderSide side : OrderSide.values()) {
+                AtomicLong orderCount = new AtomicLong();
+                AtomicReference<Double> size = new AtomicReference<>(0.0);
+                Gauge.builder("orders.book.depth", orderCount, AtomicLong::get)
+                        .description("Number of open orders on one side of the book")
+                        .tags("asset", assetCode.name(), "side", side.name())
+                        .register(meterRegistry);
+                Gauge.builder("orders.book.size", size, AtomicReference::get)
+                        .description("Remaining size of the open orders on one side of the book")
+                        .tags("asset", assetCode.name(), "side", side.name())
+                        .register(meterRegistry);
+                orders.put(side, orderCount);
+                sizes.put(side, size);
+            }
+            bookOrders.put(assetCode, orders);
+            bookSizes.put(assetCode, sizes);
+        }
+
+        fillLockTimer = phaseTimer(meterRegistry, "matching.fill", "lock", "Time spent in one phase of executing a fill");
+        fillTradeInsertTimer = phaseTimer(meterRegistry, "matching.fill", "trade_insert", "Time spent in one phase of executing a fill");
+        fillSettlementTimer = phaseTimer(meterRegistry, "matching.fill", "settlement", "Time spent in one phase of executing a fill");
+        orderCustomerLookupTimer = phaseTimer(meterRegistry, "orders.create", "customer_lookup", "Time spent in one phase of creating an order");
+        orderAssetLockTimer = phaseTimer(meterRegistry, "orders.create", "asset_lock", "Time spent in one phase of creating an order");
+        orderInsertTimer = phaseTimer(meterRegistry, "orders.create", "insert", "Time spent in one phase of creating an order");
+
+        registerRejectionReason(meterRegistry, CommonConstants.INSUFFICIENT_ASSET_BALANCE, "insufficient_balance");
+        registerRejectionReason(meterRegistry, CommonConstants.ASSET_NOT_FOUND, "asset_not_found");
+        registerRejectionReason(meterRegistry, CommonConstants.INVALID_ORDER_ITEM, "invalid_item");
+        registerRejectionReason(meterRegistry, CommonConstants.INVALID_ORDER_AMOUNT, "invalid_amount");
+        registerRejectionReason(meterRegistry, CommonConstants.CUSTOMER_NOT_FOUND_OR_NOT_ENABLED, "customer_not_enabled");
+        registerRejectionReason(meterRegistry, OTHER_REASON, OTHER_REASON);
+    }
+
+    /**
+     * Records a completed matching run.
+     *
+     * @param assetCode    the matched asset
+     * @param elapsedNanos the duration of the run
+     * @param fills        the number of fills produced
+     */
+    public void recordMatchRun(AssetCodes assetCode, long elapsedNanos, int fills) {
+        matchTimers.get(assetCode).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        fillsPerRun.get(assetCode).record(fills);
+    }
+
+    /**
+     * Records the phases of one fill.
+     *
+     * @param lockNanos        share of the time spent locking the orders and assets of its settlement batch
+     * @param tradeInsertNanos time spent inserting the trade
+     * @param settlementNanos  time spent moving balances and updating the orders
+     */
+    public void recordFill(long lockNanos, long tradeInsertNanos, long settlementNanos) {
+        fillLockTimer.record(lockNanos, TimeUnit.NANOSECONDS);
+        fillTradeInsertTimer.record(tradeInsertNanos, TimeUnit.NANOSECONDS);
+        fillSettlementTimer.record(settlementNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the phases of one order creation.
+     *
+     * @param customerLookupNanos time spent loading the customer
+     * @param assetLockNanos      time spent checking and locking the funds
+     * @param insertNanos         time spent inserting the order
+     */
+    public void recordOrderCreate(long customerLookupNanos, long assetLockNanos, long insertNanos) {
+        orderCustomerLookupTimer.record(customerLookupNanos, TimeUnit.NANOSECONDS);
+        orderAssetLockTimer.record(assetLockNanos, TimeUnit.NANOSECONDS);
+        orderInsertTimer.record(insertNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a rejected order.
+     *
+     * @param reason the rejection message
+     */
+    public void recordRejectedOrder(String reason) {
+        Counter counter = rejectedOrders.get(reason);
+        (counter != null ? counter : rejectedOrders.get(OTHER_REASON)).increment();
+    }
+
+    /**
+     * Periodically refreshes the book depth gauges with one aggregate query, so scrapes never hit the database.
+     */
+    @Scheduled(fixedDelayString = "${application.metrics.book-depth-refresh-interval}")
+    public void refreshBookDepth() {
+        Map<AssetCodes, Map<OrderSide, BookDepthSummary>> summaries = new EnumMap<>(AssetCodes.class);
+        for (BookDepthSummary summary : tradeOrderRepository.summarizeBookDepth(OPEN_STATUSES)) {
+            summaries.computeIfAbsent(summary.getAssetCode(), code -> new EnumMap<>(OrderSide.class)).put(summary.getOrderSide(), summary);
+        }
+        for (AssetCodes assetCode : bookOrders.keySet()) {
+            for (OrderSide side : OrderSide.values()) {
+                BookDepthSummary summary = summaries.getOrDefault(assetCode, Map.of()).get(side);
+                bookOrders.get(assetCode).get(side).set(summary != null ? summary.getOrders() : 0);
+                bookSizes.get(assetCode).get(side).set(summary != null ? summary.getSize().doubleValue() : 0.0);
+            }
+        }
+        log.debug("Refreshed book depth gauges");
+    }
+
+    /**
+     * Registers a timer for one phase of an operation.
+     */
+    private static Timer phaseTimer(MeterRegistry meterRegistry, String name, String phase, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers the rejected order counter for one reason.
+     */
+    private void registerRejectionReason(MeterRegistry meterRegistry, String message, String reason) {
+        rejectedOrders.put(message, Counter.builder("orders.rejected")
+                .description("Number of rejected orders")
+                .tag("reason", reason)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,78 @@
+package com.inghubs.brokerageapi.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.inghubs.brokerageapi.constant.ServerTimingPhase;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-endpoint histograms of the Server-Timing phases.
+ * The timers of an endpoint are registered on its first request and looked up by method and path pattern
+ * afterwards, so recording does not build tags. The total number of SQL statements is exposed alongside as the
+ * {@code jdbc.statements} counter.
+ */
+@Component
+public class EndpointTimingMetrics {
+    private static final ServerTimingPhase[] PHASES = ServerTimingPhase.values();
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Map<String, Timer[]>> timers = new ConcurrentHashMap<>();
+
+    public EndpointTimingMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        FunctionCounter.builder("jdbc.statements", SqlStatementCounter.class, type -> SqlStatementCounter.getTotal())
+                .description("Number of SQL statements prepared")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records the phases of a completed request.
+     *
+     * @param method  the HTTP method
+     * @param pattern the path pattern of the handler that served the request
+     * @param timing  the finished timing of the request
+     */
+    public void record(String method, String pattern, RequestTiming timing) {
+        Timer[] endpointTimers = getTimers(method, pattern);
+        for (ServerTimingPhase phase : PHASES) {
+            if (timing.getCount(phase) > 0) {
+                endpointTimers[phase.ordinal()].record(timing.getNanos(phase), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Returns the timers of an endpoint, registering them on first use.
+     */
+    private Timer[] getTimers(String method, String pattern) {
+        Map<String, Timer[]> byPattern = timers.get(method);
+        if (byPattern == null) {
+            byPattern = timers.computeIfAbsent(method, key -> new ConcurrentHashMap<>());
+        }
+        Timer[] endpointTimers = byPattern.get(pattern);
+        if (endpointTimers == null) {
+            endpointTimers = byPattern.computeIfAbsent(pattern, key -> register(method, pattern));
+        }
+        return endpointTimers;
+    }
+
+    /**
+     * Registers one timer per phase for an endpoint.
+     */
+    private Timer[] register(String method, String pattern) {
+        Timer[] endpointTimers = new Timer[PHASES.length];
+        for (ServerTimingPhase phase : PHASES) {
+            endpointTimers[phase.ordinal()] = Timer.builder("http.server.phase")
+                    .description("Time spent in one phase of an API request")
+                    .tags("method", method, "uri", pattern, "phase", phase.getMetricName())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+        return endpointTimers;
+    }
+}
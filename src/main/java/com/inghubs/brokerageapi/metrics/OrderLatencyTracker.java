@@ -0,0 +1,321 @@
+package com.inghubs.brokerageapi.metrics;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderLifecycleStage;
+import com.inghubs.brokerageapi.dto.OrderLatencyReport;
+import com.inghubs.brokerageapi.dto.OrderLatencySample;
+import com.inghubs.brokerageapi.dto.StageLatency;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tracks how long trade orders take from receipt to each stage of their life.
+ * Stage times are taken from the monotonic clock ({@link System#nanoTime()}) and kept per order until the order's
+ * FILLED event is published or the order is canceled. An order is followed only once the transaction that saved it
+ * commits, so rolled back orders leave nothing behind. Orders that are never completed here, because they rest in
+ * the book or were filled or canceled by another instance, are dropped once they are older than the maximum age.
+ * Every stage is recorded, relative to receipt, into an HDR
+ * histogram per instrument and stage. Recording uses {@link Recorder}, which is wait-free for writers; readers
+ * fold the recorded intervals into cumulative histograms when a report is requested.
+ * A sample of the completed orders, and every order slower than the outlier threshold, is kept with its full
+ * timeline so individual outliers can be explained.
+ */
+@Component
+public class OrderLatencyTracker {
+    private static final Logger log = LoggerFactory.getLogger(OrderLatencyTracker.class);
+    private static final OrderLifecycleStage[] STAGES = OrderLifecycleStage.values();
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<Long, Timeline> timelines = new ConcurrentHashMap<>();
+    private final Map<AssetCodes, Recorder[]> recorders = new EnumMap<>(AssetCodes.class);
+    private final Map<AssetCodes, Histogram[]> histograms = new EnumMap<>(AssetCodes.class);
+    private final Deque<OrderLatencySample> samples = new ArrayDeque<>();
+    private final AtomicLong completedOrders = new AtomicLong();
+    private final AtomicLong untrackedOrders = new AtomicLong();
+    private final AtomicLong expiredOrders = new AtomicLong();
+    private final int maxTrackedOrders;
+    private final int sampleEvery;
+    private final int maxSamples;
+    private final long outlierThresholdNanos;
+    private final long maxAgeNanos;
+
+    public OrderLatencyTracker(@Value("${application.latency.max-tracked-orders}") int maxTrackedOrders,
+                               @Value("${application.latency.sample-every}") int sampleEvery,
+                               @Value("${application.latency.max-samples}") int maxSamples,
+                               @Value("${application.latency.outlier-threshold}") Duration outlierThreshold,
+                               @Value("${application.latency.max-age}") Duration maxAge) {
+        this.maxTrackedOrders = maxTrackedOrders;
+        this.sampleEvery = sampleEvery;
+        this.maxSamples = maxSamples;
+        this.outlierThresholdNanos = outlierThreshold.toNanos();
+        this.maxAgeNanos = maxAge.toNanos();
+        for (AssetCodes assetCode : AssetCodes.values()) {
+            Recorder[] stageRecorders = new Recorder[STAGES.length];
+            Histogram[] stageHistograms = new Histogram[STAGES.length];
+            for (int i = 0; i < STAGES.length; i++) {
+                stageRecorders[i] = new Recorder(SIGNIFICANT_DIGITS);
+                stageHistograms[i] = new Histogram(SIGNIFICANT_DIGITS);
+            }
+            recorders.put(assetCode, stageRecorders);
+            histograms.put(assetCode, stageHistograms);
+        }
+    }
+
+    /**
+     * Starts the timeline of an order that was just received.
+     *
+     * @return the stage times, with the receipt time set
+     */
+    public long[] start() {
+        long[] stamps = new long[STAGES.length];
+        stamps[OrderLifecycleStage.RECEIVED.ordinal()] = System.nanoTime();
+        return stamps;
+    }
+
+    /**
+     * Marks a stage on a timeline that has not been handed to the tracker yet.
+     *
+     * @param stamps the stage times
+     * @param stage  the stage that was reached
+     */
+    public void mark(long[] stamps, OrderLifecycleStage stage) {
+        stamps[stage.ordinal()] = System.nanoTime();
+    }
+
+    /**
+     * Records the entry stages of a saved order and starts following it once its transaction commits, or at once
+     * outside a transaction. The stage times are copied, so the same timeline can be used for all orders of a bulk
+     * submission.
+     *
+     * @param orderId   the ID of the saved order
+     * @param assetCode the instrument of the order
+     * @param stamps    the stage times up to funds locked
+     */
+    public void orderPersisted(Long orderId, AssetCodes assetCode, long[] stamps) {
+        Timeline timeline = new Timeline(assetCode, stamps.clone());
+        timeline.stamps[OrderLifecycleStage.PERSISTED.ordinal()] = System.nanoTime();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            follow(orderId, timeline);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                follow(orderId, timeline);
+            }
+        });
+    }
+
+    /**
+     * Records the entry stages of a committed order and starts following it, unless the tracker is full.
+     */
+    private void follow(Long orderId, Timeline timeline) {
+        for (OrderLifecycleStage stage : STAGES) {
+            if (stage != OrderLifecycleStage.RECEIVED && timeline.stamps[stage.ordinal()] != 0) {
+                record(timeline, stage);
+            }
+        }
+        if (timelines.size() < maxTrackedOrders) {
+            timelines.put(orderId, timeline);
+        } else {
+            untrackedOrders.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records that a fill was matched for an order. Only the first fill counts.
+     *
+     * @param orderId the ID of the order
+     */
+    public void orderMatched(Long orderId) {
+        timelines.computeIfPresent(orderId, (id, timeline) -> {
+            if (timeline.stamps[OrderLifecycleStage.MATCHED.ordinal()] == 0) {
+                timeline.stamps[OrderLifecycleStage.MATCHED.ordinal()] = System.nanoTime();
+                record(timeline, OrderLifecycleStage.MATCHED);
+            }
+            return timeline;
+        });
+    }
+
+    /**
+     * Records that an order was completely filled and settled.
+     *
+     * @param orderId the ID of the order
+     */
+    public void orderSettled(Long orderId) {
+        timelines.computeIfPresent(orderId, (id, timeline) -> {
+            timeline.stamps[OrderLifecycleStage.SETTLED.ordinal()] = System.nanoTime();
+            record(timeline, OrderLifecycleStage.SETTLED);
+            return timeline;
+        });
+    }
+
+    /**
+     * Records that an event about an order was published. Only the event published after the order was settled
+     * completes the timeline; events for earlier status changes are ignored.
+     *
+     * @param orderId the ID of the order
+     */
+    public void orderPublished(Long orderId) {
+        Timeline[] completed = new Timeline[1];
+        timelines.computeIfPresent(orderId, (id, timeline) -> {
+            if (timeline.stamps[OrderLifecycleStage.SETTLED.ordinal()] == 0) {
+                return timeline;
+            }
+            timeline.stamps[OrderLifecycleStage.PUBLISHED.ordinal()] = System.nanoTime();
+            completed[0] = timeline;
+            return null; // Removes the completed order
+        });
+        Timeline timeline = completed[0];
+        if (timeline == null) {
+            return;
+        }
+        record(timeline, OrderLifecycleStage.PUBLISHED);
+
+        long total = timeline.elapsed(OrderLifecycleStage.PUBLISHED);
+        boolean outlier = total >= outlierThresholdNanos;
+        if (outlier || completedOrders.incrementAndGet() % sampleEvery == 0) {
+            addSample(orderId, timeline, outlier);
+        }
+    }
+
+    /**
+     * Stops following an order that will not be filled, e.g. because it was canceled.
+     *
+     * @param orderId the ID of the order
+     */
+    public void orderClosed(Long orderId) {
+        timelines.remove(orderId);
+    }
+
+    /**
+     * Periodically stops following orders received longer ago than the maximum age, which would otherwise stay
+     * until the tracker is full.
+     */
+    @Scheduled(fixedDelayString = "${application.latency.eviction-interval}")
+    public void evictExpired() {
+        long cutoff = System.nanoTime() - maxAgeNanos;
+        int before = timelines.size();
+        timelines.values().removeIf(timeline -> timeline.stamps[OrderLifecycleStage.RECEIVED.ordinal()] - cutoff < 0);
+        int evicted = before - timelines.size();
+        if (evicted > 0) {
+            expiredOrders.addAndGet(evicted);
+            log.debug("Stopped following {} orders older than the maximum age, {} left", evicted, timelines.size());
+        }
+    }
+
+    /**
+     * Builds a report of the latencies recorded so far.
+     *
+     * @return the latency distributions per instrument and the sampled timelines
+     */
+    public synchronized OrderLatencyReport report() {
+        Map<AssetCodes, List<StageLatency>> instruments = new EnumMap<>(AssetCodes.class);
+        for (AssetCodes assetCode : AssetCodes.values()) {
+            Recorder[] stageRecorders = recorders.get(assetCode);
+            Histogram[] stageHistograms = histograms.get(assetCode);
+            List<StageLatency> stages = new ArrayList<>();
+            for (int i = 0; i < STAGES.length; i++) {
+                stageHistograms[i].add(stageRecorders[i].getIntervalHistogram());
+                Histogram histogram = stageHistograms[i];
+                if (histogram.getTotalCount() > 0) {
+                    stages.add(new StageLatency(STAGES[i], histogram.getTotalCount(), histogram.getMinValue(),
+                                                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+                                                histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9),
+                                                histogram.getMaxValue()));
+                }
+            }
+            if (!stages.isEmpty()) {
+                instruments.put(assetCode, stages);
+            }
+        }
+        return new OrderLatencyReport(instruments, timelines.size(), untrackedOrders.get(), expiredOrders.get(), getSamples());
+    }
+
+    /**
+     * Clears all recorded latencies and samples. Orders that are being followed keep their timelines.
+     */
+    public synchronized void reset() {
+        for (AssetCodes assetCode : AssetCodes.values()) {
+            Recorder[] stageRecorders = recorders.get(assetCode);
+            Histogram[] stageHistograms = histograms.get(assetCode);
+            for (int i = 0; i < STAGES.length; i++) {
+                stageRecorders[i].reset();
+                stageHistograms[i].reset();
+            }
+        }
+        synchronized (samples) {
+            samples.clear();
+        }
+        untrackedOrders.set(0);
+        expiredOrders.set(0);
+    }
+
+    /**
+     * Records the time from receipt to a stage.
+     */
+    private void record(Timeline timeline, OrderLifecycleStage stage) {
+        recorders.get(timeline.assetCode)[stage.ordinal()].recordValue(Math.max(0, timeline.elapsed(stage) / 1_000));
+    }
+
+    /**
+     * Keeps the timeline of a completed order, dropping the oldest sample when full.
+     */
+    private void addSample(Long orderId, Timeline timeline, boolean outlier) {
+        Map<OrderLifecycleStage, Long> stageMicros = new EnumMap<>(OrderLifecycleStage.class);
+        for (OrderLifecycleStage stage : STAGES) {
+            if (timeline.stamps[stage.ordinal()] != 0) {
+                stageMicros.put(stage, timeline.elapsed(stage) / 1_000);
+            }
+        }
+        synchronized (samples) {
+            samples.addLast(new OrderLatencySample(orderId, timeline.assetCode, outlier, stageMicros));
+            if (samples.size() > maxSamples) {
+                samples.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the sampled timelines.
+     */
+    private List<OrderLatencySample> getSamples() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    /**
+     * Stage times of one followed order. A time of zero means the stage has not been reached.
+     */
+    private static final class Timeline {
+        private final AssetCodes assetCode;
+        private final long[] stamps;
+
+        private Timeline(AssetCodes assetCode, long[] stamps) {
+            this.assetCode = assetCode;
+            this.stamps = stamps;
+        }
+
+        private long elapsed(OrderLifecycleStage stage) {
+            return stamps[stage.ordinal()] - stamps[OrderLifecycleStage.RECEIVED.ordinal()];
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.inghubs.brokerageapi.metrics;
+
+import com.inghubs.brokerageapi.constant.ServerTimingPhase;
+
+/**
+ * Per-request breakdown of where the time of an API request was spent.
+ * The timing of the request being handled is bound to the current thread; code on other threads, or requests with
+ * timing switched off, see no timing and the static methods do nothing. Each thread reuses one instance, so timing
+ * a request allocates nothing apart from the header value.
+ * Phases may nest. A phase is recorded exclusive of the phases that ran inside it, so a customer lookup reports
+ * its own time while the statements it issued count as {@link ServerTimingPhase#DB}. A phase must not be nested
+ * inside itself.
+ */
+public final class RequestTiming {
+    private static final ServerTimingPhase[] PHASES = ServerTimingPhase.values();
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<RequestTiming> INSTANCES = ThreadLocal.withInitial(RequestTiming::new);
+
+    private final long[] nanos = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+    private final long[] startNanos = new long[PHASES.length];
+    private final long[] recordedAtStart = new long[PHASES.length];
+    private final StringBuilder header = new StringBuilder(256);
+    private long requestStartNanos;
+    private long recordedNanos;
+
+    private RequestTiming() {
+    }
+
+    /**
+     * Starts timing a request on the current thread.
+     *
+     * @return the timing of the request
+     */
+    public static RequestTiming begin() {
+        RequestTiming timing = INSTANCES.get();
+        timing.reset();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * Stops timing on the current thread. The returned timing may be reused by the next request on this thread.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Returns the timing of the request handled by the current thread.
+     *
+     * @return the timing, or null if the current request is not timed
+     */
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Marks the start of a phase of the current request.
+     *
+     * @param phase the phase that starts
+     */
+    public static void start(ServerTimingPhase phase) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.startNanos[phase.ordinal()] = System.nanoTime();
+            timing.recordedAtStart[phase.ordinal()] = timing.recordedNanos;
+        }
+    }
+
+    /**
+     * Marks the end of a phase of the current request and records its time, less the time of nested phases.
+     *
+     * @param phase the phase that ends
+     */
+    public static void stop(ServerTimingPhase phase) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.record(phase);
+        }
+    }
+
+    /**
+     * Computes the total time so far and the time not covered by any phase. Phases that are still running are
+     * recorded up to now, inner phases first.
+     * Called again when the request completes, so statements run while the body is written are included.
+     */
+    public void finish() {
+        for (ServerTimingPhase phase : PHASES) {
+            record(phase); // Phases still running, e.g. the handler while its response is written
+        }
+        long total = System.nanoTime() - requestStartNanos;
+        nanos[ServerTimingPhase.TOTAL.ordinal()] = total;
+        counts[ServerTimingPhase.TOTAL.ordinal()] = 1;
+        nanos[ServerTimingPhase.OTHER.ordinal()] = Math.max(0, total - recordedNanos);
+        counts[ServerTimingPhase.OTHER.ordinal()] = 1;
+    }
+
+    /**
+     * Returns the time recorded for a phase.
+     *
+     * @param phase the phase
+     * @return the time in nanoseconds
+     */
+    public long getNanos(ServerTimingPhase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    /**
+     * Returns how often a phase was recorded, e.g. the number of statements for {@link ServerTimingPhase#DB}.
+     *
+     * @param phase the phase
+     * @return the number of recordings
+     */
+    public int getCount(ServerTimingPhase phase) {
+        return counts[phase.ordinal()];
+    }
+
+    /**
+     * Formats the recorded phases as a Server-Timing header value, durations in milliseconds.
+     * Phases that were never entered are left out.
+     *
+     * @return the header value
+     */
+    public String toHeaderValue() {
+        finish();
+        header.setLength(0);
+        for (ServerTimingPhase phase : PHASES) {
+            int i = phase.ordinal();
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (!header.isEmpty()) {
+                header.append(", ");
+            }
+            header.append(phase.getMetricName()).append(";dur=");
+            appendMillis(nanos[i]);
+            header.append(";desc=\"").append(phase.getDescription());
+            if (phase == ServerTimingPhase.DB) {
+                header.append(" (").append(counts[i]).append(')');
+            }
+            header.append('"');
+        }
+        return header.toString();
+    }
+
+    /**
+     * Records a running phase, less the time of nested phases. Does nothing if the phase is not running.
+     */
+    private void record(ServerTimingPhase phase) {
+        int i = phase.ordinal();
+        if (startNanos[i] == 0) {
+            return;
+        }
+        long nested = recordedNanos - recordedAtStart[i];
+        long exclusive = Math.max(0, System.nanoTime() - startNanos[i] - nested);
+        nanos[i] += exclusive;
+        counts[i]++;
+        recordedNanos += exclusive;
+        startNanos[i] = 0;
+    }
+
+    /**
+     * Appends nanoseconds as milliseconds with three decimals, without going through a formatter.
+     */
+    private void appendMillis(long value) {
+        long micros = value / 1_000;
+        long fraction = micros % 1_000;
+        header.append(micros / 1_000).append('.');
+        if (fraction < 100) {
+            header.append('0');
+        }
+        if (fraction < 10) {
+            header.append('0');
+        }
+        header.append(fraction);
+    }
+
+    /**
+     * Clears the recorded phases for a new request.
+     */
+    private void reset() {
+        for (int i = 0; i < PHASES.length; i++) {
+            nanos[i] = 0;
+            counts[i] = 0;
+            startNanos[i] = 0;
+            recordedAtStart[i] = 0;
+        }
+        recordedNanos = 0;
+        requestStartNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,121 @@
+package com.inghubs.brokerageapi.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.inghubs.brokerageapi.exception.SqlBudgetExceededException;
+
+/**
+ * Counts the SQL statements issued by the request handled on the current thread, against the budget of its
+ * controller method. Identical statements are counted separately, so a statement repeated once per row of an
+ * earlier result (an N+1 query pattern) can be reported. Threads without a counter are not counted against a
+ * budget, but every statement of every thread adds to the total exposed as the {@code jdbc.statements} counter.
+ */
+public final class SqlStatementCounter {
+    private static final ThreadLocal<SqlStatementCounter> CURRENT = new ThreadLocal<>();
+    private static final LongAdder TOTAL = new LongAdder();
+
+    private final String endpoint;
+    private final int budget;
+    private final boolean failOnExceed;
+    private final Map<String, Integer> executions = new HashMap<>();
+    private int count;
+
+    private SqlStatementCounter(String endpoint, int budget, boolean failOnExceed) {
+        this.endpoint = endpoint;
+        this.budget = budget;
+        this.failOnExceed = failOnExceed;
+    }
+
+    /**
+     * Starts counting the statements of a request on the current thread.
+     *
+     * @param endpoint     the controller method handling the request, used in messages
+     * @param budget       the maximum number of statements
+     * @param failOnExceed whether the statement exceeding the budget throws instead of just being counted
+     */
+    public static void begin(String endpoint, int budget, boolean failOnExceed) {
+        CURRENT.set(new SqlStatementCounter(endpoint, budget, failOnExceed));
+    }
+
+    /**
+     * Stops counting on the current thread.
+     *
+     * @return the counter of the request, or null if none was started
+     */
+    public static SqlStatementCounter end() {
+        SqlStatementCounter counter = CURRENT.get();
+        CURRENT.remove();
+        return counter;
+    }
+
+    /**
+     * Counts a statement about to be executed.
+     *
+     * @param sql the SQL of the statement
+     * @throws SqlBudgetExceededException if the budget is exceeded and failing is switched on
+     */
+    static void statementPrepared(String sql) {
+        TOTAL.increment();
+        SqlStatementCounter counter = CURRENT.get();
+        if (counter == null) {
+            return;
+        }
+        counter.count++;
+        counter.executions.merge(sql, 1, Integer::sum);
+        if (counter.failOnExceed && counter.count > counter.budget) {
+            throw new SqlBudgetExceededException(counter.endpoint + " exceeded its budget of " + counter.budget
+                                                         + " SQL statements with: " + sql);
+        }
+    }
+
+    /**
+     * Returns the number of statements prepared by all threads since startup.
+     *
+     * @return the total number of statements
+     */
+    public static long getTotal() {
+        return TOTAL.sum();
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isExceeded() {
+        return count > budget;
+    }
+
+    /**
+     * Returns the queries that were issued at least the given number of times. Statements without a FROM clause,
+     * such as sequence calls for pooled IDs, are left out.
+     *
+     * @param threshold the minimum number of executions
+     * @return the repeated queries and how often each was issued
+     */
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new HashMap<>();
+        executions.forEach((sql, times) -> {
+            if (times >= threshold && isTableQuery(sql)) {
+                repeated.put(sql, times);
+            }
+        });
+        return repeated;
+    }
+
+    /**
+     * Checks whether a statement is a query reading from a table.
+     */
+    private static boolean isTableQuery(String sql) {
+        return sql.regionMatches(true, 0, "select", 0, 6) && sql.toLowerCase().contains(" from ");
+    }
+}
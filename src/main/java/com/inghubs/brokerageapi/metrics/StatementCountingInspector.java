@@ -0,0 +1,22 @@
+package com.inghubs.brokerageapi.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate statement inspector that counts every statement against the SQL budget of the current request.
+ * Registered through {@code hibernate.session_factory.statement_inspector}; the SQL is returned unchanged.
+ */
+public class StatementCountingInspector implements StatementInspector {
+
+    /**
+     * Counts the statement.
+     *
+     * @param sql the SQL about to be prepared
+     * @return the same SQL
+     */
+    @Override
+    public String inspect(String sql) {
+        SqlStatementCounter.statementPrepared(sql);
+        return sql;
+    }
+}
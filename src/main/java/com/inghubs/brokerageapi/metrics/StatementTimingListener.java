@@ -0,0 +1,44 @@
+package com.inghubs.brokerageapi.metrics;
+
+import com.inghubs.brokerageapi.constant.ServerTimingPhase;
+import org.hibernate.SessionEventListener;
+
+/**
+ * Hibernate session listener that records the time spent executing JDBC statements and batches as the
+ * {@link ServerTimingPhase#DB} phase of the current request.
+ * Registered through {@code hibernate.session.events.auto}, which creates one listener per session.
+ */
+public class StatementTimingListener implements SessionEventListener {
+
+    /**
+     * Called before a statement is executed.
+     */
+    @Override
+    public void jdbcExecuteStatementStart() {
+        RequestTiming.start(ServerTimingPhase.DB);
+    }
+
+    /**
+     * Called after a statement was executed.
+     */
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestTiming.stop(ServerTimingPhase.DB);
+    }
+
+    /**
+     * Called before a batch is executed.
+     */
+    @Override
+    public void jdbcExecuteBatchStart() {
+        RequestTiming.start(ServerTimingPhase.DB);
+    }
+
+    /**
+     * Called after a batch was executed.
+     */
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestTiming.stop(ServerTimingPhase.DB);
+    }
+}
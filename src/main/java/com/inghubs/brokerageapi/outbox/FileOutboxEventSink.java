@@ -0,0 +1,68 @@
+package com.inghubs.brokerageapi.outbox;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inghubs.brokerageapi.entity.OutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sink that appends every published event as one JSON line to a file.
+ */
+@Component
+@ConditionalOnProperty(name = "application.outbox.sink", havingValue = "file")
+public class FileOutboxEventSink implements OutboxEventSink {
+    private static final Logger log = LoggerFactory.getLogger(FileOutboxEventSink.class);
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+
+    public FileOutboxEventSink(ObjectMapper objectMapper, @Value("${application.outbox.file-path}") Path path) {
+        this.objectMapper = objectMapper;
+        this.path = path;
+        log.info("Outbox events are published to {}", path.toAbsolutePath());
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OutboxEvent event : events) {
+                writer.write(toJsonLine(event));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write outbox events to " + path, e);
+        }
+    }
+
+    /**
+     * Serializes an event together with its metadata.
+     *
+     * @param event the event
+     * @return the event as a single JSON line
+     */
+    private String toJsonLine(OutboxEvent event) throws JsonProcessingException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("id", event.getId());
+        line.put("eventType", event.getEventType());
+        line.put("aggregateId", event.getAggregateId());
+        line.put("assetCode", event.getAssetCode());
+        line.put("createdAt", event.getCreatedAt());
+        line.put("payload", objectMapper.readTree(event.getPayload()));
+        return objectMapper.writeValueAsString(line);
+    }
+}
@@ -0,0 +1,46 @@
+package com.inghubs.brokerageapi.outbox;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import com.inghubs.brokerageapi.entity.OutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process sink that keeps the most recently published events in memory.
+ * Stands in for a message broker in tests and local runs.
+ */
+@Component
+@ConditionalOnProperty(name = "application.outbox.sink", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOutboxEventSink implements OutboxEventSink {
+
+    private final Deque<OutboxEvent> events = new ArrayDeque<>();
+    private final int capacity;
+
+    public InMemoryOutboxEventSink(@Value("${application.outbox.memory-capacity}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> batch) {
+        for (OutboxEvent event : batch) {
+            events.addLast(event);
+            if (events.size() > capacity) {
+                events.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Returns the retained events, oldest first.
+     *
+     * @return a copy of the retained events
+     */
+    public synchronized List<OutboxEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+}
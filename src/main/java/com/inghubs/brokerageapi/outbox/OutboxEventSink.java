@@ -0,0 +1,20 @@
+package com.inghubs.brokerageapi.outbox;
+
+import java.util.List;
+
+import com.inghubs.brokerageapi.entity.OutboxEvent;
+
+/**
+ * Destination the outbox relay publishes events to.
+ * The relay calls the sink with the events of one instrument at a time, in the order they were recorded. A sink
+ * signals failure by throwing; the events are then published again later, so a sink may see an event more than once.
+ */
+public interface OutboxEventSink {
+
+    /**
+     * Publishes events of a single instrument.
+     *
+     * @param events the events, in the order they were recorded
+     */
+    void publish(List<OutboxEvent> events);
+}
@@ -0,0 +1,162 @@
+package com.inghubs.brokerageapi.outbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OutboxEventType;
+import com.inghubs.brokerageapi.entity.OutboxEvent;
+import com.inghubs.brokerageapi.metrics.OrderLatencyTracker;
+import com.inghubs.brokerageapi.repository.OutboxEventRepository;
+import com.inghubs.brokerageapi.repository.OutboxLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes outbox events to the configured sink.
+ * Every instrument is relayed on its own: the relay claims the instrument's outbox lease, so with several instances
+ * on one database only one of them publishes an instrument at a time, then reads its unpublished events in batches in
+ * the order they were recorded and hands them to the sink. Only events recorded before the commit horizon are read:
+ * a transaction may record an event and commit after a later one, so younger events could still be joined by earlier
+ * ones. Once the sink accepts a batch it is marked as published. When the sink fails, the remaining events of the
+ * instrument stay unpublished and are retried from the same position on the next run, which keeps delivery
+ * at-least-once and ordered per instrument.
+ */
+@Component
+public class OutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxLeaseRepository leaseRepository;
+    private final OutboxEventSink sink;
+    private final OrderLatencyTracker latencyTracker;
+    private final int batchSize;
+    private final Duration retention;
+    private final Duration commitHorizon;
+    private final Duration leaseDuration;
+    private final String owner;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer lagTimer;
+    private final Counter failureCounter;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxLeaseRepository leaseRepository, OutboxEventSink sink,
+                       OrderLatencyTracker latencyTracker, MeterRegistry meterRegistry,
+                       @Value("${application.outbox.batch-size}") int batchSize,
+                       @Value("${application.outbox.retention}") Duration retention,
+                       @Value("${application.outbox.commit-horizon}") Duration commitHorizon,
+                       @Value("${application.outbox.lease-duration}") Duration leaseDuration,
+                       @Value("${application.outbox.lease-owner}") String owner) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.leaseRepository = leaseRepository;
+        this.sink = sink;
+        this.latencyTracker = latencyTracker;
+        this.batchSize = batchSize;
+        this.retention = retention;
+        this.commitHorizon = commitHorizon;
+        this.leaseDuration = leaseDuration;
+        this.owner = owner;
+        this.batchSizeSummary = DistributionSummary.builder("outbox.relay.batch.size")
+                .description("Number of events read by the outbox relay per batch")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("outbox.relay.lag")
+                .description("Time between recording an outbox event and publishing it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("outbox.relay.failures")
+                .description("Number of instrument batches the sink failed to publish")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Relays every instrument whose outbox lease this instance can claim.
+     */
+    @Scheduled(fixedDelayString = "${application.outbox.relay-interval}")
+    public void relay() {
+        for (AssetCodes assetCode : AssetCodes.values()) {
+            LocalDateTime now = LocalDateTime.now();
+            if (leaseRepository.claim(assetCode, owner, now, now.plus(leaseDuration)) == 0) {
+                log.debug("Outbox events of {} are being relayed by another instance", assetCode);
+                continue;
+            }
+            try {
+                relay(assetCode);
+            } finally {
+                leaseRepository.release(assetCode, owner);
+            }
+        }
+    }
+
+    /**
+     * Publishes batches of an instrument until its committed events are drained or a publish fails.
+     *
+     * @param assetCode the instrument
+     */
+    private void relay(AssetCodes assetCode) {
+        int read;
+        do {
+            LocalDateTime horizon = LocalDateTime.now().minus(commitHorizon);
+            List<OutboxEvent> batch = outboxEventRepository.findUnpublished(assetCode, horizon, PageRequest.of(0, batchSize));
+            read = batch.size();
+            if (read == 0) {
+                return;
+            }
+            batchSizeSummary.record(read);
+            if (!publishBatch(assetCode, batch)) {
+                return;
+            }
+        } while (read == batchSize);
+    }
+
+    /**
+     * Publishes one batch of an instrument and marks its events as published.
+     *
+     * @param assetCode the instrument
+     * @param batch     the events in the order they were recorded
+     * @return true if the sink accepted the batch
+     */
+    private boolean publishBatch(AssetCodes assetCode, List<OutboxEvent> batch) {
+        try {
+            sink.publish(batch);
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            log.error("Publishing {} outbox events for {} failed, will retry: {}", batch.size(), assetCode, e.getMessage());
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> publishedIds = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            publishedIds.add(event.getId());
+            lagTimer.record(Duration.between(event.getCreatedAt(), now));
+        }
+        outboxEventRepository.markPublished(publishedIds, now);
+        for (OutboxEvent event : batch) {
+            if (event.getEventType() == OutboxEventType.ORDER_STATUS_CHANGED) {
+                latencyTracker.orderPublished(event.getAggregateId());
+            }
+        }
+        log.debug("Outbox relay published {} events of {}", batch.size(), assetCode);
+        return true;
+    }
+
+    /**
+     * Periodically deletes events that were published longer ago than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${application.outbox.purge-interval}")
+    public void purgePublished() {
+        int deleted = outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Purged {} published outbox events", deleted);
+        }
+    }
+}
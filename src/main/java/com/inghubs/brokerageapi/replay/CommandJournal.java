@@ -0,0 +1,232 @@
+package com.inghubs.brokerageapi.replay;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.ReplayCommandType;
+import com.inghubs.brokerageapi.constant.TransactionType;
+import com.inghubs.brokerageapi.dto.ReplayBalance;
+import com.inghubs.brokerageapi.dto.ReplayCommand;
+import com.inghubs.brokerageapi.dto.ReplayTrade;
+import com.inghubs.brokerageapi.entity.Trade;
+import com.inghubs.brokerageapi.entity.TradeOrder;
+import com.inghubs.brokerageapi.entity.Transaction;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Records the commands that change orders and balances as JSON lines, for deterministic replay.
+ * Commands are written once their transaction has committed, in commit order, so the journal holds exactly the
+ * committed history; a rolled back command is never written. When the journal is disabled every method returns
+ * immediately without building a command.
+ * When the journal is closed, the balances of every customer the journaled commands changed are recorded, so a
+ * replay can check its final balances and not only its trades.
+ * Replay reproduces the recorded trades exactly when the recorded commands did not overlap, e.g. when matching did
+ * not run while orders were being committed; overlapping commands may produce reported mismatches.
+ */
+@Component
+public class CommandJournal {
+    private static final Logger log = LoggerFactory.getLogger(CommandJournal.class);
+
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Path path;
+    private final Set<Long> changedCustomers = ConcurrentHashMap.newKeySet();
+    private BufferedWriter writer;
+
+    public CommandJournal(ObjectMapper objectMapper, JdbcTemplate jdbcTemplate, Clock clock,
+                          @Value("${application.replay.journal.enabled}") boolean enabled,
+                          @Value("${application.replay.journal.file}") Path path) {
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.path = path;
+        if (enabled) {
+            log.info("Commands are journaled to {}", path.toAbsolutePath());
+        }
+    }
+
+    /**
+     * Records a created order.
+     *
+     * @param order the saved order
+     */
+    public void orderCreated(TradeOrder order) {
+        if (enabled) {
+            changedCustomers.add(order.getCustomer().getId());
+            record(ReplayCommand.order(order.getCreateDate(), order.getCustomer().getId(), order.getId(), order.getAssetCode(),
+                                       order.getOrderSide(), order.getSize(), order.getPrice()));
+        }
+    }
+
+    /**
+     * Records a canceled order.
+     *
+     * @param order the canceled order
+     */
+    public void orderCanceled(TradeOrder order) {
+        if (enabled) {
+            changedCustomers.add(order.getCustomer().getId());
+            record(ReplayCommand.cancel(LocalDateTime.now(clock), order.getId()));
+        }
+    }
+
+    /**
+     * Records an amended order with its new size and price.
+     *
+     * @param order the amended order
+     */
+    public void orderAmended(TradeOrder order) {
+        if (enabled) {
+            changedCustomers.add(order.getCustomer().getId());
+            record(ReplayCommand.amend(LocalDateTime.now(clock), order.getId(), order.getSize(), order.getPrice()));
+        }
+    }
+
+    /**
+     * Records the cancellation of a customer's open orders.
+     *
+     * @param customerId the ID of the customer
+     * @param assetCode  the asset the cancel was narrowed to, or null
+     * @param side       the side the cancel was narrowed to, or null
+     */
+    public void ordersCanceled(Long customerId, AssetCodes assetCode, OrderSide side) {
+        if (enabled) {
+            changedCustomers.add(customerId);
+            record(ReplayCommand.massCancel(LocalDateTime.now(clock), customerId, assetCode, side));
+        }
+    }
+
+    /**
+     * Records a deposit or withdrawal that was applied to the customer's balance.
+     *
+     * @param transaction the applied transaction
+     */
+    public void transactionApplied(Transaction transaction) {
+        if (enabled) {
+            changedCustomers.add(transaction.getCustomer().getId());
+            ReplayCommandType type = transaction.getType() == TransactionType.DEPOSIT ? ReplayCommandType.DEPOSIT : ReplayCommandType.WITHDRAWAL;
+            record(ReplayCommand.transaction(type, LocalDateTime.now(clock), transaction.getCustomer().getId(), transaction.getAmount()));
+        }
+    }
+
+    /**
+     * Records a matching run together with the trades it produced.
+     *
+     * @param assetCode the matched asset
+     * @param trades    the trades, in execution order
+     */
+    public void matched(AssetCodes assetCode, List<Trade> trades) {
+        if (enabled) {
+            List<ReplayTrade> recordedTrades = new ArrayList<>(trades.size());
+            for (Trade trade : trades) {
+                recordedTrades.add(ReplayTrade.of(trade));
+                changedCustomers.add(trade.getBuyOrder().getCustomer().getId());
+                changedCustomers.add(trade.getSellerOrder().getCustomer().getId());
+            }
+            record(ReplayCommand.match(LocalDateTime.now(clock), assetCode, recordedTrades));
+        }
+    }
+
+    /**
+     * Records the current balances of every customer a journaled command changed, in customer ID order. Commands
+     * committed while the balances are read may be journaled before or after them.
+     */
+    public void recordBalances() {
+        if (!enabled || changedCustomers.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<ReplayCommand> commands = new ArrayList<>();
+        for (Long customerId : new TreeSet<>(changedCustomers)) {
+            List<ReplayBalance> balances = jdbcTemplate.query(
+                    "SELECT asset_code, size, usable_size FROM asset WHERE customer_id = ? ORDER BY asset_code",
+                    (rs, rowNum) -> new ReplayBalance(AssetCodes.valueOf(rs.getString(1)), rs.getBigDecimal(2), rs.getBigDecimal(3)),
+                    customerId);
+            commands.add(ReplayCommand.balance(now, customerId, balances));
+        }
+        append(commands);
+    }
+
+    /**
+     * Writes a command after the current transaction commits, or at once outside a transaction.
+     */
+    @SuppressWarnings("unchecked")
+    private void record(ReplayCommand command) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(List.of(command));
+            return;
+        }
+        List<ReplayCommand> commands = (List<ReplayCommand>) TransactionSynchronizationManager.getResource(this);
+        if (commands == null) {
+            List<ReplayCommand> pending = new ArrayList<>();
+            commands = pending;
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(pending);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CommandJournal.this);
+                }
+            });
+        }
+        commands.add(command);
+    }
+
+    /**
+     * Appends commands to the journal file. A failed write is logged and does not affect the committed commands.
+     */
+    private synchronized void append(List<ReplayCommand> commands) {
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            for (ReplayCommand command : commands) {
+                writer.write(objectMapper.writeValueAsString(command));
+                writer.newLine();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            log.error("Could not journal {} commands to {}", commands.size(), path, e);
+        }
+    }
+
+    /**
+     * Records the final balances and closes the journal file.
+     */
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        recordBalances();
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.inghubs.brokerageapi.replay;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Clock of the replay profile. It does not advance by itself: the replay moves it to the recorded time of every
+ * command before executing it, so orders and trades get their recorded timestamps and the replay never waits.
+ */
+@Component
+@Profile("replay")
+public class ReplayClock extends Clock {
+    private final ZoneId zone;
+    private volatile Instant instant = Instant.EPOCH;
+
+    public ReplayClock() {
+        this.zone = ZoneId.systemDefault();
+    }
+
+    /**
+     * Moves the clock to a recorded local time.
+     *
+     * @param time the time of the command about to be replayed
+     */
+    public void set(LocalDateTime time) {
+        instant = time.atZone(zone).toInstant();
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return Clock.fixed(instant, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return instant;
+    }
+}
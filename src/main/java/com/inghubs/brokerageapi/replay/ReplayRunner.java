@@ -0,0 +1,52 @@
+package com.inghubs.brokerageapi.replay;
+
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inghubs.brokerageapi.dto.ReplayReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Replays the configured command journal when the {@code replay} profile is active, logs the report and exits.
+ * The exit code is 0 when every command replayed, every match produced the recorded trades and every customer
+ * ended with the recorded balances, 1 otherwise, so the replay can run as a regression check.
+ */
+@Component
+@Profile("replay")
+public class ReplayRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(ReplayRunner.class);
+
+    private final ReplayService replayService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationContext context;
+    private final Path file;
+
+    public ReplayRunner(ReplayService replayService, ObjectMapper objectMapper, ApplicationContext context,
+                        @Value("${application.replay.file}") Path file) {
+        this.replayService = replayService;
+        this.objectMapper = objectMapper;
+        this.context = context;
+        this.file = file;
+    }
+
+    /**
+     * Replays the journal and stops the application.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        ReplayReport report = replayService.replay(file);
+        log.info("Replay report: {}", objectMapper.writeValueAsString(report));
+        int exitCode = report.getMismatches() == 0 && report.getBalanceMismatches() == 0 && report.getFailures() == 0 ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+}
@@ -0,0 +1,265 @@
+package com.inghubs.brokerageapi.replay;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.ReplayCommandType;
+import com.inghubs.brokerageapi.dto.ReplayBalance;
+import com.inghubs.brokerageapi.dto.ReplayCommand;
+import com.inghubs.brokerageapi.dto.ReplayReport;
+import com.inghubs.brokerageapi.dto.ReplayTrade;
+import com.inghubs.brokerageapi.entity.Asset;
+import com.inghubs.brokerageapi.entity.Customer;
+import com.inghubs.brokerageapi.entity.Trade;
+import com.inghubs.brokerageapi.repository.AssetRepository;
+import com.inghubs.brokerageapi.repository.CustomerRepository;
+import com.inghubs.brokerageapi.service.AssetService;
+import com.inghubs.brokerageapi.service.TradeMatchingService;
+import com.inghubs.brokerageapi.service.TradeOrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Replays a command journal through the order, matching and asset services, as fast as they go.
+ * Before every command the {@link ReplayClock} is moved to the command's recorded time, so orders and trades get
+ * their recorded timestamps and matching sees the same time priority as the recording.
+ * <p>
+ * The replay starts from the database the replaying application starts with, which must be the state the
+ * recording application started from (by default the rows of data.sql). Customers and orders that already exist
+ * at the start keep their IDs. Customers and orders created after it are recreated in journal order and their
+ * recorded IDs are mapped to the new ones, so trades are compared by recorded IDs.
+ * Every match is compared with the recorded trades, and the balances recorded when the recording ended are compared
+ * with the replayed balances of the same customers. The digest covers the replayed trades and the compared
+ * balances; replaying the same journal twice gives the same digest.
+ */
+@Service
+@Profile("replay")
+public class ReplayService {
+    private static final Logger log = LoggerFactory.getLogger(ReplayService.class);
+    private static final int MAX_LOGGED_PROBLEMS = 10;
+
+    private final ObjectMapper objectMapper;
+    private final ReplayClock clock;
+    private final TradeOrderService tradeOrderService;
+    private final TradeMatchingService tradeMatchingService;
+    private final AssetService assetService;
+    private final CustomerRepository customerRepository;
+    private final AssetRepository assetRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReplayService(ObjectMapper objectMapper, ReplayClock clock, TradeOrderService tradeOrderService,
+                         TradeMatchingService tradeMatchingService, AssetService assetService,
+                         CustomerRepository customerRepository, AssetRepository assetRepository, JdbcTemplate jdbcTemplate) {
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.tradeOrderService = tradeOrderService;
+        this.tradeMatchingService = tradeMatchingService;
+        this.assetService = assetService;
+        this.customerRepository = customerRepository;
+        this.assetRepository = assetRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Replays every command of a journal in order.
+     *
+     * @param file the journal, one JSON command per line
+     * @return the number of commands, trades, trade and balance mismatches and failures, the throughput and the digest
+     * @throws IOException if the journal cannot be read
+     */
+    public ReplayReport replay(Path file) throws IOException {
+        Replay replay = new Replay(jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM customer", Long.class),
+                                   jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM trade_order", Long.class));
+        log.info("Replaying {}", file.toAbsolutePath());
+        long startNanos = System.nanoTime();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                ReplayCommand command = objectMapper.readValue(line, ReplayCommand.class);
+                clock.set(command.getTimestamp());
+                replay.commands++;
+                replay.perType.merge(command.getType(), 1L, Long::sum);
+                try {
+                    execute(replay, command);
+                } catch (RuntimeException e) {
+                    replay.failures++;
+                    if (replay.failures <= MAX_LOGGED_PROBLEMS) {
+                        log.warn("Command {} ({} at {}) failed: {}", replay.commands, command.getType(), command.getTimestamp(), e.getMessage());
+                    }
+                }
+            }
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        String digest = replay.digest();
+        return new ReplayReport(replay.commands, replay.perType, replay.trades, replay.mismatches, replay.balanceMismatches, replay.failures,
+                                elapsedNanos / 1_000_000, replay.commands * 1e9 / Math.max(1, elapsedNanos), digest);
+    }
+
+    /**
+     * Executes one command through the service that executed it when it was recorded.
+     */
+    private void execute(Replay replay, ReplayCommand command) {
+        switch (command.getType()) {
+            case ORDER -> {
+                Long orderId = tradeOrderService.createTradeOrder(replay.customer(command.getCustomerId()), command.getAssetCode(),
+                                                                  command.getSide(), command.getSize(), command.getPrice()).getId();
+                replay.orderCreated(command.getOrderId(), orderId);
+            }
+            case CANCEL -> tradeOrderService.cancelTradeOrder(replay.order(command.getOrderId()));
+            case AMEND -> tradeOrderService.amendTradeOrder(replay.order(command.getOrderId()), command.getSize(), command.getPrice());
+            case MASS_CANCEL -> tradeOrderService.cancelTradeOrders(replay.customer(command.getCustomerId()), command.getAssetCode(),
+                                                                    command.getSide());
+            case DEPOSIT -> assetService.assignAsset(replay.customer(command.getCustomerId()), AssetCodes.TRY, command.getAmount());
+            case WITHDRAWAL -> assetService.withdrawAsset(replay.customer(command.getCustomerId()), AssetCodes.TRY, command.getAmount());
+            case MATCH -> match(replay, command);
+            case BALANCE -> compareBalances(replay, command);
+        }
+    }
+
+    /**
+     * Matches an asset and compares the trades with the recorded ones.
+     */
+    private void match(Replay replay, ReplayCommand command) {
+        List<Trade> trades = tradeMatchingService.matchOrders(command.getAssetCode());
+        List<ReplayTrade> recorded = command.getTrades() != null ? command.getTrades() : List.of();
+        boolean same = trades.size() == recorded.size();
+        for (int i = 0; i < trades.size(); i++) {
+            Trade trade = trades.get(i);
+            ReplayTrade replayed = new ReplayTrade(replay.recordedOrderId(trade.getBuyOrder().getId()),
+                                                   replay.recordedOrderId(trade.getSellerOrder().getId()),
+                                                   trade.getExecutedPrice(), trade.getExecutedSize());
+            same &= i < recorded.size() && replayed.sameAs(recorded.get(i));
+            replay.digestTrade(replayed, trade);
+        }
+        replay.trades += trades.size();
+        if (!same) {
+            replay.mismatches++;
+            if (replay.mismatches <= MAX_LOGGED_PROBLEMS) {
+                log.warn("Match of {} at {} produced {} trades, {} were recorded", command.getAssetCode(), command.getTimestamp(),
+                         trades.size(), recorded.size());
+            }
+        }
+    }
+
+    /**
+     * Compares the recorded balances of a customer with the replayed ones.
+     */
+    private void compareBalances(Replay replay, ReplayCommand command) {
+        List<Asset> assets = new ArrayList<>(assetRepository.findByCustomerId(replay.customer(command.getCustomerId())));
+        assets.sort(Comparator.comparing(asset -> asset.getAssetCode().name()));
+        List<ReplayBalance> recorded = command.getBalances() != null ? command.getBalances() : List.of();
+        boolean same = assets.size() == recorded.size();
+        for (int i = 0; i < assets.size(); i++) {
+            Asset asset = assets.get(i);
+            ReplayBalance replayed = new ReplayBalance(asset.getAssetCode(), asset.getSize(), asset.getUsableSize());
+            same &= i < recorded.size() && replayed.sameAs(recorded.get(i));
+            replay.digestBalance(command.getCustomerId(), replayed);
+        }
+        if (!same) {
+            replay.balanceMismatches++;
+            if (replay.balanceMismatches <= MAX_LOGGED_PROBLEMS) {
+                log.warn("Balances of customer ID {} differ from the recorded ones: {}", command.getCustomerId(),
+                         assets.stream().map(asset -> asset.getAssetCode() + " " + asset.getSize() + "/" + asset.getUsableSize()).toList());
+            }
+        }
+    }
+
+    /**
+     * State of one replay: the ID mappings, the counters and the digest of the trades and balances so far.
+     */
+    private final class Replay {
+        private final long lastExistingCustomerId;
+        private final long lastExistingOrderId;
+        private final Map<Long, Long> customers = new TreeMap<>();  // Recorded to replayed customer ID
+        private final Map<Long, Long> orders = new HashMap<>();     // Recorded to replayed order ID
+        private final Map<Long, Long> recordedOrders = new HashMap<>(); // Replayed to recorded order ID
+        private final Map<ReplayCommandType, Long> perType = new EnumMap<>(ReplayCommandType.class);
+        private final MessageDigest digest;
+        private long commands;
+        private long trades;
+        private long mismatches;
+        private long balanceMismatches;
+        private long failures;
+
+        private Replay(long lastExistingCustomerId, long lastExistingOrderId) {
+            this.lastExistingCustomerId = lastExistingCustomerId;
+            this.lastExistingOrderId = lastExistingOrderId;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Returns the replayed ID of a recorded customer, creating the customer on first use.
+         */
+        private Long customer(Long recordedId) {
+            if (recordedId == null || recordedId <= lastExistingCustomerId) {
+                return recordedId;
+            }
+            return customers.computeIfAbsent(recordedId, id -> {
+                Customer customer = new Customer();
+                customer.setEnabled(true);
+                return customerRepository.save(customer).getId();
+            });
+        }
+
+        private void orderCreated(Long recordedId, Long replayedId) {
+            orders.put(recordedId, replayedId);
+            recordedOrders.put(replayedId, recordedId);
+        }
+
+        private Long order(Long recordedId) {
+            return recordedId <= lastExistingOrderId ? recordedId : orders.getOrDefault(recordedId, -recordedId);
+        }
+
+        private Long recordedOrderId(Long replayedId) {
+            return replayedId <= lastExistingOrderId ? replayedId : recordedOrders.getOrDefault(replayedId, -replayedId);
+        }
+
+        private void digestTrade(ReplayTrade replayed, Trade trade) {
+            update(replayed.getBuyOrderId() + "/" + replayed.getSellOrderId() + "/" + plain(replayed.getPrice()) + "/"
+                           + plain(replayed.getSize()) + "/" + trade.getExecutionDate());
+        }
+
+        private void digestBalance(Long recordedCustomerId, ReplayBalance balance) {
+            update(recordedCustomerId + "/" + balance.getAssetCode() + "/" + plain(balance.getSize()) + "/" + plain(balance.getUsableSize()));
+        }
+
+        private String digest() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        private void update(String value) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+
+        private String plain(BigDecimal value) {
+            return value.stripTrailingZeros().toPlainString();
+        }
+    }
+}
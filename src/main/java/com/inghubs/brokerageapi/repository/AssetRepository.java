@@ -1,11 +1,19 @@
 package com.inghubs.brokerageapi.repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.dto.AssetSummary;
 import com.inghubs.brokerageapi.entity.Asset;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 
 /**
@@ -23,11 +31,63 @@ public interface AssetRepository extends JpaRepository<Asset, Long> {
     List<Asset> findByCustomerId(Long customerId);
 
     /**
-     * Finds an asset for a specific customer by asset code.
+     * Finds all assets associated with a specific customer as read models for listing.
+     *
+     * @param customerId the ID of the customer
+     * @return a list of assets belonging to the customer
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.inghubs.brokerageapi.dto.AssetSummary(a.id, a.customer.id, a.assetCode, a.size, a.usableSize) " +
+            "FROM Asset a WHERE a.customer.id = :customerId ORDER BY a.id")
+    List<AssetSummary> findSummariesByCustomerId(Long customerId);
+
+    /**
+     * Retrieves and write-locks an asset of a customer, so that its balance can be read and changed without
+     * losing a concurrent update.
+     *
+     * @param customerId the ID of the customer
+     * @param assetCode  the code of the asset
+     * @return an Optional containing the locked asset if found, or empty if not
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Asset a WHERE a.customer.id = :customerId AND a.assetCode = :assetCode")
+    Optional<Asset> findByCustomerIdAndAssetCodeWithLock(Long customerId, AssetCodes assetCode);
+
+    /**
+     * Retrieves and write-locks one asset of each of the given customers, in customer ID order.
+     *
+     * @param customerIds the IDs of the customers
+     * @param assetCode   the code of the asset
+     * @return the assets that exist for the given customers
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Asset> findByCustomerIdInAndAssetCodeOrderByCustomerId(Collection<Long> customerIds, AssetCodes assetCode);
+
+    /**
+     * Decreases the usable size of an asset in a single statement, only if enough usable size is left.
+     * Pending changes are flushed first. The persistence context is not cleared, so the caller's entities stay
+     * managed, but an Asset loaded before the update still holds the old usable size.
+     *
+     * @param customerId the ID of the customer
+     * @param assetCode  the code of the asset
+     * @param amount     the amount to lock
+     * @return the number of updated rows, 0 if the asset is missing or the balance is insufficient
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Asset a SET a.usableSize = a.usableSize - :amount " +
+            "WHERE a.customer.id = :customerId AND a.assetCode = :assetCode AND a.usableSize >= :amount")
+    int decreaseUsableSize(Long customerId, AssetCodes assetCode, BigDecimal amount);
+
+    /**
+     * Increases the usable size of an asset in a single statement. Like {@link #decreaseUsableSize}, it leaves the
+     * persistence context in place.
      *
      * @param customerId the ID of the customer
      * @param assetCode  the code of the asset
-     * @return an Optional containing the asset if found, or empty if not
+     * @param amount     the amount to release
+     * @return the number of updated rows, 0 if the asset is missing
      */
-    Optional<Asset> findByCustomerIdAndAssetCode(Long customerId, AssetCodes assetCode);
-}
\ No newline at end of file
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Asset a SET a.usableSize = a.usableSize + :amount WHERE a.customer.id = :customerId AND a.assetCode = :assetCode")
+    int increaseUsableSize(Long customerId, AssetCodes assetCode, BigDecimal amount);
+}
@@ -0,0 +1,30 @@
+package com.inghubs.brokerageapi.repository;
+
+import java.time.LocalDateTime;
+
+import com.inghubs.brokerageapi.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+
+/**
+ * Repository interface for managing IdempotencyRecord entities.
+ * Extends JpaRepository to provide CRUD operations for stored idempotent responses.
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Deletes all stored responses created before the given time.
+     *
+     * @param cutoff records created before this time are deleted
+     * @return the number of deleted records
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteByCreatedAtBefore(LocalDateTime cutoff);
+}
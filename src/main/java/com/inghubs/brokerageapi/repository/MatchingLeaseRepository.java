@@ -0,0 +1,60 @@
+package com.inghubs.brokerageapi.repository;
+
+import java.time.LocalDateTime;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.entity.MatchingLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+
+/**
+ * Repository interface for managing MatchingLease entities.
+ * Every change is a single conditional update, so two instances can never hold the same lease.
+ */
+@Repository
+public interface MatchingLeaseRepository extends JpaRepository<MatchingLease, AssetCodes> {
+
+    /**
+     * Claims the lease of an instrument if it is free, expired or already held by the owner.
+     *
+     * @param assetCode the instrument
+     * @param owner     the claiming instance
+     * @param now       the current time
+     * @param expiresAt when the claimed lease expires
+     * @return 1 if the lease was claimed, 0 if another instance holds it
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE MatchingLease l SET l.owner = :owner, l.expiresAt = :expiresAt WHERE l.assetCode = :assetCode " +
+            "AND (l.owner IS NULL OR l.owner = :owner OR l.expiresAt < :now)")
+    int claim(AssetCodes assetCode, String owner, LocalDateTime now, LocalDateTime expiresAt);
+
+    /**
+     * Extends the lease of an instrument if the owner still holds it.
+     *
+     * @param assetCode the instrument
+     * @param owner     the instance holding the lease
+     * @param expiresAt when the lease expires
+     * @return 1 if the lease was extended, 0 if the owner lost it
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE MatchingLease l SET l.expiresAt = :expiresAt WHERE l.assetCode = :assetCode AND l.owner = :owner")
+    int renew(AssetCodes assetCode, String owner, LocalDateTime expiresAt);
+
+    /**
+     * Frees the lease of an instrument if the owner holds it.
+     *
+     * @param assetCode the instrument
+     * @param owner     the instance holding the lease
+     * @return 1 if the lease was released, 0 if the owner did not hold it
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE MatchingLease l SET l.owner = NULL, l.expiresAt = NULL WHERE l.assetCode = :assetCode AND l.owner = :owner")
+    int release(AssetCodes assetCode, String owner);
+}
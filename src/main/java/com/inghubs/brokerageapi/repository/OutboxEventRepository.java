@@ -0,0 +1,58 @@
+package com.inghubs.brokerageapi.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+
+/**
+ * Repository interface for managing OutboxEvent entities.
+ * Extends JpaRepository to provide CRUD operations and the queries used by the outbox relay.
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Retrieves the oldest unpublished events of an instrument that were recorded before the commit horizon, in the
+     * order they were recorded. IDs are handed out in blocks per instance, so they do not give that order.
+     *
+     * @param assetCode the instrument
+     * @param horizon   only events recorded before this time are retrieved
+     * @param pageable  the maximum number of events to retrieve
+     * @return the unpublished events ordered by recording time, then ID
+     */
+    @Query("SELECT e FROM OutboxEvent e WHERE e.publishedAt IS NULL AND e.assetCode = :assetCode AND e.createdAt < :horizon " +
+            "ORDER BY e.createdAt, e.id")
+    List<OutboxEvent> findUnpublished(AssetCodes assetCode, LocalDateTime horizon, Pageable pageable);
+
+    /**
+     * Marks the given events as published.
+     *
+     * @param ids         the IDs of the published events
+     * @param publishedAt the time the events were published
+     * @return the number of updated events
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.publishedAt = :publishedAt WHERE e.id IN :ids")
+    int markPublished(List<Long> ids, LocalDateTime publishedAt);
+
+    /**
+     * Deletes all events that were published before the given time.
+     *
+     * @param cutoff events published before this time are deleted
+     * @return the number of deleted events
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.publishedAt < :cutoff")
+    int deletePublishedBefore(LocalDateTime cutoff);
+}
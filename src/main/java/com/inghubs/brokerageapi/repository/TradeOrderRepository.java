@@ -7,12 +7,17 @@ import java.util.Optional;
 import com.inghubs.brokerageapi.constant.AssetCodes;
 import com.inghubs.brokerageapi.constant.OrderSide;
 import com.inghubs.brokerageapi.constant.OrderStatus;
+import com.inghubs.brokerageapi.dto.BookDepthSummary;
+import com.inghubs.brokerageapi.dto.BookOrder;
+import com.inghubs.brokerageapi.dto.OpenOrderSummary;
+import com.inghubs.brokerageapi.dto.TradeOrderSummary;
 import com.inghubs.brokerageapi.entity.TradeOrder;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 
@@ -23,7 +28,7 @@ import org.springframework.data.jpa.repository.Query;
 public interface TradeOrderRepository extends JpaRepository<TradeOrder, Long> {
 
     /**
-     * Finds TradeOrders for a specific customer within a given date range.
+     * Finds TradeOrders for a specific customer within a given date range as read models for listing.
      *
      * @param customerId the ID of the customer
      * @param startDate the start date of the range
@@ -31,7 +36,10 @@ public interface TradeOrderRepository extends JpaRepository<TradeOrder, Long> {
      * @param pageable pagination information
      * @return a list of TradeOrders matching the criteria
      */
-    List<TradeOrder> findByCustomerIdAndCreateDateBetween(Long customerId, LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
+    @Query("SELECT new com.inghubs.brokerageapi.dto.TradeOrderSummary(o.id, o.customer.id, o.assetCode, o.orderSide, o.size, " +
+            "o.price, o.status, o.createDate) FROM TradeOrder o " +
+            "WHERE o.customer.id = :customerId AND o.createDate BETWEEN :startDate AND :endDate ORDER BY o.id")
+    List<TradeOrderSummary> findSummariesByCustomerIdAndCreateDateBetween(Long customerId, LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
 
     /**
      * Finds TradeOrders by their status.
@@ -52,15 +60,17 @@ public interface TradeOrderRepository extends JpaRepository<TradeOrder, Long> {
     Optional<TradeOrder> findByIdAndStatus(Long id, OrderStatus status);
 
     /**
-     * Finds TradeOrders by asset code, order side, and a list of statuses.
+     * Finds the orders of one side of an instrument's book as read models for the resident order books.
      *
      * @param assetCode the asset code associated with the TradeOrders
      * @param orderSide the side of the order (BUY or SELL)
      * @param statuses the list of statuses to filter by
      * @param sort sorting criteria
-     * @return a list of TradeOrders matching the specified criteria
+     * @return the matching orders, without their customers
      */
-    List<TradeOrder> findByAssetCodeAndOrderSideAndStatusIn(AssetCodes assetCode, OrderSide orderSide, List<OrderStatus> statuses, Sort sort);
+    @Query("SELECT new com.inghubs.brokerageapi.dto.BookOrder(o.id, o.customer.id, o.price, o.size, o.status) FROM TradeOrder o " +
+            "WHERE o.assetCode = :assetCode AND o.orderSide = :orderSide AND o.status IN :statuses")
+    List<BookOrder> findBookOrders(AssetCodes assetCode, OrderSide orderSide, List<OrderStatus> statuses, Sort sort);
 
     /**
      * Retrieves a TradeOrder by its ID using a pessimistic write lock.
@@ -73,4 +83,43 @@ public interface TradeOrderRepository extends JpaRepository<TradeOrder, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE) // Ensures exclusive access to the TradeOrder record.
     @Query("SELECT o FROM TradeOrder o WHERE o.id = :id")
     TradeOrder findByIdWithLock(Long id);
+
+    /**
+     * Retrieves and write-locks the open orders of a customer, optionally narrowed to an asset and a side.
+     * Only the columns needed to release the locked funds are selected. The orders are locked in ID order, the order
+     * in which a settlement locks them, so a mass cancel and a settlement never wait for each other in a cycle.
+     *
+     * @param customerId the ID of the customer
+     * @param assetCode  the asset code to filter by, or null for all assets
+     * @param orderSide  the order side to filter by, or null for both sides
+     * @param statuses   the statuses that are considered open
+     * @return the matching open orders, in ID order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE) // Keeps the matcher from filling these orders until the cancel commits
+    @Query("SELECT o.id AS id, o.assetCode AS assetCode, o.orderSide AS orderSide, o.size AS size, o.price AS price " +
+            "FROM TradeOrder o WHERE o.customer.id = :customerId AND o.status IN :statuses " +
+            "AND (:assetCode IS NULL OR o.assetCode = :assetCode) AND (:orderSide IS NULL OR o.orderSide = :orderSide) " +
+            "ORDER BY o.id")
+    List<OpenOrderSummary> findOpenOrdersWithLock(Long customerId, AssetCodes assetCode, OrderSide orderSide, List<OrderStatus> statuses);
+
+    /**
+     * Sets the status of the given orders in a single statement.
+     *
+     * @param ids    the IDs of the orders to update
+     * @param status the new status
+     * @return the number of updated orders
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TradeOrder o SET o.status = :status WHERE o.id IN :ids")
+    int updateStatusByIdIn(List<Long> ids, OrderStatus status);
+
+    /**
+     * Counts the open orders and their remaining size for every asset and side.
+     *
+     * @param statuses the statuses that are considered open
+     * @return one row per asset and side that has open orders
+     */
+    @Query("SELECT o.assetCode AS assetCode, o.orderSide AS orderSide, COUNT(o) AS orders, SUM(o.size) AS size " +
+            "FROM TradeOrder o WHERE o.status IN :statuses GROUP BY o.assetCode, o.orderSide")
+    List<BookDepthSummary> summarizeBookDepth(List<OrderStatus> statuses);
 }
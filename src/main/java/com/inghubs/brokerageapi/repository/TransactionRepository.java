@@ -2,9 +2,17 @@ package com.inghubs.brokerageapi.repository;
 
 import java.util.List;
 
+import com.inghubs.brokerageapi.constant.TransactionStatus;
+import com.inghubs.brokerageapi.dto.TransactionSummary;
 import com.inghubs.brokerageapi.entity.Transaction;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 
 /**
@@ -15,10 +23,36 @@ import org.springframework.stereotype.Repository;
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
     /**
-     * Retrieves a list of transactions associated with a specific customer ID.
+     * Retrieves the transactions associated with a specific customer ID as read models for listing.
      *
      * @param customerId the ID of the customer whose transactions are to be retrieved
      * @return a list of transactions associated with the given customer ID
      */
-    List<Transaction> findByCustomerId(Long customerId);
-}
\ No newline at end of file
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.inghubs.brokerageapi.dto.TransactionSummary(t.id, t.customer.id, t.type, t.amount, t.iban, " +
+            "t.timestamp, t.processed, t.status) FROM Transaction t WHERE t.customer.id = :customerId ORDER BY t.id")
+    List<TransactionSummary> findSummariesByCustomerId(Long customerId);
+
+    /**
+     * Retrieves and write-locks the oldest transactions with the given status.
+     * The lock keeps two processors from applying the same transactions.
+     *
+     * @param status   the status to filter by
+     * @param pageable the maximum number of transactions to retrieve
+     * @return the transactions ordered by ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Transaction> findByStatusOrderByIdAsc(TransactionStatus status, Pageable pageable);
+
+    /**
+     * Sets the status and processed flag of the given transactions in a single statement.
+     *
+     * @param ids       the IDs of the transactions to update
+     * @param status    the new status
+     * @param processed the new processed flag
+     * @return the number of updated transactions
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Transaction t SET t.status = :status, t.processed = :processed WHERE t.id IN :ids")
+    int updateStatusByIdIn(List<Long> ids, TransactionStatus status, boolean processed);
+}
@@ -2,6 +2,9 @@ package com.inghubs.brokerageapi.security;
 
 import java.io.IOException;
 
+import com.inghubs.brokerageapi.constant.ServerTimingPhase;
+import com.inghubs.brokerageapi.jfr.JwtValidationEvent;
+import com.inghubs.brokerageapi.metrics.RequestTiming;
 import com.inghubs.brokerageapi.service.CustomUserDetailsService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -49,6 +52,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
+        JwtValidationEvent event = new JwtValidationEvent();
+        event.begin();
+        RequestTiming.start(ServerTimingPhase.AUTH);
         try {
             // Extract JWT from the header
             final String jwt = authHeader.substring(7);
@@ -58,7 +64,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // If username is present and authentication is not already set
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 // Load user details from the user service
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                RequestTiming.start(ServerTimingPhase.USER);
+                UserDetails userDetails;
+                try {
+                    userDetails = userDetailsService.loadUserByUsername(username);
+                } finally {
+                    RequestTiming.stop(ServerTimingPhase.USER);
+                }
 
                 // Validate the JWT token
                 if (jwtService.isTokenValid(jwt, userDetails)) {
@@ -68,12 +80,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     // Set the authentication in the security context
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    event.valid = true;
                 }
             }
+            event.username = username;
         } catch (Exception e) {
             // Log any exceptions that occur during authentication
             logger.error("Cannot set user authentication: {}", e);
         }
+        RequestTiming.stop(ServerTimingPhase.AUTH);
+        event.commit();
 
         // Continue with the filter chain
         filterChain.doFilter(request, response);
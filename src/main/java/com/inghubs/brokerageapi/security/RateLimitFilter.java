@@ -0,0 +1,110 @@
+package com.inghubs.brokerageapi.security;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inghubs.brokerageapi.constant.CommonConstants;
+import com.inghubs.brokerageapi.constant.RateLimitCategory;
+import com.inghubs.brokerageapi.entity.User;
+import com.inghubs.brokerageapi.exception.ApiErrorResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+
+/**
+ * Filter that rate limits authenticated requests per customer, with separate limits for order entry, cancels
+ * and reads. It runs right after {@link JwtAuthenticationFilter}, so a rejected request costs no more than
+ * the token check: the 429 response body is serialized once up front. A bulk order entry is charged one token per
+ * order instead, by its controller once the orders are read; see {@link RateLimiter#acquire}.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final String TRADE_ORDERS_PATH = "/api/tradeOrders";
+    private static final String BULK_TRADE_ORDERS_PATH = "/api/tradeOrders/bulk";
+    private static final String API_PATH = "/api/";
+
+    private final RateLimiter rateLimiter;
+    private final byte[] rejectionBody;
+
+    public RateLimitFilter(RateLimiter rateLimiter, ObjectMapper objectMapper) throws IOException {
+        this.rateLimiter = rateLimiter;
+        this.rejectionBody = objectMapper.writeValueAsBytes(new ApiErrorResponse(HttpStatus.TOO_MANY_REQUESTS.value(),
+                HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase(), CommonConstants.RATE_LIMIT_EXCEEDED));
+    }
+
+    /**
+     * Only rate limited categories of API requests are checked.
+     *
+     * @param request the current request
+     * @return true if the request is not rate limited
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !rateLimiter.isEnabled() || category(request) == null;
+    }
+
+    /**
+     * Takes a token for the customer of the authenticated user and rejects the request if none is left.
+     *
+     * @param request       the HttpServletRequest object containing the request details
+     * @param response      the HttpServletResponse object to send the response
+     * @param filterChain   the filter chain for further processing
+     * @throws ServletException if an error occurs during the filtering process
+     * @throws IOException      if an input or output error occurs
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof User user) || user.getCustomer() == null) {
+            // Unauthenticated requests are rejected further down the chain
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = rateLimiter.tryAcquire(user.getCustomer().getId(), category(request));
+        if (waitNanos > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(RateLimiter.retryAfterSeconds(waitNanos)));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(rejectionBody.length);
+            response.getOutputStream().write(rejectionBody);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Determines the rate limit category of a request.
+     *
+     * @return the category, or null if the request is not rate limited here
+     */
+    private static RateLimitCategory category(HttpServletRequest request) {
+        String path = request.getServletPath();
+        String method = request.getMethod();
+        if (path.startsWith(TRADE_ORDERS_PATH)) {
+            if (HttpMethod.POST.matches(method)) {
+                if (path.equals(BULK_TRADE_ORDERS_PATH)) {
+                    return null; // Charged per order by the controller
+                }
+                return RateLimitCategory.ORDER_ENTRY;
+            }
+            if (HttpMethod.DELETE.matches(method) || HttpMethod.PATCH.matches(method)) {
+                return RateLimitCategory.CANCEL;
+            }
+        }
+        if (HttpMethod.GET.matches(method) && path.startsWith(API_PATH)) {
+            return RateLimitCategory.READ;
+        }
+        return null;
+    }
+}
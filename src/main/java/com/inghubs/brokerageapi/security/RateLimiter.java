@@ -0,0 +1,199 @@
+package com.inghubs.brokerageapi.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.inghubs.brokerageapi.constant.RateLimitCategory;
+import com.inghubs.brokerageapi.entity.User;
+import com.inghubs.brokerageapi.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lock-free per-customer rate limiter with a separate token bucket for every {@link RateLimitCategory}.
+ * Buckets are implemented with the generic cell rate algorithm: a bucket is a single "theoretical arrival time"
+ * that every admitted request moves forward by the emission interval, updated with compare-and-set. A request is
+ * admitted while that time is at most one burst ahead of now. A request may take several tokens, e.g. one per order
+ * of a bulk order entry; one that takes more than a whole burst is admitted only from a full bucket and leaves it in
+ * debt, so its orders still count against the rate.
+ * A bucket whose arrival time has passed is full and therefore equal to no bucket at all, so idle customers are
+ * evicted periodically without changing behavior. Memory is bounded by {@code max-keys}; customers seen while the
+ * map is full share a fixed set of overflow buckets until eviction makes room.
+ */
+@Component
+public class RateLimiter {
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+    private static final RateLimitCategory[] CATEGORIES = RateLimitCategory.values();
+    private static final int OVERFLOW_BUCKETS = 4096; // Power of two
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long origin = System.nanoTime();
+    private final long[] emissionIntervalNanos = new long[CATEGORIES.length];
+    private final long[] burstNanos = new long[CATEGORIES.length];
+    private final Counter[] rejected = new Counter[CATEGORIES.length];
+    private final Map<Long, AtomicLongArray> buckets = new ConcurrentHashMap<>();
+    private final AtomicLongArray[] overflow = new AtomicLongArray[OVERFLOW_BUCKETS];
+    private final int maxKeys;
+    private final boolean enabled;
+
+    public RateLimiter(MeterRegistry meterRegistry,
+                       @Value("${application.rate-limit.enabled}") boolean enabled,
+                       @Value("${application.rate-limit.order-entry.per-second}") double orderEntryRate,
+                       @Value("${application.rate-limit.order-entry.burst}") int orderEntryBurst,
+                       @Value("${application.rate-limit.cancel.per-second}") double cancelRate,
+                       @Value("${application.rate-limit.cancel.burst}") int cancelBurst,
+                       @Value("${application.rate-limit.read.per-second}") double readRate,
+                       @Value("${application.rate-limit.read.burst}") int readBurst,
+                       @Value("${application.rate-limit.max-keys}") int maxKeys) {
+        this.maxKeys = maxKeys;
+        this.enabled = enabled;
+        configure(RateLimitCategory.ORDER_ENTRY, orderEntryRate, orderEntryBurst);
+        configure(RateLimitCategory.CANCEL, cancelRate, cancelBurst);
+        configure(RateLimitCategory.READ, readRate, readBurst);
+        for (int i = 0; i < OVERFLOW_BUCKETS; i++) {
+            overflow[i] = new AtomicLongArray(CATEGORIES.length);
+        }
+        for (RateLimitCategory category : CATEGORIES) {
+            rejected[category.ordinal()] = Counter.builder("ratelimit.rejected")
+                    .description("Number of requests rejected by the rate limiter")
+                    .tag("category", category.name())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("ratelimit.keys", buckets, Map::size)
+                .description("Number of customers with a tracked rate limit bucket")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tells whether requests are rate limited.
+     *
+     * @return true if rate limiting is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes a token from a customer's bucket.
+     *
+     * @param customerId the ID of the customer
+     * @param category   the category of the request
+     * @return 0 if the request is admitted, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(Long customerId, RateLimitCategory category) {
+        return tryAcquire(customerId, category, 1);
+    }
+
+    /**
+     * Takes several tokens from a customer's bucket at once, or none. A request for more tokens than the burst waits
+     * for a full bucket and then takes them all, leaving the bucket that far in debt.
+     *
+     * @param customerId the ID of the customer
+     * @param category   the category of the request
+     * @param permits    the number of tokens to take
+     * @return 0 if the request is admitted, otherwise the nanoseconds until the bucket can cover it
+     */
+    public long tryAcquire(Long customerId, RateLimitCategory category, int permits) {
+        int i = category.ordinal();
+        long cost = emissionIntervalNanos[i] * permits;
+        long burst = burstNanos[i];
+        long headroom = Math.min(cost, burst);
+        AtomicLongArray bucket = bucket(customerId);
+        long now = System.nanoTime() - origin;
+        while (true) {
+            long arrival = bucket.get(i);
+            long start = Math.max(arrival, now);
+            long wait = start + headroom - burst - now;
+            if (wait > 0) {
+                rejected[i].increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(i, arrival, start + cost)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Takes tokens for a request whose cost is known only once its body is read, from the bucket of the customer of
+     * the authenticated user. Users without a customer, e.g. admins, are not rate limited, as in
+     * {@link RateLimitFilter}.
+     *
+     * @param userDetails the authenticated user
+     * @param category    the category of the request
+     * @param permits     the number of tokens to take
+     * @throws RateLimitExceededException if the customer's bucket cannot cover the request
+     */
+    public void acquire(UserDetails userDetails, RateLimitCategory category, int permits) {
+        if (!enabled || !(userDetails instanceof User user) || user.getCustomer() == null) {
+            return;
+        }
+        long waitNanos = tryAcquire(user.getCustomer().getId(), category, permits);
+        if (waitNanos > 0) {
+            throw new RateLimitExceededException(retryAfterSeconds(waitNanos));
+        }
+    }
+
+    /**
+     * Rounds a wait up to the whole seconds of a Retry-After header.
+     *
+     * @param waitNanos the wait in nanoseconds
+     * @return the wait in seconds, at least 1
+     */
+    public static long retryAfterSeconds(long waitNanos) {
+        return (waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+    }
+
+    /**
+     * Periodically removes the buckets of customers that have been idle long enough for all buckets to refill.
+     */
+    @Scheduled(fixedDelayString = "${application.rate-limit.eviction-interval}")
+    public void evictIdle() {
+        long now = System.nanoTime() - origin;
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> isFull(bucket, now));
+        log.debug("Evicted {} idle rate limit buckets, {} left", before - buckets.size(), buckets.size());
+    }
+
+    /**
+     * Returns the buckets of a customer, sharing an overflow bucket if the map is full.
+     */
+    private AtomicLongArray bucket(Long customerId) {
+        AtomicLongArray bucket = buckets.get(customerId);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            return overflow[Long.hashCode(customerId) & (OVERFLOW_BUCKETS - 1)];
+        }
+        return buckets.computeIfAbsent(customerId, key -> new AtomicLongArray(CATEGORIES.length));
+    }
+
+    /**
+     * Checks whether no request would be delayed by a bucket, i.e. all its arrival times have passed.
+     */
+    private static boolean isFull(AtomicLongArray bucket, long now) {
+        for (int i = 0; i < bucket.length(); i++) {
+            if (bucket.get(i) > now) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the rate and burst of a category.
+     */
+    private void configure(RateLimitCategory category, double perSecond, int burst) {
+        emissionIntervalNanos[category.ordinal()] = (long) (1_000_000_000L / perSecond);
+        burstNanos[category.ordinal()] = emissionIntervalNanos[category.ordinal()] * burst;
+    }
+}
@@ -1,20 +1,35 @@
 package com.inghubs.brokerageapi.service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
+import com.inghubs.brokerageapi.cache.SingleFlight;
 import com.inghubs.brokerageapi.constant.AssetCodes;
 import com.inghubs.brokerageapi.constant.CommonConstants;
 import com.inghubs.brokerageapi.constant.TransactionType;
+import com.inghubs.brokerageapi.dto.AssetSummary;
 import com.inghubs.brokerageapi.entity.Asset;
 import com.inghubs.brokerageapi.entity.Customer;
 import com.inghubs.brokerageapi.entity.Transaction;
 import com.inghubs.brokerageapi.exception.InsufficientBalanceException;
+import com.inghubs.brokerageapi.jfr.BalanceMutationEvent;
 import com.inghubs.brokerageapi.repository.AssetRepository;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service for managing assets related to customers.
@@ -27,21 +42,30 @@ public class AssetService {
 
     private final AssetRepository assetRepository;
     private final CustomerService customerService;
+    private final SingleFlight<Long, List<AssetSummary>> assetListings;
 
-    public AssetService(AssetRepository assetRepository, CustomerService customerService) {
+    public AssetService(AssetRepository assetRepository, CustomerService customerService, MeterRegistry meterRegistry,
+                        @Value("${application.coalescing.enabled}") boolean coalescingEnabled,
+                        @Value("${application.coalescing.freshness}") Duration freshness,
+                        @Value("${application.coalescing.max-entries}") int maxEntries) {
         this.assetRepository = assetRepository;
         this.customerService = customerService;
+        this.assetListings = new SingleFlight<>("assets", coalescingEnabled, freshness, maxEntries, meterRegistry);
     }
 
     /**
      * Retrieves a list of assets for a given customer.
+     * Concurrent calls for the same customer share one query, and its result is reused for the freshness window
+     * unless the customer's assets change. The method runs outside a transaction, so waiting callers hold no
+     * connection; the query itself runs in a read-only transaction of the repository.
      *
      * @param customerId the ID of the customer whose assets are to be listed
      * @return a list of assets associated with the customer
      */
-    public List<Asset> listAssets(Long customerId) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<AssetSummary> listAssets(Long customerId) {
         logger.info("Listing assets for customer with ID: {}", customerId);
-        return assetRepository.findByCustomerId(customerId);
+        return assetListings.get(customerId, () -> Collections.unmodifiableList(assetRepository.findSummariesByCustomerId(customerId)));
     }
 
     /**
@@ -52,13 +76,21 @@ public class AssetService {
      * @param amount     the amount to be assigned
      */
     public void assignAsset(Long customerId, AssetCodes assetCodes, BigDecimal amount) {
-        logger.info("Assigning {} of asset {} to customer ID: {}", amount, assetCodes, customerId);
-        Asset asset = assetRepository.findByCustomerIdAndAssetCode(customerId, assetCodes)
-                .orElseGet(() -> createAsset(customerService.getEnabledCustomerById(customerId), assetCodes));
+        if (logger.isDebugEnabled()) { // Three arguments would allocate their array on every fill
+            logger.debug("Assigning {} of asset {} to customer ID: {}", amount, assetCodes, customerId);
+        }
+        BalanceMutationEvent event = new BalanceMutationEvent();
+        event.begin();
+        Asset asset = assetRepository.findByCustomerIdAndAssetCodeWithLock(customerId, assetCodes).orElse(null);
+        if (asset == null) {
+            asset = createAsset(customerService.getEnabledCustomerById(customerId), assetCodes);
+        }
 
         asset.setSize(asset.getSize().add(amount));
         asset.setUsableSize(asset.getUsableSize().add(amount));
         assetRepository.save(asset);
+        assetListings.invalidateAfterCompletion(customerId);
+        event.commit(BalanceMutationEvent.ASSIGN, customerId, assetCodes, amount);
     }
 
     /**
@@ -69,8 +101,12 @@ public class AssetService {
      * @param amount     the amount to be withdrawn
      */
     public void withdrawAsset(Long customerId, AssetCodes assetCodes, BigDecimal amount) {
-        logger.info("Withdrawing {} of asset {} from customer ID: {}", amount, assetCodes, customerId);
-        Asset asset = assetRepository.findByCustomerIdAndAssetCode(customerId, assetCodes)
+        if (logger.isDebugEnabled()) {
+            logger.debug("Withdrawing {} of asset {} from customer ID: {}", amount, assetCodes, customerId);
+        }
+        BalanceMutationEvent event = new BalanceMutationEvent();
+        event.begin();
+        Asset asset = assetRepository.findByCustomerIdAndAssetCodeWithLock(customerId, assetCodes)
                 .orElseThrow(() -> new InsufficientBalanceException(CommonConstants.ASSET_NOT_FOUND));
 
         if (asset.getUsableSize().compareTo(amount) < 0) {
@@ -82,6 +118,8 @@ public class AssetService {
         asset.setSize(asset.getSize().subtract(amount));
         asset.setUsableSize(asset.getUsableSize().subtract(amount));
         assetRepository.save(asset);
+        assetListings.invalidateAfterCompletion(customerId);
+        event.commit(BalanceMutationEvent.WITHDRAW, customerId, assetCodes, amount);
     }
 
     /**
@@ -92,8 +130,10 @@ public class AssetService {
      * @param size       the size to lock
      */
     protected void checkAndLockAsset(Long customerId, AssetCodes assetCode, BigDecimal size) {
-        logger.info("Checking and locking {} of asset {} for customer ID: {}", size, assetCode, customerId);
-        Asset asset = assetRepository.findByCustomerIdAndAssetCode(customerId, assetCode)
+        logger.debug("Checking and locking {} of asset {} for customer ID: {}", size, assetCode, customerId);
+        BalanceMutationEvent event = new BalanceMutationEvent();
+        event.begin();
+        Asset asset = assetRepository.findByCustomerIdAndAssetCodeWithLock(customerId, assetCode)
                 .orElseThrow(() -> new InsufficientBalanceException(CommonConstants.ASSET_NOT_FOUND));
 
         if (asset.getUsableSize().compareTo(size) < 0) {
@@ -103,6 +143,63 @@ public class AssetService {
         }
         asset.setUsableSize(asset.getUsableSize().subtract(size));
         assetRepository.save(asset);
+        assetListings.invalidateAfterCompletion(customerId);
+        event.commit(BalanceMutationEvent.LOCK, customerId, assetCode, size);
+    }
+
+    /**
+     * Returns the usable size of every asset a customer holds, keyed by asset code.
+     * The assets are read as summaries, so no managed Asset is left holding a usable size that
+     * {@link #lockAssets} changes behind it.
+     *
+     * @param customerId the ID of the customer
+     * @return the usable sizes of the customer's assets
+     */
+    protected Map<AssetCodes, BigDecimal> getUsableSizes(Long customerId) {
+        Map<AssetCodes, BigDecimal> usableSizes = new EnumMap<>(AssetCodes.class);
+        for (AssetSummary asset : assetRepository.findSummariesByCustomerId(customerId)) {
+            usableSizes.put(asset.getAssetCode(), asset.getUsableSize());
+        }
+        return usableSizes;
+    }
+
+    /**
+     * Locks the given amounts for a customer with one conditional update per asset.
+     * Fails as a whole if any asset no longer has enough usable size.
+     *
+     * @param customerId the ID of the customer
+     * @param amounts    the amounts to lock, keyed by asset code
+     */
+    protected void lockAssets(Long customerId, Map<AssetCodes, BigDecimal> amounts) {
+        assetListings.invalidateAfterCompletion(customerId);
+        for (Map.Entry<AssetCodes, BigDecimal> entry : amounts.entrySet()) {
+            logger.debug("Locking {} of asset {} for customer ID: {}", entry.getValue(), entry.getKey(), customerId);
+            BalanceMutationEvent event = new BalanceMutationEvent();
+            event.begin();
+            if (assetRepository.decreaseUsableSize(customerId, entry.getKey(), entry.getValue()) == 0) {
+                logger.error("Insufficient balance for locking. Customer ID: {}, Asset Code: {}, Requested: {}",
+                             customerId, entry.getKey(), entry.getValue());
+                throw new InsufficientBalanceException(CommonConstants.INSUFFICIENT_ASSET_BALANCE);
+            }
+            event.commit(BalanceMutationEvent.LOCK, customerId, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Write-locks assets of several customers in the global lock order: by customer ID, then by asset code.
+     * A transaction that changes the assets of more than one customer locks them with this method before changing
+     * any of them, so two such transactions never wait for each other in a cycle. Missing assets are skipped.
+     *
+     * @param customerIds the IDs of the customers
+     * @param assetCodes  the asset codes to lock of every customer
+     */
+    public void lockAccounts(Collection<Long> customerIds, Set<AssetCodes> assetCodes) {
+        Set<AssetCodes> orderedCodes = assetCodes instanceof EnumSet ? assetCodes : EnumSet.copyOf(assetCodes);
+        for (Long customerId : new TreeSet<>(customerIds)) {
+            for (AssetCodes assetCode : orderedCodes) {
+                assetRepository.findByCustomerIdAndAssetCodeWithLock(customerId, assetCode);
+            }
+        }
     }
 
     /**
@@ -130,18 +227,80 @@ public class AssetService {
      * @param size       the size to release
      */
     public void releaseAsset(Long customerId, AssetCodes assetCode, BigDecimal size) {
-        logger.info("Releasing {} of asset {} for customer ID: {}", size, assetCode, customerId);
-        Asset asset = assetRepository.findByCustomerIdAndAssetCode(customerId, assetCode)
-                .orElseGet(() -> createAsset(customerService.getEnabledCustomerById(customerId), assetCode));
+        if (logger.isDebugEnabled()) {
+            logger.debug("Releasing {} of asset {} for customer ID: {}", size, assetCode, customerId);
+        }
+        BalanceMutationEvent event = new BalanceMutationEvent();
+        event.begin();
+        Asset asset = assetRepository.findByCustomerIdAndAssetCodeWithLock(customerId, assetCode).orElse(null);
+        if (asset == null) {
+            asset = createAsset(customerService.getEnabledCustomerById(customerId), assetCode);
+        }
         asset.setUsableSize(asset.getUsableSize().add(size));
         assetRepository.save(asset);
+        assetListings.invalidateAfterCompletion(customerId);
+        event.commit(BalanceMutationEvent.RELEASE, customerId, assetCode, size);
+    }
+
+    /**
+     * Releases the given amounts for a customer with one update per asset.
+     *
+     * @param customerId the ID of the customer
+     * @param amounts    the amounts to release, keyed by asset code
+     */
+    public void releaseAssets(Long customerId, Map<AssetCodes, BigDecimal> amounts) {
+        assetListings.invalidateAfterCompletion(customerId);
+        for (Map.Entry<AssetCodes, BigDecimal> entry : amounts.entrySet()) {
+            logger.debug("Releasing {} of asset {} for customer ID: {}", entry.getValue(), entry.getKey(), customerId);
+            BalanceMutationEvent event = new BalanceMutationEvent();
+            event.begin();
+            if (assetRepository.increaseUsableSize(customerId, entry.getKey(), entry.getValue()) == 0) {
+                releaseAsset(customerId, entry.getKey(), entry.getValue());
+                continue; // Recorded by releaseAsset
+            }
+            event.commit(BalanceMutationEvent.RELEASE, customerId, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Retrieves and write-locks the TRY accounts of the given customers, in customer ID order.
+     *
+     * @param customerIds the IDs of the customers
+     * @return the existing TRY accounts keyed by customer ID
+     */
+    public Map<Long, Asset> lockCashAccounts(Collection<Long> customerIds) {
+        Map<Long, Asset> accounts = new HashMap<>();
+        for (Asset asset : assetRepository.findByCustomerIdInAndAssetCodeOrderByCustomerId(customerIds, AssetCodes.TRY)) {
+            accounts.put(asset.getCustomer().getId(), asset);
+        }
+        return accounts;
+    }
+
+    /**
+     * Applies the net result of several deposits and withdrawals to a locked account.
+     * The change is written with a single update when the transaction flushes.
+     *
+     * @param account the locked account
+     * @param delta   the net amount to add, negative for a net withdrawal
+     */
+    public void applyNetChange(Asset account, BigDecimal delta) {
+        logger.debug("Applying net change of {} to asset {} of customer ID: {}", delta, account.getAssetCode(), account.getCustomer().getId());
+        BalanceMutationEvent event = new BalanceMutationEvent();
+        event.begin();
+        account.setSize(account.getSize().add(delta));
+        account.setUsableSize(account.getUsableSize().add(delta));
+        assetListings.invalidateAfterCompletion(account.getCustomer().getId());
+        event.commit(BalanceMutationEvent.NET_CHANGE, account.getCustomer().getId(), account.getAssetCode(), delta);
     }
 
     /**
      * Processes a transaction, either withdrawing or depositing assets based on the transaction type.
+     * An insufficient balance leaves the balance unchanged and does not roll back the caller's transaction, so the
+     * caller can record the transaction as failed.
      *
      * @param transaction the transaction to process
      */
+    @Transactional(noRollbackFor = InsufficientBalanceException.class)
     public void processTransaction(Transaction transaction) {
         logger.info("Processing transaction: {}", transaction);
         if (transaction.getType().equals(TransactionType.WITHDRAWAL)) {
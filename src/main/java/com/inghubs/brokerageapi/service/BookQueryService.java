@@ -0,0 +1,88 @@
+package com.inghubs.brokerageapi.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.inghubs.brokerageapi.book.BookSnapshot;
+import com.inghubs.brokerageapi.book.FillEstimate;
+import com.inghubs.brokerageapi.book.LevelSnapshot;
+import com.inghubs.brokerageapi.book.OrderBook;
+import com.inghubs.brokerageapi.book.ResidentOrderBooks;
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.dto.BookDepthResponse;
+import com.inghubs.brokerageapi.dto.DepthLevel;
+import com.inghubs.brokerageapi.dto.FillEstimateResponse;
+import com.inghubs.brokerageapi.exception.BookNotFoundException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for read-only queries against the order books.
+ * Every query reads the last published snapshot of the resident book, so it takes no lock, issues no SQL and never
+ * delays matching. The answer may miss the changes made since the snapshot was published, and, when several instances
+ * share the database, the changes made by the other instances since the books were last reconciled.
+ */
+@Service
+public class BookQueryService {
+    private static final int AMOUNT_SCALE = 2 * OrderBook.SCALE;
+
+    private final ResidentOrderBooks books;
+
+    public BookQueryService(ResidentOrderBooks books) {
+        this.books = books;
+    }
+
+    /**
+     * Retrieves the best price levels of both sides of a book.
+     *
+     * @param assetCode the instrument
+     * @param levels    the maximum number of levels per side
+     * @return the depth of the book
+     */
+    public BookDepthResponse getDepth(AssetCodes assetCode, int levels) {
+        BookSnapshot snapshot = getSnapshot(assetCode);
+        return new BookDepthResponse(assetCode, snapshot.getVersion(), snapshot.getPublishedAt(),
+                                     depth(snapshot.levels(OrderSide.BUY, levels)), depth(snapshot.levels(OrderSide.SELL, levels)));
+    }
+
+    /**
+     * Estimates what an order would fill if it were entered now, without entering it.
+     *
+     * @param customerId the ID of the customer, whose own orders would not be matched
+     * @param assetCode  the instrument
+     * @param side       the side of the order
+     * @param size       the size of the order
+     * @param price      the limit price, or null to fill at any price
+     * @return the estimated fills
+     */
+    public FillEstimateResponse estimateFill(Long customerId, AssetCodes assetCode, OrderSide side, BigDecimal size, BigDecimal price) {
+        BookSnapshot snapshot = getSnapshot(assetCode);
+        FillEstimate estimate = snapshot.estimateFill(customerId, side, price == null ? OrderBook.MISSING : OrderBook.toUnits(price),
+                                                      OrderBook.toUnits(size));
+        BigDecimal filledSize = OrderBook.toDecimal(estimate.getFilledSize());
+        BigDecimal totalAmount = BigDecimal.valueOf(estimate.getTotalAmount(), AMOUNT_SCALE);
+        BigDecimal averagePrice = estimate.getFilledSize() == 0 ? null
+                : totalAmount.divide(filledSize, OrderBook.SCALE, RoundingMode.HALF_UP);
+        return new FillEstimateResponse(assetCode, side, size, filledSize, averagePrice, totalAmount, estimate.getFills(),
+                                        snapshot.getVersion());
+    }
+
+    private BookSnapshot getSnapshot(AssetCodes assetCode) {
+        BookSnapshot snapshot = books.getSnapshot(assetCode);
+        if (snapshot == null) {
+            throw new BookNotFoundException("No order book for asset code: " + assetCode);
+        }
+        return snapshot;
+    }
+
+    private List<DepthLevel> depth(List<LevelSnapshot> levels) {
+        List<DepthLevel> depth = new ArrayList<>(levels.size());
+        for (LevelSnapshot level : levels) {
+            depth.add(new DepthLevel(OrderBook.toDecimal(level.getPrice()), OrderBook.toDecimal(level.getTotalSize()),
+                                     level.getOrderCount()));
+        }
+        return depth;
+    }
+}
@@ -1,8 +1,10 @@
 package com.inghubs.brokerageapi.service;
 
 import com.inghubs.brokerageapi.constant.CommonConstants;
+import com.inghubs.brokerageapi.constant.ServerTimingPhase;
 import com.inghubs.brokerageapi.entity.Customer;
 import com.inghubs.brokerageapi.exception.CustomerNotFoundException;
+import com.inghubs.brokerageapi.metrics.RequestTiming;
 import com.inghubs.brokerageapi.repository.CustomerRepository;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
@@ -34,11 +36,16 @@ public class CustomerService {
     public Customer getEnabledCustomerById(Long customerId) {
         log.info("Fetching customer with ID: {}", customerId);
 
-        return customerRepository.findById(customerId)
-                .filter(Customer::isEnabled)
-                .orElseThrow(() -> {
-                    log.error("Customer not found or not enabled for ID: {}", customerId);
-                    return new CustomerNotFoundException(CommonConstants.CUSTOMER_NOT_FOUND_OR_NOT_ENABLED);
-                });
+        RequestTiming.start(ServerTimingPhase.USER);
+        try {
+            return customerRepository.findById(customerId)
+                    .filter(Customer::isEnabled)
+                    .orElseThrow(() -> {
+                        log.error("Customer not found or not enabled for ID: {}", customerId);
+                        return new CustomerNotFoundException(CommonConstants.CUSTOMER_NOT_FOUND_OR_NOT_ENABLED);
+                    });
+        } finally {
+            RequestTiming.stop(ServerTimingPhase.USER);
+        }
     }
 }
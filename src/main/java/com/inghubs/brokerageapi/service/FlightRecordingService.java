@@ -0,0 +1,135 @@
+package com.inghubs.brokerageapi.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+
+import com.inghubs.brokerageapi.dto.FlightRecordingStatus;
+import com.inghubs.brokerageapi.exception.FlightRecordingNotAvailableException;
+import com.inghubs.brokerageapi.jfr.BalanceMutationEvent;
+import com.inghubs.brokerageapi.jfr.JwtValidationEvent;
+import com.inghubs.brokerageapi.jfr.MatchRunEvent;
+import com.inghubs.brokerageapi.jfr.OrderLockEvent;
+import com.inghubs.brokerageapi.jfr.TradeExecutionEvent;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for controlling a continuous Java Flight Recorder recording of the application.
+ * The recording uses a predefined JFR configuration and additionally enables the application's own events
+ * without a duration threshold. When no recording is running the application events are disabled and cost
+ * no more than a check of the event's enabled flag.
+ */
+@Service
+public class FlightRecordingService {
+    private static final Logger log = LoggerFactory.getLogger(FlightRecordingService.class);
+    private static final String RECORDING_NAME = "brokerageapi";
+    private static final List<Class<? extends Event>> APPLICATION_EVENTS = List.of(
+            MatchRunEvent.class, TradeExecutionEvent.class, BalanceMutationEvent.class, JwtValidationEvent.class, OrderLockEvent.class);
+
+    private final String settings;
+    private final Duration defaultMaxAge;
+    private final long defaultMaxSize;
+    private Recording recording;
+
+    public FlightRecordingService(@Value("${application.jfr.settings}") String settings,
+                                  @Value("${application.jfr.max-age}") Duration defaultMaxAge,
+                                  @Value("${application.jfr.max-size}") long defaultMaxSize) {
+        this.settings = settings;
+        this.defaultMaxAge = defaultMaxAge;
+        this.defaultMaxSize = defaultMaxSize;
+    }
+
+    /**
+     * Starts a continuous recording, unless one is already running.
+     *
+     * @param maxAge  how long recorded data is kept, or null for the configured default
+     * @param maxSize the maximum size of the recorded data in bytes, or null for the configured default
+     * @return the status of the recording
+     */
+    public synchronized FlightRecordingStatus start(Duration maxAge, Long maxSize) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            log.info("Flight recording is already running");
+            return status();
+        }
+        closeRecording();
+
+        try {
+            recording = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Could not load flight recorder settings " + settings, e);
+        }
+        for (Class<? extends Event> eventClass : APPLICATION_EVENTS) {
+            recording.enable(eventClass).withoutThreshold();
+        }
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge != null ? maxAge : defaultMaxAge);
+        recording.setMaxSize(maxSize != null ? maxSize : defaultMaxSize);
+        recording.start();
+        log.info("Flight recording started with settings {}, max age {} and max size {} bytes",
+                 settings, recording.getMaxAge(), recording.getMaxSize());
+        return status();
+    }
+
+    /**
+     * Stops the running recording. The recorded data is kept and can still be dumped.
+     *
+     * @return the status of the recording
+     */
+    public synchronized FlightRecordingStatus stop() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("Flight recording stopped");
+        }
+        return status();
+    }
+
+    /**
+     * Writes the data of the current or last recording to a temporary file.
+     *
+     * @return the path of the written file; the caller is responsible for deleting it
+     * @throws FlightRecordingNotAvailableException if no recording was started
+     */
+    public synchronized Path dump() throws IOException {
+        if (recording == null || recording.getState() == RecordingState.NEW || recording.getState() == RecordingState.CLOSED) {
+            throw new FlightRecordingNotAvailableException();
+        }
+        Path file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+        recording.dump(file);
+        log.info("Flight recording dumped to {} ({} bytes)", file, Files.size(file));
+        return file;
+    }
+
+    /**
+     * Returns the status of the current or last recording.
+     *
+     * @return the status of the recording
+     */
+    public synchronized FlightRecordingStatus status() {
+        if (recording == null) {
+            return new FlightRecordingStatus(null, null, defaultMaxAge, defaultMaxSize, 0);
+        }
+        return new FlightRecordingStatus(recording.getState().name(), recording.getStartTime(), recording.getMaxAge(),
+                                         recording.getMaxSize(), recording.getSize());
+    }
+
+    /**
+     * Closes the previous recording and releases its data.
+     */
+    private void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
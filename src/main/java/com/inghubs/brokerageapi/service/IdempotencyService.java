@@ -0,0 +1,319 @@
+package com.inghubs.brokerageapi.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.inghubs.brokerageapi.entity.IdempotencyRecord;
+import com.inghubs.brokerageapi.exception.IdempotencyKeyReusedException;
+import com.inghubs.brokerageapi.exception.IdempotencyKeyUsedException;
+import com.inghubs.brokerageapi.repository.IdempotencyRecordRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service for deduplicating retried requests that carry an Idempotency-Key header.
+ * Responses are kept in a bounded in-memory store with a TTL, so a retry is answered from memory on the hot path.
+ * The durable record of a key is written by the business transaction of the request itself: the controller runs the
+ * change through {@link #execute}, which inserts the key's row before anything else in the same transaction. The row
+ * commits or rolls back with the change, so a change can never commit without its key, even if the instance stops
+ * before the response is stored. A key that is already in the database, e.g. from before a restart or from another
+ * instance, makes the insert fail on the unique key and the request is answered from the stored row instead of
+ * being executed again. The insert is a MERGE that skips a taken key instead of failing on it, so the claim never
+ * aborts the transaction, as a failed statement does on databases such as PostgreSQL. The response is added to the
+ * row once it is written.
+ * Every key remembers a fingerprint of the request that used it, and a request that reuses a key with a different
+ * body is rejected instead of being answered with another request's response.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    // A response status of 0 marks a key whose change committed before its response was stored
+    // Inserts the claim, or takes over an expired row of the key; changes no row if the key is taken
+    private static final String MERGE_CLAIM =
+            "MERGE INTO idempotency_record r " +
+            "USING (VALUES (CAST(? AS VARCHAR(512)), CAST(? AS VARCHAR(64)), CAST(? AS TIMESTAMP))) " +
+            "AS c (idempotency_key, request_hash, created_at) ON r.idempotency_key = c.idempotency_key " +
+            "WHEN MATCHED AND r.created_at < ? THEN UPDATE SET request_hash = c.request_hash, response_status = 0, " +
+            "content_type = NULL, response_body = NULL, created_at = c.created_at " +
+            "WHEN NOT MATCHED THEN INSERT (idempotency_key, request_hash, response_status, created_at) " +
+            "VALUES (c.idempotency_key, c.request_hash, 0, c.created_at)";
+    private static final String SELECT_REQUEST_HASH =
+            "SELECT request_hash FROM idempotency_record WHERE idempotency_key = ?";
+    private static final String INSERT_RESPONSE =
+            "INSERT INTO idempotency_record (idempotency_key, request_hash, response_status, content_type, response_body, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_RESPONSE =
+            "UPDATE idempotency_record SET response_status = ?, content_type = ?, response_body = ? " +
+            "WHERE idempotency_key = ? AND response_status = 0";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final Duration ttl;
+    private final int maxEntries;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository, JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${application.idempotency.ttl}") Duration ttl,
+                              @Value("${application.idempotency.max-entries}") int maxEntries) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = ttl;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Claims a key for the calling request in memory, without a database round trip. Ownership only means that no
+     * request of this instance holds the key; whether the key was used before is found out by {@link #execute}.
+     * The result either carries the stored response, an in-flight request to wait for, ownership of the key, or
+     * the rejection of a request whose fingerprint differs from the one of the request holding the key.
+     *
+     * @param key         the scoped idempotency key
+     * @param fingerprint the hash of the request's query string and body
+     * @return the claim for the key
+     */
+    public Claim claim(String key, String fingerprint) {
+        long now = System.nanoTime();
+        Entry fresh = new Entry(new CompletableFuture<>(), fingerprint, now + ttlNanos);
+        Entry existing = entries.putIfAbsent(key, fresh);
+        while (existing != null) {
+            if (!existing.isExpired(now)) {
+                if (!existing.getFingerprint().equals(fingerprint)) {
+                    return Claim.reused();
+                }
+                CompletableFuture<StoredResponse> future = existing.getFuture();
+                if (future.isDone() && !future.isCompletedExceptionally()) {
+                    return Claim.stored(future.join());
+                }
+                return Claim.pending(future);
+            }
+            if (entries.replace(key, existing, fresh)) {
+                break;
+            }
+            existing = entries.putIfAbsent(key, fresh);
+        }
+
+        if (entries.size() > maxEntries) {
+            evict(now);
+        }
+        return Claim.owned(fresh.getFuture());
+    }
+
+    /**
+     * Runs a change on behalf of a request in one transaction that first claims the request's key, by inserting its
+     * row. The change joins that transaction, so the key commits or rolls back with it. An expired row of the key is
+     * taken over. Without a request, e.g. when the client sent no Idempotency-Key header, the change runs on its own.
+     *
+     * @param request   the key and fingerprint of the request, or null
+     * @param operation the change to make
+     * @return the result of the change
+     * @throws IdempotencyKeyUsedException   if the key is already in the database for the same request
+     * @throws IdempotencyKeyReusedException if the key is already in the database for a different request
+     */
+    public <T> T execute(Request request, Supplier<T> operation) {
+        if (request == null) {
+            return operation.get();
+        }
+        return transactionTemplate.execute(status -> {
+            claimInTransaction(request);
+            return operation.get(); // A retried request never gets here
+        });
+    }
+
+    /**
+     * Inserts the row of a key, or takes the row over if it has expired. Two instances claiming a new key at the same
+     * time may still both try to insert it; the loser fails on the unique key and its transaction is rolled back.
+     */
+    private void claimInTransaction(Request request) {
+        LocalDateTime now = LocalDateTime.now();
+        int claimed;
+        try {
+            claimed = jdbcTemplate.update(MERGE_CLAIM, request.getKey(), request.getFingerprint(), now, now.minus(ttl));
+        } catch (DuplicateKeyException e) {
+            request.used = true;
+            throw new IdempotencyKeyUsedException();
+        }
+        if (claimed == 0) {
+            request.used = true;
+            String requestHash = jdbcTemplate.queryForObject(SELECT_REQUEST_HASH, String.class, request.getKey());
+            if (!request.getFingerprint().equals(requestHash)) {
+                throw new IdempotencyKeyReusedException();
+            }
+            throw new IdempotencyKeyUsedException();
+        }
+    }
+
+    /**
+     * Reads the stored response of a key that was used before by the same request.
+     *
+     * @param request the key and fingerprint of the request
+     * @return the response, or null if it was not stored, e.g. because the request is still running elsewhere, or
+     *         if it belongs to a different request
+     */
+    public StoredResponse findStored(Request request) {
+        IdempotencyRecord idempotencyRecord = idempotencyRecordRepository.findById(request.getKey()).orElse(null);
+        if (idempotencyRecord == null || idempotencyRecord.getResponseStatus() == 0
+                || !request.getFingerprint().equals(idempotencyRecord.getRequestHash())) {
+            return null;
+        }
+        return new StoredResponse(idempotencyRecord.getResponseStatus(), idempotencyRecord.getContentType(),
+                                  idempotencyRecord.getResponseBody());
+    }
+
+    /**
+     * Stores the response of an owned key and releases every request waiting for it. The row the business
+     * transaction inserted is completed; a request that committed no change, e.g. one that was rejected, gets
+     * its row now.
+     *
+     * @param request  the key and fingerprint of the request
+     * @param response the response to store
+     */
+    public void complete(Request request, StoredResponse response) {
+        String key = request.getKey();
+        if (jdbcTemplate.update(UPDATE_RESPONSE, response.getStatus(), response.getContentType(), response.getBody(), key) == 0) {
+            try {
+                jdbcTemplate.update(INSERT_RESPONSE, key, request.getFingerprint(), response.getStatus(), response.getContentType(),
+                                    response.getBody(), LocalDateTime.now());
+            } catch (DuplicateKeyException e) {
+                log.debug("Idempotency key {} was stored by another request", key);
+            }
+        }
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.getFuture().complete(response);
+        }
+        log.debug("Stored idempotent response for key {} with status {}", key, response.getStatus());
+    }
+
+    /**
+     * Gives up an owned key without storing a response, so that the next retry is executed again.
+     *
+     * @param key the scoped idempotency key
+     */
+    public void abandon(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            entry.getFuture().completeExceptionally(new IllegalStateException("Original request did not complete"));
+        }
+        log.debug("Abandoned idempotency key {}", key);
+    }
+
+    /**
+     * Periodically removes expired entries from memory and from the database.
+     */
+    @Scheduled(fixedDelayString = "${application.idempotency.purge-interval}")
+    public void purgeExpired() {
+        evict(System.nanoTime());
+        int deleted = idempotencyRecordRepository.deleteByCreatedAtBefore(LocalDateTime.now().minus(ttl));
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency records", deleted);
+        }
+    }
+
+    /**
+     * Removes expired entries, then completed ones, until the store is back under its bound.
+     * Entries that are still in flight are never removed.
+     *
+     * @param now the current time in nanoseconds
+     */
+    private void evict(long now) {
+        entries.entrySet().removeIf(e -> e.getValue().isExpired(now) && e.getValue().getFuture().isDone());
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            if (iterator.next().getValue().getFuture().isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * The scoped key and fingerprint of a request that owns its key in memory, and whether the key turned out to be
+     * used already in the database. The idempotency filter hands it to the controller as a request attribute.
+     */
+    @Getter
+    public static final class Request {
+        public static final String ATTRIBUTE = "com.inghubs.brokerageapi.idempotentRequest";
+
+        private final String key;
+        private final String fingerprint;
+        private boolean used;
+
+        public Request(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * In-memory state of a key: the response once it is known, the fingerprint of the request holding the key and
+     * the time the entry expires.
+     */
+    @Getter
+    @AllArgsConstructor
+    private static final class Entry {
+        private final CompletableFuture<StoredResponse> future;
+        private final String fingerprint;
+        private final long expiresAtNanos;
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos > 0;
+        }
+    }
+
+    /**
+     * The stored status, content type and body of a response.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class StoredResponse {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+    }
+
+    /**
+     * Outcome of claiming a key.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Claim {
+        private final StoredResponse response;                  // Set when the response is already known
+        private final CompletableFuture<StoredResponse> future; // Completes with the response of the owning request
+        private final boolean owner;                            // True if the caller must execute the request
+        private final boolean reused;                           // True if the key is held by a different request
+
+        static Claim stored(StoredResponse response) {
+            return new Claim(response, CompletableFuture.completedFuture(response), false, false);
+        }
+
+        static Claim pending(CompletableFuture<StoredResponse> future) {
+            return new Claim(null, future, false, false);
+        }
+
+        static Claim owned(CompletableFuture<StoredResponse> future) {
+            return new Claim(null, future, true, false);
+        }
+
+        static Claim reused() {
+            return new Claim(null, null, false, true);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.inghubs.brokerageapi.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.exception.MatchingLeaseLostException;
+import com.inghubs.brokerageapi.repository.MatchingLeaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Hands out the per-instrument matching leases of application instances that share one database.
+ * An instance matches an instrument only while it holds the instrument's lease, so two instances never match the
+ * same book at the same time and can match different books in parallel. Every fill renews the lease in its own
+ * transaction, so a fill is only committed while its instance still holds the lease. A lease whose instance stopped
+ * without releasing it expires after the lease duration. When leases are disabled, which is the default for a single
+ * instance, every claim succeeds without touching the database.
+ */
+@Service
+public class MatchingLeaseService {
+    private static final Logger log = LoggerFactory.getLogger(MatchingLeaseService.class);
+
+    private final MatchingLeaseRepository leaseRepository;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Duration duration;
+    private final String owner;
+
+    public MatchingLeaseService(MatchingLeaseRepository leaseRepository, Clock clock,
+                                @Value("${application.matching.lease.enabled}") boolean enabled,
+                                @Value("${application.matching.lease.duration}") Duration duration,
+                                @Value("${application.matching.lease.owner}") String owner) {
+        this.leaseRepository = leaseRepository;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.duration = duration;
+        this.owner = owner;
+        if (enabled) {
+            log.info("Matching leases enabled for instance {} with a duration of {}", owner, duration);
+        }
+    }
+
+    /**
+     * Claims the lease of an instrument for this instance.
+     *
+     * @param assetCode the instrument to match
+     * @return true if this instance now holds the lease, false if another instance does
+     */
+    public boolean claim(AssetCodes assetCode) {
+        if (!enabled) {
+            return true;
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        return leaseRepository.claim(assetCode, owner, now, now.plus(duration)) == 1;
+    }
+
+    /**
+     * Renews the lease of an instrument in the current transaction. The renewal locks the lease row until the
+     * transaction ends, so the lease cannot be taken over before the transaction commits.
+     *
+     * @param assetCode the instrument being matched
+     * @throws MatchingLeaseLostException if another instance took over the lease
+     */
+    public void renew(AssetCodes assetCode) {
+        if (enabled && leaseRepository.renew(assetCode, owner, LocalDateTime.now(clock).plus(duration)) == 0) {
+            log.warn("Instance {} lost the matching lease of {}", owner, assetCode);
+            throw new MatchingLeaseLostException();
+        }
+    }
+
+    /**
+     * Releases the lease of an instrument, if this instance still holds it.
+     *
+     * @param assetCode the instrument that was matched
+     */
+    public void release(AssetCodes assetCode) {
+        if (enabled) {
+            leaseRepository.release(assetCode, owner);
+        }
+    }
+
+    /**
+     * Tells whether leases are enabled, i.e. whether other instances may share the database.
+     *
+     * @return true if leases are enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the name this instance claims leases under.
+     *
+     * @return the instance name
+     */
+    public String getOwner() {
+        return owner;
+    }
+}
@@ -0,0 +1,45 @@
+package com.inghubs.brokerageapi.service;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background matcher for instances that match continuously instead of on request.
+ * Every run matches each traded instrument once, starting with a different one each run. With matching leases,
+ * instances running this at the same time skip the instruments another instance is matching and take the others.
+ */
+@Component
+@ConditionalOnProperty(name = "application.matching.scheduled", havingValue = "true")
+public class MatchingScheduler {
+    private static final Logger log = LoggerFactory.getLogger(MatchingScheduler.class);
+    private static final AssetCodes[] TRADED_ASSETS = {AssetCodes.GARAN, AssetCodes.ING, AssetCodes.SASA};
+
+    private final TradeMatchingService tradeMatchingService;
+    private int nextAsset;
+
+    public MatchingScheduler(TradeMatchingService tradeMatchingService) {
+        this.tradeMatchingService = tradeMatchingService;
+    }
+
+    /**
+     * Matches every traded instrument once. A fill that loses a lock is rolled back and matched again on the next run.
+     */
+    @Scheduled(fixedDelayString = "${application.matching.interval}")
+    public void matchAll() {
+        int first = nextAsset;
+        nextAsset = (nextAsset + 1) % TRADED_ASSETS.length;
+        for (int i = 0; i < TRADED_ASSETS.length; i++) {
+            AssetCodes assetCode = TRADED_ASSETS[(first + i) % TRADED_ASSETS.length];
+            try {
+                tradeMatchingService.matchOrders(assetCode);
+            } catch (ConcurrencyFailureException e) {
+                log.warn("Matching {} stopped by a lock failure, retrying on the next run: {}", assetCode, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.inghubs.brokerageapi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inghubs.brokerageapi.constant.OutboxEventType;
+import com.inghubs.brokerageapi.dto.OrderStatusChangedEvent;
+import com.inghubs.brokerageapi.dto.TradeExecutedEvent;
+import com.inghubs.brokerageapi.entity.OutboxEvent;
+import com.inghubs.brokerageapi.entity.Trade;
+import com.inghubs.brokerageapi.entity.TradeOrder;
+import com.inghubs.brokerageapi.repository.OutboxEventRepository;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for recording trade and order events in the outbox.
+ * Events must be recorded inside the transaction that makes the change, so that they are committed or rolled back
+ * together with it. Recording is a plain insert; publishing happens later in the outbox relay.
+ */
+@Service
+@Transactional(Transactional.TxType.MANDATORY)
+public class OutboxService {
+    private static final Logger log = LoggerFactory.getLogger(OutboxService.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Records that a trade was executed.
+     *
+     * @param trade the saved trade
+     */
+    public void recordTradeExecuted(Trade trade) {
+        TradeOrder buyOrder = trade.getBuyOrder();
+        TradeExecutedEvent event = new TradeExecutedEvent(trade.getId(), buyOrder.getId(), trade.getSellerOrder().getId(),
+                                                          buyOrder.getAssetCode(), trade.getExecutedPrice(),
+                                                          trade.getExecutedSize(), trade.getExecutionDate());
+        outboxEventRepository.save(new OutboxEvent(OutboxEventType.TRADE_EXECUTED, trade.getId(), buyOrder.getAssetCode(), toJson(event)));
+        log.debug("Recorded trade executed event for trade ID {}", trade.getId());
+    }
+
+    /**
+     * Records the current status of a trade order.
+     *
+     * @param order the saved trade order
+     */
+    public void recordOrderStatusChanged(TradeOrder order) {
+        recordOrderStatusChanges(List.of(toEvent(order)));
+    }
+
+    /**
+     * Records the current status of several trade orders.
+     *
+     * @param orders the saved trade orders
+     */
+    public void recordOrderStatusChanged(List<TradeOrder> orders) {
+        List<OrderStatusChangedEvent> events = new ArrayList<>(orders.size());
+        for (TradeOrder order : orders) {
+            events.add(toEvent(order));
+        }
+        recordOrderStatusChanges(events);
+    }
+
+    /**
+     * Records order status changes, inserting them in one batch.
+     *
+     * @param events the status changes
+     */
+    public void recordOrderStatusChanges(List<OrderStatusChangedEvent> events) {
+        List<OutboxEvent> outboxEvents = new ArrayList<>(events.size());
+        for (OrderStatusChangedEvent event : events) {
+            outboxEvents.add(new OutboxEvent(OutboxEventType.ORDER_STATUS_CHANGED, event.getOrderId(), event.getAssetCode(), toJson(event)));
+        }
+        outboxEventRepository.saveAll(outboxEvents);
+        log.debug("Recorded {} order status changed events", outboxEvents.size());
+    }
+
+    /**
+     * Builds the status change event of a trade order.
+     *
+     * @param order the trade order
+     * @return the event payload
+     */
+    private OrderStatusChangedEvent toEvent(TradeOrder order) {
+        return new OrderStatusChangedEvent(order.getId(), order.getCustomer().getId(), order.getAssetCode(), order.getOrderSide(),
+                                           order.getStatus(), order.getSize(), order.getPrice());
+    }
+
+    /**
+     * Serializes an event payload.
+     *
+     * @param payload the payload
+     * @return the payload as JSON
+     */
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize outbox event payload", e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.inghubs.brokerageapi.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the seed directory at startup when the {@code seed} profile is active.
+ * It runs before the other application runners, so the warm-up already sees the loaded books, and the application
+ * does not report itself ready before the data is there. A load that fails stops the application.
+ */
+@Component
+@Profile("seed")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SeedLoadRunner implements ApplicationRunner {
+    private final SeedLoaderService seedLoaderService;
+
+    public SeedLoadRunner(SeedLoaderService seedLoaderService) {
+        this.seedLoaderService = seedLoaderService;
+    }
+
+    /**
+     * Loads the configured seed directory.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        seedLoaderService.load(null);
+    }
+}
@@ -0,0 +1,257 @@
+package com.inghubs.brokerageapi.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.inghubs.brokerageapi.book.ResidentOrderBooks;
+import com.inghubs.brokerageapi.constant.CommonConstants;
+import com.inghubs.brokerageapi.dto.SeedLoadReport;
+import com.inghubs.brokerageapi.exception.SeedDataException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk loads customers, users, assets, trade orders and transactions from CSV files.
+ * Every file is imported with a single {@code INSERT ... SELECT ... FROM CSVREAD(...)} statement, so H2 parses the
+ * file and inserts the rows without a JDBC round trip or an entity per row. All files of a directory are loaded in
+ * one transaction, which is rolled back unless the loaded balances agree with the loaded open orders.
+ * <p>
+ * A seed directory may contain any of the following files, each with a header line:
+ * <ul>
+ *     <li>{@code customers.csv}: {@code id,enabled}</li>
+ *     <li>{@code users.csv}: {@code id,username,password,customer_id,role}, the password being a BCrypt hash</li>
+ *     <li>{@code assets.csv}: {@code customer_id,asset_code,size,usable_size}</li>
+ *     <li>{@code orders.csv}: {@code customer_id,asset_code,side,size,price,status,create_date}</li>
+ *     <li>{@code transactions.csv}: {@code customer_id,type,amount,iban,timestamp,status}</li>
+ * </ul>
+ * Customer and user IDs in the files are local to the directory: they are shifted past the highest existing ID,
+ * and the identity columns are moved past the loaded range before the load so concurrent registrations cannot
+ * collide with it. Without a {@code customers.csv} the customer IDs refer to existing customers. Order, asset and
+ * transaction IDs are generated. An asset row must not repeat a balance of the file or of the database, since a
+ * customer has one balance per asset code; such a load is rejected.
+ */
+@Service
+public class SeedLoaderService {
+    private static final Logger log = LoggerFactory.getLogger(SeedLoaderService.class);
+    private static final String CSV_OPTIONS = "charset=UTF-8 fieldSeparator=,";
+    private static final String CUSTOMERS_FILE = "customers.csv";
+    private static final String USERS_FILE = "users.csv";
+    private static final String ASSETS_FILE = "assets.csv";
+    private static final String ORDERS_FILE = "orders.csv";
+    private static final String TRANSACTIONS_FILE = "transactions.csv";
+    private static final int MAX_REPORTED_VIOLATIONS = 10;
+
+    private static final String INSERT_CUSTOMERS =
+            "INSERT INTO customer (id, is_enabled) " +
+            "SELECT CAST(id AS BIGINT) + ?, CAST(enabled AS BOOLEAN) FROM %s";
+    private static final String INSERT_USERS =
+            "INSERT INTO \"user\" (id, username, password, customer_id, is_enabled, is_account_non_expired, " +
+            "is_account_non_locked, is_credentials_non_expired) " +
+            "SELECT CAST(id AS BIGINT) + ?, username, password, CAST(customer_id AS BIGINT) + ?, TRUE, TRUE, TRUE, TRUE " +
+            "FROM %s";
+    private static final String INSERT_USER_ROLES =
+            "INSERT INTO user_roles (user_id, role) SELECT CAST(id AS BIGINT) + ?, role FROM %s";
+    private static final String LINK_USERS =
+            "UPDATE customer c SET user_id = (SELECT u.id FROM \"user\" u WHERE u.customer_id = c.id) " +
+            "WHERE c.id BETWEEN ? AND ?";
+    private static final String INSERT_ASSETS =
+            "INSERT INTO asset (customer_id, asset_code, size, usable_size) " +
+            "SELECT CAST(customer_id AS BIGINT) + ?, asset_code, CAST(size AS NUMERIC(38, 2)), " +
+            "CAST(usable_size AS NUMERIC(38, 2)) FROM %s";
+    private static final String INSERT_ORDERS =
+            "INSERT INTO trade_order (id, customer_id, asset_code, order_side, size, price, status, create_date) " +
+            "SELECT NEXT VALUE FOR " + CommonConstants.TRADE_ORDER_SEQUENCE + ", CAST(customer_id AS BIGINT) + ?, " +
+            "asset_code, side, CAST(size AS NUMERIC(38, 2)), CAST(price AS NUMERIC(38, 2)), status, " +
+            "CAST(create_date AS TIMESTAMP) FROM %s";
+    private static final String INSERT_TRANSACTIONS =
+            "INSERT INTO transaction (customer_id, type, amount, iban, timestamp, processed, status) " +
+            "SELECT CAST(customer_id AS BIGINT) + ?, type, CAST(amount AS NUMERIC(38, 2)), NULLIF(iban, ''), " +
+            "CAST(timestamp AS TIMESTAMP), status = 'PROCESSED', status FROM %s";
+
+    // Asset balances whose usable size is negative or larger than the balance
+    private static final String INVALID_BALANCES =
+            "SELECT customer_id, asset_code, size, usable_size FROM asset " +
+            "WHERE customer_id BETWEEN ? AND ? AND (usable_size < 0 OR usable_size > size) LIMIT " + MAX_REPORTED_VIOLATIONS;
+    // Locked amounts (size - usable size) that differ from what the open orders hold: the cost of open BUY orders
+    // in TRY and the size of open SELL orders in the sold asset. Orders on an asset without a balance show up too.
+    private static final String INCONSISTENT_LOCKS =
+            "SELECT customer_id, code, SUM(locked) FROM (" +
+            "SELECT customer_id, asset_code AS code, size - usable_size AS locked FROM asset WHERE customer_id BETWEEN ? AND ? " +
+            "UNION ALL " +
+            "SELECT customer_id, CASE order_side WHEN 'BUY' THEN 'TRY' ELSE asset_code END, " +
+            "-CASE order_side WHEN 'BUY' THEN size * price ELSE size END FROM trade_order " +
+            "WHERE customer_id BETWEEN ? AND ? AND status IN ('PENDING', 'PARTIALLY_FILLED')) " +
+            "GROUP BY customer_id, code HAVING SUM(locked) <> 0 LIMIT " + MAX_REPORTED_VIOLATIONS;
+    private static final String INVALID_ORDERS =
+            "SELECT id, customer_id FROM trade_order " +
+            "WHERE customer_id BETWEEN ? AND ? AND (size <= 0 OR price <= 0) LIMIT " + MAX_REPORTED_VIOLATIONS;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ResidentOrderBooks books;
+    private final Path rootDirectory;
+
+    public SeedLoaderService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ResidentOrderBooks books,
+                             @Value("${application.seed.directory}") String rootDirectory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.books = books;
+        this.rootDirectory = Paths.get(rootDirectory).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Loads the seed files of the configured seed directory or of one of its subdirectories.
+     * Only one load runs at a time.
+     *
+     * @param name the subdirectory to load, or null for the seed directory itself
+     * @return the number of rows loaded per table and the time taken
+     * @throws SeedDataException if the directory does not exist, a file cannot be imported or the loaded data
+     *                           fails the integrity checks; nothing is loaded in that case
+     */
+    public synchronized SeedLoadReport load(String name) {
+        Path directory = name == null || name.isBlank() ? rootDirectory : rootDirectory.resolve(name).normalize();
+        if (!directory.startsWith(rootDirectory) || !Files.isDirectory(directory)) {
+            throw new SeedDataException(CommonConstants.SEED_DIRECTORY_NOT_FOUND + (name == null ? rootDirectory : name));
+        }
+        log.info("Loading seed data from {}", directory);
+        long startNanos = System.nanoTime();
+        try {
+            return loadDirectory(directory, startNanos);
+        } catch (DataAccessException e) {
+            throw new SeedDataException(CommonConstants.SEED_DATA_REJECTED + ": " + e.getMostSpecificCause().getMessage(), e);
+        }
+    }
+
+    /**
+     * Reserves the customer and user ID ranges and imports the files of a directory in one transaction.
+     */
+    private SeedLoadReport loadDirectory(Path directory, long startNanos) {
+        Path customersFile = directory.resolve(CUSTOMERS_FILE);
+        Path usersFile = directory.resolve(USERS_FILE);
+        long customerOffset = 0;
+        long firstCustomerId = 0;
+        long lastCustomerId = Long.MAX_VALUE;
+        if (Files.exists(customersFile)) {
+            customerOffset = reserveIds("customer", customersFile);
+            firstCustomerId = customerOffset + 1;
+            lastCustomerId = customerOffset + maxFileId(customersFile);
+        }
+        long userOffset = Files.exists(usersFile) ? reserveIds("\"user\"", usersFile) : 0;
+
+        long[] rows = new long[5];
+        long offset = customerOffset;
+        long first = firstCustomerId;
+        long last = lastCustomerId;
+        transactionTemplate.executeWithoutResult(status -> {
+            if (Files.exists(customersFile)) {
+                rows[0] = jdbcTemplate.update(String.format(INSERT_CUSTOMERS, csvRead(customersFile)), offset);
+            }
+            if (Files.exists(usersFile)) {
+                rows[1] = jdbcTemplate.update(String.format(INSERT_USERS, csvRead(usersFile)), userOffset, offset);
+                jdbcTemplate.update(String.format(INSERT_USER_ROLES, csvRead(usersFile)), userOffset);
+                jdbcTemplate.update(LINK_USERS, first, last);
+            }
+            rows[2] = importAssets(offset, directory.resolve(ASSETS_FILE));
+            rows[3] = importFile(INSERT_ORDERS, offset, directory.resolve(ORDERS_FILE));
+            rows[4] = importFile(INSERT_TRANSACTIONS, offset, directory.resolve(TRANSACTIONS_FILE));
+
+            List<String> violations = checkIntegrity(first, last);
+            if (!violations.isEmpty()) {
+                throw new SeedDataException(CommonConstants.SEED_DATA_INCONSISTENT + String.join("; ", violations));
+            }
+        });
+
+        if (rows[3] > 0) {
+            books.load(); // The orders were inserted past the services
+        }
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        log.info("Loaded seed data from {}: {} customers, {} users, {} assets, {} orders and {} transactions in {} ms",
+                 directory, rows[0], rows[1], rows[2], rows[3], rows[4], elapsedMillis);
+        return new SeedLoadReport(directory.toString(), rows[0], rows[1], rows[2], rows[3], rows[4], elapsedMillis);
+    }
+
+    /**
+     * Imports the asset file, if it exists. The unique balance per customer and asset code rejects a row that repeats
+     * a balance, e.g. of an existing customer loaded without a {@code customers.csv}.
+     *
+     * @return the number of rows inserted
+     */
+    private long importAssets(long customerOffset, Path file) {
+        try {
+            return importFile(INSERT_ASSETS, customerOffset, file);
+        } catch (DuplicateKeyException e) {
+            throw new SeedDataException(CommonConstants.SEED_DUPLICATE_ASSETS + e.getMostSpecificCause().getMessage(), e);
+        }
+    }
+
+    /**
+     * Imports a file whose rows reference customers, if the file exists.
+     *
+     * @return the number of rows inserted
+     */
+    private long importFile(String sql, long customerOffset, Path file) {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        return jdbcTemplate.update(String.format(sql, csvRead(file)), customerOffset);
+    }
+
+    /**
+     * Moves the identity column of a table past the IDs a file will be loaded with.
+     *
+     * @return the offset to add to the IDs of the file
+     */
+    private long reserveIds(String table, Path file) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        long offset = maxId == null ? 0 : maxId;
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (offset + maxFileId(file) + 1));
+        return offset;
+    }
+
+    /**
+     * Returns the highest ID in a file.
+     */
+    private long maxFileId(Path file) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(CAST(id AS BIGINT)) FROM " + csvRead(file), Long.class);
+        return maxId == null ? 0 : maxId;
+    }
+
+    /**
+     * Returns the table function reading a CSV file. H2 opens the file when the statement is prepared, so the file
+     * name is a quoted literal rather than a parameter.
+     */
+    private static String csvRead(Path file) {
+        return "CSVREAD('" + file.toString().replace("'", "''") + "', NULL, '" + CSV_OPTIONS + "')";
+    }
+
+    /**
+     * Checks the balances and orders of the loaded customers.
+     *
+     * @return a description of the first violations found, empty if the data is consistent
+     */
+    private List<String> checkIntegrity(long firstCustomerId, long lastCustomerId) {
+        List<String> violations = new ArrayList<>();
+        jdbcTemplate.query(INVALID_BALANCES, rs -> {
+            violations.add(String.format("customer %d %s usable size %s outside 0..%s", rs.getLong(1), rs.getString(2),
+                                         rs.getBigDecimal(4).toPlainString(), rs.getBigDecimal(3).toPlainString()));
+        }, firstCustomerId, lastCustomerId);
+        jdbcTemplate.query(INCONSISTENT_LOCKS, rs -> {
+            violations.add(String.format("customer %d %s locked amount differs from open orders by %s", rs.getLong(1),
+                                         rs.getString(2), rs.getBigDecimal(3).stripTrailingZeros().toPlainString()));
+        }, firstCustomerId, lastCustomerId, firstCustomerId, lastCustomerId);
+        jdbcTemplate.query(INVALID_ORDERS, rs -> {
+            violations.add(String.format("order %d of customer %d has a size or price of zero or less",
+                                         rs.getLong(1), rs.getLong(2)));
+        }, firstCustomerId, lastCustomerId);
+        return violations.size() > MAX_REPORTED_VIOLATIONS ? violations.subList(0, MAX_REPORTED_VIOLATIONS) : violations;
+    }
+}
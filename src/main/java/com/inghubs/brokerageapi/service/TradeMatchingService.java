@@ -1,23 +1,43 @@
 package com.inghubs.brokerageapi.service;
 
 import java.math.BigDecimal;
-import java.util.Arrays;
-import java.util.Iterator;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
+import com.inghubs.brokerageapi.book.Fill;
+import com.inghubs.brokerageapi.book.FillBuffer;
+import com.inghubs.brokerageapi.book.OrderBook;
+import com.inghubs.brokerageapi.book.ResidentOrderBooks;
 import com.inghubs.brokerageapi.constant.AssetCodes;
-import com.inghubs.brokerageapi.constant.CommonConstants;
 import com.inghubs.brokerageapi.constant.OrderSide;
 import com.inghubs.brokerageapi.constant.OrderStatus;
+import com.inghubs.brokerageapi.constant.ServerTimingPhase;
 import com.inghubs.brokerageapi.entity.Trade;
 import com.inghubs.brokerageapi.entity.TradeOrder;
+import com.inghubs.brokerageapi.exception.MatchingLeaseLostException;
+import com.inghubs.brokerageapi.jfr.MatchRunEvent;
+import com.inghubs.brokerageapi.jfr.OrderLockEvent;
+import com.inghubs.brokerageapi.jfr.TradeExecutionEvent;
+import com.inghubs.brokerageapi.metrics.BrokerageMetrics;
+import com.inghubs.brokerageapi.metrics.OrderLatencyTracker;
+import com.inghubs.brokerageapi.metrics.RequestTiming;
+import com.inghubs.brokerageapi.replay.CommandJournal;
 import com.inghubs.brokerageapi.repository.TradeOrderRepository;
 import com.inghubs.brokerageapi.repository.TradeRepository;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Service for matching trade orders.
@@ -26,92 +46,229 @@ import org.springframework.stereotype.Service;
 @Transactional
 @Slf4j
 public class TradeMatchingService {
+    private static final Map<AssetCodes, Set<AssetCodes>> SETTLEMENT_ASSETS = settlementAssets();
+
     private final TradeOrderRepository tradeOrderRepository;
     private final TradeRepository tradeRepository;
     private final AssetService assetService;
+    private final OutboxService outboxService;
+    private final BrokerageMetrics metrics;
+    private final OrderLatencyTracker latencyTracker;
+    private final CommandJournal journal;
+    private final Clock clock;
+    private final MatchingLeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+    private final ResidentOrderBooks books;
+    private final int settlementBatchSize;
+    private final ThreadLocal<FillBuffer> fillBuffers;
 
     @Autowired
-    public TradeMatchingService(TradeOrderRepository tradeOrderRepository, TradeRepository tradeRepository, AssetService assetService) {
+    public TradeMatchingService(TradeOrderRepository tradeOrderRepository, TradeRepository tradeRepository, AssetService assetService,
+                                OutboxService outboxService, BrokerageMetrics metrics, OrderLatencyTracker latencyTracker,
+                                CommandJournal journal, Clock clock, MatchingLeaseService leaseService,
+                                TransactionTemplate transactionTemplate, ResidentOrderBooks books,
+                                @Value("${application.matching.settlement-batch-size}") int settlementBatchSize) {
         this.tradeOrderRepository = tradeOrderRepository;
         this.tradeRepository = tradeRepository;
         this.assetService = assetService;
+        this.outboxService = outboxService;
+        this.metrics = metrics;
+        this.latencyTracker = latencyTracker;
+        this.journal = journal;
+        this.clock = clock;
+        this.leaseService = leaseService;
+        this.transactionTemplate = transactionTemplate;
+        this.books = books;
+        this.settlementBatchSize = settlementBatchSize;
+        this.fillBuffers = ThreadLocal.withInitial(() -> new FillBuffer(settlementBatchSize));
     }
 
     /**
      * Matches buy and sell orders for the given asset code.
+     * The resident book of the asset proposes the fills in price and time priority, without reading the orders from
+     * the database; see {@link ResidentOrderBooks#match}. The fills are then settled in batches of
+     * {@code application.matching.settlement-batch-size}, each batch in its own transaction, or in the caller's
+     * transaction if there is one. A batch locks in the global lock order: the instrument's matching lease, then the
+     * orders of its fills by ID, then the assets of their customers by customer ID and asset code. When matching
+     * leases are enabled, an instrument whose lease is held by another instance is skipped, and the book is reloaded
+     * from the database first, since other instances enter and fill orders of it too. A run that stops early, because
+     * its lease was lost or a batch failed, still journals, measures and reports the trades of the batches that
+     * committed before it stopped.
      *
      * @param assetCode the asset code for which orders are matched
+     * @return the executed trades, in execution order
      */
-    public void matchOrders(AssetCodes assetCode) {
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public List<Trade> matchOrders(AssetCodes assetCode) {
+        if (!leaseService.claim(assetCode)) {
+            log.info("Orders for asset code {} are being matched by another instance", assetCode);
+            return List.of();
+        }
         log.info("Matching orders for asset code: {}", assetCode);
+        MatchRunEvent event = new MatchRunEvent();
+        event.begin();
+        RequestTiming.start(ServerTimingPhase.MATCH);
+        long startNanos = System.nanoTime();
+        List<Trade> trades = new ArrayList<>();
+        FillBuffer fills = fillBuffers.get();
+        fills.clear();
 
-        List<OrderStatus> statuses = Arrays.asList(OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED);
-
-        // Retrieve active buy orders sorted by price (highest first)
-        List<TradeOrder> buyOrders = tradeOrderRepository.findByAssetCodeAndOrderSideAndStatusIn(
-                assetCode, OrderSide.BUY, statuses, Sort.by(Sort.Direction.DESC, CommonConstants.PRICE, CommonConstants.CREATE_DATE));
-
-        // Retrieve active sell orders sorted by price (lowest first)
-        List<TradeOrder> sellOrders = tradeOrderRepository.findByAssetCodeAndOrderSideAndStatusIn(
-                assetCode, OrderSide.SELL, statuses, Sort.by(Sort.Direction.ASC, CommonConstants.PRICE, CommonConstants.CREATE_DATE));
-
-        log.info("Found {} buy orders and {} sell orders for asset code: {}", buyOrders.size(), sellOrders.size(), assetCode);
-
-        // Match orders
-        for (TradeOrder buyOrder : buyOrders) {
-            for (Iterator<TradeOrder> iterator = sellOrders.iterator(); iterator.hasNext(); ) {
-                TradeOrder sellOrder = iterator.next();
-
-                // Check if orders can be matched
-                if (canMatch(buyOrder, sellOrder)) {
-                    log.info("Matching buy order ID {} with sell order ID {}", buyOrder.getId(), sellOrder.getId());
-                    
+        try {
+            if (leaseService.isEnabled()) {
+                books.reload(assetCode);
+            }
+            if (event.isEnabled()) {
+                event.buyOrders = books.orderCount(assetCode, OrderSide.BUY);
+                event.sellOrders = books.orderCount(assetCode, OrderSide.SELL);
+            }
+            books.match(assetCode, fills);
+            log.info("Book of asset code: {} proposed {} fills", assetCode, fills.size());
+            settle(assetCode, fills, trades);
+            log.info("Completed matching orders for asset code: {} with {} fills", assetCode, trades.size());
+        } catch (MatchingLeaseLostException e) {
+            log.warn("Stopped matching orders for asset code: {} after {} fills: {}", assetCode, trades.size(), e.getMessage());
+        } finally {
+            leaseService.release(assetCode);
+            recordRun(assetCode, trades, startNanos, event);
+        }
+        return trades;
+    }
 
-                    executeTrade(buyOrder, sellOrder);
+    /**
+     * Journals, measures and reports a matching run, also one that stopped early. The trades are those of the
+     * batches that committed, which stay committed whatever stopped the run.
+     *
+     * @param assetCode the asset code of the book
+     * @param trades the committed trades, in execution order
+     * @param startNanos when the run started
+     * @param event the event of the run
+     */
+    private void recordRun(AssetCodes assetCode, List<Trade> trades, long startNanos, MatchRunEvent event) {
+        journal.matched(assetCode, trades);
+        metrics.recordMatchRun(assetCode, System.nanoTime() - startNanos, trades.size());
+        RequestTiming.stop(ServerTimingPhase.MATCH);
+        event.end();
+        if (event.shouldCommit()) {
+            event.assetCode = assetCode.name();
+            event.fills = trades.size();
+            event.commit();
+        }
+    }
 
-                    // Remove fully executed sell order
-                    if (sellOrder.getStatus() == OrderStatus.FILLED) {
-                        log.info("Sell order ID {} fully executed and removed from the list.", sellOrder.getId());
-                        iterator.remove();
-                    }
-                    // Break if the buy order is fully executed
-                    if (buyOrder.getStatus() == OrderStatus.FILLED) {
-                        log.info("Buy order ID {} fully executed.", buyOrder.getId());
-                        break;
-                    }
+    /**
+     * Settles the proposed fills of a run in batches. If a batch fails, its fills and those after it are out of the
+     * book but not settled, so the book is marked stale and reloaded before its next run.
+     *
+     * @param assetCode the asset code of the book
+     * @param fills the proposed fills, in execution order
+     * @param trades collects the executed trades
+     */
+    private void settle(AssetCodes assetCode, FillBuffer fills, List<Trade> trades) {
+        try {
+            for (int from = 0; from < fills.size(); from += settlementBatchSize) {
+                int first = from;
+                int end = Math.min(fills.size(), from + settlementBatchSize);
+                List<Trade> batch = transactionTemplate.execute(status -> settleBatch(assetCode, fills, first, end));
+                if (batch != null) {
+                    trades.addAll(batch);
                 }
             }
+        } catch (RuntimeException e) {
+            books.markStale(assetCode);
+            throw e;
         }
+    }
 
-        log.info("Completed matching orders for asset code: {}", assetCode);
+    /**
+     * Settles a batch of proposed fills in the current transaction.
+     * The matching lease is renewed, the orders of the fills are locked in ID order and read again, and the assets
+     * of their customers are locked before any of them changes. Every fill is then executed against the locked
+     * orders; see {@link #executeTrade}. The settled orders are handed back to the book once the transaction commits.
+     *
+     * @param assetCode the asset code of the book
+     * @param fills the proposed fills
+     * @param from the index of the first fill of the batch
+     * @param end the index after the last fill of the batch
+     * @return the saved trades, in execution order
+     */
+    private List<Trade> settleBatch(AssetCodes assetCode, FillBuffer fills, int from, int end) {
+        long startNanos = System.nanoTime();
+        leaseService.renew(assetCode);
+        Set<Long> orderIds = new TreeSet<>();
+        Set<Long> customerIds = new TreeSet<>();
+        for (int i = from; i < end; i++) {
+            Fill fill = fills.get(i);
+            orderIds.add(fill.getBuyOrderId());
+            orderIds.add(fill.getSellOrderId());
+            customerIds.add(fill.getBuyerId());
+            customerIds.add(fill.getSellerId());
+        }
+        Map<Long, TradeOrder> orders = new HashMap<>();
+        for (Long orderId : orderIds) {
+            TradeOrder order = lockOrder(orderId);
+            if (order != null) {
+                orders.put(orderId, order);
+            }
+        }
+        assetService.lockAccounts(customerIds, SETTLEMENT_ASSETS.get(assetCode));
+        long lockNanos = (System.nanoTime() - startNanos) / (end - from); // Shared by the fills of the batch
+
+        List<Trade> trades = new ArrayList<>(end - from);
+        for (int i = from; i < end; i++) {
+            Fill fill = fills.get(i);
+            TradeOrder buyOrder = orders.get(fill.getBuyOrderId());
+            TradeOrder sellOrder = orders.get(fill.getSellOrderId());
+            Trade trade = buyOrder == null || sellOrder == null ? null
+                    : executeTrade(assetCode, buyOrder, sellOrder, OrderBook.toDecimal(fill.getSize()), lockNanos);
+            if (trade != null) {
+                trades.add(trade);
+            }
+        }
+        orders.values().forEach(books::orderSettled);
+        return trades;
     }
 
     /**
-     * Determines if a buy order can be matched with a sell order.
+     * Determines if an order can still be filled.
      *
-     * @param buyOrder the buy order
-     * @param sellOrder the sell order
-     * @return true if the orders can be matched, false otherwise
+     * @param status the status of the order
+     * @return true if the order is pending or partially filled
      */
-    private boolean canMatch(TradeOrder buyOrder, TradeOrder sellOrder) {
-        boolean matchable = buyOrder.getPrice().compareTo(sellOrder.getPrice()) >= 0 &&
-                !buyOrder.getCustomer().getId().equals(sellOrder.getCustomer().getId());
-        log.debug("Checking if buy order ID {} can match with sell order ID {}: {}", buyOrder.getId(), sellOrder.getId(), matchable);
-        return matchable;
+    private boolean isOpen(OrderStatus status) {
+        return status == OrderStatus.PENDING || status == OrderStatus.PARTIALLY_FILLED;
     }
 
     /**
-     * Executes the trade between a buy order and a sell order.
+     * Executes a proposed fill between two locked orders, in the current transaction.
+     * The book may be behind the database: an order that was filled or canceled by another transaction since the
+     * fill was proposed is not traded, and neither is a pair that an amendment repriced so that the buy price is now
+     * below the sell price. A fill larger than what is left of either order is reduced to it.
      *
-     * @param buyOrder the buy order
-     * @param sellOrder the sell order
+     * @param assetCode the asset code of the book
+     * @param lockedBuyOrder the locked buy order
+     * @param lockedSellOrder the locked sell order
+     * @param proposedSize the size the book proposed
+     * @param lockNanos the share of this fill in the time spent locking its batch
+     * @return the saved trade, or null if either order is no longer open or the orders no longer cross
      */
-    private void executeTrade(TradeOrder buyOrder, TradeOrder sellOrder) {
-        // Calculate execution size and price
-        TradeOrder lockedBuyOrder = tradeOrderRepository.findByIdWithLock(buyOrder.getId());
-        TradeOrder lockedSellOrder = tradeOrderRepository.findByIdWithLock(sellOrder.getId());
+    private Trade executeTrade(AssetCodes assetCode, TradeOrder lockedBuyOrder, TradeOrder lockedSellOrder, BigDecimal proposedSize,
+                               long lockNanos) {
+        TradeExecutionEvent event = new TradeExecutionEvent();
+        event.begin();
+        long startNanos = System.nanoTime();
+        if (!isOpen(lockedBuyOrder.getStatus()) || !isOpen(lockedSellOrder.getStatus())) {
+            log.debug("Buy order ID {} or sell order ID {} was closed by another transaction", lockedBuyOrder.getId(), lockedSellOrder.getId());
+            return null;
+        }
+        if (lockedBuyOrder.getPrice().compareTo(lockedSellOrder.getPrice()) < 0) {
+            log.debug("Buy order ID {} and sell order ID {} no longer cross after an amendment", lockedBuyOrder.getId(), lockedSellOrder.getId());
+            return null;
+        }
+        latencyTracker.orderMatched(lockedBuyOrder.getId());
+        latencyTracker.orderMatched(lockedSellOrder.getId());
 
-        BigDecimal executionSize = lockedBuyOrder.getSize().min(lockedSellOrder.getSize());
+        // Calculate execution size and price
+        BigDecimal executionSize = proposedSize.min(lockedBuyOrder.getSize()).min(lockedSellOrder.getSize());
         BigDecimal executionPrice = lockedSellOrder.getPrice();
         BigDecimal tradeTotalAmount = executionPrice.multiply(executionSize);
         BigDecimal predictedTotalAmount = executionSize.multiply(lockedBuyOrder.getPrice());
@@ -122,9 +279,14 @@ public class TradeMatchingService {
         trade.setSellerOrder(lockedSellOrder);
         trade.setExecutedPrice(executionPrice);
         trade.setExecutedSize(executionSize);
+        trade.setExecutionDate(LocalDateTime.now(clock));
         tradeRepository.save(trade);
+        outboxService.recordTradeExecuted(trade);
+        long insertedNanos = System.nanoTime();
 
-        log.info("Trade created: {} {} at price {}", executionSize, lockedBuyOrder.getAssetCode(), executionPrice);
+        if (log.isDebugEnabled()) {
+            log.debug("Trade created: {} {} at price {}", executionSize, lockedBuyOrder.getAssetCode(), executionPrice);
+        }
 
         // Update orders
         updateOrderStatus(lockedBuyOrder, executionSize);
@@ -133,7 +295,6 @@ public class TradeMatchingService {
         // Transfer assets between customers
         Long buyerId = lockedBuyOrder.getCustomer().getId();
         Long sellerId = lockedSellOrder.getCustomer().getId();
-        AssetCodes assetCode = lockedBuyOrder.getAssetCode();
 
         // Release and withdraw assets
         assetService.releaseAsset(buyerId, AssetCodes.TRY, predictedTotalAmount);
@@ -146,8 +307,58 @@ public class TradeMatchingService {
         // Save updated orders
         tradeOrderRepository.save(lockedBuyOrder);
         tradeOrderRepository.save(lockedSellOrder);
+        outboxService.recordOrderStatusChanged(List.of(lockedBuyOrder, lockedSellOrder));
+        metrics.recordFill(lockNanos, insertedNanos - startNanos, System.nanoTime() - insertedNanos);
+        if (lockedBuyOrder.getStatus() == OrderStatus.FILLED) {
+            latencyTracker.orderSettled(lockedBuyOrder.getId());
+        }
+        if (lockedSellOrder.getStatus() == OrderStatus.FILLED) {
+            latencyTracker.orderSettled(lockedSellOrder.getId());
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.buyOrderId = lockedBuyOrder.getId();
+            event.sellOrderId = lockedSellOrder.getId();
+            event.assetCode = assetCode.name();
+            event.executedSize = executionSize.doubleValue();
+            event.executedPrice = executionPrice.doubleValue();
+            event.commit();
+        }
 
-        log.info("Trade executed: {} {} at price {} between buyer ID {} and seller ID {}", executionSize, assetCode, executionPrice, buyerId, sellerId);
+        log.debug("Trade executed: {} {} at price {} between buyer ID {} and seller ID {}", executionSize, assetCode, executionPrice, buyerId, sellerId);
+        return trade;
+    }
+
+    /**
+     * Returns, for every asset code, the assets a fill of that asset changes: the asset itself and TRY. Built once,
+     * so no fill creates the set.
+     *
+     * @return the assets to lock per asset code
+     */
+    private static Map<AssetCodes, Set<AssetCodes>> settlementAssets() {
+        Map<AssetCodes, Set<AssetCodes>> assets = new EnumMap<>(AssetCodes.class);
+        for (AssetCodes assetCode : AssetCodes.values()) {
+            assets.put(assetCode, EnumSet.of(AssetCodes.TRY, assetCode));
+        }
+        return assets;
+    }
+
+    /**
+     * Retrieves a trade order with a pessimistic write lock, recording the time spent acquiring the lock.
+     *
+     * @param orderId the ID of the order
+     * @return the locked order
+     */
+    private TradeOrder lockOrder(Long orderId) {
+        OrderLockEvent event = new OrderLockEvent();
+        event.begin();
+        TradeOrder order = tradeOrderRepository.findByIdWithLock(orderId);
+        event.end();
+        if (event.shouldCommit()) {
+            event.orderId = orderId;
+            event.commit();
+        }
+        return order;
     }
 
     /**
@@ -160,10 +371,10 @@ public class TradeMatchingService {
         order.setSize(order.getSize().subtract(executedSize));
         if (order.getSize().compareTo(BigDecimal.ZERO) == 0) {
             order.setStatus(OrderStatus.FILLED);
-            log.info("Order ID {} has been filled.", order.getId());
+            log.debug("Order ID {} has been filled.", order.getId());
         } else {
             order.setStatus(OrderStatus.PARTIALLY_FILLED);
-            log.info("Order ID {} is partially filled. Remaining size: {}", order.getId(), order.getSize());
+            log.debug("Order ID {} is partially filled. Remaining size: {}", order.getId(), order.getSize());
         }
     }
 }
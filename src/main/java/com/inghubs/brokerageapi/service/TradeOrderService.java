@@ -1,16 +1,36 @@
 package com.inghubs.brokerageapi.service;
 
 import java.math.BigDecimal;
+import java.time.Clock;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+import com.inghubs.brokerageapi.book.ResidentOrderBooks;
 import com.inghubs.brokerageapi.constant.AssetCodes;
 import com.inghubs.brokerageapi.constant.CommonConstants;
+import com.inghubs.brokerageapi.constant.OrderLifecycleStage;
 import com.inghubs.brokerageapi.constant.OrderSide;
 import com.inghubs.brokerageapi.constant.OrderStatus;
+import com.inghubs.brokerageapi.dto.BulkCreateOrderResponse;
+import com.inghubs.brokerageapi.dto.BulkOrderItem;
+import com.inghubs.brokerageapi.dto.BulkOrderResult;
+import com.inghubs.brokerageapi.dto.MassCancelResponse;
+import com.inghubs.brokerageapi.dto.OpenOrderSummary;
+import com.inghubs.brokerageapi.dto.OrderStatusChangedEvent;
+import com.inghubs.brokerageapi.dto.TradeOrderSummary;
 import com.inghubs.brokerageapi.entity.Customer;
 import com.inghubs.brokerageapi.entity.TradeOrder;
+import com.inghubs.brokerageapi.exception.CustomerNotFoundException;
+import com.inghubs.brokerageapi.exception.InsufficientBalanceException;
 import com.inghubs.brokerageapi.exception.OrderNotFoundException;
+import com.inghubs.brokerageapi.metrics.BrokerageMetrics;
+import com.inghubs.brokerageapi.metrics.OrderLatencyTracker;
+import com.inghubs.brokerageapi.replay.CommandJournal;
 import com.inghubs.brokerageapi.repository.TradeOrderRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,15 +46,30 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class TradeOrderService {
     private static final Logger log = LoggerFactory.getLogger(TradeOrderService.class);
+    private static final List<OrderStatus> OPEN_STATUSES = List.of(OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED);
 
     private final TradeOrderRepository orderRepository;
     private final AssetService assetService;
     private final CustomerService customerService;
+    private final OutboxService outboxService;
+    private final BrokerageMetrics metrics;
+    private final OrderLatencyTracker latencyTracker;
+    private final CommandJournal journal;
+    private final ResidentOrderBooks books;
+    private final Clock clock;
 
-    public TradeOrderService(TradeOrderRepository orderRepository, AssetService assetService, CustomerService customerService) {
+    public TradeOrderService(TradeOrderRepository orderRepository, AssetService assetService, CustomerService customerService,
+                             OutboxService outboxService, BrokerageMetrics metrics, OrderLatencyTracker latencyTracker,
+                             CommandJournal journal, ResidentOrderBooks books, Clock clock) {
         this.orderRepository = orderRepository;
         this.assetService = assetService;
         this.customerService = customerService;
+        this.outboxService = outboxService;
+        this.metrics = metrics;
+        this.latencyTracker = latencyTracker;
+        this.journal = journal;
+        this.books = books;
+        this.clock = clock;
     }
 
     /**
@@ -51,19 +86,146 @@ public class TradeOrderService {
         log.info("Creating trade order: Customer ID = {}, Asset Code = {}, Side = {}, Size = {}, Price = {}",
                  customerId, assetCode, side, size, price);
 
-        Customer customer = customerService.getEnabledCustomerById(customerId);
+        long[] timeline = latencyTracker.start();
+        Customer customer;
+        try {
+            customer = customerService.getEnabledCustomerById(customerId);
+            latencyTracker.mark(timeline, OrderLifecycleStage.VALIDATED);
 
-        // Lock assets based on the order side
-        if (side == OrderSide.BUY) {
-            BigDecimal totalCost = size.multiply(price);
-            assetService.checkAndLockAsset(customerId, AssetCodes.TRY, totalCost);
-            log.info("Locked TRY for Customer ID {}: Amount = {}", customerId, totalCost);
-        } else {
-            assetService.checkAndLockAsset(customerId, assetCode, size);
-            log.info("Locked {} for Customer ID {}: Size = {}", assetCode, customerId, size);
+            // Lock assets based on the order side
+            if (side == OrderSide.BUY) {
+                BigDecimal totalCost = size.multiply(price);
+                assetService.checkAndLockAsset(customerId, AssetCodes.TRY, totalCost);
+                log.debug("Locked TRY for Customer ID {}: Amount = {}", customerId, totalCost);
+            } else {
+                assetService.checkAndLockAsset(customerId, assetCode, size);
+                log.debug("Locked {} for Customer ID {}: Size = {}", assetCode, customerId, size);
+            }
+        } catch (CustomerNotFoundException | InsufficientBalanceException e) {
+            metrics.recordRejectedOrder(e.getMessage());
+            throw e;
         }
+        latencyTracker.mark(timeline, OrderLifecycleStage.FUNDS_LOCKED);
 
         // Create and save the trade order
+        TradeOrder tradeOrder = newPendingOrder(customer, assetCode, side, size, price);
+
+        TradeOrder savedOrder = orderRepository.save(tradeOrder);
+        outboxService.recordOrderStatusChanged(savedOrder);
+        journal.orderCreated(savedOrder);
+        books.orderOpened(savedOrder);
+        latencyTracker.orderPersisted(savedOrder.getId(), assetCode, timeline);
+        metrics.recordOrderCreate(timeline[OrderLifecycleStage.VALIDATED.ordinal()] - timeline[OrderLifecycleStage.RECEIVED.ordinal()],
+                                  timeline[OrderLifecycleStage.FUNDS_LOCKED.ordinal()] - timeline[OrderLifecycleStage.VALIDATED.ordinal()],
+                                  System.nanoTime() - timeline[OrderLifecycleStage.FUNDS_LOCKED.ordinal()]);
+        log.info("Trade order created successfully: ID = {}, Status = {}", savedOrder.getId(), savedOrder.getStatus());
+        return savedOrder;
+    }
+
+    /**
+     * Creates many trade orders for a customer in one transaction.
+     * Orders are validated against the customer's usable balances in submission order; an order that is
+     * invalid or cannot be funded is rejected on its own while the rest are accepted. The combined amounts
+     * are then locked with one update per asset and the accepted orders are inserted in one batch.
+     *
+     * @param customerId the ID of the customer placing the orders
+     * @param items the orders to create
+     * @return the per-order results of the submission
+     */
+    public BulkCreateOrderResponse createTradeOrders(Long customerId, List<BulkOrderItem> items) {
+        log.info("Creating {} trade orders in bulk for Customer ID = {}", items.size(), customerId);
+        long[] timeline = latencyTracker.start();
+
+        Customer customer = customerService.getEnabledCustomerById(customerId);
+        latencyTracker.mark(timeline, OrderLifecycleStage.VALIDATED);
+        Map<AssetCodes, BigDecimal> available = assetService.getUsableSizes(customerId);
+        Map<AssetCodes, BigDecimal> toLock = new EnumMap<>(AssetCodes.class);
+
+        BulkOrderResult[] results = new BulkOrderResult[items.size()];
+        List<TradeOrder> acceptedOrders = new ArrayList<>(items.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(items.size());
+
+        for (int i = 0; i < items.size(); i++) {
+            BulkOrderItem item = items.get(i);
+            String error = validateOrderItem(item);
+            if (error != null) {
+                results[i] = BulkOrderResult.rejected(i, error);
+                metrics.recordRejectedOrder(error);
+                continue;
+            }
+
+            // Same locking rule as single order entry: TRY for buys, the instrument itself for sells
+            AssetCodes lockedAsset = item.getSide() == OrderSide.BUY ? AssetCodes.TRY : item.getAssetCode();
+            BigDecimal lockedAmount = item.getSide() == OrderSide.BUY ? item.getSize().multiply(item.getPrice()) : item.getSize();
+            BigDecimal usable = available.get(lockedAsset);
+            if (usable == null) {
+                results[i] = BulkOrderResult.rejected(i, CommonConstants.ASSET_NOT_FOUND);
+                metrics.recordRejectedOrder(CommonConstants.ASSET_NOT_FOUND);
+                continue;
+            }
+            if (usable.compareTo(lockedAmount) < 0) {
+                results[i] = BulkOrderResult.rejected(i, CommonConstants.INSUFFICIENT_ASSET_BALANCE);
+                metrics.recordRejectedOrder(CommonConstants.INSUFFICIENT_ASSET_BALANCE);
+                continue;
+            }
+            available.put(lockedAsset, usable.subtract(lockedAmount));
+            toLock.merge(lockedAsset, lockedAmount, BigDecimal::add);
+
+            acceptedOrders.add(newPendingOrder(customer, item.getAssetCode(), item.getSide(), item.getSize(), item.getPrice()));
+            acceptedIndexes.add(i);
+        }
+
+        if (!acceptedOrders.isEmpty()) {
+            assetService.lockAssets(customerId, toLock);
+            latencyTracker.mark(timeline, OrderLifecycleStage.FUNDS_LOCKED);
+            orderRepository.saveAll(acceptedOrders);
+            outboxService.recordOrderStatusChanged(acceptedOrders);
+            for (TradeOrder order : acceptedOrders) {
+                journal.orderCreated(order);
+                books.orderOpened(order);
+                latencyTracker.orderPersisted(order.getId(), order.getAssetCode(), timeline);
+            }
+            for (int i = 0; i < acceptedOrders.size(); i++) {
+                int index = acceptedIndexes.get(i);
+                results[index] = BulkOrderResult.accepted(index, acceptedOrders.get(i).getId());
+            }
+        }
+
+        int accepted = acceptedOrders.size();
+        int rejected = items.size() - accepted;
+        long elapsedMicros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - timeline[OrderLifecycleStage.RECEIVED.ordinal()]));
+        log.info("Bulk order submission for Customer ID {} completed: {} accepted, {} rejected in {} us ({} orders/s)",
+                 customerId, accepted, rejected, elapsedMicros, items.size() * 1_000_000L / elapsedMicros);
+        return new BulkCreateOrderResponse(accepted, rejected, List.of(results));
+    }
+
+    /**
+     * Validates a single bulk order item.
+     *
+     * @param item the item to validate
+     * @return the rejection reason, or null if the item is valid
+     */
+    private String validateOrderItem(BulkOrderItem item) {
+        if (item == null || item.getAssetCode() == null || item.getSide() == null || item.getSize() == null || item.getPrice() == null) {
+            return CommonConstants.INVALID_ORDER_ITEM;
+        }
+        if (item.getSize().signum() <= 0 || item.getPrice().signum() <= 0) {
+            return CommonConstants.INVALID_ORDER_AMOUNT;
+        }
+        return null;
+    }
+
+    /**
+     * Builds a new pending trade order.
+     *
+     * @param customer the customer placing the order
+     * @param assetCode the asset code for the trade order
+     * @param side the side of the order (buy/sell)
+     * @param size the size of the order
+     * @param price the price of the order
+     * @return the unsaved trade order
+     */
+    private TradeOrder newPendingOrder(Customer customer, AssetCodes assetCode, OrderSide side, BigDecimal size, BigDecimal price) {
         TradeOrder tradeOrder = new TradeOrder();
         tradeOrder.setCustomer(customer);
         tradeOrder.setAssetCode(assetCode);
@@ -71,11 +233,8 @@ public class TradeOrderService {
         tradeOrder.setSize(size);
         tradeOrder.setPrice(price);
         tradeOrder.setStatus(OrderStatus.PENDING);
-        tradeOrder.setCreateDate(LocalDateTime.now());
-
-        TradeOrder savedOrder = orderRepository.save(tradeOrder);
-        log.info("Trade order created successfully: {}", savedOrder);
-        return savedOrder;
+        tradeOrder.setCreateDate(LocalDateTime.now(clock));
+        return tradeOrder;
     }
 
     /**
@@ -88,11 +247,12 @@ public class TradeOrderService {
      * @param size the number of orders per page
      * @return a list of trade orders
      */
-    public List<TradeOrder> listTradeOrders(Long customerId, LocalDateTime startDate, LocalDateTime endDate, int page, int size) {
+    @Transactional(readOnly = true)
+    public List<TradeOrderSummary> listTradeOrders(Long customerId, LocalDateTime startDate, LocalDateTime endDate, int page, int size) {
         log.info("Listing trade orders for Customer ID = {} between {} and {}", customerId, startDate, endDate);
 
         Pageable pageable = PageRequest.of(page, size);
-        List<TradeOrder> tradeOrders = orderRepository.findByCustomerIdAndCreateDateBetween(customerId, startDate, endDate, pageable);
+        List<TradeOrderSummary> tradeOrders = orderRepository.findSummariesByCustomerIdAndCreateDateBetween(customerId, startDate, endDate, pageable);
 
         log.info("Retrieved {} trade orders for Customer ID {}", tradeOrders.size(), customerId);
         return tradeOrders;
@@ -100,12 +260,13 @@ public class TradeOrderService {
 
     /**
      * Cancels a pending trade order and releases locked assets.
+     * The order is write-locked first, so a match cannot fill it while the cancel releases its funds.
      *
      * @param tradeOrderId the ID of the trade order to cancel
      */
     public void cancelTradeOrder(Long tradeOrderId) {
         log.info("Canceling trade order ID = {}", tradeOrderId);
-        TradeOrder tradeOrder = getPendingTradeOrder(tradeOrderId);
+        TradeOrder tradeOrder = lockPendingTradeOrder(tradeOrderId);
 
         // Release locked assets based on the order side
         if (tradeOrder.getOrderSide() == OrderSide.BUY) {
@@ -120,23 +281,150 @@ public class TradeOrderService {
         // Update order status to canceled
         tradeOrder.setStatus(OrderStatus.CANCELED);
         orderRepository.save(tradeOrder);
+        outboxService.recordOrderStatusChanged(tradeOrder);
+        journal.orderCanceled(tradeOrder);
+        books.orderClosed(tradeOrder.getAssetCode(), tradeOrderId);
+        latencyTracker.orderClosed(tradeOrderId);
         log.info("Trade order ID {} has been canceled", tradeOrderId);
     }
 
+    /**
+     * Changes the size and/or the price of a pending trade order without canceling it, and locks or releases the
+     * difference in the funds the order holds.
+     * An order whose size is only reduced keeps its time priority. An order whose price changes or whose size grows
+     * moves behind the orders already resting at its new price: it is queued at the time of the amendment, while
+     * its create date stays the time it was entered.
+     *
+     * @param tradeOrderId the ID of the trade order to amend
+     * @param size the new remaining size, or null to keep the size
+     * @param price the new price, or null to keep the price
+     * @return the amended trade order
+     * @throws OrderNotFoundException if the trade order is not found or not in pending status
+     * @throws InsufficientBalanceException if the customer cannot fund a larger order
+     */
+    public TradeOrder amendTradeOrder(Long tradeOrderId, BigDecimal size, BigDecimal price) {
+        log.info("Amending trade order ID = {}: Size = {}, Price = {}", tradeOrderId, size, price);
+        TradeOrder tradeOrder = lockPendingTradeOrder(tradeOrderId);
+        BigDecimal newSize = size != null ? size : tradeOrder.getSize();
+        BigDecimal newPrice = price != null ? price : tradeOrder.getPrice();
+        boolean requeued = newPrice.compareTo(tradeOrder.getPrice()) != 0 || newSize.compareTo(tradeOrder.getSize()) > 0;
+
+        // Lock or release the difference, on the asset the order holds
+        Long customerId = tradeOrder.getCustomer().getId();
+        AssetCodes lockedAsset;
+        BigDecimal difference;
+        if (tradeOrder.getOrderSide() == OrderSide.BUY) {
+            lockedAsset = AssetCodes.TRY;
+            difference = newSize.multiply(newPrice).subtract(tradeOrder.getSize().multiply(tradeOrder.getPrice()));
+        } else {
+            lockedAsset = tradeOrder.getAssetCode();
+            difference = newSize.subtract(tradeOrder.getSize());
+        }
+        if (difference.signum() > 0) {
+            assetService.checkAndLockAsset(customerId, lockedAsset, difference);
+        } else if (difference.signum() < 0) {
+            assetService.releaseAsset(customerId, lockedAsset, difference.negate());
+        }
+        log.debug("Amended order ID {} changes the locked {} of Customer ID {} by {}", tradeOrderId, lockedAsset, customerId, difference);
+
+        tradeOrder.setSize(newSize);
+        tradeOrder.setPrice(newPrice);
+        if (requeued) {
+            tradeOrder.setQueuedAt(LocalDateTime.now(clock));
+            books.orderRequeued(tradeOrder);
+        } else {
+            books.orderUpdated(tradeOrder);
+        }
+        orderRepository.save(tradeOrder);
+        outboxService.recordOrderStatusChanged(tradeOrder);
+        journal.orderAmended(tradeOrder);
+        log.info("Trade order ID {} has been amended to Size = {}, Price = {}{}", tradeOrderId, newSize, newPrice,
+                 requeued ? ", behind the orders at its price" : "");
+        return tradeOrder;
+    }
+
+    /**
+     * Cancels all open (pending or partially filled) orders of a customer, optionally narrowed to an asset and a side.
+     * The orders are locked and read in one query, their statuses are flipped with one update and the
+     * released funds are aggregated so that every asset balance is updated once.
+     *
+     * @param customerId the ID of the customer
+     * @param assetCode the asset code to cancel orders for, or null for all assets
+     * @param side the side to cancel orders for, or null for both sides
+     * @return the IDs of the canceled orders
+     */
+    public MassCancelResponse cancelTradeOrders(Long customerId, AssetCodes assetCode, OrderSide side) {
+        log.info("Mass canceling trade orders: Customer ID = {}, Asset Code = {}, Side = {}", customerId, assetCode, side);
+
+        List<OpenOrderSummary> openOrders = orderRepository.findOpenOrdersWithLock(customerId, assetCode, side, OPEN_STATUSES);
+        if (openOrders.isEmpty()) {
+            log.info("No open trade orders to cancel for Customer ID {}", customerId);
+            return new MassCancelResponse(0, List.of());
+        }
+
+        List<Long> orderIds = new ArrayList<>(openOrders.size());
+        List<OrderStatusChangedEvent> events = new ArrayList<>(openOrders.size());
+        Map<AssetCodes, BigDecimal> toRelease = new EnumMap<>(AssetCodes.class);
+        for (OpenOrderSummary order : openOrders) {
+            orderIds.add(order.getId());
+            events.add(new OrderStatusChangedEvent(order.getId(), customerId, order.getAssetCode(), order.getOrderSide(),
+                                                   OrderStatus.CANCELED, order.getSize(), order.getPrice()));
+            // Release locked assets based on the order side, same as a single cancel
+            if (order.getOrderSide() == OrderSide.BUY) {
+                toRelease.merge(AssetCodes.TRY, order.getSize().multiply(order.getPrice()), BigDecimal::add);
+            } else {
+                toRelease.merge(order.getAssetCode(), order.getSize(), BigDecimal::add);
+            }
+        }
+
+        orderRepository.updateStatusByIdIn(orderIds, OrderStatus.CANCELED);
+        assetService.releaseAssets(customerId, toRelease);
+        outboxService.recordOrderStatusChanges(events);
+        journal.ordersCanceled(customerId, assetCode, side);
+        for (OpenOrderSummary order : openOrders) {
+            books.orderClosed(order.getAssetCode(), order.getId());
+            latencyTracker.orderClosed(order.getId());
+        }
+
+        log.info("Canceled {} trade orders for Customer ID {}, released {}", orderIds.size(), customerId, toRelease);
+        return new MassCancelResponse(orderIds.size(), orderIds);
+    }
+
     /**
      * Retrieves the customer ID associated with a trade order.
+     * An order resting in the resident books is looked up there without a query. Other orders are read from the
+     * database and must be pending.
      *
      * @param tradeOrderId the ID of the trade order
      * @return the customer ID
      */
+    @Transactional(readOnly = true)
     public Long getCustomerId(Long tradeOrderId) {
         log.info("Retrieving customer ID for trade order ID = {}", tradeOrderId);
-        TradeOrder tradeOrder = getPendingTradeOrder(tradeOrderId);
-        Long customerId = tradeOrder.getCustomer().getId();
+        Long customerId = books.findCustomerId(tradeOrderId);
+        if (customerId == null) {
+            customerId = getPendingTradeOrder(tradeOrderId).getCustomer().getId();
+        }
         log.info("Customer ID for trade order ID {}: {}", tradeOrderId, customerId);
         return customerId;
     }
 
+    /**
+     * Retrieves a pending trade order with a pessimistic write lock, so a match cannot fill it while it changes.
+     *
+     * @param tradeOrderId the ID of the trade order
+     * @return the locked trade order
+     * @throws OrderNotFoundException if the trade order is not found or not in pending status
+     */
+    private TradeOrder lockPendingTradeOrder(Long tradeOrderId) {
+        return Optional.ofNullable(orderRepository.findByIdWithLock(tradeOrderId))
+                .filter(order -> order.getStatus() == OrderStatus.PENDING)
+                .orElseThrow(() -> {
+                    log.error("Order not found or not in pending status for ID = {}", tradeOrderId);
+                    return new OrderNotFoundException(CommonConstants.ORDER_NOT_FOUND_OR_NOT_IN_PENDING_STATUS);
+                });
+    }
+
     /**
      * Retrieves a pending trade order by its ID.
      *
@@ -0,0 +1,52 @@
+package com.inghubs.brokerageapi.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background processor for deposits and withdrawals accepted in asynchronous mode.
+ * Drains pending transactions batch by batch, each batch in its own database transaction.
+ */
+@Component
+public class TransactionBatchProcessor {
+    private static final Logger log = LoggerFactory.getLogger(TransactionBatchProcessor.class);
+
+    private final TransactionService transactionService;
+    private final int batchSize;
+
+    public TransactionBatchProcessor(TransactionService transactionService,
+                                     @Value("${application.transactions.batch-size}") int batchSize) {
+        this.transactionService = transactionService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Processes pending transactions until fewer than a full batch is left and reports the sustained rate.
+     * A batch that loses a lock to a concurrent order or match is rolled back and taken again on the next run.
+     */
+    @Scheduled(fixedDelayString = "${application.transactions.processing-interval}")
+    public void drainPendingTransactions() {
+        long startNanos = System.nanoTime();
+        int total = 0;
+        int processed;
+        try {
+            do {
+                processed = transactionService.processPendingTransactions(batchSize);
+                total += processed;
+            } while (processed == batchSize);
+        } catch (ConcurrencyFailureException e) {
+            log.warn("Pending transaction batch rolled back, retrying on the next run: {}", e.getMessage());
+        }
+
+        if (total > 0) {
+            long elapsedMicros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+            log.info("Drained {} pending transactions in {} us ({} transactions/s)", total, elapsedMicros, total * 1_000_000L / elapsedMicros);
+        }
+    }
+}
@@ -1,14 +1,34 @@
 package com.inghubs.brokerageapi.service;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.inghubs.brokerageapi.cache.SingleFlight;
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.CommonConstants;
+import com.inghubs.brokerageapi.constant.TransactionStatus;
+import com.inghubs.brokerageapi.constant.TransactionType;
+import com.inghubs.brokerageapi.dto.TransactionSummary;
+import com.inghubs.brokerageapi.entity.Asset;
 import com.inghubs.brokerageapi.entity.Transaction;
+import com.inghubs.brokerageapi.exception.InsufficientBalanceException;
+import com.inghubs.brokerageapi.exception.TransactionNotFoundException;
+import com.inghubs.brokerageapi.replay.CommandJournal;
 import com.inghubs.brokerageapi.repository.TransactionRepository;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
 @Service
@@ -19,22 +39,34 @@ public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final AssetService assetService;
     private final CustomerService customerService;
+    private final CommandJournal journal;
+    private final SingleFlight<Long, List<TransactionSummary>> transactionListings;
 
-    public TransactionService(TransactionRepository transactionRepository, AssetService assetService, CustomerService customerService) {
+    public TransactionService(TransactionRepository transactionRepository, AssetService assetService, CustomerService customerService,
+                              CommandJournal journal, MeterRegistry meterRegistry,
+                              @Value("${application.coalescing.enabled}") boolean coalescingEnabled,
+                              @Value("${application.coalescing.freshness}") Duration freshness,
+                              @Value("${application.coalescing.max-entries}") int maxEntries) {
         this.transactionRepository = transactionRepository;
         this.assetService = assetService;
         this.customerService = customerService;
+        this.journal = journal;
+        this.transactionListings = new SingleFlight<>("transactions", coalescingEnabled, freshness, maxEntries, meterRegistry);
     }
 
     /**
      * Retrieves a list of transactions for the specified customer.
+     * Concurrent calls for the same customer share one query, and its result is reused for the freshness window
+     * unless a transaction of the customer is written. Runs outside a transaction like {@link AssetService#listAssets}.
      *
      * @param customerId the ID of the customer whose transactions are to be listed
      * @return a list of transactions for the customer
      */
-    public List<Transaction> listTransactions(Long customerId) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<TransactionSummary> listTransactions(Long customerId) {
         log.info("Listing transactions for customer ID: {}", customerId);
-        List<Transaction> transactions = transactionRepository.findByCustomerId(customerId);
+        List<TransactionSummary> transactions = transactionListings.get(customerId,
+                () -> Collections.unmodifiableList(transactionRepository.findSummariesByCustomerId(customerId)));
         log.info("Found {} transactions for customer ID: {}", transactions.size(), customerId);
         return transactions;
     }
@@ -54,13 +86,17 @@ public class TransactionService {
         // Save the transaction
         log.info("Saving transaction: {}", transaction);
         transactionRepository.save(transaction);
+        transactionListings.invalidateAfterCompletion(transaction.getCustomer().getId());
 
         try {
             // Process the transaction
             assetService.processTransaction(transaction);
             transaction.setProcessed(true);
+            transaction.setStatus(TransactionStatus.PROCESSED);
+            journal.transactionApplied(transaction);
             log.info("Transaction processed successfully: {}", transaction);
-        } catch (Exception e) {
+        } catch (InsufficientBalanceException e) {
+            transaction.setStatus(TransactionStatus.FAILED);
             log.error("Error processing transaction: {}. Error: {}", transaction, e.getMessage());
         }
 
@@ -69,4 +105,105 @@ public class TransactionService {
         log.info("Transaction saved: {}", transaction);
         return transaction;
     }
+
+    /**
+     * Records a transaction as pending without applying it. The balance change is applied later
+     * by {@link TransactionBatchProcessor}.
+     *
+     * @param transaction the transaction to be recorded
+     * @return the saved, pending transaction
+     */
+    public Transaction acceptTransaction(@Valid Transaction transaction) {
+        log.info("Accepting transaction for asynchronous processing, customer ID: {}", transaction.getCustomer().getId());
+
+        transaction.setCustomer(customerService.getEnabledCustomerById(transaction.getCustomer().getId()));
+        transaction.setProcessed(false);
+        transaction.setStatus(TransactionStatus.PENDING);
+        transactionListings.invalidateAfterCompletion(transaction.getCustomer().getId());
+        return transactionRepository.save(transaction);
+    }
+
+    /**
+     * Retrieves a transaction by its ID.
+     *
+     * @param transactionId the ID of the transaction
+     * @return the transaction
+     * @throws TransactionNotFoundException if the transaction does not exist
+     */
+    @Transactional(readOnly = true)
+    public Transaction getTransaction(Long transactionId) {
+        return transactionRepository.findById(transactionId)
+                .orElseThrow(() -> {
+                    log.error("Transaction not found for ID = {}", transactionId);
+                    return new TransactionNotFoundException(CommonConstants.TRANSACTION_NOT_FOUND);
+                });
+    }
+
+    /**
+     * Applies the oldest pending transactions as one batch.
+     * Transactions are grouped by customer and applied in ID order against the customer's TRY account, so a
+     * withdrawal can use deposits that precede it in the same batch. Each account is changed once by the net
+     * amount, and the batch is marked with one update for processed and one for failed transactions.
+     *
+     * @param batchSize the maximum number of transactions to apply
+     * @return the number of transactions taken from the queue
+     */
+    public int processPendingTransactions(int batchSize) {
+        List<Transaction> pending = transactionRepository.findByStatusOrderByIdAsc(TransactionStatus.PENDING, PageRequest.of(0, batchSize));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, List<Transaction>> byCustomer = new LinkedHashMap<>();
+        for (Transaction transaction : pending) {
+            byCustomer.computeIfAbsent(transaction.getCustomer().getId(), id -> new ArrayList<>()).add(transaction);
+        }
+        Map<Long, Asset> accounts = assetService.lockCashAccounts(byCustomer.keySet());
+
+        List<Long> processedIds = new ArrayList<>(pending.size());
+        List<Long> failedIds = new ArrayList<>();
+        for (Map.Entry<Long, List<Transaction>> entry : byCustomer.entrySet()) {
+            transactionListings.invalidateAfterCompletion(entry.getKey());
+            Asset account = accounts.get(entry.getKey());
+            BigDecimal usable = account != null ? account.getUsableSize() : BigDecimal.ZERO;
+            BigDecimal delta = BigDecimal.ZERO;
+
+            for (Transaction transaction : entry.getValue()) {
+                if (transaction.getType() == TransactionType.DEPOSIT) {
+                    usable = usable.add(transaction.getAmount());
+                    delta = delta.add(transaction.getAmount());
+                    processedIds.add(transaction.getId());
+                    journal.transactionApplied(transaction);
+                } else if (usable.compareTo(transaction.getAmount()) >= 0) {
+                    usable = usable.subtract(transaction.getAmount());
+                    delta = delta.subtract(transaction.getAmount());
+                    processedIds.add(transaction.getId());
+                    journal.transactionApplied(transaction);
+                } else {
+                    log.error("Insufficient balance for withdrawal. Transaction ID: {}, Customer ID: {}, Requested: {}, Available: {}",
+                              transaction.getId(), entry.getKey(), transaction.getAmount(), usable);
+                    failedIds.add(transaction.getId());
+                }
+            }
+
+            if (delta.signum() != 0) {
+                if (account != null) {
+                    assetService.applyNetChange(account, delta);
+                } else {
+                    // Only deposits can succeed without an account, so the net change is positive
+                    assetService.assignAsset(entry.getKey(), AssetCodes.TRY, delta);
+                }
+            }
+        }
+
+        if (!processedIds.isEmpty()) {
+            transactionRepository.updateStatusByIdIn(processedIds, TransactionStatus.PROCESSED, true);
+        }
+        if (!failedIds.isEmpty()) {
+            transactionRepository.updateStatusByIdIn(failedIds, TransactionStatus.FAILED, false);
+        }
+        log.info("Processed batch of {} transactions for {} customers: {} processed, {} failed",
+                 pending.size(), byCustomer.size(), processedIds.size(), failedIds.size());
+        return pending.size();
+    }
 }
@@ -0,0 +1,229 @@
+package com.inghubs.brokerageapi.service;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.CommonConstants;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.OrderStatus;
+import com.inghubs.brokerageapi.constant.Roles;
+import com.inghubs.brokerageapi.entity.Customer;
+import com.inghubs.brokerageapi.entity.TradeOrder;
+import com.inghubs.brokerageapi.metrics.OrderLatencyTracker;
+import com.inghubs.brokerageapi.repository.CustomerRepository;
+import com.inghubs.brokerageapi.repository.TradeOrderRepository;
+import com.inghubs.brokerageapi.security.JwtService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Warms up the engine at startup, before the application reports itself ready.
+ * Spring Boot publishes the ACCEPTING_TRAFFIC readiness state only after all application runners have completed,
+ * so {@code /actuator/health/readiness} reports OUT_OF_SERVICE until the warm-up has finished.
+ * The warm-up first loads the open orders of every book and the balances of the first customers, then runs
+ * synthetic cycles through the real order entry, matching, cancel and token code paths so the JIT compiles them.
+ * Every cycle runs in its own transaction against throwaway customers and is rolled back, so no synthetic order,
+ * trade, balance or outbox event is ever committed. The latencies recorded for synthetic orders are discarded.
+ * Finally it waits until the JIT compilers have worked through the methods queued by the cycles, as compilation
+ * competes with requests for CPU; the whole warm-up is bounded by {@code max-duration}.
+ */
+@Component
+public class WarmUpRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(WarmUpRunner.class);
+    private static final List<OrderStatus> OPEN_STATUSES = List.of(OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED);
+    private static final AssetCodes[] TRADED_ASSETS = {AssetCodes.ING, AssetCodes.SASA, AssetCodes.GARAN};
+    private static final BigDecimal FUNDS = new BigDecimal("1000000");
+    private static final int PRICE_LEVELS = 5;
+    private static final long JIT_SAMPLE_MILLIS = 500;
+    private static final long JIT_SETTLED_MILLIS = 25; // Compilation time per sample below which the JIT counts as idle
+
+    private final TradeOrderService tradeOrderService;
+    private final TradeMatchingService tradeMatchingService;
+    private final AssetService assetService;
+    private final CustomerRepository customerRepository;
+    private final TradeOrderRepository tradeOrderRepository;
+    private final JwtService jwtService;
+    private final OrderLatencyTracker latencyTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int cycles;
+    private final int ordersPerSide;
+    private final int customers;
+    private final long maxDurationNanos;
+
+    public WarmUpRunner(TradeOrderService tradeOrderService, TradeMatchingService tradeMatchingService, AssetService assetService,
+                        CustomerRepository customerRepository, TradeOrderRepository tradeOrderRepository, JwtService jwtService,
+                        OrderLatencyTracker latencyTracker, TransactionTemplate transactionTemplate,
+                        @Value("${application.warm-up.enabled}") boolean enabled,
+                        @Value("${application.warm-up.cycles}") int cycles,
+                        @Value("${application.warm-up.orders-per-side}") int ordersPerSide,
+                        @Value("${application.warm-up.customers}") int customers,
+                        @Value("${application.warm-up.max-duration}") Duration maxDuration) {
+        this.tradeOrderService = tradeOrderService;
+        this.tradeMatchingService = tradeMatchingService;
+        this.assetService = assetService;
+        this.customerRepository = customerRepository;
+        this.tradeOrderRepository = tradeOrderRepository;
+        this.jwtService = jwtService;
+        this.latencyTracker = latencyTracker;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.cycles = cycles;
+        this.ordersPerSide = ordersPerSide;
+        this.customers = customers;
+        this.maxDurationNanos = maxDuration.toNanos();
+    }
+
+    /**
+     * Runs the warm-up. A failing warm-up is logged and does not stop the application.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        log.info("Warming up: {} cycles of {} orders per side", cycles, ordersPerSide);
+        long startNanos = System.nanoTime();
+        try {
+            int openOrders = loadBooks();
+            int balances = loadBalances();
+            log.info("Loaded {} open orders and the balances of {} customers in {} ms",
+                     openOrders, balances, (System.nanoTime() - startNanos) / 1_000_000);
+
+            List<Long> orderIds = new ArrayList<>();
+            int completed = 0;
+            while (completed < cycles && System.nanoTime() - startNanos < maxDurationNanos) {
+                runCycle(TRADED_ASSETS[completed % TRADED_ASSETS.length], orderIds);
+                completed++;
+            }
+            latencyTracker.reset(); // The synthetic orders were rolled back, so they were never followed
+            boolean settled = awaitJitSettled(startNanos);
+            log.info("Warm-up finished in {} ms: {} cycles, {} synthetic orders, JIT {}",
+                     (System.nanoTime() - startNanos) / 1_000_000, completed, orderIds.size(), settled ? "settled" : "still compiling");
+        } catch (RuntimeException e) {
+            log.warn("Warm-up failed after {} ms, continuing cold", (System.nanoTime() - startNanos) / 1_000_000, e);
+        }
+    }
+
+    /**
+     * Waits until the JIT compilers spend almost no time compiling, or the warm-up runs out of time.
+     *
+     * @param startNanos the start of the warm-up
+     * @return true if the compilers settled in time, or compilation time cannot be monitored
+     */
+    private boolean awaitJitSettled(long startNanos) {
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        if (compilation == null || !compilation.isCompilationTimeMonitoringSupported()) {
+            return true;
+        }
+        long compiledMillis = compilation.getTotalCompilationTime();
+        while (System.nanoTime() - startNanos < maxDurationNanos) {
+            try {
+                Thread.sleep(JIT_SAMPLE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            long previous = compiledMillis;
+            compiledMillis = compilation.getTotalCompilationTime();
+            if (compiledMillis - previous < JIT_SETTLED_MILLIS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the open orders of both sides of every book.
+     *
+     * @return the number of open orders
+     */
+    private int loadBooks() {
+        Integer openOrders = transactionTemplate.execute(status -> {
+            int count = 0;
+            for (AssetCodes assetCode : TRADED_ASSETS) {
+                count += tradeOrderRepository.findBookOrders(assetCode, OrderSide.BUY, OPEN_STATUSES,
+                        Sort.by(Sort.Direction.DESC, CommonConstants.PRICE, CommonConstants.CREATE_DATE, CommonConstants.ID)).size();
+                count += tradeOrderRepository.findBookOrders(assetCode, OrderSide.SELL, OPEN_STATUSES,
+                        Sort.by(Sort.Direction.ASC, CommonConstants.PRICE, CommonConstants.CREATE_DATE, CommonConstants.ID)).size();
+            }
+            status.setRollbackOnly(); // Nothing to commit
+            return count;
+        });
+        return openOrders != null ? openOrders : 0;
+    }
+
+    /**
+     * Reads the customers and the balances order entry checks, for the first customers.
+     *
+     * @return the number of customers read
+     */
+    private int loadBalances() {
+        Integer loaded = transactionTemplate.execute(status -> {
+            List<Customer> page = customerRepository.findAll(PageRequest.of(0, customers)).getContent();
+            for (Customer customer : page) {
+                assetService.getUsableSizes(customer.getId());
+            }
+            status.setRollbackOnly(); // Nothing to commit
+            return page.size();
+        });
+        return loaded != null ? loaded : 0;
+    }
+
+    /**
+     * Runs one synthetic cycle on a throwaway book and rolls it back. Two new customers get funds, place crossing
+     * buy and sell orders over a few price levels, the book is matched, and the orders left open are canceled.
+     * The token of a synthetic user is issued and validated once per order.
+     *
+     * @param assetCode the asset to trade
+     * @param orderIds  collects the IDs of the synthetic orders
+     */
+    private void runCycle(AssetCodes assetCode, List<Long> orderIds) {
+        UserDetails user = User.withUsername("warm-up").password("").roles(Roles.CUSTOMER.name()).build();
+        transactionTemplate.executeWithoutResult(status -> {
+            Long buyerId = newCustomer();
+            Long sellerId = newCustomer();
+            assetService.assignAsset(buyerId, AssetCodes.TRY, FUNDS);
+            assetService.assignAsset(sellerId, assetCode, FUNDS);
+
+            for (int i = 0; i < ordersPerSide; i++) {
+                String token = jwtService.generateToken(user);
+                jwtService.isTokenValid(token, user);
+                BigDecimal level = BigDecimal.valueOf(i % PRICE_LEVELS);
+                TradeOrder sell = tradeOrderService.createTradeOrder(sellerId, assetCode, OrderSide.SELL, BigDecimal.ONE, BigDecimal.TEN.add(level));
+                TradeOrder buy = tradeOrderService.createTradeOrder(buyerId, assetCode, OrderSide.BUY, BigDecimal.ONE, BigDecimal.valueOf(12).subtract(level));
+                orderIds.add(sell.getId());
+                orderIds.add(buy.getId());
+            }
+            tradeMatchingService.matchOrders(assetCode);
+            tradeOrderService.cancelTradeOrders(buyerId, assetCode, null);
+            tradeOrderService.cancelTradeOrders(sellerId, assetCode, null);
+            status.setRollbackOnly();
+        });
+    }
+
+    /**
+     * Creates an enabled throwaway customer in the current transaction.
+     */
+    private Long newCustomer() {
+        Customer customer = new Customer();
+        customer.setEnabled(true);
+        return customerRepository.save(customer).getId();
+    }
+}
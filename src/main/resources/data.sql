@@ -25,12 +25,15 @@ VALUES ('ING', 10000.00, 0.00, 1);
 INSERT INTO asset (asset_code, size, usable_size, customer_id)
 VALUES ('SASA', 10000.00, 0.00, 1);
 
-INSERT INTO trade_order (asset_code, create_date, order_side, price, size, status, customer_id)
-VALUES ('GARAN', '2024-10-23 17:04:52.747765', 'SELL', 20.00, 10000.00, 'PENDING', 1);
+INSERT INTO trade_order (id, asset_code, create_date, order_side, price, size, status, customer_id)
+VALUES (NEXT VALUE FOR trade_order_seq, 'GARAN', '2024-10-23 17:04:52.747765', 'SELL', 20.00, 10000.00, 'PENDING', 1);
 
-INSERT INTO trade_order (asset_code, create_date, order_side, price, size, status, customer_id)
-VALUES ('ING', '2024-10-23 17:04:52.747765', 'SELL', 20.00, 10000.00, 'PENDING', 1);
+INSERT INTO trade_order (id, asset_code, create_date, order_side, price, size, status, customer_id)
+VALUES (NEXT VALUE FOR trade_order_seq, 'ING', '2024-10-23 17:04:52.747765', 'SELL', 20.00, 10000.00, 'PENDING', 1);
 
-INSERT INTO trade_order (asset_code, create_date, order_side, price, size, status, customer_id)
-VALUES ('SASA', '2024-10-23 17:04:52.747765', 'SELL', 20.00, 10000.00, 'PENDING', 1);
+INSERT INTO trade_order (id, asset_code, create_date, order_side, price, size, status, customer_id)
+VALUES (NEXT VALUE FOR trade_order_seq, 'SASA', '2024-10-23 17:04:52.747765', 'SELL', 20.00, 10000.00, 'PENDING', 1);
 
+INSERT INTO matching_lease (asset_code) VALUES ('GARAN'), ('ING'), ('SASA');
+
+INSERT INTO outbox_lease (asset_code) VALUES ('GARAN'), ('ING'), ('SASA'), ('TRY');
@@ -0,0 +1,201 @@
+package com.inghubs.brokerageapi.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks that book snapshots are consistent, immutable views while the book keeps matching. The book rests ten buy
+ * levels of one customer and ten sell levels of another; every round enters a sell order at one of the sell levels
+ * and a buy order that crosses them all, matches, and publishes a snapshot, as the resident books do under the lock
+ * of the book. Readers on other threads check every snapshot against the totals the writer recorded for its version.
+ * The number of rounds is set with the {@code book.snapshotRounds} system property.
+ */
+class BookSnapshotTest {
+    private static final Logger log = LoggerFactory.getLogger(BookSnapshotTest.class);
+    private static final int ROUNDS = Integer.getInteger("book.snapshotRounds", 20_000);
+    private static final int READERS = 2;
+    private static final int LEVELS = 10;
+    private static final long BID_PRICE = 1000;
+    private static final long ASK_PRICE = 2000;
+    private static final long LEVEL_SIZE = 100;
+    private static final long BIDDER = 1;
+    private static final long ASKER = 2;
+    private static final long SELLER = 3;
+    private static final long BUYER = 4;
+
+    private final OrderBook book = new OrderBook(AssetCodes.GARAN, 1024);
+    private final FillBuffer fills = new FillBuffer(16);
+    private long nextOrderId = 1;
+
+    @BeforeEach
+    void restLevels() {
+        for (int i = 0; i < LEVELS; i++) {
+            book.add(nextOrderId++, BIDDER, OrderSide.BUY, BID_PRICE + i, LEVEL_SIZE, OrderStatus.PENDING);
+            book.add(nextOrderId++, ASKER, OrderSide.SELL, ASK_PRICE + i, LEVEL_SIZE, OrderStatus.PENDING);
+        }
+    }
+
+    /**
+     * Takes a snapshot, partially fills the best sell level and takes another. The first snapshot must still show the
+     * level as it was, the second the filled size, and both must share the unchanged buy levels.
+     */
+    @Test
+    void snapshotKeepsItsViewAndSharesUnchangedLevels() {
+        BookSnapshot before = book.snapshot(Instant.EPOCH);
+        book.add(nextOrderId++, BUYER, OrderSide.BUY, ASK_PRICE, 30, OrderStatus.PENDING);
+        assertEquals(1, book.match(fills));
+        BookSnapshot after = book.snapshot(Instant.EPOCH);
+
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals(LEVEL_SIZE, before.levels(OrderSide.SELL, 1).get(0).getTotalSize());
+        assertEquals(LEVEL_SIZE - 30, after.levels(OrderSide.SELL, 1).get(0).getTotalSize());
+        assertSame(before.levels(OrderSide.SELL, LEVELS).get(1), after.levels(OrderSide.SELL, LEVELS).get(1));
+        List<LevelSnapshot> bidsBefore = before.levels(OrderSide.BUY, LEVELS);
+        List<LevelSnapshot> bidsAfter = after.levels(OrderSide.BUY, LEVELS);
+        for (int i = 0; i < LEVELS; i++) {
+            assertSame(bidsBefore.get(i), bidsAfter.get(i));
+        }
+        assertSame(after, book.snapshot(Instant.EPOCH), "a snapshot of an unchanged book");
+    }
+
+    /**
+     * Matches and publishes on one thread while others read the published snapshots. Every snapshot a reader sees
+     * must have the sell size and order count recorded for its version, levels whose totals agree with their orders,
+     * no crossed prices and the unchanged buy levels of the first snapshot; and versions must not go backwards. The
+     * first snapshot must be unchanged at the end.
+     */
+    @Test
+    void readersSeeConsistentSnapshotsWhileMatchingRuns() throws InterruptedException {
+        Map<Long, long[]> expected = new ConcurrentHashMap<>();
+        long askSize = LEVELS * LEVEL_SIZE;
+        BookSnapshot first = publish(expected, askSize);
+        List<LevelSnapshot> firstBids = first.levels(OrderSide.BUY, LEVELS);
+        AtomicReference<BookSnapshot> published = new AtomicReference<>(first);
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong reads = new AtomicLong();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            Thread reader = new Thread(() -> {
+                long lastVersion = -1;
+                try {
+                    while (!done.get()) {
+                        BookSnapshot snapshot = published.get();
+                        assertTrue(snapshot.getVersion() >= lastVersion, "version went backwards");
+                        lastVersion = snapshot.getVersion();
+                        check(snapshot, expected.get(snapshot.getVersion()), firstBids);
+                        reads.incrementAndGet();
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }, "snapshot-reader-" + r);
+            reader.start();
+            readers.add(reader);
+        }
+
+        Random random = new Random(42);
+        long startNanos = System.nanoTime();
+        for (int round = 0; round < ROUNDS && failures.isEmpty(); round++) {
+            long sellSize = 1 + random.nextInt(3 * (int) LEVEL_SIZE);
+            long buySize = 1 + random.nextInt((int) Math.min(3 * LEVEL_SIZE, askSize + sellSize - 1)); // Never empties the sell side
+            book.add(nextOrderId++, SELLER, OrderSide.SELL, ASK_PRICE + random.nextInt(LEVELS), sellSize, OrderStatus.PENDING);
+            book.add(nextOrderId++, BUYER, OrderSide.BUY, ASK_PRICE + LEVELS, buySize, OrderStatus.PENDING);
+            fills.clear();
+            book.match(fills);
+            long filled = 0;
+            for (int i = 0; i < fills.size(); i++) {
+                filled += fills.get(i).getSize();
+            }
+            assertEquals(buySize, filled, "the buy order was not filled completely");
+            askSize += sellSize - filled;
+            published.set(publish(expected, askSize));
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        log.info("{} rounds published in {} ms, {} snapshot reads", ROUNDS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), reads.get());
+        assertTrue(failures.isEmpty(), () -> "Inconsistent snapshot, first: " + failures.get(0));
+        assertTrue(reads.get() > 0);
+        check(first, new long[] {LEVELS * LEVEL_SIZE, 2 * LEVELS}, firstBids);
+        assertEquals(LEVELS, first.levelCount(OrderSide.SELL));
+    }
+
+    /**
+     * Takes a snapshot and records the sell size and order count of its version before it is published.
+     */
+    private BookSnapshot publish(Map<Long, long[]> expected, long askSize) {
+        BookSnapshot snapshot = book.snapshot(Instant.EPOCH);
+        expected.put(snapshot.getVersion(), new long[] {askSize, book.size()});
+        return snapshot;
+    }
+
+    /**
+     * Checks a snapshot against the sell size and order count recorded for its version and the first buy levels.
+     */
+    private static void check(BookSnapshot snapshot, long[] expected, List<LevelSnapshot> firstBids) {
+        assertNotNull(expected, () -> "no totals recorded for version " + snapshot.getVersion());
+        List<LevelSnapshot> asks = snapshot.levels(OrderSide.SELL, Integer.MAX_VALUE);
+        List<LevelSnapshot> bids = snapshot.levels(OrderSide.BUY, Integer.MAX_VALUE);
+        long askSize = 0;
+        int orders = 0;
+        for (LevelSnapshot level : asks) {
+            askSize += checkLevel(level);
+            orders += level.getOrderCount();
+        }
+        for (LevelSnapshot level : bids) {
+            checkLevel(level);
+            orders += level.getOrderCount();
+        }
+        assertEquals(expected[0], askSize, () -> "sell size of version " + snapshot.getVersion());
+        assertEquals(expected[1], orders, () -> "orders of version " + snapshot.getVersion());
+        assertEquals(expected[1], snapshot.orderCount());
+        assertEquals(firstBids.size(), bids.size());
+        for (int i = 0; i < bids.size(); i++) {
+            assertSame(firstBids.get(i), bids.get(i), "buy level changed without a buy order resting");
+        }
+        assertTrue(asks.isEmpty() || bids.get(0).getPrice() < asks.get(0).getPrice(), "crossed snapshot");
+    }
+
+    /**
+     * Checks that a level has orders and that its total is the sum of their sizes.
+     *
+     * @return the total size of the level
+     */
+    private static long checkLevel(LevelSnapshot level) {
+        long size = 0;
+        for (int i = 0; i < level.getOrderCount(); i++) {
+            assertTrue(level.size(i) > 0, "order without size");
+            size += level.size(i);
+        }
+        assertTrue(level.getOrderCount() > 0, "empty level");
+        assertEquals(level.getTotalSize(), size, "level total");
+        return size;
+    }
+}
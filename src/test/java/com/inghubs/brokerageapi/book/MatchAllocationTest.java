@@ -0,0 +1,86 @@
+package com.inghubs.brokerageapi.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.OrderStatus;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks that the match loop of the order book allocates nothing in steady state.
+ * A book of resting orders keeps its depth: every round enters a buy order that crosses the whole sell
+ * side and a new sell order, and matches the book. After a warm-up long enough for the loop to be compiled, the
+ * bytes the test thread allocates inside {@link OrderBook#match} are counted with
+ * {@link ThreadMXBean#getCurrentThreadAllocatedBytes()} and must stay below {@code match.max-bytes-per-fill} per fill.
+ * Entering the orders is not counted: a new price level allocates its sorted map entry.
+ */
+class MatchAllocationTest {
+    private static final Logger log = LoggerFactory.getLogger(MatchAllocationTest.class);
+    private static final int RESTING_ORDERS = Integer.getInteger("match.resting-orders", 100_000);
+    private static final int WARM_UP_ROUNDS = Integer.getInteger("match.warm-up-rounds", 50_000);
+    private static final int ROUNDS = Integer.getInteger("match.rounds", 50_000);
+    private static final double MAX_BYTES_PER_FILL = Double.parseDouble(System.getProperty("match.max-bytes-per-fill", "1"));
+    private static final int LEVELS = 500;
+    private static final long BUYER_ID = 0;
+
+    private final OrderBook book = new OrderBook(AssetCodes.GARAN, 2 * RESTING_ORDERS);
+    private final FillBuffer fills = new FillBuffer(64);
+    private final Random random = new Random(42);
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private long nextOrderId = 1;
+
+    @Test
+    void matchDoesNotAllocate() {
+        for (int i = 0; i < RESTING_ORDERS; i++) {
+            boolean buy = random.nextBoolean();
+            book.add(nextOrderId++, 1 + random.nextInt(10_000), buy ? OrderSide.BUY : OrderSide.SELL,
+                     (buy ? 1000 : 1000 + LEVELS) + random.nextInt(LEVELS), size(), OrderStatus.PENDING);
+        }
+        assertEquals(0, book.match(fills), "the initial book must not cross");
+
+        round(WARM_UP_ROUNDS, new long[2]);
+        long[] totals = new long[2]; // Allocated bytes and fills
+        long start = threads.getCurrentThreadAllocatedBytes();
+        long overhead = threads.getCurrentThreadAllocatedBytes() - start; // Of reading the counter itself
+        round(ROUNDS, totals);
+        long bytes = totals[0] - ROUNDS * overhead;
+        double bytesPerFill = (double) bytes / totals[1];
+        log.info("{} fills in {} rounds allocated {} bytes in the match loop, {} bytes per fill",
+                 totals[1], ROUNDS, bytes, bytesPerFill);
+
+        assertTrue(totals[1] >= ROUNDS, "every round must fill at least once");
+        assertTrue(bytesPerFill <= MAX_BYTES_PER_FILL,
+                   "the match loop allocated " + bytesPerFill + " bytes per fill, more than " + MAX_BYTES_PER_FILL);
+        assertEquals(LEVELS, book.levelCount(OrderSide.BUY), "every crossing buy order must have been filled");
+    }
+
+    /**
+     * Runs rounds of one crossing buy order, a new sell order and a match, adding the bytes allocated by the matches
+     * and the number of fills to the totals.
+     */
+    private void round(int rounds, long[] totals) {
+        for (int i = 0; i < rounds; i++) {
+            long size = size();
+            book.add(nextOrderId++, BUYER_ID, OrderSide.BUY, 1000 + 2 * LEVELS, size, OrderStatus.PENDING);
+            book.add(nextOrderId++, 1 + random.nextInt(10_000), OrderSide.SELL, 1000 + LEVELS + random.nextInt(LEVELS),
+                     size, OrderStatus.PENDING);
+            fills.clear();
+            long before = threads.getCurrentThreadAllocatedBytes();
+            int matched = book.match(fills);
+            totals[0] += threads.getCurrentThreadAllocatedBytes() - before;
+            totals[1] += matched;
+        }
+    }
+
+    private long size() {
+        return (1 + random.nextInt(100)) * 100L;
+    }
+}
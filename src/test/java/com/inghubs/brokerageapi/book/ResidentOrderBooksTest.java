@@ -0,0 +1,152 @@
+package com.inghubs.brokerageapi.book;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.entity.Asset;
+import com.inghubs.brokerageapi.entity.Customer;
+import com.inghubs.brokerageapi.repository.AssetRepository;
+import com.inghubs.brokerageapi.repository.CustomerRepository;
+import com.inghubs.brokerageapi.service.TradeOrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks that the resident books keep the time priority of an order whose change is read by a reload before the
+ * change itself reaches the book, i.e. between the commit of its transaction and the after-commit callback that
+ * applies it. Meanwhile another order joins the same price, so applying the change again would move the first order
+ * behind it. The orders are buys priced so that they cross no order of the shared database, and canceled after
+ * every test.
+ */
+@SpringBootTest
+class ResidentOrderBooksTest {
+    private static final AssetCodes ASSET = AssetCodes.GARAN;
+
+    @Autowired
+    private ResidentOrderBooks books;
+    @Autowired
+    private TradeOrderService tradeOrderService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> customerIds = new ArrayList<>();
+
+    @AfterEach
+    void cancelOrders() {
+        customerIds.forEach(customerId -> tradeOrderService.cancelTradeOrders(customerId, null, null));
+    }
+
+    /**
+     * Enters an order, and before its commit reaches the book enters a second order at the same price and reloads
+     * the book. The first order must stay ahead of the second.
+     */
+    @Test
+    void reloadBeforeTheCommitReachesTheBookKeepsANewOrderInPlace() {
+        Long customerId = createCustomer();
+        List<Long> later = new ArrayList<>();
+
+        Long first = inTransactionBeforeReload(
+                () -> place(customerId, "3.17"),
+                () -> later.add(place(customerId, "3.17")));
+
+        assertQueue("3.17", first, later.get(0));
+    }
+
+    /**
+     * Moves an order to another price, and before its commit reaches the book enters another order at that price and
+     * reloads the book. The moved order must stay between the order that was there before and the one that came
+     * after it.
+     */
+    @Test
+    void reloadBeforeTheCommitReachesTheBookKeepsARequeuedOrderInPlace() {
+        Long customerId = createCustomer();
+        Long resting = place(customerId, "3.19");
+        Long moved = place(customerId, "3.13");
+        List<Long> later = new ArrayList<>();
+
+        inTransactionBeforeReload(
+                () -> tradeOrderService.amendTradeOrder(moved, null, new BigDecimal("3.19")).getId(),
+                () -> later.add(place(customerId, "3.19")));
+
+        assertQueue("3.19", resting, moved, later.get(0));
+    }
+
+    /**
+     * Runs a change in a transaction. Once it commits, but before the resident books apply it, another thread runs a
+     * second change and reloads the book.
+     */
+    private Long inTransactionBeforeReload(Supplier<Long> change, Runnable meanwhile) {
+        return transactionTemplate.execute(status -> {
+            // Registered before the change, so it runs before the callback of the books
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    CompletableFuture.runAsync(() -> {
+                        meanwhile.run();
+                        books.reload(ASSET);
+                    }).join();
+                }
+            });
+            return change.get();
+        });
+    }
+
+    /**
+     * Asserts the orders resting at a buy price, oldest first.
+     */
+    private void assertQueue(String price, Long... orderIds) {
+        books.publishSnapshots();
+        long units = OrderBook.toUnits(new BigDecimal(price));
+        long[] queue = books.getSnapshot(ASSET).levels(OrderSide.BUY, Integer.MAX_VALUE).stream()
+                .filter(level -> level.getPrice() == units)
+                .findFirst()
+                .map(level -> {
+                    long[] ids = new long[level.getOrderCount()];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = level.orderId(i);
+                    }
+                    return ids;
+                })
+                .orElse(new long[0]);
+        long[] expected = new long[orderIds.length];
+        for (int i = 0; i < orderIds.length; i++) {
+            expected[i] = orderIds[i];
+        }
+        assertArrayEquals(expected, queue);
+    }
+
+    private Long place(Long customerId, String price) {
+        return tradeOrderService.createTradeOrder(customerId, ASSET, OrderSide.BUY, BigDecimal.ONE, new BigDecimal(price)).getId();
+    }
+
+    /**
+     * Creates a customer with 1000 TRY, all of it usable.
+     */
+    private Long createCustomer() {
+        return transactionTemplate.execute(status -> {
+            Customer customer = new Customer();
+            customer.setEnabled(true);
+            customer = customerRepository.save(customer);
+            customerIds.add(customer.getId());
+            BigDecimal funds = new BigDecimal("1000");
+            assetRepository.save(new Asset(null, customer, AssetCodes.TRY, funds, funds));
+            return customer.getId();
+        });
+    }
+}
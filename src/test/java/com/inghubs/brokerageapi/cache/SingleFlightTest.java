@@ -0,0 +1,190 @@
+package com.inghubs.brokerageapi.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Checks the coalescing of loads: concurrent callers of a key share one load, callers within the freshness window
+ * reuse its result, a failed load is not kept, and an invalidated key is loaded again only once the writing
+ * transaction has completed. A load still running when its key is invalidated must not be joined by later callers.
+ */
+class SingleFlightTest {
+    private static final String KEY = "key";
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, Object> singleFlight = new SingleFlight<>("test", true, Duration.ofMinutes(1), 100, meterRegistry);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Starts several callers of a key while the first one's load is held. They must wait for that load and all get
+     * its result, and a caller after it completed must get the result without loading.
+     */
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Object value = new Object();
+        List<CompletableFuture<Object>> callers = new ArrayList<>();
+        callers.add(CompletableFuture.supplyAsync(() -> singleFlight.get(KEY, held(loading, release, value)), executor));
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i < CALLERS; i++) {
+            callers.add(CompletableFuture.supplyAsync(() -> singleFlight.get(KEY, load(new Object())), executor));
+        }
+        awaitCount("shared", CALLERS - 1);
+        release.countDown();
+
+        for (CompletableFuture<Object> caller : callers) {
+            assertSame(value, caller.get(10, TimeUnit.SECONDS));
+        }
+        assertSame(value, singleFlight.get(KEY, load(new Object())));
+        assertEquals(1, loads.get());
+        assertEquals(1, count("fresh"));
+    }
+
+    /**
+     * Fails a load that other callers joined. Every caller must get the failure, and the next caller must load again.
+     */
+    @Test
+    void failedLoadIsNotKept() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> singleFlight.get(KEY, () -> {
+            loading.countDown();
+            await(release);
+            throw new IllegalStateException("load failed");
+        }), executor);
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        CompletableFuture<Object> joined = CompletableFuture.supplyAsync(() -> singleFlight.get(KEY, load(new Object())), executor);
+        awaitCount("shared", 1);
+        release.countDown();
+
+        for (CompletableFuture<Object> caller : List.of(first, joined)) {
+            Exception failure = assertThrows(Exception.class, () -> caller.get(10, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof IllegalStateException, () -> "failed with " + failure.getCause());
+        }
+        Object value = new Object();
+        assertSame(value, singleFlight.get(KEY, load(value)));
+    }
+
+    /**
+     * Invalidates a key within a transaction. Until the transaction completes, callers must still get the result
+     * read before the write, since the write is not visible to them; after it commits they must load again.
+     */
+    @Test
+    void invalidatedKeyIsLoadedAgainAfterCommit() {
+        Object before = new Object();
+        assertSame(before, singleFlight.get(KEY, load(before)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        singleFlight.invalidateAfterCompletion(KEY);
+        singleFlight.invalidateAfterCompletion(KEY);
+        assertSame(before, singleFlight.get(KEY, load(new Object())), "dropped before the transaction completed");
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        Object after = new Object();
+        assertSame(after, singleFlight.get(KEY, load(after)));
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Invalidates a key while its load runs. The caller of that load must get its result, but a caller arriving
+     * after the invalidation must load again rather than join it.
+     */
+    @Test
+    void runningLoadIsDetachedWhenInvalidated() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Object stale = new Object();
+        CompletableFuture<Object> running = CompletableFuture.supplyAsync(() -> singleFlight.get(KEY, held(loading, release, stale)), executor);
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+        singleFlight.invalidateAfterCompletion(KEY); // Outside a transaction, right away
+        Object fresh = new Object();
+        assertSame(fresh, singleFlight.get(KEY, load(fresh)));
+        release.countDown();
+
+        assertSame(stale, running.get(10, TimeUnit.SECONDS));
+        assertSame(fresh, singleFlight.get(KEY, load(new Object())));
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Returns a loader that counts its load and returns the value.
+     */
+    private Supplier<Object> load(Object value) {
+        return () -> {
+            loads.incrementAndGet();
+            return value;
+        };
+    }
+
+    /**
+     * Returns a loader that counts its load, signals that it runs and returns the value once released.
+     */
+    private Supplier<Object> held(CountDownLatch loading, CountDownLatch release, Object value) {
+        return () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return value;
+        };
+    }
+
+    /**
+     * Completes the transaction of the current thread as the transaction manager would.
+     */
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("coalescing.requests").tag("result", result).counter().count();
+    }
+
+    private void awaitCount(String result, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (count(result) < expected) {
+            assertTrue(System.nanoTime() < deadline, () -> "fewer than " + expected + " " + result + " requests");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
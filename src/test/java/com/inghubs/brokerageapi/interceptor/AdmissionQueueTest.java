@@ -0,0 +1,144 @@
+package com.inghubs.brokerageapi.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.inghubs.brokerageapi.constant.TrafficClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the admission queue with a single slot, so every request but the running one waits: a freed slot goes to
+ * the waiting request of the highest priority class, and a waiting request is shed once it has waited longer than the
+ * maximum queue wait of its class, however short its queue is, while a class with a longer wait keeps waiting.
+ */
+class AdmissionQueueTest {
+    private static final Duration LONG_WAIT = Duration.ofSeconds(10);
+    private static final Duration SHORT_WAIT = Duration.ofMillis(200);
+    private static final int QUEUE_CAPACITY = 100;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * Queues a read, an order entry and a cancel, in that order, behind a running admin request. Once the admin
+     * request completes they must run in priority order: the cancel, the order entry, then the read.
+     */
+    @Test
+    void freedSlotGoesToTheHighestPriorityClass() throws InterruptedException {
+        AdmissionQueue queue = queue(LONG_WAIT);
+        assertTrue(queue.acquire(TrafficClass.ADMIN));
+
+        List<TrafficClass> admitted = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (TrafficClass trafficClass : List.of(TrafficClass.READ, TrafficClass.ORDER_ENTRY, TrafficClass.CANCEL)) {
+            threads.add(request(queue, trafficClass, () -> admitted.add(trafficClass)));
+            awaitQueued(trafficClass);
+        }
+        queue.release(TrafficClass.ADMIN);
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        assertEquals(List.of(TrafficClass.CANCEL, TrafficClass.ORDER_ENTRY, TrafficClass.READ), admitted);
+    }
+
+    /**
+     * Queues five reads, whose queue holds far more, and one order entry behind a running admin request that takes
+     * three times the maximum read wait. Every read must be shed after that wait and before the slot is freed, and
+     * the order entry, whose maximum wait is longer, must be admitted once it is.
+     */
+    @Test
+    void shedsRequestsThatWaitedLongerThanTheirClassAllows() throws InterruptedException {
+        AdmissionQueue queue = queue(SHORT_WAIT);
+        assertTrue(queue.acquire(TrafficClass.ADMIN));
+
+        List<Long> shedAfterNanos = new CopyOnWriteArrayList<>();
+        List<Boolean> orderEntryAdmitted = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            threads.add(new Thread(() -> {
+                long startNanos = System.nanoTime();
+                try {
+                    if (!queue.acquire(TrafficClass.READ)) {
+                        shedAfterNanos.add(System.nanoTime() - startNanos);
+                    } else {
+                        queue.release(TrafficClass.READ);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "read-" + i));
+        }
+        threads.add(new Thread(() -> {
+            try {
+                orderEntryAdmitted.add(queue.acquire(TrafficClass.ORDER_ENTRY));
+                queue.release(TrafficClass.ORDER_ENTRY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "order-entry"));
+        threads.forEach(Thread::start);
+
+        Thread.sleep(SHORT_WAIT.multipliedBy(3).toMillis());
+        assertEquals(5, shedAfterNanos.size(), "reads shed before the slot was freed");
+        queue.release(TrafficClass.ADMIN);
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        for (long nanos : shedAfterNanos) {
+            assertTrue(nanos >= SHORT_WAIT.toNanos(), () -> "shed after " + nanos + " ns");
+        }
+        assertEquals(5, meterRegistry.get("admission.shed").tag("class", TrafficClass.READ.name()).counter().count());
+        assertEquals(List.of(true), orderEntryAdmitted);
+        assertFalse(threads.stream().anyMatch(Thread::isAlive));
+    }
+
+    /**
+     * Starts a thread that waits for admission, runs the task if admitted and releases its slot.
+     */
+    private static Thread request(AdmissionQueue queue, TrafficClass trafficClass, Runnable task) {
+        Thread thread = new Thread(() -> {
+            try {
+                if (queue.acquire(trafficClass)) {
+                    try {
+                        task.run();
+                    } finally {
+                        queue.release(trafficClass);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "request-" + trafficClass);
+        thread.start();
+        return thread;
+    }
+
+    private void awaitQueued(TrafficClass trafficClass) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.get("admission.queue.length").tag("class", trafficClass.name()).gauge().value() < 1) {
+            assertTrue(System.nanoTime() < deadline, () -> trafficClass + " request was not queued");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Returns a queue with one slot, a long maximum wait for cancels and order entries and the given one for reads
+     * and admin requests.
+     */
+    private AdmissionQueue queue(Duration readMaxQueueWait) {
+        return new AdmissionQueue(meterRegistry, 1,
+                                  1, QUEUE_CAPACITY, LONG_WAIT,
+                                  1, QUEUE_CAPACITY, LONG_WAIT,
+                                  1, QUEUE_CAPACITY, readMaxQueueWait,
+                                  1, QUEUE_CAPACITY, readMaxQueueWait);
+    }
+}
@@ -0,0 +1,249 @@
+package com.inghubs.brokerageapi.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.CommonConstants;
+import com.inghubs.brokerageapi.entity.Asset;
+import com.inghubs.brokerageapi.entity.Customer;
+import com.inghubs.brokerageapi.repository.AssetRepository;
+import com.inghubs.brokerageapi.repository.CustomerRepository;
+import com.inghubs.brokerageapi.service.IdempotencyService;
+import com.inghubs.brokerageapi.service.TradeOrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks that requests carrying an Idempotency-Key header are executed once: a retry is answered with the stored
+ * response, from memory or, once the key is gone from memory, from the database; a retry that arrives while the
+ * original request runs waits for its response; and a key reused with a different body is rejected. The claim of a
+ * key must commit and roll back with the change it guards. The orders are priced so that they cross no order of the
+ * shared database, and canceled after every test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyFilterTest {
+    private static final String ORDERS_PATH = "/api/tradeOrders";
+    private static final long WAIT_MILLIS = 300;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private TradeOrderService tradeOrderService;
+    @Autowired
+    private UserDetailsService userDetailsService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> customerIds = new ArrayList<>();
+
+    @AfterEach
+    void cancelOrders() {
+        customerIds.forEach(customerId -> tradeOrderService.cancelTradeOrders(customerId, null, null));
+    }
+
+    /**
+     * Sends the same order twice with one key. The retry must get the first response, marked as replayed, and must
+     * not create a second order.
+     */
+    @Test
+    void replaysTheStoredResponseFromMemory() throws Exception {
+        Long customerId = createCustomer();
+        String key = newKey();
+
+        MockHttpServletResponse first = postOrder(key, order(customerId, "5"));
+        MockHttpServletResponse retry = postOrder(key, order(customerId, "5"));
+
+        assertEquals(HttpStatus.CREATED.value(), first.getStatus());
+        assertNull(first.getHeader(CommonConstants.IDEMPOTENT_REPLAYED_HEADER));
+        assertEquals(HttpStatus.CREATED.value(), retry.getStatus());
+        assertEquals(Boolean.TRUE.toString(), retry.getHeader(CommonConstants.IDEMPOTENT_REPLAYED_HEADER));
+        assertArrayEquals(first.getContentAsByteArray(), retry.getContentAsByteArray());
+        assertEquals(1, orderCount(customerId));
+    }
+
+    /**
+     * Sends an order, drops its key from memory as a restart would, and sends it again. The claim insert of the
+     * retry finds the stored row, and the retry must be answered from the database.
+     */
+    @Test
+    void replaysTheStoredResponseFromTheDatabase() throws Exception {
+        Long customerId = createCustomer();
+        String key = newKey();
+
+        MockHttpServletResponse first = postOrder(key, order(customerId, "5"));
+        idempotencyService.abandon(scopedKey(key));
+        MockHttpServletResponse retry = postOrder(key, order(customerId, "5"));
+
+        assertEquals(HttpStatus.CREATED.value(), retry.getStatus());
+        assertEquals(Boolean.TRUE.toString(), retry.getHeader(CommonConstants.IDEMPOTENT_REPLAYED_HEADER));
+        assertArrayEquals(first.getContentAsByteArray(), retry.getContentAsByteArray());
+        assertEquals(1, orderCount(customerId));
+    }
+
+    /**
+     * Holds a key as if its request were running, sends a retry, and stores a response only after a while. The retry
+     * must wait for that response instead of executing the order.
+     */
+    @Test
+    void retryWaitsForTheRequestInFlight() throws Exception {
+        Long customerId = createCustomer();
+        String key = newKey();
+        String body = order(customerId, "5");
+        IdempotencyService.Request inFlight = new IdempotencyService.Request(scopedKey(key), fingerprint(body));
+        assertTrue(idempotencyService.claim(inFlight.getKey(), inFlight.getFingerprint()).isOwner());
+
+        long startNanos = System.nanoTime();
+        CompletableFuture<MockHttpServletResponse> retry = CompletableFuture.supplyAsync(() -> {
+            try {
+                return postOrder(key, body);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(WAIT_MILLIS);
+        byte[] storedBody = "{\"id\":42}".getBytes();
+        idempotencyService.complete(inFlight, new IdempotencyService.StoredResponse(
+                HttpStatus.CREATED.value(), MediaType.APPLICATION_JSON_VALUE, storedBody));
+
+        MockHttpServletResponse response = retry.get(10, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS));
+        assertEquals(HttpStatus.CREATED.value(), response.getStatus());
+        assertEquals(Boolean.TRUE.toString(), response.getHeader(CommonConstants.IDEMPOTENT_REPLAYED_HEADER));
+        assertArrayEquals(storedBody, response.getContentAsByteArray());
+        assertEquals(0, orderCount(customerId));
+    }
+
+    /**
+     * Reuses a key for an order with another price, while the key is in memory and after it was dropped from memory.
+     * Both attempts must be rejected with 422 and leave the first order the only one.
+     */
+    @Test
+    void rejectsAKeyReusedWithADifferentBody() throws Exception {
+        Long customerId = createCustomer();
+        String key = newKey();
+
+        assertEquals(HttpStatus.CREATED.value(), postOrder(key, order(customerId, "5")).getStatus());
+        MockHttpServletResponse fromMemory = postOrder(key, order(customerId, "6"));
+        idempotencyService.abandon(scopedKey(key));
+        MockHttpServletResponse fromDatabase = postOrder(key, order(customerId, "6"));
+
+        for (MockHttpServletResponse response : List.of(fromMemory, fromDatabase)) {
+            assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), response.getStatus());
+            assertNull(response.getHeader(CommonConstants.IDEMPOTENT_REPLAYED_HEADER));
+            assertTrue(response.getContentAsString().contains(CommonConstants.IDEMPOTENCY_KEY_REUSED));
+        }
+        assertEquals(1, orderCount(customerId));
+    }
+
+    /**
+     * A change that fails must take the claim of its key with it, so that the key can be used again.
+     */
+    @Test
+    void claimRollsBackWithTheChange() {
+        IdempotencyService.Request request = new IdempotencyService.Request(scopedKey(newKey()), fingerprint("{}"));
+
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute(request, () -> {
+            throw new IllegalStateException("Change failed");
+        }));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_record WHERE idempotency_key = ?",
+                                                    Integer.class, request.getKey()));
+        assertEquals("done", idempotencyService.execute(request, () -> "done"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_record WHERE idempotency_key = ?",
+                                                    Integer.class, request.getKey()));
+    }
+
+    private MockHttpServletResponse postOrder(String key, String body) throws Exception {
+        UserDetails system = userDetailsService.loadUserByUsername("system");
+        return mockMvc.perform(post(ORDERS_PATH)
+                                       .servletPath(ORDERS_PATH)
+                                       .with(user(system))
+                                       .header(CommonConstants.IDEMPOTENCY_KEY_HEADER, key)
+                                       .contentType(MediaType.APPLICATION_JSON)
+                                       .content(body))
+                .andReturn().getResponse();
+    }
+
+    /**
+     * A buy order of one GARAN, priced below every sell order of the shared database.
+     */
+    private static String order(Long customerId, String price) {
+        return "{\"customerId\":" + customerId + ",\"assetCode\":\"GARAN\",\"side\":\"BUY\",\"size\":1,\"price\":" + price + "}";
+    }
+
+    private static String newKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    private static String scopedKey(String key) {
+        return "system|" + ORDERS_PATH + '|' + key;
+    }
+
+    /**
+     * The fingerprint the filter computes for a request without a query string.
+     */
+    private static String fingerprint(String body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((byte) '\n');
+            digest.update(body.getBytes());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int orderCount(Long customerId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM trade_order WHERE customer_id = ?", Integer.class, customerId);
+    }
+
+    /**
+     * Creates a customer with 1000 TRY, all of it usable.
+     */
+    private Long createCustomer() {
+        return transactionTemplate.execute(status -> {
+            Customer customer = new Customer();
+            customer.setEnabled(true);
+            customer = customerRepository.save(customer);
+            customerIds.add(customer.getId());
+            BigDecimal funds = new BigDecimal("1000");
+            assetRepository.save(new Asset(null, customer, AssetCodes.TRY, funds, funds));
+            return customer.getId();
+        });
+    }
+}
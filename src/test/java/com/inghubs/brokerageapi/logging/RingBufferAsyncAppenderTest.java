@@ -0,0 +1,221 @@
+package com.inghubs.brokerageapi.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures what the per-fill log line costs the matching thread with logging off, synchronous and asynchronous,
+ * in-process against a sink that takes {@code logging.writeMicros} microseconds per line, as a console under load
+ * does. Each mode logs {@code logging.events} lines with the arguments of the trade execution line. With the line at
+ * DEBUG and the level at INFO it is skipped before any formatting; asynchronously the caller only hands the event to
+ * the ring buffer. Also checks what the overflow policies lose when the buffer fills up.
+ */
+class RingBufferAsyncAppenderTest {
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(RingBufferAsyncAppenderTest.class);
+    private static final int EVENTS = Integer.getInteger("logging.events", 20_000);
+    private static final long WRITE_NANOS = TimeUnit.MICROSECONDS.toNanos(Long.getLong("logging.writeMicros", 20));
+    private static final String TRADE_EXECUTED = "Trade executed: {} {} at price {} between buyer ID {} and seller ID {}";
+
+    private final LoggerContext context = new LoggerContext();
+
+    @BeforeEach
+    void startContext() {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        context.start();
+    }
+
+    @AfterEach
+    void stopContext() {
+        context.stop();
+    }
+
+    /**
+     * Logs the trade execution line in every mode and compares the time the caller spends per line. Synchronous
+     * logging pays for every write; asynchronous logging with a buffer that never fills must be several times
+     * cheaper, and logging off cheaper still. Every line logged asynchronously must still be written.
+     */
+    @Test
+    void asyncAndDisabledLoggingCostTheCallerLessThanSyncLogging() {
+        CountingSink syncSink = sink();
+        long syncNanos = run(logger("sync", Level.INFO, syncSink.appender), Level.INFO);
+
+        CountingSink asyncSink = sink();
+        RingBufferAsyncAppender async = async(asyncSink.appender, EVENTS, "BLOCK");
+        long asyncNanos = run(logger("async", Level.INFO, async), Level.INFO);
+        async.stop(); // Drains the buffer
+
+        CountingSink offSink = sink();
+        long offNanos = run(logger("off", Level.INFO, offSink.appender), Level.DEBUG);
+
+        log.info("{} lines: {} lines/s sync, {} lines/s async, {} lines/s off", EVENTS, perSecond(syncNanos),
+                 perSecond(asyncNanos), perSecond(offNanos));
+        assertEquals(EVENTS, syncSink.lines.get());
+        assertEquals(EVENTS, asyncSink.lines.get());
+        assertEquals(0, offSink.lines.get());
+        assertTrue(asyncNanos * 3 < syncNanos, () -> "async took " + asyncNanos / 1_000_000 + " ms, sync " + syncNanos / 1_000_000 + " ms");
+        assertTrue(offNanos < asyncNanos, () -> "off took " + offNanos / 1_000_000 + " ms, async " + asyncNanos / 1_000_000 + " ms");
+    }
+
+    /**
+     * Holds the sink while a buffer of 16 events fills up. With the DROP policy INFO lines are discarded once the
+     * buffer is nearly full, while the WARN lines logged after them still fit.
+     */
+    @Test
+    void dropPolicyDiscardsInfoLinesOfANearlyFullBuffer() {
+        int infoLines = 50;
+        int warnLines = 2;
+        CountingSink sink = sink();
+        CountDownLatch held = sink.hold();
+        RingBufferAsyncAppender drop = async(sink.appender, 16, "DROP");
+        Logger logger = logger("drop", Level.INFO, drop);
+
+        for (int i = 0; i < infoLines; i++) {
+            logger.info("Info line {}", i);
+        }
+        for (int i = 0; i < warnLines; i++) {
+            logger.warn("Warn line {}", i);
+        }
+        held.countDown();
+        drop.stop();
+
+        assertTrue(sink.lines.get() - sink.warnLines.get() < infoLines, "a nearly full buffer kept every INFO line");
+        assertEquals(warnLines, sink.warnLines.get());
+    }
+
+    /**
+     * Logs faster than the sink writes into a buffer of 16 events. With the BLOCK policy the caller waits and no line
+     * is lost.
+     */
+    @Test
+    void blockPolicyLosesNothing() {
+        int lines = 500;
+        CountingSink sink = sink();
+        RingBufferAsyncAppender block = async(sink.appender, 16, "BLOCK");
+        Logger logger = logger("block", Level.INFO, block);
+
+        for (int i = 0; i < lines; i++) {
+            logger.info("Info line {}", i);
+        }
+        block.stop();
+
+        assertEquals(lines, sink.lines.get());
+    }
+
+    /**
+     * Logs the trade execution line at the given level and returns the time the caller spent.
+     */
+    private static long run(Logger logger, Level level) {
+        BigDecimal size = new BigDecimal("10.00");
+        BigDecimal price = new BigDecimal("20.00");
+        long startNanos = System.nanoTime();
+        for (long i = 0; i < EVENTS; i++) {
+            if (level == Level.DEBUG) {
+                logger.debug(TRADE_EXECUTED, size, AssetCodes.GARAN, price, i, i + 1);
+            } else {
+                logger.info(TRADE_EXECUTED, size, AssetCodes.GARAN, price, i, i + 1);
+            }
+        }
+        return System.nanoTime() - startNanos;
+    }
+
+    private Logger logger(String name, Level level, Appender<ILoggingEvent> appender) {
+        Logger logger = context.getLogger(name);
+        logger.setLevel(level);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    private RingBufferAsyncAppender async(Appender<ILoggingEvent> sink, int queueSize, String overflowPolicy) {
+        RingBufferAsyncAppender async = new RingBufferAsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(queueSize);
+        async.setOverflowPolicy(overflowPolicy);
+        async.setMaxFlushTime(60_000);
+        async.addAppender(sink);
+        async.start();
+        return async;
+    }
+
+    private CountingSink sink() {
+        CountingSink sink = new CountingSink();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d %-5level [%thread] %logger - %msg%n");
+        encoder.start();
+        sink.appender.setContext(context);
+        sink.appender.setEncoder(encoder);
+        sink.appender.setOutputStream(sink);
+        sink.appender.start();
+        return sink;
+    }
+
+    private static long perSecond(long nanos) {
+        return EVENTS * 1_000_000_000L / Math.max(1, nanos);
+    }
+
+    /**
+     * Output stream that counts the lines written to it and takes {@link #WRITE_NANOS} per line.
+     */
+    private static final class CountingSink extends OutputStream {
+        private final OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>() {
+            @Override
+            protected void subAppend(ILoggingEvent event) {
+                super.subAppend(event);
+                if (event.getLevel() == Level.WARN) {
+                    warnLines.incrementAndGet();
+                }
+            }
+        };
+        private final AtomicInteger lines = new AtomicInteger();
+        private final AtomicInteger warnLines = new AtomicInteger();
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+
+        /**
+         * Makes every write wait until the returned latch is counted down.
+         */
+        CountDownLatch hold() {
+            gate = new CountDownLatch(1);
+            return gate;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long until = System.nanoTime() + WRITE_NANOS;
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+            lines.incrementAndGet();
+        }
+    }
+}
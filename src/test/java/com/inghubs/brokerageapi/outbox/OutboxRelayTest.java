@@ -0,0 +1,139 @@
+package com.inghubs.brokerageapi.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OutboxEventType;
+import com.inghubs.brokerageapi.entity.OutboxEvent;
+import com.inghubs.brokerageapi.repository.OutboxEventRepository;
+import com.inghubs.brokerageapi.repository.OutboxLeaseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks the scheduled outbox relay: it publishes no instrument whose outbox lease another instance holds, takes over
+ * a lease that expired, and publishes an event recorded by a transaction that commits late before the younger events
+ * recorded after it, since it only reads events older than the commit horizon.
+ */
+@SpringBootTest
+class OutboxRelayTest {
+    private static final String OTHER_INSTANCE = "other-instance";
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private OutboxLeaseRepository leaseRepository;
+    @Autowired
+    private InMemoryOutboxEventSink sink;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Value("${application.outbox.commit-horizon}")
+    private Duration commitHorizon;
+    @Value("${application.outbox.relay-interval}")
+    private Duration relayInterval;
+
+    /**
+     * Holds the lease of an instrument as another instance. An event of the instrument must stay unpublished for
+     * several relay runs past the commit horizon, and be published once the lease is released. A lease its holder
+     * let expire must be taken over.
+     */
+    @Test
+    void publishesOnlyInstrumentsWhoseLeaseItCanClaim() throws InterruptedException {
+        claimAsOtherInstance(Duration.ofMinutes(1));
+        try {
+            Long held = record(AssetCodes.GARAN);
+            Thread.sleep(commitHorizon.plus(relayInterval.multipliedBy(3)).toMillis());
+            assertNull(outboxEventRepository.findById(held).orElseThrow().getPublishedAt(), "published while another instance held the lease");
+
+            assertEquals(1, leaseRepository.release(AssetCodes.GARAN, OTHER_INSTANCE));
+            awaitPublished(held);
+        } finally {
+            leaseRepository.release(AssetCodes.GARAN, OTHER_INSTANCE);
+        }
+
+        claimAsOtherInstance(Duration.ofSeconds(-1));
+        awaitPublished(record(AssetCodes.GARAN));
+    }
+
+    /**
+     * Records an event in a transaction that stays open while a younger event of the same instrument commits, and
+     * commits it after two relay runs, before the commit horizon has passed. The relay must publish the older event
+     * first.
+     */
+    @Test
+    void publishesAnEventThatCommitsLateInRecordingOrder() throws Exception {
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Long> lateCommit = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            Long id = outboxEventRepository.save(event(AssetCodes.SASA)).getId();
+            recorded.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return id;
+        }));
+        assertTrue(recorded.await(10, TimeUnit.SECONDS));
+        Long younger = record(AssetCodes.SASA);
+
+        Thread.sleep(relayInterval.multipliedBy(2).toMillis()); // Shorter than the commit horizon
+        assertNull(outboxEventRepository.findById(younger).orElseThrow().getPublishedAt(), "published within the commit horizon");
+        commit.countDown();
+        Long older = lateCommit.get(10, TimeUnit.SECONDS);
+
+        awaitPublished(older);
+        awaitPublished(younger);
+        List<Long> published = sink.getEvents().stream()
+                .map(OutboxEvent::getId)
+                .filter(id -> id.equals(older) || id.equals(younger))
+                .toList();
+        assertEquals(List.of(older, younger), published);
+    }
+
+    /**
+     * Claims the GARAN lease as another instance, waiting for a relay run of this instance to release it.
+     */
+    private void claimAsOtherInstance(Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            if (leaseRepository.claim(AssetCodes.GARAN, OTHER_INSTANCE, now, now.plus(duration)) == 1) {
+                return;
+            }
+            assertTrue(System.nanoTime() < deadline, "the GARAN lease was not released");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Records and commits an event of an instrument.
+     */
+    private Long record(AssetCodes assetCode) {
+        return transactionTemplate.execute(status -> outboxEventRepository.save(event(assetCode)).getId());
+    }
+
+    private static OutboxEvent event(AssetCodes assetCode) {
+        return new OutboxEvent(OutboxEventType.TRADE_EXECUTED, 0L, assetCode, "{}");
+    }
+
+    private void awaitPublished(Long eventId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (outboxEventRepository.findById(eventId).orElseThrow().getPublishedAt() == null) {
+            assertTrue(System.nanoTime() < deadline, () -> "event " + eventId + " was not published");
+            Thread.sleep(50);
+        }
+    }
+}
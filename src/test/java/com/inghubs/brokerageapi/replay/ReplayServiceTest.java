@@ -0,0 +1,178 @@
+package com.inghubs.brokerageapi.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inghubs.brokerageapi.BrokerageapiApplication;
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.ReplayCommandType;
+import com.inghubs.brokerageapi.constant.TransactionType;
+import com.inghubs.brokerageapi.dto.ReplayCommand;
+import com.inghubs.brokerageapi.dto.ReplayReport;
+import com.inghubs.brokerageapi.entity.Customer;
+import com.inghubs.brokerageapi.entity.Transaction;
+import com.inghubs.brokerageapi.repository.CustomerRepository;
+import com.inghubs.brokerageapi.service.TradeMatchingService;
+import com.inghubs.brokerageapi.service.TradeOrderService;
+import com.inghubs.brokerageapi.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Records a short session in the command journal and replays it twice, each time from a fresh database, through the
+ * replay profile. Both replays must reproduce the recorded trades and the recorded final balances of every customer
+ * the session changed, including the seeded customer, and give the same digest. A journal whose recorded balances
+ * were altered must be reported as a balance mismatch. Every application runs in its own context and in-memory
+ * database; the replaying ones run without the runner, which would exit the JVM.
+ */
+class ReplayServiceTest {
+    private static final Logger log = LoggerFactory.getLogger(ReplayServiceTest.class);
+    private static final Path JOURNAL = Path.of("target", "replay-test-journal.jsonl");
+
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    @AfterEach
+    void closeContexts() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    /**
+     * Records orders, matches, a cancel, a mass cancel, deposits and a withdrawal, then replays the journal twice.
+     */
+    @Test
+    void replayReproducesTradesAndBalances() throws IOException {
+        record();
+        List<ReplayCommand> journal = read(JOURNAL);
+        List<Long> balanceCustomers = journal.stream()
+                .filter(command -> command.getType() == ReplayCommandType.BALANCE)
+                .map(ReplayCommand::getCustomerId)
+                .toList();
+        assertEquals(3, balanceCustomers.size(), "balances recorded for the seeded customer and both new customers");
+        assertTrue(balanceCustomers.contains(1L));
+
+        ReplayReport first = replay(JOURNAL);
+        ReplayReport second = replay(JOURNAL);
+        log.info("Replayed {} commands and {} trades, digest {}", first.getCommands(), first.getTrades(), first.getDigest());
+
+        for (ReplayReport report : List.of(first, second)) {
+            assertEquals(journal.size(), report.getCommands());
+            assertEquals(0, report.getFailures());
+            assertEquals(0, report.getMismatches());
+            assertEquals(0, report.getBalanceMismatches());
+        }
+        assertEquals(3, first.getTrades());
+        assertEquals(first.getDigest(), second.getDigest());
+
+        // A balance the replay cannot reach must be reported
+        Path altered = JOURNAL.resolveSibling("replay-test-journal-altered.jsonl");
+        ObjectMapper objectMapper = contexts.get(0).getBean(ObjectMapper.class);
+        List<String> lines = new ArrayList<>();
+        for (ReplayCommand command : journal) {
+            if (command.getType() == ReplayCommandType.BALANCE && command.getCustomerId() == 1L) {
+                command.getBalances().get(0).setSize(command.getBalances().get(0).getSize().add(BigDecimal.ONE));
+            }
+            lines.add(objectMapper.writeValueAsString(command));
+        }
+        Files.write(altered, lines);
+        ReplayReport alteredReport = replay(altered);
+        assertEquals(0, alteredReport.getMismatches());
+        assertEquals(1, alteredReport.getBalanceMismatches());
+    }
+
+    /**
+     * Runs the session with the journal enabled and closes the application, which records the final balances.
+     */
+    private void record() throws IOException {
+        Files.deleteIfExists(JOURNAL);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BrokerageapiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(databaseArgument(),
+                     "--application.warm-up.enabled=false",
+                     "--application.replay.journal.enabled=true",
+                     "--application.replay.journal.file=" + JOURNAL);
+        try {
+            TradeOrderService orders = context.getBean(TradeOrderService.class);
+            TradeMatchingService matching = context.getBean(TradeMatchingService.class);
+            TransactionService transactions = context.getBean(TransactionService.class);
+            CustomerRepository customers = context.getBean(CustomerRepository.class);
+            Long buyer = customers.save(enabledCustomer()).getId();
+            Long secondBuyer = customers.save(enabledCustomer()).getId();
+
+            transactions.checkAndSaveTransaction(transaction(buyer, TransactionType.DEPOSIT, "1000"));
+            transactions.checkAndSaveTransaction(transaction(secondBuyer, TransactionType.DEPOSIT, "500"));
+            orders.createTradeOrder(buyer, AssetCodes.GARAN, OrderSide.BUY, new BigDecimal("10"), new BigDecimal("20"));
+            matching.matchOrders(AssetCodes.GARAN);
+
+            orders.createTradeOrder(buyer, AssetCodes.GARAN, OrderSide.SELL, new BigDecimal("4"), new BigDecimal("21"));
+            orders.createTradeOrder(secondBuyer, AssetCodes.GARAN, OrderSide.BUY, new BigDecimal("6"), new BigDecimal("21"));
+            matching.matchOrders(AssetCodes.GARAN);
+            Long canceled = orders.createTradeOrder(secondBuyer, AssetCodes.ING, OrderSide.BUY, new BigDecimal("3"), new BigDecimal("15")).getId();
+            orders.cancelTradeOrder(canceled);
+            orders.cancelTradeOrders(secondBuyer, null, null);
+
+            orders.createTradeOrder(buyer, AssetCodes.SASA, OrderSide.BUY, new BigDecimal("2"), new BigDecimal("20"));
+            matching.matchOrders(AssetCodes.SASA);
+            transactions.checkAndSaveTransaction(transaction(buyer, TransactionType.WITHDRAWAL, "100"));
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Replays a journal in a new application with the replay profile and a fresh database.
+     */
+    private ReplayReport replay(Path journal) throws IOException {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BrokerageapiApplication.class)
+                .profiles("replay")
+                .initializers(applicationContext -> applicationContext.addBeanFactoryPostProcessor(
+                        beanFactory -> ((BeanDefinitionRegistry) beanFactory).removeBeanDefinition("replayRunner")))
+                .run(databaseArgument());
+        contexts.add(context);
+        return context.getBean(ReplayService.class).replay(journal);
+    }
+
+    private List<ReplayCommand> read(Path journal) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        List<ReplayCommand> commands = new ArrayList<>();
+        for (String line : Files.readAllLines(journal)) {
+            commands.add(objectMapper.readValue(line, ReplayCommand.class));
+        }
+        return commands;
+    }
+
+    private static String databaseArgument() {
+        return "--spring.datasource.url=jdbc:h2:mem:replay-" + UUID.randomUUID();
+    }
+
+    private static Customer enabledCustomer() {
+        Customer customer = new Customer();
+        customer.setEnabled(true);
+        return customer;
+    }
+
+    private static Transaction transaction(Long customerId, TransactionType type, String amount) {
+        Customer customer = new Customer();
+        customer.setId(customerId);
+        Transaction transaction = new Transaction();
+        transaction.setCustomer(customer);
+        transaction.setType(type);
+        transaction.setAmount(new BigDecimal(amount));
+        return transaction;
+    }
+}
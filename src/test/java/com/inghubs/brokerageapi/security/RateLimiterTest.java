@@ -0,0 +1,193 @@
+package com.inghubs.brokerageapi.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.RateLimitCategory;
+import com.inghubs.brokerageapi.controller.TradeOrderController;
+import com.inghubs.brokerageapi.dto.BulkCreateOrderRequest;
+import com.inghubs.brokerageapi.dto.BulkCreateOrderResponse;
+import com.inghubs.brokerageapi.dto.BulkOrderItem;
+import com.inghubs.brokerageapi.entity.Asset;
+import com.inghubs.brokerageapi.entity.Customer;
+import com.inghubs.brokerageapi.entity.User;
+import com.inghubs.brokerageapi.exception.RateLimitExceededException;
+import com.inghubs.brokerageapi.repository.AssetRepository;
+import com.inghubs.brokerageapi.repository.CustomerRepository;
+import com.inghubs.brokerageapi.service.TradeOrderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks the per-customer rate limiter: a bucket admits a burst at once and then refills at its rate, a request may
+ * take several tokens, and one that takes more than a burst is admitted only from a full bucket and leaves it in
+ * debt. The bucket tests use their own limiter of 10 order entries per second with a burst of 5; the bulk order
+ * entry test goes through the application's limiter and checks that every order of a bulk request takes a token.
+ */
+@SpringBootTest
+class RateLimiterTest {
+    private static final int RATE = 10;
+    private static final int BURST = 5;
+    private static final long INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / RATE;
+    private static final int BULK_ORDERS = 80;
+
+    @Autowired
+    private TradeOrderController tradeOrderController;
+    @Autowired
+    private RateLimiter rateLimiter;
+    @Autowired
+    private TradeOrderService tradeOrderService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Value("${application.rate-limit.order-entry.burst}")
+    private int orderEntryBurst;
+
+    private final List<Long> customerIds = new ArrayList<>();
+
+    @AfterEach
+    void cancelOrders() {
+        SecurityContextHolder.clearContext();
+        customerIds.forEach(customerId -> tradeOrderService.cancelTradeOrders(customerId, null, null));
+    }
+
+    /**
+     * Takes a whole burst at once, which must be admitted, and one more token, which must wait about one emission
+     * interval. Once that wait has passed one token must be admitted and the next rejected again. The other categories
+     * and the other customers must not be affected.
+     */
+    @Test
+    void admitsABurstAndRefillsAtTheRate() throws InterruptedException {
+        RateLimiter limiter = limiter();
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(0, limiter.tryAcquire(1L, RateLimitCategory.ORDER_ENTRY), "token " + i + " of the burst");
+        }
+        long wait = limiter.tryAcquire(1L, RateLimitCategory.ORDER_ENTRY);
+        assertTrue(wait > 0 && wait <= INTERVAL_NANOS, () -> "waits " + wait + " ns after the burst");
+
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(wait) + 20);
+        assertEquals(0, limiter.tryAcquire(1L, RateLimitCategory.ORDER_ENTRY), "refilled token");
+        assertTrue(limiter.tryAcquire(1L, RateLimitCategory.ORDER_ENTRY) > 0, "admitted more than the refill");
+
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(0, limiter.tryAcquire(1L, RateLimitCategory.CANCEL), "cancel token " + i);
+            assertEquals(0, limiter.tryAcquire(2L, RateLimitCategory.ORDER_ENTRY), "order entry token " + i + " of another customer");
+        }
+    }
+
+    /**
+     * Takes several tokens per request. A request must be admitted only if the bucket covers all its tokens, and
+     * rejected without taking any otherwise. A request for more tokens than the burst must wait for a full bucket and
+     * then leave the bucket in debt for the tokens beyond the burst.
+     */
+    @Test
+    void chargesEveryTokenOfARequest() throws InterruptedException {
+        RateLimiter limiter = limiter();
+        assertEquals(0, limiter.tryAcquire(1L, RateLimitCategory.ORDER_ENTRY, 3));
+        long wait = limiter.tryAcquire(1L, RateLimitCategory.ORDER_ENTRY, 4);
+        assertTrue(wait > INTERVAL_NANOS && wait <= 2 * INTERVAL_NANOS, () -> "4 tokens of 2 left wait " + wait + " ns");
+        assertEquals(0, limiter.tryAcquire(1L, RateLimitCategory.ORDER_ENTRY, 2), "the tokens left");
+        assertTrue(limiter.tryAcquire(1L, RateLimitCategory.ORDER_ENTRY) > 0, "admitted from an empty bucket");
+
+        assertEquals(0, limiter.tryAcquire(2L, RateLimitCategory.ORDER_ENTRY));
+        long fullBucketWait = limiter.tryAcquire(2L, RateLimitCategory.ORDER_ENTRY, 2 * BURST);
+        assertTrue(fullBucketWait > 0 && fullBucketWait <= INTERVAL_NANOS, () -> "more than a burst waits " + fullBucketWait + " ns");
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(fullBucketWait) + 20);
+        assertEquals(0, limiter.tryAcquire(2L, RateLimitCategory.ORDER_ENTRY, 2 * BURST), "more than a burst from a full bucket");
+        long debtWait = limiter.tryAcquire(2L, RateLimitCategory.ORDER_ENTRY);
+        assertTrue(debtWait > BURST * INTERVAL_NANOS * 3 / 4, () -> "a token after the debt waits " + debtWait + " ns");
+    }
+
+    /**
+     * Submits a bulk request of 80 orders for a customer and then asks the application's limiter for a whole burst.
+     * Had the bulk request taken a single token, the bucket would refill within an emission interval; with one token
+     * per order it must stay in debt for most of a second, and a second bulk request must be rejected, which the API
+     * answers with 429.
+     */
+    @Test
+    void bulkOrderEntryTakesATokenPerOrder() {
+        Long customerId = createCustomer(BigDecimal.valueOf(BULK_ORDERS));
+        User user = adminOf(customerId);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+
+        ResponseEntity<BulkCreateOrderResponse> response = tradeOrderController.createTradeOrders(user, bulkRequest(customerId, BULK_ORDERS), null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(BULK_ORDERS, response.getBody().getAccepted());
+
+        long wait = rateLimiter.tryAcquire(customerId, RateLimitCategory.ORDER_ENTRY, orderEntryBurst);
+        assertTrue(wait > TimeUnit.SECONDS.toNanos(1), () -> "a burst after the bulk request waits " + wait + " ns");
+
+        RateLimitExceededException rejection = assertThrows(RateLimitExceededException.class,
+                () -> tradeOrderController.createTradeOrders(user, bulkRequest(customerId, orderEntryBurst), null));
+        assertTrue(rejection.getRetryAfterSeconds() >= 1);
+    }
+
+    private static BulkCreateOrderRequest bulkRequest(Long customerId, int orders) {
+        List<BulkOrderItem> items = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            BulkOrderItem item = new BulkOrderItem();
+            item.setAssetCode(AssetCodes.SASA);
+            item.setSide(OrderSide.BUY);
+            item.setSize(BigDecimal.ONE);
+            item.setPrice(BigDecimal.ONE);
+            items.add(item);
+        }
+        BulkCreateOrderRequest request = new BulkCreateOrderRequest();
+        request.setCustomerId(customerId);
+        request.setOrders(items);
+        return request;
+    }
+
+    private static RateLimiter limiter() {
+        return new RateLimiter(new SimpleMeterRegistry(), true, RATE, BURST, RATE, BURST, RATE, BURST, 100);
+    }
+
+    /**
+     * Returns an admin of the customer, who is rate limited as the customer.
+     */
+    private static User adminOf(Long customerId) {
+        Customer customer = new Customer();
+        customer.setId(customerId);
+        User user = new User();
+        user.setUsername("rate-limited-" + customerId);
+        user.setPassword("");
+        user.setRoles(List.of("ADMIN"));
+        user.setCustomer(customer);
+        return user;
+    }
+
+    /**
+     * Creates a customer with the given TRY balance, all of it usable.
+     */
+    private Long createCustomer(BigDecimal tryBalance) {
+        Long customerId = transactionTemplate.execute(status -> {
+            Customer customer = new Customer();
+            customer.setEnabled(true);
+            customer = customerRepository.save(customer);
+            assetRepository.save(new Asset(null, customer, AssetCodes.TRY, tryBalance, tryBalance));
+            return customer.getId();
+        });
+        customerIds.add(customerId);
+        return customerId;
+    }
+}
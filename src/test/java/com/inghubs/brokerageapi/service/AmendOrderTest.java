@@ -0,0 +1,159 @@
+package com.inghubs.brokerageapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.entity.Asset;
+import com.inghubs.brokerageapi.entity.Customer;
+import com.inghubs.brokerageapi.entity.TradeOrder;
+import com.inghubs.brokerageapi.exception.InsufficientBalanceException;
+import com.inghubs.brokerageapi.repository.AssetRepository;
+import com.inghubs.brokerageapi.repository.CustomerRepository;
+import com.inghubs.brokerageapi.repository.TradeOrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks order amendments: the difference between the old and the new amount of an order is locked or released on
+ * the asset the order holds, an amendment the customer cannot fund changes nothing, and a requeued order keeps its
+ * create date. The orders are priced so that they cross no order of the shared database, and canceled after every
+ * test.
+ */
+@SpringBootTest
+class AmendOrderTest {
+
+    @Autowired
+    private TradeOrderService tradeOrderService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private TradeOrderRepository tradeOrderRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> customerIds = new ArrayList<>();
+
+    @AfterEach
+    void cancelOrders() {
+        customerIds.forEach(customerId -> tradeOrderService.cancelTradeOrders(customerId, null, null));
+    }
+
+    /**
+     * Amends a buy order, which holds TRY for its size times its price, through a smaller size, a higher price and
+     * both at once, and checks the usable TRY after every step. Canceling the order must release what is left.
+     */
+    @Test
+    void buyOrderLocksAndReleasesTheDifferenceInTry() {
+        Long customerId = createCustomer(new BigDecimal("1000"), BigDecimal.ZERO);
+        Long orderId = place(customerId, OrderSide.BUY, "10", "5");      // 50 TRY
+        assertUsable(customerId, AssetCodes.TRY, "950");
+
+        tradeOrderService.amendTradeOrder(orderId, new BigDecimal("6"), null);                      // 30 TRY
+        assertUsable(customerId, AssetCodes.TRY, "970");
+        tradeOrderService.amendTradeOrder(orderId, null, new BigDecimal("8"));                      // 48 TRY
+        assertUsable(customerId, AssetCodes.TRY, "952");
+        tradeOrderService.amendTradeOrder(orderId, new BigDecimal("20"), new BigDecimal("2.5"));    // 50 TRY
+        assertUsable(customerId, AssetCodes.TRY, "950");
+
+        tradeOrderService.cancelTradeOrders(customerId, null, null);
+        assertUsable(customerId, AssetCodes.TRY, "1000");
+    }
+
+    /**
+     * Amends a sell order, which holds its size in shares whatever its price, and checks that only size changes
+     * move the usable GARAN.
+     */
+    @Test
+    void sellOrderLocksAndReleasesTheDifferenceInShares() {
+        Long customerId = createCustomer(BigDecimal.ZERO, new BigDecimal("100"));
+        Long orderId = place(customerId, OrderSide.SELL, "10", "70");
+        assertUsable(customerId, AssetCodes.GARAN, "90");
+
+        tradeOrderService.amendTradeOrder(orderId, new BigDecimal("25"), null);
+        assertUsable(customerId, AssetCodes.GARAN, "75");
+        tradeOrderService.amendTradeOrder(orderId, null, new BigDecimal("80"));
+        assertUsable(customerId, AssetCodes.GARAN, "75");
+        tradeOrderService.amendTradeOrder(orderId, new BigDecimal("4"), new BigDecimal("75"));
+        assertUsable(customerId, AssetCodes.GARAN, "96");
+    }
+
+    /**
+     * An amendment that needs more than the usable balance must be rejected and leave the order and the balance as
+     * they were.
+     */
+    @Test
+    void unfundedAmendmentChangesNothing() {
+        Long customerId = createCustomer(new BigDecimal("100"), BigDecimal.ZERO);
+        Long orderId = place(customerId, OrderSide.BUY, "10", "5");      // 50 TRY
+
+        assertThrows(InsufficientBalanceException.class,
+                     () -> tradeOrderService.amendTradeOrder(orderId, new BigDecimal("10"), new BigDecimal("10.01")));
+
+        assertUsable(customerId, AssetCodes.TRY, "50");
+        TradeOrder order = tradeOrderRepository.findById(orderId).orElseThrow();
+        assertEquals(0, new BigDecimal("10").compareTo(order.getSize()));
+        assertEquals(0, new BigDecimal("5").compareTo(order.getPrice()));
+    }
+
+    /**
+     * A requeue records when the order joined its new queue and keeps the create date, which the date range listing
+     * filters on; a size reduction changes neither.
+     */
+    @Test
+    void requeueKeepsTheCreateDate() {
+        Long customerId = createCustomer(new BigDecimal("1000"), BigDecimal.ZERO);
+        Long orderId = place(customerId, OrderSide.BUY, "10", "5");
+        TradeOrder created = tradeOrderRepository.findById(orderId).orElseThrow();
+
+        tradeOrderService.amendTradeOrder(orderId, new BigDecimal("8"), null);
+        TradeOrder reduced = tradeOrderRepository.findById(orderId).orElseThrow();
+        assertEquals(created.getCreateDate(), reduced.getCreateDate());
+        assertNull(reduced.getQueuedAt());
+
+        tradeOrderService.amendTradeOrder(orderId, null, new BigDecimal("6"));
+        TradeOrder requeued = tradeOrderRepository.findById(orderId).orElseThrow();
+        assertEquals(created.getCreateDate(), requeued.getCreateDate());
+        assertNotNull(requeued.getQueuedAt());
+    }
+
+    /**
+     * Creates a customer with the given TRY and GARAN balances, all of them usable.
+     */
+    private Long createCustomer(BigDecimal tryBalance, BigDecimal garanBalance) {
+        return transactionTemplate.execute(status -> {
+            Customer customer = new Customer();
+            customer.setEnabled(true);
+            customer = customerRepository.save(customer);
+            customerIds.add(customer.getId());
+            assetRepository.save(new Asset(null, customer, AssetCodes.TRY, tryBalance, tryBalance));
+            assetRepository.save(new Asset(null, customer, AssetCodes.GARAN, garanBalance, garanBalance));
+            return customer.getId();
+        });
+    }
+
+    private Long place(Long customerId, OrderSide side, String size, String price) {
+        return tradeOrderService.createTradeOrder(customerId, AssetCodes.GARAN, side, new BigDecimal(size), new BigDecimal(price)).getId();
+    }
+
+    private void assertUsable(Long customerId, AssetCodes assetCode, String usableSize) {
+        BigDecimal usable = jdbcTemplate.queryForObject("SELECT usable_size FROM asset WHERE customer_id = ? AND asset_code = ?",
+                                                        BigDecimal.class, customerId, assetCode.name());
+        assertEquals(0, new BigDecimal(usableSize).compareTo(usable), () -> assetCode + " usable size of customer " + customerId);
+    }
+}
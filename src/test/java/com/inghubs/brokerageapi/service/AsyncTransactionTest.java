@@ -0,0 +1,226 @@
+package com.inghubs.brokerageapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.TransactionStatus;
+import com.inghubs.brokerageapi.constant.TransactionType;
+import com.inghubs.brokerageapi.entity.Asset;
+import com.inghubs.brokerageapi.entity.Customer;
+import com.inghubs.brokerageapi.entity.Transaction;
+import com.inghubs.brokerageapi.repository.AssetRepository;
+import com.inghubs.brokerageapi.repository.CustomerRepository;
+import com.inghubs.brokerageapi.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks asynchronous deposits and withdrawals: the request is answered with 202 and the pending transaction, and
+ * the background processor applies it shortly after. Batches drained by several processors at once, next to the
+ * scheduled one, must apply every transaction exactly once and in ID order per customer.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AsyncTransactionTest {
+    private static final Logger log = LoggerFactory.getLogger(AsyncTransactionTest.class);
+    private static final String TRANSACTIONS_PATH = "/api/transactions";
+    private static final int PROCESSORS = 4;
+    private static final int BATCH_SIZE = 7;
+    private static final int CUSTOMERS = 3;
+    private static final int TRANSACTIONS_PER_CUSTOMER = 40;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserDetailsService userDetailsService;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Posts an asynchronous deposit. The response must be 202 with the transaction still pending, and the deposit
+     * must be applied once by the background processor.
+     */
+    @Test
+    void asyncDepositIsAcceptedAndAppliedInTheBackground() throws Exception {
+        Long customerId = createCustomer(new BigDecimal("100"));
+
+        MockHttpServletResponse response = mockMvc.perform(post(TRANSACTIONS_PATH)
+                                                                   .servletPath(TRANSACTIONS_PATH)
+                                                                   .param("async", "true")
+                                                                   .with(user(userDetailsService.loadUserByUsername("system")))
+                                                                   .contentType(MediaType.APPLICATION_JSON)
+                                                                   .content("{\"customer\":{\"id\":" + customerId
+                                                                                    + "},\"type\":\"DEPOSIT\",\"amount\":250}"))
+                .andReturn().getResponse();
+
+        assertEquals(HttpStatus.ACCEPTED.value(), response.getStatus());
+        JsonNode body = objectMapper.readTree(response.getContentAsByteArray());
+        assertEquals(TransactionStatus.PENDING.name(), body.get("status").asText());
+        assertEquals(false, body.get("processed").asBoolean());
+
+        Long transactionId = body.get("id").asLong();
+        awaitStatus(transactionId, TransactionStatus.PROCESSED);
+        assertBalance(customerId, "350");
+    }
+
+    /**
+     * Accepts deposits and withdrawals for several customers, some withdrawals more than the balance before them,
+     * and drains them with several processors at once and small batches. Every transaction must end processed or
+     * failed as applying all of them one by one in ID order would, and every balance must have changed once by the
+     * processed ones.
+     */
+    @Test
+    void concurrentBatchesApplyEveryTransactionOnce() throws InterruptedException {
+        Map<Long, TransactionStatus> expectedStatuses = new HashMap<>();
+        List<Long> customerIds = new ArrayList<>();
+        List<BigDecimal> expectedBalances = new ArrayList<>();
+        for (int c = 0; c < CUSTOMERS; c++) {
+            customerIds.add(createCustomer(BigDecimal.ZERO));
+        }
+        // Committed at once, so the processors find all of them pending
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Long customerId : customerIds) {
+                BigDecimal balance = BigDecimal.ZERO;
+                for (int i = 0; i < TRANSACTIONS_PER_CUSTOMER; i++) {
+                    // Deposits of 10 with a withdrawal of 25 every third transaction, which the first ones cannot cover
+                    boolean withdrawal = i % 3 == 2;
+                    BigDecimal amount = new BigDecimal(withdrawal ? "25" : "10");
+                    Long transactionId = transactionService.acceptTransaction(transaction(customerId, withdrawal, amount)).getId();
+                    if (!withdrawal) {
+                        balance = balance.add(amount);
+                        expectedStatuses.put(transactionId, TransactionStatus.PROCESSED);
+                    } else if (balance.compareTo(amount) >= 0) {
+                        balance = balance.subtract(amount);
+                        expectedStatuses.put(transactionId, TransactionStatus.PROCESSED);
+                    } else {
+                        expectedStatuses.put(transactionId, TransactionStatus.FAILED);
+                    }
+                }
+                expectedBalances.add(balance);
+            }
+        });
+
+        AtomicInteger batches = new AtomicInteger();
+        AtomicInteger lockConflicts = new AtomicInteger();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> processors = new ArrayList<>();
+        for (int p = 0; p < PROCESSORS; p++) {
+            Thread processor = new Thread(() -> {
+                try {
+                    start.await();
+                    while (pendingCount() > 0) {
+                        try {
+                            batches.addAndGet(transactionService.processPendingTransactions(BATCH_SIZE) > 0 ? 1 : 0);
+                        } catch (ConcurrencyFailureException e) {
+                            lockConflicts.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }, "transaction-processor-" + p);
+            processor.start();
+            processors.add(processor);
+        }
+        start.countDown();
+        for (Thread processor : processors) {
+            processor.join(TimeUnit.MINUTES.toMillis(2));
+        }
+
+        log.info("{} transactions drained by {} processors in {} batches, {} lock conflicts", expectedStatuses.size(), PROCESSORS,
+                 batches.get(), lockConflicts.get());
+        assertTrue(failures.isEmpty(), () -> "Unexpected failure, first: " + failures.get(0));
+        for (Map.Entry<Long, TransactionStatus> expected : expectedStatuses.entrySet()) {
+            assertEquals(expected.getValue(), transactionRepository.findById(expected.getKey()).orElseThrow().getStatus(),
+                         () -> "status of transaction " + expected.getKey());
+        }
+        for (int c = 0; c < CUSTOMERS; c++) {
+            assertBalance(customerIds.get(c), expectedBalances.get(c).toPlainString());
+        }
+    }
+
+    private int pendingCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction WHERE status = ?", Integer.class, TransactionStatus.PENDING.name());
+    }
+
+    private void awaitStatus(Long transactionId, TransactionStatus status) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (transactionRepository.findById(transactionId).orElseThrow().getStatus() != status) {
+            assertTrue(System.nanoTime() < deadline, () -> "transaction " + transactionId + " did not become " + status);
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * Asserts the TRY balance of a customer, with nothing of it locked.
+     */
+    private void assertBalance(Long customerId, String expected) {
+        Map<String, Object> balance = jdbcTemplate.queryForMap("SELECT size, usable_size FROM asset WHERE customer_id = ? AND asset_code = ?",
+                                                               customerId, AssetCodes.TRY.name());
+        assertEquals(0, new BigDecimal(expected).compareTo((BigDecimal) balance.get("size")), () -> "TRY of customer " + customerId);
+        assertEquals(0, new BigDecimal(expected).compareTo((BigDecimal) balance.get("usable_size")), () -> "usable TRY of customer " + customerId);
+    }
+
+    private static Transaction transaction(Long customerId, boolean withdrawal, BigDecimal amount) {
+        Customer customer = new Customer();
+        customer.setId(customerId);
+        Transaction transaction = new Transaction();
+        transaction.setCustomer(customer);
+        transaction.setType(withdrawal ? TransactionType.WITHDRAWAL : TransactionType.DEPOSIT);
+        transaction.setAmount(amount);
+        return transaction;
+    }
+
+    /**
+     * Creates a customer with the given TRY balance, all of it usable.
+     */
+    private Long createCustomer(BigDecimal tryBalance) {
+        return transactionTemplate.execute(status -> {
+            Customer customer = new Customer();
+            customer.setEnabled(true);
+            customer = customerRepository.save(customer);
+            assetRepository.save(new Asset(null, customer, AssetCodes.TRY, tryBalance, tryBalance));
+            return customer.getId();
+        });
+    }
+}
@@ -0,0 +1,202 @@
+package com.inghubs.brokerageapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.BulkOrderStatus;
+import com.inghubs.brokerageapi.constant.CommonConstants;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.OrderStatus;
+import com.inghubs.brokerageapi.dto.BulkCreateOrderResponse;
+import com.inghubs.brokerageapi.dto.BulkOrderItem;
+import com.inghubs.brokerageapi.dto.BulkOrderResult;
+import com.inghubs.brokerageapi.entity.Asset;
+import com.inghubs.brokerageapi.entity.Customer;
+import com.inghubs.brokerageapi.entity.TradeOrder;
+import com.inghubs.brokerageapi.repository.AssetRepository;
+import com.inghubs.brokerageapi.repository.CustomerRepository;
+import com.inghubs.brokerageapi.repository.TradeOrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks bulk order entry: every order is accepted or rejected on its own, the accepted orders lock exactly their
+ * combined amounts, and a bulk submission enters orders faster than the same orders submitted one by one. The
+ * number of orders of the throughput comparison is set with the {@code bulk.orders} system property.
+ * The orders are priced so that they cross no order of the shared database, and canceled after every test.
+ */
+@SpringBootTest
+class BulkOrderEntryTest {
+    private static final Logger log = LoggerFactory.getLogger(BulkOrderEntryTest.class);
+    private static final int ORDERS = Integer.getInteger("bulk.orders", 200);
+
+    @Autowired
+    private TradeOrderService tradeOrderService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private TradeOrderRepository tradeOrderRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> customerIds = new ArrayList<>();
+
+    @AfterEach
+    void cancelOrders() {
+        customerIds.forEach(customerId -> tradeOrderService.cancelTradeOrders(customerId, null, null));
+    }
+
+    /**
+     * Submits orders of which some are invalid, one asks for an asset the customer does not hold and one no longer
+     * fits the TRY left after the orders before it. The others must be created and lock their amounts, and every
+     * rejection must leave the balances alone.
+     */
+    @Test
+    void rejectsFailingOrdersAndLocksTheRest() {
+        Long customerId = createCustomer(new BigDecimal("100"), new BigDecimal("10"));
+        List<BulkOrderItem> items = List.of(
+                item(AssetCodes.GARAN, OrderSide.BUY, "10", "5"),    // 50 TRY, accepted
+                item(AssetCodes.GARAN, OrderSide.BUY, "10", "6"),    // 60 TRY, only 50 left
+                item(AssetCodes.GARAN, OrderSide.BUY, "0", "5"),     // Invalid size
+                item(null, OrderSide.SELL, "1", "70"),               // Missing asset
+                item(AssetCodes.ING, OrderSide.SELL, "1", "70"),     // No ING held
+                item(AssetCodes.GARAN, OrderSide.SELL, "4", "70"),   // 4 GARAN, accepted
+                item(AssetCodes.GARAN, OrderSide.BUY, "5", "10"),    // The remaining 50 TRY, accepted
+                item(AssetCodes.GARAN, OrderSide.SELL, "7", "70"));  // Only 6 GARAN left
+
+        BulkCreateOrderResponse response = tradeOrderService.createTradeOrders(customerId, items);
+
+        assertEquals(3, response.getAccepted());
+        assertEquals(5, response.getRejected());
+        List<BulkOrderResult> results = response.getResults();
+        assertEquals(items.size(), results.size());
+        assertAccepted(results.get(0), 0);
+        assertRejected(results.get(1), 1, CommonConstants.INSUFFICIENT_ASSET_BALANCE);
+        assertRejected(results.get(2), 2, CommonConstants.INVALID_ORDER_AMOUNT);
+        assertRejected(results.get(3), 3, CommonConstants.INVALID_ORDER_ITEM);
+        assertRejected(results.get(4), 4, CommonConstants.ASSET_NOT_FOUND);
+        assertAccepted(results.get(5), 5);
+        assertAccepted(results.get(6), 6);
+        assertRejected(results.get(7), 7, CommonConstants.INSUFFICIENT_ASSET_BALANCE);
+
+        assertOrder(results.get(0).getOrderId(), OrderSide.BUY, "10", "5");
+        assertOrder(results.get(5).getOrderId(), OrderSide.SELL, "4", "70");
+        assertOrder(results.get(6).getOrderId(), OrderSide.BUY, "5", "10");
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM trade_order WHERE customer_id = ?", Integer.class, customerId));
+
+        Map<String, Object> tryBalance = balance(customerId, AssetCodes.TRY);
+        assertEquals(0, new BigDecimal("100").compareTo((BigDecimal) tryBalance.get("size")));
+        assertEquals(0, BigDecimal.ZERO.compareTo((BigDecimal) tryBalance.get("usable_size")));
+        Map<String, Object> garanBalance = balance(customerId, AssetCodes.GARAN);
+        assertEquals(0, new BigDecimal("10").compareTo((BigDecimal) garanBalance.get("size")));
+        assertEquals(0, new BigDecimal("6").compareTo((BigDecimal) garanBalance.get("usable_size")));
+    }
+
+    /**
+     * Enters the same orders one by one and in one bulk submission, for two customers with the same balances, and
+     * compares the orders per second. A bulk submission takes one transaction, one balance update per asset and one
+     * batched insert for all orders, so it must be faster than one transaction per order.
+     */
+    @Test
+    void bulkSubmissionIsFasterThanSingleOrders() {
+        BigDecimal funds = BigDecimal.valueOf(ORDERS * 2L);
+        Long singleCustomerId = createCustomer(funds, BigDecimal.ZERO);
+        Long bulkCustomerId = createCustomer(funds, BigDecimal.ZERO);
+        List<BulkOrderItem> items = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            items.add(item(AssetCodes.SASA, OrderSide.BUY, "1", BigDecimal.valueOf(100 + i % 50, 2).toPlainString()));
+        }
+        tradeOrderService.createTradeOrder(singleCustomerId, AssetCodes.SASA, OrderSide.BUY, BigDecimal.ONE, BigDecimal.ONE); // Warm up
+
+        long startNanos = System.nanoTime();
+        for (BulkOrderItem item : items) {
+            tradeOrderService.createTradeOrder(singleCustomerId, item.getAssetCode(), item.getSide(), item.getSize(), item.getPrice());
+        }
+        long singleNanos = System.nanoTime() - startNanos;
+
+        startNanos = System.nanoTime();
+        BulkCreateOrderResponse response = tradeOrderService.createTradeOrders(bulkCustomerId, items);
+        long bulkNanos = System.nanoTime() - startNanos;
+
+        assertEquals(ORDERS, response.getAccepted());
+        log.info("{} orders: {} orders/s one by one, {} orders/s in bulk", ORDERS, ordersPerSecond(singleNanos), ordersPerSecond(bulkNanos));
+        assertTrue(bulkNanos < singleNanos, () -> "bulk entry took " + TimeUnit.NANOSECONDS.toMillis(bulkNanos)
+                + " ms, single entry " + TimeUnit.NANOSECONDS.toMillis(singleNanos) + " ms");
+    }
+
+    /**
+     * Creates a customer with the given TRY and GARAN balances, all of them usable.
+     */
+    private Long createCustomer(BigDecimal tryBalance, BigDecimal garanBalance) {
+        return transactionTemplate.execute(status -> {
+            Customer customer = new Customer();
+            customer.setEnabled(true);
+            customer = customerRepository.save(customer);
+            customerIds.add(customer.getId());
+            assetRepository.save(new Asset(null, customer, AssetCodes.TRY, tryBalance, tryBalance));
+            if (garanBalance.signum() > 0) {
+                assetRepository.save(new Asset(null, customer, AssetCodes.GARAN, garanBalance, garanBalance));
+            }
+            return customer.getId();
+        });
+    }
+
+    private Map<String, Object> balance(Long customerId, AssetCodes assetCode) {
+        return jdbcTemplate.queryForMap("SELECT size, usable_size FROM asset WHERE customer_id = ? AND asset_code = ?",
+                                        customerId, assetCode.name());
+    }
+
+    private void assertOrder(Long orderId, OrderSide side, String size, String price) {
+        TradeOrder order = tradeOrderRepository.findById(orderId).orElseThrow();
+        assertEquals(side, order.getOrderSide());
+        assertEquals(OrderStatus.PENDING, order.getStatus());
+        assertEquals(0, new BigDecimal(size).compareTo(order.getSize()));
+        assertEquals(0, new BigDecimal(price).compareTo(order.getPrice()));
+    }
+
+    private static void assertAccepted(BulkOrderResult result, int index) {
+        assertEquals(index, result.getIndex());
+        assertEquals(BulkOrderStatus.ACCEPTED, result.getStatus());
+        assertNotNull(result.getOrderId());
+        assertNull(result.getMessage());
+    }
+
+    private static void assertRejected(BulkOrderResult result, int index, String message) {
+        assertEquals(index, result.getIndex());
+        assertEquals(BulkOrderStatus.REJECTED, result.getStatus());
+        assertNull(result.getOrderId());
+        assertEquals(message, result.getMessage());
+    }
+
+    private static long ordersPerSecond(long nanos) {
+        return ORDERS * 1_000_000_000L / Math.max(1, nanos);
+    }
+
+    private static BulkOrderItem item(AssetCodes assetCode, OrderSide side, String size, String price) {
+        BulkOrderItem item = new BulkOrderItem();
+        item.setAssetCode(assetCode);
+        item.setSide(side);
+        item.setSize(new BigDecimal(size));
+        item.setPrice(new BigDecimal(price));
+        return item;
+    }
+}
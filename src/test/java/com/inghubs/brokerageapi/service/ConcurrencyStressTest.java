@@ -0,0 +1,394 @@
+package com.inghubs.brokerageapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.TransactionType;
+import com.inghubs.brokerageapi.entity.Asset;
+import com.inghubs.brokerageapi.entity.Customer;
+import com.inghubs.brokerageapi.entity.Transaction;
+import com.inghubs.brokerageapi.exception.InsufficientBalanceException;
+import com.inghubs.brokerageapi.exception.OrderNotFoundException;
+import com.inghubs.brokerageapi.repository.AssetRepository;
+import com.inghubs.brokerageapi.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs order entry, cancels, amendments, mass cancels, deposits, withdrawals and matching from several threads at once, in a
+ * random order per thread, and checks the balance invariants after every round:
+ * <ul>
+ *     <li>no balance is negative and no usable size exceeds its balance;</li>
+ *     <li>the locked TRY of every customer (size minus usable size) equals the cost of its open BUY orders, and the
+ *     locked amount of every share equals the size of its open SELL orders;</li>
+ *     <li>the total size of every share is unchanged, and the total TRY changed only by the processed deposits and
+ *     withdrawals;</li>
+ *     <li>every trade executed at the price of its sell order and not above the price of its buy order.</li>
+ * </ul>
+ * Operations that lose a deadlock or time out on a lock are retried; deadlocks, lock conflicts, retries and throughput
+ * are logged. The load is set with the {@code stress.threads}, {@code stress.rounds}, {@code stress.operations}
+ * (per thread and round) and {@code stress.seed} system properties.
+ */
+@SpringBootTest
+class ConcurrencyStressTest {
+    private static final Logger log = LoggerFactory.getLogger(ConcurrencyStressTest.class);
+    private static final int THREADS = Integer.getInteger("stress.threads", 8);
+    private static final int ROUNDS = Integer.getInteger("stress.rounds", 3);
+    private static final int OPERATIONS = Integer.getInteger("stress.operations", 100);
+    private static final long SEED = Long.getLong("stress.seed", System.nanoTime());
+    private static final int MAX_ATTEMPTS = 5;
+    private static final AssetCodes[] SHARES = {AssetCodes.GARAN, AssetCodes.ING, AssetCodes.SASA};
+
+    @Autowired
+    private TradeOrderService tradeOrderService;
+    @Autowired
+    private TradeMatchingService tradeMatchingService;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> customerIds = new ArrayList<>();
+    private final List<Long> orderIds = new CopyOnWriteArrayList<>();
+    private final Map<String, LongAdder> operations = new ConcurrentHashMap<>();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder deadlocks = new LongAdder();
+    private final LongAdder lockConflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final LongAdder trades = new LongAdder();
+    private final List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+    @Test
+    void balancesStayConsistentUnderConcurrentLoad() throws Exception {
+        log.info("Stress run with {} threads, {} rounds of {} operations per thread, seed {}", THREADS, ROUNDS, OPERATIONS, SEED);
+        createCustomers();
+        Map<String, BigDecimal> startTotals = totals();
+        long lastTransactionId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM transaction", Long.class);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long startNanos = System.nanoTime();
+            runRound(round);
+            long elapsedNanos = System.nanoTime() - startNanos;
+            assertTrue(failures.isEmpty(), () -> "Unexpected failures in round, first: " + failures.get(0));
+            awaitPendingTransactions();
+
+            checkInvariants(startTotals, lastTransactionId);
+            long total = THREADS * (long) OPERATIONS;
+            log.info("Round {}: {} operations in {} ms ({} ops/s), {} trades so far, operations {}, {} rejections, {} deadlocks, "
+                             + "{} lock conflicts, {} retries, {} abandoned after {} attempts",
+                     round, total, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), total * 1_000_000_000L / elapsedNanos, trades.sum(),
+                     operations, rejections.sum(), deadlocks.sum(), lockConflicts.sum(), retries.sum(), abandoned.sum(), MAX_ATTEMPTS);
+        }
+    }
+
+    /**
+     * Interleaves matching with amendments that move crossing orders apart. Half of the threads place a buy order at
+     * 22.00 and a sell order at 20.00 for two different customers and at once reprice one of them so that the pair no
+     * longer crosses; the other half match the book meanwhile. A match that read the book before an amendment and
+     * locks the orders after it must not trade them, so no trade may execute above the price of its buy order.
+     */
+    @Test
+    void amendedOrdersDoNotTradeThroughTheirPrice() throws Exception {
+        createCustomers();
+        Map<String, BigDecimal> startTotals = totals();
+        long lastTransactionId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM transaction", Long.class);
+        int amenders = Math.max(1, THREADS / 2);
+        CountDownLatch amending = new CountDownLatch(amenders);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(SEED * 31 + t);
+            boolean amender = t < amenders;
+            Thread thread = new Thread(() -> {
+                try {
+                    if (amender) {
+                        for (int i = 0; i < OPERATIONS; i++) {
+                            placeAndMoveApart(random);
+                        }
+                        amending.countDown();
+                    } else {
+                        while (amending.getCount() > 0) {
+                            Integer fills = attempt("match", random, () -> tradeMatchingService.matchOrders(AssetCodes.GARAN).size());
+                            if (fills != null) {
+                                trades.add(fills);
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                } finally {
+                    done.countDown();
+                }
+            }, "stress-amend-" + t);
+            thread.start();
+        }
+        assertTrue(done.await(10, TimeUnit.MINUTES), "Stress run did not finish");
+        assertTrue(failures.isEmpty(), () -> "Unexpected failures, first: " + failures.get(0));
+        awaitPendingTransactions();
+
+        checkInvariants(startTotals, lastTransactionId);
+        log.info("Amend and match run: {} trades, operations {}, {} rejections, {} deadlocks, {} lock conflicts, {} retries",
+                 trades.sum(), operations, rejections.sum(), deadlocks.sum(), lockConflicts.sum(), retries.sum());
+    }
+
+    /**
+     * Places a crossing pair of orders of two customers and reprices one of them so that the pair no longer crosses.
+     */
+    private void placeAndMoveApart(Random random) {
+        int buyer = random.nextInt(customerIds.size());
+        Long buyerId = customerIds.get(buyer);
+        Long sellerId = customerIds.get((buyer + 1 + random.nextInt(customerIds.size() - 1)) % customerIds.size());
+        Long buyOrderId = attempt("order", random, () -> tradeOrderService.createTradeOrder(
+                buyerId, AssetCodes.GARAN, OrderSide.BUY, BigDecimal.ONE, new BigDecimal("22.00")).getId());
+        Long sellOrderId = attempt("order", random, () -> tradeOrderService.createTradeOrder(
+                sellerId, AssetCodes.GARAN, OrderSide.SELL, BigDecimal.ONE, new BigDecimal("20.00")).getId());
+        if (buyOrderId == null || sellOrderId == null) {
+            return;
+        }
+        if (random.nextBoolean()) {
+            attempt("amend", random, () -> tradeOrderService.amendTradeOrder(buyOrderId, null, new BigDecimal("18.00")).getId());
+        } else {
+            attempt("amend", random, () -> tradeOrderService.amendTradeOrder(sellOrderId, null, new BigDecimal("24.00")).getId());
+        }
+    }
+
+    /**
+     * Creates the customers that place the orders, each with TRY and some of every share.
+     */
+    private void createCustomers() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < THREADS; i++) {
+                Customer customer = new Customer();
+                customer.setEnabled(true);
+                customer = customerRepository.save(customer);
+                customerIds.add(customer.getId());
+                assetRepository.save(new Asset(null, customer, AssetCodes.TRY, new BigDecimal("100000"), new BigDecimal("100000")));
+                for (AssetCodes share : SHARES) {
+                    assetRepository.save(new Asset(null, customer, share, new BigDecimal("500"), new BigDecimal("500")));
+                }
+            }
+        });
+    }
+
+    /**
+     * Starts every thread at the same time and waits until all of them have run their operations.
+     */
+    private void runRound(int round) throws InterruptedException {
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(SEED * 31 + round * 1_000L + t);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS; i++) {
+                        runOperation(random);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                } finally {
+                    done.countDown();
+                }
+            }, "stress-" + round + "-" + t);
+            thread.start();
+        }
+        assertTrue(done.await(10, TimeUnit.MINUTES), "Stress round did not finish");
+    }
+
+    /**
+     * Runs one randomly chosen operation for a random customer.
+     */
+    private void runOperation(Random random) {
+        Long customerId = customerIds.get(random.nextInt(customerIds.size()));
+        AssetCodes share = SHARES[random.nextInt(SHARES.length)];
+        int choice = random.nextInt(100);
+        if (choice < 40) {
+            OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+            BigDecimal size = BigDecimal.valueOf(1 + random.nextInt(20));
+            BigDecimal price = BigDecimal.valueOf(3600 + random.nextInt(9) * 50, 2); // 18.00 to 22.00
+            Long orderId = attempt("order", random, () -> tradeOrderService.createTradeOrder(customerId, share, side, size, price).getId());
+            if (orderId != null) {
+                orderIds.add(orderId);
+            }
+        } else if (choice < 50) {
+            if (!orderIds.isEmpty()) {
+                Long orderId = orderIds.get(random.nextInt(orderIds.size()));
+                attempt("cancel", random, () -> {
+                    tradeOrderService.cancelTradeOrder(orderId);
+                    return orderId;
+                });
+            }
+        } else if (choice < 55) {
+            if (!orderIds.isEmpty()) {
+                Long orderId = orderIds.get(random.nextInt(orderIds.size()));
+                BigDecimal size = random.nextBoolean() ? BigDecimal.valueOf(1 + random.nextInt(20)) : null;
+                BigDecimal price = size == null || random.nextBoolean() ? BigDecimal.valueOf(3600 + random.nextInt(9) * 50, 2) : null;
+                attempt("amend", random, () -> tradeOrderService.amendTradeOrder(orderId, size, price).getId());
+            }
+        } else if (choice < 60) {
+            AssetCodes assetCode = random.nextBoolean() ? share : null;
+            OrderSide side = random.nextBoolean() ? OrderSide.BUY : null;
+            attempt("massCancel", random, () -> tradeOrderService.cancelTradeOrders(customerId, assetCode, side));
+        } else if (choice < 75) {
+            TransactionType type = random.nextBoolean() ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL;
+            // One in ten transactions asks for more than any balance, so some withdrawals fail
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(10) == 0 ? 1_000_000 : 1 + random.nextInt(5000));
+            boolean sync = random.nextBoolean();
+            attempt(sync ? "transaction" : "acceptTransaction", random, () -> {
+                Transaction transaction = newTransaction(customerId, type, amount);
+                return sync ? transactionService.checkAndSaveTransaction(transaction) : transactionService.acceptTransaction(transaction);
+            });
+        } else {
+            Integer fills = attempt("match", random, () -> tradeMatchingService.matchOrders(share).size());
+            if (fills != null) {
+                trades.add(fills);
+            }
+        }
+    }
+
+    /**
+     * Runs an operation, retrying it after a short random pause when it loses a deadlock or a lock wait.
+     * Business rejections (insufficient balance, order no longer pending) are counted and end the operation.
+     *
+     * @return the operation's result, or null if it was rejected or abandoned
+     */
+    private <T> T attempt(String name, Random random, Supplier<T> operation) {
+        operations.computeIfAbsent(name, key -> new LongAdder()).increment();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (InsufficientBalanceException | OrderNotFoundException e) {
+                rejections.increment();
+                return null;
+            } catch (ConcurrencyFailureException e) {
+                (isDeadlock(e) ? deadlocks : lockConflicts).increment();
+                if (attempt == MAX_ATTEMPTS) {
+                    abandoned.increment();
+                    return null;
+                }
+                retries.increment();
+                try {
+                    Thread.sleep(random.nextInt(5 * attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(interrupted);
+                }
+            }
+        }
+    }
+
+    /**
+     * H2 reports a deadlock with SQL state 40001 and rolls back the victim; Spring translates it to a lock failure.
+     */
+    private static boolean isDeadlock(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && "40001".equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Transaction newTransaction(Long customerId, TransactionType type, BigDecimal amount) {
+        Customer customer = new Customer();
+        customer.setId(customerId);
+        Transaction transaction = new Transaction();
+        transaction.setCustomer(customer);
+        transaction.setType(type);
+        transaction.setAmount(amount);
+        return transaction;
+    }
+
+    /**
+     * Waits until the background batch processor has applied every accepted transaction.
+     */
+    private void awaitPendingTransactions() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction WHERE status = 'PENDING'", Long.class) > 0) {
+            assertTrue(System.nanoTime() < deadline, "Pending transactions were not processed");
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Returns the total size of every asset code over all customers.
+     */
+    private Map<String, BigDecimal> totals() {
+        Map<String, BigDecimal> totals = new ConcurrentHashMap<>();
+        jdbcTemplate.query("SELECT asset_code, SUM(size) FROM asset GROUP BY asset_code",
+                           row -> {
+                               totals.put(row.getString(1), row.getBigDecimal(2));
+                           });
+        return totals;
+    }
+
+    private void checkInvariants(Map<String, BigDecimal> startTotals, long lastTransactionId) {
+        List<String> negative = jdbcTemplate.queryForList(
+                "SELECT customer_id || '/' || asset_code || ': ' || size || ', usable ' || usable_size FROM asset "
+                        + "WHERE size < 0 OR usable_size < 0 OR usable_size > size", String.class);
+        assertEquals(Collections.emptyList(), negative, "Negative or over-usable balances");
+
+        List<String> locks = jdbcTemplate.queryForList(
+                "SELECT customer_id || '/' || asset_code || ': ' || SUM(locked) FROM ("
+                        + "SELECT customer_id, asset_code, size - usable_size AS locked FROM asset "
+                        + "UNION ALL SELECT customer_id, 'TRY', -size * price FROM trade_order "
+                        + "WHERE order_side = 'BUY' AND status IN ('PENDING', 'PARTIALLY_FILLED') "
+                        + "UNION ALL SELECT customer_id, asset_code, -size FROM trade_order "
+                        + "WHERE order_side = 'SELL' AND status IN ('PENDING', 'PARTIALLY_FILLED')) "
+                        + "GROUP BY customer_id, asset_code HAVING SUM(locked) <> 0", String.class);
+        assertEquals(Collections.emptyList(), locks, "Locked balances that differ from the open orders");
+
+        List<String> orders = jdbcTemplate.queryForList(
+                "SELECT id || ': ' || status || ' ' || size FROM trade_order WHERE size < 0 "
+                        + "OR (status = 'FILLED' AND size <> 0) OR (status IN ('PENDING', 'PARTIALLY_FILLED') AND size <= 0)", String.class);
+        assertEquals(Collections.emptyList(), orders, "Orders with an impossible remaining size");
+
+        // An order that traded is no longer pending and cannot be amended, so its price is the one it traded at
+        List<String> prices = jdbcTemplate.queryForList(
+                "SELECT t.id || ': ' || t.executed_price || ' for buy ' || b.price || ' and sell ' || s.price FROM trade t "
+                        + "JOIN trade_order b ON b.id = t.buyer_order_id JOIN trade_order s ON s.id = t.seller_order_id "
+                        + "WHERE t.executed_price > b.price OR t.executed_price <> s.price", String.class);
+        assertEquals(Collections.emptyList(), prices, "Trades outside the prices of their orders");
+
+        Map<String, BigDecimal> totals = totals();
+        for (AssetCodes share : SHARES) {
+            assertEquals(0, startTotals.get(share.name()).compareTo(totals.get(share.name())),
+                         () -> share + " total changed from " + startTotals.get(share.name()) + " to " + totals.get(share.name()));
+        }
+        BigDecimal netTransactions = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(CASE WHEN type = 'DEPOSIT' THEN amount ELSE -amount END), 0) FROM transaction "
+                        + "WHERE id > ? AND status = 'PROCESSED'", BigDecimal.class, lastTransactionId);
+        BigDecimal expectedTry = startTotals.get(AssetCodes.TRY.name()).add(netTransactions);
+        assertEquals(0, expectedTry.compareTo(totals.get(AssetCodes.TRY.name())),
+                     () -> "TRY total is " + totals.get(AssetCodes.TRY.name()) + ", expected " + expectedTry);
+    }
+}
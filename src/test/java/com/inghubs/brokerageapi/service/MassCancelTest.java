@@ -0,0 +1,250 @@
+package com.inghubs.brokerageapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.constant.OrderStatus;
+import com.inghubs.brokerageapi.dto.MassCancelResponse;
+import com.inghubs.brokerageapi.entity.Asset;
+import com.inghubs.brokerageapi.entity.Customer;
+import com.inghubs.brokerageapi.entity.TradeOrder;
+import com.inghubs.brokerageapi.repository.AssetRepository;
+import com.inghubs.brokerageapi.repository.CustomerRepository;
+import com.inghubs.brokerageapi.repository.TradeOrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks mass cancels: the filters select the orders to cancel, and the funds of the canceled orders are released
+ * and no others. A mass cancel that runs while matching settles fills of the same customer must not deadlock with
+ * it, since both lock the orders in ID order.
+ */
+@SpringBootTest
+class MassCancelTest {
+    private static final Logger log = LoggerFactory.getLogger(MassCancelTest.class);
+    private static final int ROUNDS = Integer.getInteger("massCancel.rounds", 30);
+    private static final int ORDERS_PER_ROUND = 5;
+    private static final int MAX_ATTEMPTS = 10;
+
+    @Autowired
+    private TradeOrderService tradeOrderService;
+    @Autowired
+    private TradeMatchingService tradeMatchingService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private AssetRepository assetRepository;
+    @Autowired
+    private TradeOrderRepository tradeOrderRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> customerIds = new ArrayList<>();
+    private final AtomicInteger deadlocks = new AtomicInteger();
+    private final AtomicInteger lockConflicts = new AtomicInteger();
+    private final List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void cancelOrders() {
+        customerIds.forEach(customerId -> tradeOrderService.cancelTradeOrders(customerId, null, null));
+    }
+
+    /**
+     * Cancels the orders of one asset, then of one side, then the rest, and checks after every step that exactly the
+     * funds of the canceled orders were released. The orders are priced so that they cross no order of the shared
+     * database.
+     */
+    @Test
+    void releasesTheFundsOfTheCanceledOrders() {
+        Long customerId = createCustomer(new BigDecimal("1000"), new BigDecimal("100"));
+        Long garanBuy = place(customerId, AssetCodes.GARAN, OrderSide.BUY, "10", "5");    // 50 TRY
+        Long ingBuy = place(customerId, AssetCodes.ING, OrderSide.BUY, "5", "4");         // 20 TRY
+        Long garanSell = place(customerId, AssetCodes.GARAN, OrderSide.SELL, "20", "70"); // 20 GARAN
+        Long ingSell = place(customerId, AssetCodes.ING, OrderSide.SELL, "10", "70");     // 10 ING
+        assertUsable(customerId, AssetCodes.TRY, "930");
+        assertUsable(customerId, AssetCodes.GARAN, "80");
+        assertUsable(customerId, AssetCodes.ING, "90");
+
+        MassCancelResponse garan = tradeOrderService.cancelTradeOrders(customerId, AssetCodes.GARAN, null);
+        assertEquals(List.of(garanBuy, garanSell), garan.getOrderIds());
+        assertUsable(customerId, AssetCodes.TRY, "980");
+        assertUsable(customerId, AssetCodes.GARAN, "100");
+        assertUsable(customerId, AssetCodes.ING, "90");
+
+        MassCancelResponse sells = tradeOrderService.cancelTradeOrders(customerId, null, OrderSide.SELL);
+        assertEquals(List.of(ingSell), sells.getOrderIds());
+        assertUsable(customerId, AssetCodes.TRY, "980");
+        assertUsable(customerId, AssetCodes.ING, "100");
+        assertEquals(OrderStatus.PENDING, status(ingBuy));
+
+        MassCancelResponse rest = tradeOrderService.cancelTradeOrders(customerId, null, null);
+        assertEquals(List.of(ingBuy), rest.getOrderIds());
+        assertUsable(customerId, AssetCodes.TRY, "1000");
+        for (Long orderId : List.of(garanBuy, ingBuy, garanSell, ingSell)) {
+            assertEquals(OrderStatus.CANCELED, status(orderId));
+        }
+        assertEquals(0, tradeOrderService.cancelTradeOrders(customerId, null, null).getCanceled());
+    }
+
+    /**
+     * One thread places crossing buy and sell orders for two customers and mass cancels the buyer's orders every
+     * round, while another thread matches the instrument, so settlements lock the same orders the cancels lock. The
+     * buy orders are twice the size of the sell orders, so most cancels release what is left of a partial fill. A
+     * lock wait that times out is retried; a deadlock fails the test. Afterwards neither customer may have funds
+     * locked by canceled or filled orders.
+     */
+    @Test
+    void massCancelDoesNotDeadlockWithMatching() throws InterruptedException {
+        Long buyerId = createCustomer(new BigDecimal("100000"), BigDecimal.ZERO);
+        Long sellerId = createCustomer(BigDecimal.ZERO, new BigDecimal("10000"));
+        CountDownLatch entering = new CountDownLatch(1);
+        AtomicInteger trades = new AtomicInteger();
+        AtomicInteger canceled = new AtomicInteger();
+
+        Thread entry = new Thread(() -> {
+            try {
+                for (int round = 0; round < ROUNDS; round++) {
+                    for (int i = 0; i < ORDERS_PER_ROUND; i++) {
+                        attempt(() -> place(buyerId, AssetCodes.GARAN, OrderSide.BUY, "2", "19"));
+                        attempt(() -> place(sellerId, AssetCodes.GARAN, OrderSide.SELL, "1", "19"));
+                    }
+                    MassCancelResponse response = attempt(() -> tradeOrderService.cancelTradeOrders(buyerId, null, null));
+                    if (response != null) {
+                        canceled.addAndGet(response.getCanceled());
+                    }
+                }
+            } catch (Throwable e) {
+                failures.add(e);
+            } finally {
+                entering.countDown();
+            }
+        }, "mass-cancel-entry");
+        Thread matcher = new Thread(() -> {
+            try {
+                while (entering.getCount() > 0) {
+                    Integer fills = attempt(() -> tradeMatchingService.matchOrders(AssetCodes.GARAN).size());
+                    if (fills != null) {
+                        trades.addAndGet(fills);
+                    }
+                }
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        }, "mass-cancel-matcher");
+        entry.start();
+        matcher.start();
+        entry.join(TimeUnit.MINUTES.toMillis(5));
+        matcher.join(TimeUnit.MINUTES.toMillis(1));
+
+        log.info("{} rounds: {} orders canceled, {} trades, {} deadlocks, {} lock conflicts",
+                 ROUNDS, canceled.get(), trades.get(), deadlocks.get(), lockConflicts.get());
+        assertTrue(failures.isEmpty(), () -> "Unexpected failure, first: " + failures.get(0));
+        assertEquals(0, deadlocks.get(), "a mass cancel and a settlement deadlocked");
+
+        tradeOrderService.cancelTradeOrders(buyerId, null, null);
+        tradeOrderService.cancelTradeOrders(sellerId, null, null);
+        assertNothingLocked(buyerId, AssetCodes.TRY);
+        assertNothingLocked(sellerId, AssetCodes.GARAN);
+    }
+
+    /**
+     * Runs an operation, retrying it after a lock wait timed out. A deadlock is counted and ends the operation.
+     *
+     * @return the operation's result, or null after a deadlock
+     */
+    private <T> T attempt(Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (ConcurrencyFailureException e) {
+                if (isDeadlock(e)) {
+                    deadlocks.incrementAndGet();
+                    return null;
+                }
+                lockConflicts.incrementAndGet();
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * H2 reports a deadlock with SQL state 40001 and rolls back the victim.
+     */
+    private static boolean isDeadlock(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && "40001".equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a customer with the given TRY balance and the given balance of every share, all of it usable.
+     */
+    private Long createCustomer(BigDecimal tryBalance, BigDecimal shareBalance) {
+        return transactionTemplate.execute(status -> {
+            Customer customer = new Customer();
+            customer.setEnabled(true);
+            customer = customerRepository.save(customer);
+            customerIds.add(customer.getId());
+            assetRepository.save(new Asset(null, customer, AssetCodes.TRY, tryBalance, tryBalance));
+            for (AssetCodes share : List.of(AssetCodes.GARAN, AssetCodes.ING, AssetCodes.SASA)) {
+                assetRepository.save(new Asset(null, customer, share, shareBalance, shareBalance));
+            }
+            return customer.getId();
+        });
+    }
+
+    private Long place(Long customerId, AssetCodes assetCode, OrderSide side, String size, String price) {
+        TradeOrder order = tradeOrderService.createTradeOrder(customerId, assetCode, side, new BigDecimal(size), new BigDecimal(price));
+        return order.getId();
+    }
+
+    private OrderStatus status(Long orderId) {
+        return tradeOrderRepository.findById(orderId).orElseThrow().getStatus();
+    }
+
+    private void assertUsable(Long customerId, AssetCodes assetCode, String usableSize) {
+        assertEquals(0, new BigDecimal(usableSize).compareTo((BigDecimal) balance(customerId, assetCode).get("usable_size")),
+                     () -> assetCode + " usable size of customer " + customerId);
+    }
+
+    private void assertNothingLocked(Long customerId, AssetCodes assetCode) {
+        Map<String, Object> balance = balance(customerId, assetCode);
+        BigDecimal size = (BigDecimal) balance.get("size");
+        BigDecimal usableSize = (BigDecimal) balance.get("usable_size");
+        assertTrue(usableSize.signum() >= 0, () -> assetCode + " of customer " + customerId + " is negative");
+        assertEquals(0, size.compareTo(usableSize), () -> assetCode + " of customer " + customerId + " still has "
+                + size.subtract(usableSize) + " locked");
+    }
+
+    private Map<String, Object> balance(Long customerId, AssetCodes assetCode) {
+        return jdbcTemplate.queryForMap("SELECT size, usable_size FROM asset WHERE customer_id = ? AND asset_code = ?",
+                                        customerId, assetCode.name());
+    }
+}
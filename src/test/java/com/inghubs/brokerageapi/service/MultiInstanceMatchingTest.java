@@ -0,0 +1,398 @@
+package com.inghubs.brokerageapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com.inghubs.brokerageapi.BrokerageapiApplication;
+import com.inghubs.brokerageapi.book.ResidentOrderBooks;
+import com.inghubs.brokerageapi.constant.AssetCodes;
+import com.inghubs.brokerageapi.constant.OrderSide;
+import com.inghubs.brokerageapi.entity.Asset;
+import com.inghubs.brokerageapi.entity.Customer;
+import com.inghubs.brokerageapi.entity.OutboxEvent;
+import com.inghubs.brokerageapi.exception.InsufficientBalanceException;
+import com.inghubs.brokerageapi.exception.OrderNotFoundException;
+import com.inghubs.brokerageapi.outbox.InMemoryOutboxEventSink;
+import com.inghubs.brokerageapi.repository.AssetRepository;
+import com.inghubs.brokerageapi.repository.CustomerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Starts several application instances on one shared database and lets every instance enter orders and match all
+ * instruments at the same time, as instances behind a load balancer would. Matching leases are enabled, so each
+ * instrument is matched by one instance at a time. After the run the test checks that:
+ * <ul>
+ *     <li>no order was filled for more than its size: its trades and its remaining size add up to its original size;</li>
+ *     <li>the locked balances equal the open orders and the total of every share is unchanged;</li>
+ *     <li>no two open orders of different customers cross any more;</li>
+ *     <li>once reconciled, the resident books of every instance hold the open orders of the database;</li>
+ *     <li>the outbox relays of all instances together published every event exactly once;</li>
+ *     <li>no operation lost a deadlock, and every lease was released.</li>
+ * </ul>
+ * The instances run in one JVM, each with its own application context, connection pool and Hibernate session factory.
+ * The load is set with the {@code instances.count}, {@code instances.orders} (per instance) and {@code instances.seed}
+ * system properties.
+ */
+class MultiInstanceMatchingTest {
+    private static final Logger log = LoggerFactory.getLogger(MultiInstanceMatchingTest.class);
+    private static final int INSTANCES = Integer.getInteger("instances.count", 3);
+    private static final int ORDERS = Integer.getInteger("instances.orders", 150);
+    private static final long SEED = Long.getLong("instances.seed", System.nanoTime());
+    private static final int CUSTOMERS = 6;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final AssetCodes[] SHARES = {AssetCodes.GARAN, AssetCodes.ING, AssetCodes.SASA};
+    private static final Path DATABASE = Path.of("target", "multi-instance");
+
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private final List<Long> customerIds = new ArrayList<>();
+    private final Map<Long, BigDecimal> originalSizes = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> fills = new ConcurrentHashMap<>();
+    private final LongAdder matchRuns = new LongAdder();
+    private final LongAdder deadlocks = new LongAdder();
+    private final LongAdder lockConflicts = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void closeInstances() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void instancesMatchSharedBooksWithoutOverfills() throws Exception {
+        log.info("Multi-instance run with {} instances, {} orders per instance, seed {}", INSTANCES, ORDERS, SEED);
+        startInstances();
+        createCustomers();
+        JdbcTemplate jdbcTemplate = contexts.get(0).getBean(JdbcTemplate.class);
+        Map<String, BigDecimal> startTotals = totals(jdbcTemplate);
+        long lastOrderId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM trade_order", Long.class);
+
+        long startNanos = System.nanoTime();
+        run();
+        long elapsedNanos = System.nanoTime() - startNanos;
+        assertTrue(failures.isEmpty(), () -> "Unexpected failures, first: " + failures.get(0));
+
+        // One last pass matches whatever crossed after the matchers stopped
+        for (AssetCodes share : SHARES) {
+            Integer count = attempt(() -> contexts.get(0).getBean(TradeMatchingService.class).matchOrders(share).size());
+            if (count != null) {
+                fills.get("instance-1").add(count);
+            }
+        }
+
+        long totalFills = fills.values().stream().mapToLong(LongAdder::sum).sum();
+        log.info("{} orders and {} match runs in {} ms: {} fills ({} fills/s), per instance {}, {} deadlocks, {} lock conflicts, "
+                         + "{} abandoned after {} attempts",
+                 INSTANCES * ORDERS, matchRuns.sum(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), totalFills,
+                 totalFills * 1_000_000_000L / elapsedNanos, fills, deadlocks.sum(), lockConflicts.sum(), abandoned.sum(), MAX_ATTEMPTS);
+
+        checkFills(jdbcTemplate, lastOrderId);
+        checkBalances(jdbcTemplate, startTotals);
+        checkBooks(jdbcTemplate);
+        checkResidentBooks(jdbcTemplate);
+        checkOutbox(jdbcTemplate);
+        assertEquals(0, deadlocks.sum(), "Deadlocks between instances");
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM matching_lease WHERE owner IS NOT NULL", Long.class),
+                     "Leases still held after matching");
+    }
+
+    /**
+     * Starts the instances on a fresh file database. The first one creates the schema and the seed rows.
+     */
+    private void startInstances() throws IOException {
+        if (Files.exists(DATABASE)) {
+            try (Stream<Path> files = Files.walk(DATABASE)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+        for (int i = 1; i <= INSTANCES; i++) {
+            boolean first = i == 1;
+            contexts.add(new SpringApplicationBuilder(BrokerageapiApplication.class)
+                                 .web(WebApplicationType.NONE)
+                                 .run("--spring.datasource.url=jdbc:h2:file:./" + DATABASE.resolve("db").toString().replace('\\', '/'),
+                                      "--spring.jpa.hibernate.ddl-auto=" + (first ? "create" : "none"),
+                                      "--spring.sql.init.mode=" + (first ? "always" : "never"),
+                                      "--application.warm-up.enabled=false",
+                                      "--application.matching.lease.enabled=true",
+                                      "--application.matching.lease.owner=instance-" + i));
+            fills.put("instance-" + i, new LongAdder());
+        }
+    }
+
+    /**
+     * Creates the customers that place the orders, each with TRY and some of every share.
+     */
+    private void createCustomers() {
+        ConfigurableApplicationContext context = contexts.get(0);
+        CustomerRepository customerRepository = context.getBean(CustomerRepository.class);
+        AssetRepository assetRepository = context.getBean(AssetRepository.class);
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            for (int i = 0; i < CUSTOMERS; i++) {
+                Customer customer = new Customer();
+                customer.setEnabled(true);
+                customer = customerRepository.save(customer);
+                customerIds.add(customer.getId());
+                assetRepository.save(new Asset(null, customer, AssetCodes.TRY, new BigDecimal("1000000"), new BigDecimal("1000000")));
+                for (AssetCodes share : SHARES) {
+                    assetRepository.save(new Asset(null, customer, share, new BigDecimal("10000"), new BigDecimal("10000")));
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs a trader and a matcher on every instance at the same time. The traders place crossing orders and cancel
+     * some of them; the matchers match every instrument in turn until all traders are done.
+     */
+    private void run() throws InterruptedException {
+        CyclicBarrier start = new CyclicBarrier(2 * INSTANCES);
+        CountDownLatch tradersDone = new CountDownLatch(INSTANCES);
+        CountDownLatch done = new CountDownLatch(2 * INSTANCES);
+        AtomicBoolean trading = new AtomicBoolean(true);
+        for (int i = 0; i < INSTANCES; i++) {
+            ConfigurableApplicationContext context = contexts.get(i);
+            String instance = "instance-" + (i + 1);
+            Random random = new Random(SEED * 31 + i);
+            startThread(instance + "-trader", start, done, () -> {
+                try {
+                    trade(context.getBean(TradeOrderService.class), random);
+                } finally {
+                    tradersDone.countDown();
+                }
+            });
+            startThread(instance + "-matcher", start, done, () -> {
+                TradeMatchingService matchingService = context.getBean(TradeMatchingService.class);
+                for (int run = 0; trading.get(); run++) {
+                    AssetCodes share = SHARES[run % SHARES.length];
+                    Integer count = attempt(() -> matchingService.matchOrders(share).size());
+                    matchRuns.increment();
+                    if (count != null) {
+                        fills.get(instance).add(count);
+                    }
+                }
+            });
+        }
+        assertTrue(tradersDone.await(10, TimeUnit.MINUTES), "Traders did not finish");
+        trading.set(false);
+        assertTrue(done.await(1, TimeUnit.MINUTES), "Matchers did not finish");
+    }
+
+    private void startThread(String name, CyclicBarrier start, CountDownLatch done, Runnable body) {
+        Thread thread = new Thread(() -> {
+            try {
+                start.await();
+                body.run();
+            } catch (Throwable e) {
+                failures.add(e);
+            } finally {
+                done.countDown();
+            }
+        }, name);
+        thread.start();
+    }
+
+    /**
+     * Places orders around 20.00 on both sides, so most of them cross, and cancels every tenth one.
+     */
+    private void trade(TradeOrderService orderService, Random random) {
+        List<Long> placed = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Long customerId = customerIds.get(random.nextInt(customerIds.size()));
+            AssetCodes share = SHARES[random.nextInt(SHARES.length)];
+            OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+            BigDecimal size = BigDecimal.valueOf(1 + random.nextInt(50));
+            BigDecimal price = BigDecimal.valueOf(1900 + random.nextInt(5) * 50, 2); // 19.00 to 21.00
+            Long orderId = attempt(() -> orderService.createTradeOrder(customerId, share, side, size, price).getId());
+            if (orderId != null) {
+                originalSizes.put(orderId, size);
+                placed.add(orderId);
+            }
+            if (i % 10 == 9 && !placed.isEmpty()) {
+                Long cancelId = placed.get(random.nextInt(placed.size()));
+                attempt(() -> {
+                    orderService.cancelTradeOrder(cancelId);
+                    return cancelId;
+                });
+            }
+        }
+    }
+
+    /**
+     * Runs an operation, retrying it when it loses a deadlock or a lock wait. Business rejections end the operation.
+     *
+     * @return the operation's result, or null if it was rejected or abandoned
+     */
+    private <T> T attempt(Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (InsufficientBalanceException | OrderNotFoundException e) {
+                return null;
+            } catch (ConcurrencyFailureException e) {
+                (isDeadlock(e) ? deadlocks : lockConflicts).increment();
+                if (attempt == MAX_ATTEMPTS) {
+                    abandoned.increment();
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * H2 reports a deadlock with SQL state 40001 and rolls back the victim; Spring translates it to a lock failure.
+     */
+    private static boolean isDeadlock(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && "40001".equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the total size of every asset code over all customers.
+     */
+    private Map<String, BigDecimal> totals(JdbcTemplate jdbcTemplate) {
+        Map<String, BigDecimal> totals = new ConcurrentHashMap<>();
+        jdbcTemplate.query("SELECT asset_code, SUM(size) FROM asset GROUP BY asset_code",
+                           row -> {
+                               totals.put(row.getString(1), row.getBigDecimal(2));
+                           });
+        return totals;
+    }
+
+    /**
+     * Checks that every order placed in the run was filled for at most its size.
+     */
+    private void checkFills(JdbcTemplate jdbcTemplate, long lastOrderId) {
+        List<String> overfilled = new ArrayList<>();
+        jdbcTemplate.query("SELECT o.id, o.size, COALESCE((SELECT SUM(t.executed_size) FROM trade t "
+                                   + "WHERE t.buyer_order_id = o.id OR t.seller_order_id = o.id), 0) "
+                                   + "FROM trade_order o WHERE o.id > ?",
+                           row -> {
+                               long id = row.getLong(1);
+                               BigDecimal original = originalSizes.get(id);
+                               BigDecimal filled = row.getBigDecimal(3);
+                               // A canceled order keeps its remaining size, so its fills and size still add up
+                               if (original == null || filled.add(row.getBigDecimal(2)).compareTo(original) != 0) {
+                                   overfilled.add(id + ": original " + original + ", filled " + filled + ", remaining " + row.getBigDecimal(2));
+                               }
+                           }, lastOrderId);
+        assertEquals(Collections.emptyList(), overfilled, "Orders whose fills and remaining size differ from their size");
+    }
+
+    private void checkBalances(JdbcTemplate jdbcTemplate, Map<String, BigDecimal> startTotals) {
+        List<String> negative = jdbcTemplate.queryForList(
+                "SELECT customer_id || '/' || asset_code || ': ' || size || ', usable ' || usable_size FROM asset "
+                        + "WHERE size < 0 OR usable_size < 0 OR usable_size > size", String.class);
+        assertEquals(Collections.emptyList(), negative, "Negative or over-usable balances");
+
+        List<String> locks = jdbcTemplate.queryForList(
+                "SELECT customer_id || '/' || asset_code || ': ' || SUM(locked) FROM ("
+                        + "SELECT customer_id, asset_code, size - usable_size AS locked FROM asset "
+                        + "UNION ALL SELECT customer_id, 'TRY', -size * price FROM trade_order "
+                        + "WHERE order_side = 'BUY' AND status IN ('PENDING', 'PARTIALLY_FILLED') "
+                        + "UNION ALL SELECT customer_id, asset_code, -size FROM trade_order "
+                        + "WHERE order_side = 'SELL' AND status IN ('PENDING', 'PARTIALLY_FILLED')) "
+                        + "GROUP BY customer_id, asset_code HAVING SUM(locked) <> 0", String.class);
+        assertEquals(Collections.emptyList(), locks, "Locked balances that differ from the open orders");
+
+        Map<String, BigDecimal> totals = totals(jdbcTemplate);
+        for (AssetCodes assetCode : AssetCodes.values()) {
+            assertEquals(0, startTotals.get(assetCode.name()).compareTo(totals.get(assetCode.name())),
+                         () -> assetCode + " total changed from " + startTotals.get(assetCode.name()) + " to " + totals.get(assetCode.name()));
+        }
+    }
+
+    /**
+     * Checks that matching left no open buy order at or above an open sell order of another customer.
+     */
+    private void checkBooks(JdbcTemplate jdbcTemplate) {
+        List<String> crossed = jdbcTemplate.queryForList(
+                "SELECT b.asset_code || ': buy ' || b.id || ' at ' || b.price || ', sell ' || s.id || ' at ' || s.price "
+                        + "FROM trade_order b JOIN trade_order s ON s.asset_code = b.asset_code AND s.customer_id <> b.customer_id "
+                        + "WHERE b.order_side = 'BUY' AND s.order_side = 'SELL' AND b.price >= s.price "
+                        + "AND b.status IN ('PENDING', 'PARTIALLY_FILLED') AND s.status IN ('PENDING', 'PARTIALLY_FILLED')", String.class);
+        assertEquals(Collections.emptyList(), crossed, "Crossed orders left after matching");
+    }
+
+    /**
+     * Waits until the relays have published every outbox event, then checks that no event was published by more than
+     * one instance or more than once.
+     */
+    private void checkOutbox(JdbcTemplate jdbcTemplate) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_event WHERE published_at IS NULL", Long.class) > 0) {
+            assertTrue(System.nanoTime() < deadline, "Outbox events still unpublished after a minute");
+            Thread.sleep(100);
+        }
+        Map<Long, Integer> publications = new HashMap<>();
+        for (ConfigurableApplicationContext context : contexts) {
+            for (OutboxEvent event : context.getBean(InMemoryOutboxEventSink.class).getEvents()) {
+                publications.merge(event.getId(), 1, Integer::sum);
+            }
+        }
+        List<Long> duplicates = publications.entrySet().stream().filter(entry -> entry.getValue() > 1).map(Map.Entry::getKey).toList();
+        assertEquals(Collections.emptyList(), duplicates, "Outbox events published more than once");
+        assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_event", Long.class), (long) publications.size(),
+                     "Outbox events published");
+    }
+
+    /**
+     * Checks that every instance, once its books are reconciled, holds the open orders that all instances left in the
+     * database, including those entered, filled or canceled elsewhere.
+     */
+    private void checkResidentBooks(JdbcTemplate jdbcTemplate) {
+        List<String> differences = new ArrayList<>();
+        for (int i = 0; i < contexts.size(); i++) {
+            ResidentOrderBooks books = contexts.get(i).getBean(ResidentOrderBooks.class);
+            books.reconcile();
+            for (AssetCodes share : SHARES) {
+                for (OrderSide side : OrderSide.values()) {
+                    long open = jdbcTemplate.queryForObject(
+                            "SELECT COUNT(*) FROM trade_order WHERE asset_code = ? AND order_side = ? "
+                                    + "AND status IN ('PENDING', 'PARTIALLY_FILLED')", Long.class, share.name(), side.name());
+                    if (books.orderCount(share, side) != open) {
+                        differences.add("instance-" + (i + 1) + " " + share + " " + side + ": " + books.orderCount(share, side)
+                                                + " in the book, " + open + " open");
+                    }
+                }
+            }
+        }
+        assertEquals(Collections.emptyList(), differences, "Resident books that differ from the database after a reconcile");
+    }
+}
@@ -0,0 +1,186 @@
+package com.inghubs.brokerageapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.inghubs.brokerageapi.book.ResidentOrderBooks;
+import com.inghubs.brokerageapi.constant.CommonConstants;
+import com.inghubs.brokerageapi.dto.SeedLoadReport;
+import com.inghubs.brokerageapi.exception.SeedDataException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks the seed loader against seed directories written to a temporary root: a consistent directory is loaded
+ * with its customer IDs shifted past the existing ones, and a directory whose balances disagree with its open orders,
+ * whose orders are invalid or whose assets repeat a balance is rejected as a whole, leaving no row behind. A
+ * directory outside the root is refused. The loaded orders are priced so that they cross no order of the shared
+ * database, and canceled after every test.
+ */
+@SpringBootTest
+class SeedLoaderServiceTest {
+    private static final String CUSTOMERS = "id,enabled\n1,true\n2,true\n";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ResidentOrderBooks books;
+    @Autowired
+    private TradeOrderService tradeOrderService;
+    @TempDir
+    Path temporaryDirectory;
+
+    private Path root;
+    private SeedLoaderService seedLoaderService;
+    private final List<Long> customerIds = new ArrayList<>();
+
+    @BeforeEach
+    void createLoader() {
+        root = temporaryDirectory.resolve("seed");
+        seedLoaderService = new SeedLoaderService(jdbcTemplate, transactionTemplate, books, root.toString());
+    }
+
+    @AfterEach
+    void cancelOrders() {
+        customerIds.forEach(customerId -> tradeOrderService.cancelTradeOrders(customerId, null, null));
+    }
+
+    /**
+     * Loads two customers with balances and an open order of each side that lock exactly part of them. The rows
+     * must be loaded for new customers after the existing ones, and the orders must be cancelable, i.e. in the books.
+     */
+    @Test
+    void loadsAConsistentDirectory() throws IOException {
+        long maxCustomerId = maxCustomerId();
+        seed("consistent", CUSTOMERS,
+             """
+             customer_id,asset_code,size,usable_size
+             1,TRY,100,55
+             2,TRY,50,50
+             2,GARAN,10,6
+             """,
+             """
+             customer_id,asset_code,side,size,price,status,create_date
+             1,GARAN,BUY,3,15,PENDING,2024-01-02 10:00:00
+             2,GARAN,SELL,4,70,PENDING,2024-01-02 10:00:01
+             """);
+
+        SeedLoadReport report = seedLoaderService.load("consistent");
+        customerIds.add(maxCustomerId + 1);
+        customerIds.add(maxCustomerId + 2);
+
+        assertEquals(2, report.getCustomers());
+        assertEquals(3, report.getAssets());
+        assertEquals(2, report.getOrders());
+        Map<String, Object> tryBalance = jdbcTemplate.queryForMap("SELECT size, usable_size FROM asset WHERE customer_id = ? AND asset_code = 'TRY'",
+                                                                  maxCustomerId + 1);
+        assertEquals(0, new BigDecimal("100").compareTo((BigDecimal) tryBalance.get("size")));
+        assertEquals(0, new BigDecimal("55").compareTo((BigDecimal) tryBalance.get("usable_size")));
+        assertEquals(1, tradeOrderService.cancelTradeOrders(maxCustomerId + 2, null, null).getCanceled());
+    }
+
+    /**
+     * Loads a usable size above the balance. The load must be rejected and leave no customer behind.
+     */
+    @Test
+    void rejectsUsableSizeOutsideTheBalance() throws IOException {
+        seed("usable", CUSTOMERS, "customer_id,asset_code,size,usable_size\n1,TRY,100,120\n", null);
+        assertRejected("usable", CommonConstants.SEED_DATA_INCONSISTENT, "usable size 120.00 outside 0..100.00");
+    }
+
+    /**
+     * Loads open orders whose locked amounts disagree with the balances: a buy order whose cost is not locked and a
+     * sell order of an asset without a balance. The load must be rejected and leave no customer or order behind.
+     */
+    @Test
+    void rejectsLocksThatDisagreeWithOpenOrders() throws IOException {
+        seed("locks", CUSTOMERS, "customer_id,asset_code,size,usable_size\n1,TRY,100,100\n",
+             """
+             customer_id,asset_code,side,size,price,status,create_date
+             1,GARAN,BUY,1,10,PENDING,2024-01-02 10:00:00
+             2,GARAN,SELL,5,70,PENDING,2024-01-02 10:00:01
+             """);
+        SeedDataException rejection = assertRejected("locks", CommonConstants.SEED_DATA_INCONSISTENT, "TRY locked amount differs from open orders by -10");
+        assertTrue(rejection.getMessage().contains("GARAN locked amount differs from open orders by -5"), rejection.getMessage());
+    }
+
+    /**
+     * Loads an open order of size zero, which locks nothing and so agrees with the balances. The load must still be
+     * rejected.
+     */
+    @Test
+    void rejectsOrdersOfSizeZero() throws IOException {
+        seed("invalid", CUSTOMERS, "customer_id,asset_code,size,usable_size\n1,TRY,100,100\n",
+             "customer_id,asset_code,side,size,price,status,create_date\n1,GARAN,BUY,0,10,PENDING,2024-01-02 10:00:00\n");
+        assertRejected("invalid", CommonConstants.SEED_DATA_INCONSISTENT, "has a size or price of zero or less");
+    }
+
+    /**
+     * Loads two TRY balances for one customer. The load must be rejected as a duplicate balance.
+     */
+    @Test
+    void rejectsDuplicateBalances() throws IOException {
+        seed("duplicate", CUSTOMERS, "customer_id,asset_code,size,usable_size\n1,TRY,100,100\n1,TRY,50,50\n", null);
+        assertRejected("duplicate", CommonConstants.SEED_DUPLICATE_ASSETS, "");
+    }
+
+    /**
+     * Asks for a directory outside the seed root. It must be refused before anything is read.
+     */
+    @Test
+    void refusesDirectoriesOutsideTheRoot() throws IOException {
+        Files.createDirectories(temporaryDirectory.resolve("outside"));
+        SeedDataException rejection = assertThrows(SeedDataException.class, () -> seedLoaderService.load("../outside"));
+        assertTrue(rejection.getMessage().startsWith(CommonConstants.SEED_DIRECTORY_NOT_FOUND), rejection.getMessage());
+    }
+
+    /**
+     * Asserts that loading a directory fails with the given message and leaves the customers and orders as they were.
+     */
+    private SeedDataException assertRejected(String name, String message, String detail) {
+        long customers = count("customer");
+        long orders = count("trade_order");
+        SeedDataException rejection = assertThrows(SeedDataException.class, () -> seedLoaderService.load(name));
+        assertTrue(rejection.getMessage().startsWith(message) && rejection.getMessage().contains(detail), rejection.getMessage());
+        assertEquals(customers, count("customer"), "customers left by a rejected load");
+        assertEquals(orders, count("trade_order"), "orders left by a rejected load");
+        return rejection;
+    }
+
+    /**
+     * Writes the files of a seed directory; a null content leaves the file out.
+     */
+    private void seed(String name, String customers, String assets, String orders) throws IOException {
+        Path directory = Files.createDirectories(root.resolve(name));
+        Files.writeString(directory.resolve("customers.csv"), customers);
+        Files.writeString(directory.resolve("assets.csv"), assets);
+        if (orders != null) {
+            Files.writeString(directory.resolve("orders.csv"), orders);
+        }
+    }
+
+    private long maxCustomerId() {
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM customer", Long.class);
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+}